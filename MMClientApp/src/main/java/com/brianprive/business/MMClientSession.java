@@ -1,29 +1,98 @@
 package com.brianprive.business;
 
+import ashulzhenko.protocol.MMEmbeddedEngine;
+import ashulzhenko.protocol.MMFrame;
+import ashulzhenko.protocol.MMFrameCodec;
+import ashulzhenko.protocol.MMMessageCodec;
+import ashulzhenko.protocol.MMTransportProfile;
+import ashulzhenko.protocol.MMUnixSockets;
+import java.nio.channels.SocketChannel;
 import java.net.*;  // for Socket
 import java.io.*;   // for IOException and Input/OutputStream
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * This class is responsible for maintaining the session with the server.
  * It communicates with the client by receiving and 
  * sending the appropriate messages.
  * 
+ * A multiplexed session plays many games at once over one connection
+ * instead: every game is started with startGame, which returns its id,
+ * and the guesses, hints and quits of the games may be interleaved.
+ * The requests are buffered until flush is called, the guesses sent
+ * together travel in one batch, and the replies are received one by one 
+ * with receiveReply in the order of the requests.
+ * 
+ * The socket is set up with a transport profile, the latency profile 
+ * by default: every request is written with one write once it is 
+ * complete, without Nagle's algorithm.
+ * 
+ * A server given as unix:path is reached through the Unix domain socket
+ * at the path instead of port 50000, when the client and the server run
+ * on the same host.
+ * 
+ * A server given as embedded is an engine running in this process
+ * with the rules of the server, for playing alone without a server
+ * or network; it only plays one game at a time.
+ * 
+ * The games of a resumable session survive a lost connection: 
+ * every game gets a resume token from the server when it is started, 
+ * and a turn whose connection is lost reconnects to the server and 
+ * resumes the game. The turn is sent again if the server did not score 
+ * it; otherwise its clues are the ones the server sends again 
+ * with the resumed game. A game that is not found is looked for 
+ * a few more times, and the token is kept until the next game.
+ * 
+ * A session opened with connectAsync also has methods ending in Async,
+ * which run the exchange with the server on an I/O thread of 
+ * the session and return at once. The futures complete on that thread,
+ * in the order of the calls, so a user interface has to hand
+ * the results over to its own thread (e.g. with Platform.runLater)
+ * and never waits on the network.
+ * 
  * @author Brian Prive
  * @author Salman Haidar
- * @version 25/10/2016
+ * @version 18/10/2026
  * @since 1.8
  */
 public class MMClientSession
 {
-    private Socket socket;
     private InputStream in;
     private MMPacket packet;
+    private ExecutorService io;
     private final static int SERV_PORT = 50000;
+    /** The number of times a lost game is looked for on the server. */
+    private final static int RESUME_ATTEMPTS = 3;
+    /** The wait before the game is looked for again, in milliseconds. */
+    private final static int RESUME_DELAY = 250;
+    /** The server address of the engine embedded in the client. */
+    public final static String EMBEDDED = "embedded";
     
     private boolean lostGame;
     private boolean gameWon;
     private boolean isOk;
     private int[] receivedMessage;
+    private int pegs;
+    private int colors;
+    
+    private final String server;
+    private final MMTransportProfile profile;
+    private boolean resumable;
+    private long token;
+    private int round;
+    
+    private final boolean multiplexed;
+    private int nextGameId;
+    private Map<Integer, Integer> pegsByGame;
+    private MMFrame requestFrame;
+    private MMFrame batch;
+    private MMFrame reply;
+    private int replyIndex;
     
     /**
      * Instantiates the object receiving the IP number of the server.
@@ -34,12 +103,226 @@ public class MMClientSession
      */
     public MMClientSession(String server) throws IOException
     {
-        socket = new Socket();
-        //creates the socket with the specified timeout
-        socket.connect(new InetSocketAddress(server, SERV_PORT), 1000);
-        packet = new MMPacket(socket);
+        this(server, false);
+    }
+    
+    /**
+     * Instantiates the object receiving the IP number of the server
+     * and whether the session plays many games at once.
+     * 
+     * @param server the IP number of the server.
+     * @param multiplexed true to play many games at once over 
+     *                    the connection; false to play one game at a time.
+     * @throws IOException If there is a problem when communicating 
+     *                     with the server.
+     */
+    public MMClientSession(String server, boolean multiplexed) 
+            throws IOException
+    {
+        this(server, multiplexed, 
+             MMTransportProfile.of(MMTransportProfile.LATENCY));
+    }
+    
+    /**
+     * Instantiates the object receiving the IP number of the server,
+     * whether the session plays many games at once and how the socket
+     * is used.
+     * 
+     * @param server the IP number of the server, unix:path
+     *               for a Unix domain socket or embedded for 
+     *               the engine in this process.
+     * @param multiplexed true to play many games at once over 
+     *                    the connection; false to play one game at a time.
+     * @param profile the transport profile of the socket.
+     * @throws IOException If there is a problem when communicating 
+     *                     with the server.
+     * @throws IllegalArgumentException if the embedded engine is asked
+     *                                  to play many games at once.
+     */
+    public MMClientSession(String server, boolean multiplexed, 
+            MMTransportProfile profile) throws IOException
+    {
+        if (server.equals(EMBEDDED) && multiplexed)
+            throw new IllegalArgumentException(
+                    "The embedded engine plays one game at a time");
+        this.server = server;
+        this.profile = profile;
+        connect();
         lostGame = false;
         gameWon = false;
+        pegs = 4;
+        colors = 8;
+        this.multiplexed = multiplexed;
+        if (multiplexed)
+        {
+            requestFrame = new MMFrame();
+            batch = new MMFrame().reset(MMFrameCodec.BATCH, 0);
+            reply = new MMFrame();
+            pegsByGame = new HashMap<>();
+        }
+    }
+    
+    /**
+     * Opens the connection to the server.
+     * 
+     * @throws IOException If the server cannot be reached.
+     */
+    private void connect() throws IOException
+    {
+        if (server.equals(EMBEDDED))
+            packet = new MMPacket(new MMEmbeddedEngine());
+        else if (MMUnixSockets.isUnixAddress(server))
+        {
+            SocketChannel channel = MMUnixSockets.connect(
+                    MMUnixSockets.getPath(server));
+            profile.apply(channel);
+            packet = new MMPacket(channel);
+        }
+        else
+        {
+            Socket socket = new Socket();
+            profile.apply(socket);
+            //creates the socket with the specified timeout
+            socket.connect(new InetSocketAddress(server, SERV_PORT), 1000);
+            packet = new MMPacket(socket);
+        }
+        packet.setBuffered(profile.isBuffered());
+    }
+    
+    /**
+     * Sets whether the games started from now on can be resumed 
+     * after the connection is lost. The games of the embedded engine 
+     * and of a multiplexed session are never resumed.
+     * 
+     * @param resumable true to resume the games; false otherwise.
+     */
+    public void setResumable(boolean resumable)
+    {
+        this.resumable = resumable && !multiplexed 
+                && !server.equals(EMBEDDED);
+    }
+    
+    /**
+     * Returns the resume token of the current game.
+     * 
+     * @return the token; 0 if the game cannot be resumed.
+     */
+    public long getResumeToken()
+    {
+        return token;
+    }
+    
+    /**
+     * Reconnects to the server and resumes the current game 
+     * after the connection was lost. If a round was played, the clues 
+     * of the last round are received again into the message returned 
+     * by the last turn. The token is kept if the server does not 
+     * find the game, so it can be resumed again later.
+     * 
+     * @return the number of rounds the server played in the game.
+     * @throws IOException If the server cannot be reached or does not 
+     *                     keep the game anymore.
+     * @throws IllegalStateException if the game cannot be resumed.
+     */
+    public int resumeGame() throws IOException
+    {
+        if (token == 0)
+            throw new IllegalStateException("The game cannot be resumed");
+        try
+        {
+            packet.close();
+        }
+        catch (IOException ex)
+        {
+            //the connection is already lost
+        }
+        connect();
+        //a new connection starts with messages of the classic game
+        int[] request = new int[MMMessageCodec.MESSAGE_SIZE];
+        request[0] = 19;
+        packet.sendMessage(request);
+        for (int i = 0; i < MMMessageCodec.TOKEN_MESSAGES; i++)
+        {
+            MMMessageCodec.encodeToken(token, i, request);
+            packet.sendMessage(request);
+        }
+        packet.flush();
+        
+        int[] reply = receive(MMMessageCodec.MESSAGE_SIZE);
+        if (reply[0] != 19)
+            throw new IOException("The server does not keep the game anymore");
+        int played = reply[1];
+        pegs = reply[2];
+        colors = reply[3];
+        if (played > 0)
+            receive(pegs);
+        return played;
+    }
+    
+    /**
+     * Resumes the current game after the connection was lost, 
+     * looking for it again a few times: a server that has not found 
+     * the previous connection lost yet may only keep the game later.
+     * 
+     * @param lost the error of the lost connection.
+     * @return the number of rounds the server played in the game.
+     * @throws IOException If the game cannot be resumed.
+     */
+    private int resumeLostGame(IOException lost) throws IOException
+    {
+        for (int attempt = 1; ; attempt++)
+        {
+            try
+            {
+                return resumeGame();
+            }
+            catch (IOException ex)
+            {
+                if (attempt == RESUME_ATTEMPTS)
+                {
+                    ex.addSuppressed(lost);
+                    throw ex;
+                }
+            }
+            try
+            {
+                Thread.sleep((long)RESUME_DELAY * attempt);
+            }
+            catch (InterruptedException ex)
+            {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException(
+                        "Interrupted while resuming the game");
+            }
+        }
+    }
+    
+    /**
+     * Requests a game with the given geometry for the following games.
+     * The server keeps the current game if the geometry is not supported.
+     * 
+     * @param pegs the number of pegs in a code.
+     * @param colors the number of colors.
+     * @param rounds the maximum number of rounds.
+     * @return true if the server accepted the geometry; false otherwise.
+     * @throws IOException If there is a problem when communicating 
+     *                     with the server.
+     */
+    public boolean negotiateVariant(int pegs, int colors, int rounds) 
+            throws IOException
+    {
+        int[] request = new int[this.pegs];
+        request[0] = 16;
+        request[1] = pegs;
+        request[2] = colors;
+        request[3] = rounds;
+        send(request);
+        
+        int[] reply = receive(this.pegs);
+        this.pegs = reply[1];
+        this.colors = reply[2];
+        
+        return reply[1] == pegs && reply[2] == colors && reply[3] == rounds;
     }
     
     /**
@@ -54,41 +337,79 @@ public class MMClientSession
         lostGame = false;
         gameWon = false;
         isOk = true;
+        token = 0;
+        round = 0;
         
         //Send start new game
-        if(test.isEmpty()) 
-            packet.sendMessage(new int[]{0,0,0,0});
-        else
-            packet.sendMessage(getIntArray(test));
+        boolean resume = resumable && test.isEmpty();
+        int[] start = test.isEmpty() ? new int[pegs] : getIntArray(test);
+        if (resume)
+            start[0] = 18;
+        send(start);
         
         //Get OK
-        receivedMessage = packet.receiveMessage();
+        receive(pegs);
         
         //Check for okay
         if (receivedMessage[0] != 10)
             isOk = false;
+        else if (resume)
+            for (int i = 0; i < MMMessageCodec.TOKEN_MESSAGES; i++)
+                token = MMMessageCodec.decodeToken(token, i, 
+                        receive(pegs));
     }
     
     /**
      * Sends user input for one turn to the server and receives
      * the server's reply.
      * @param userIntput user's choice for the current turn.
-     * @return server's reply message.
+     * @return server's reply message; the array is reused by the next 
+     *         message.
      * @throws IOException If there is a problem when communicating 
      *                     with the server.
      */
     public int[] playTurn(int[] userIntput) throws IOException
     {
-        //check if user wants to quit the game
-        for (int num : userIntput)
-            if (num == 9)
-                lostGame = true;
+        //check if user wants to quit the game, as the server does:
+        //9 is a color of the games with more than 8 colors
+        if (userIntput[0] == 9 && (colors < 9 || userIntput[1] == 0))
+            lostGame = true;
 
-        packet.sendMessage(userIntput);
-        
-        //receive message if user does not quit the game
-        if (!lostGame)
-            receivedMessage = getServerMessage();
+        try
+        {
+            send(userIntput);
+            
+            //receive message if user does not quit the game
+            if (!lostGame)
+                receivedMessage = getServerMessage();
+        }
+        catch (IOException ex)
+        {
+            if (token == 0 || lostGame)
+                throw ex;
+            int played = resumeLostGame(ex);
+            if (played == round)
+            {
+                //the server did not score the turn: it is sent again
+                send(userIntput);
+                receivedMessage = getServerMessage();
+            }
+            else if (played == round + 1)
+            {
+                //the server scored the turn: its clues were sent again,
+                //unless the server does not know them anymore
+                round = played;
+                if (receivedMessage[0] == 11)
+                    throw new IOException(
+                            "The clues of the turn were lost with the "
+                            + "connection", ex);
+                return receivedMessage;
+            }
+            else
+                throw new IOException("The turn was lost with the connection",
+                                      ex);
+        }
+        round++;
             
         return receivedMessage;
     }
@@ -101,7 +422,9 @@ public class MMClientSession
      */
     public void quitGame() throws IOException
     {
-        packet.sendMessage(new int[]{14,14,14,14});
+        int[] quit = new int[pegs];
+        Arrays.fill(quit, 14);
+        send(quit);
     }
     
     /**
@@ -112,8 +435,11 @@ public class MMClientSession
      */
     public void quitCurrentGame() throws IOException
     {
-        packet.sendMessage(new int[]{9,9,9,9});  
-        receivedMessage = packet.receiveMessage();
+        //9 followed by 0's cannot be mistaken for a guess
+        int[] quit = new int[pegs];
+        quit[0] = 9;
+        send(quit);
+        receive(pegs);
     }
     
     /**
@@ -143,6 +469,387 @@ public class MMClientSession
         return isOk;
     }
 
+    /**
+     * Connects to the server on a new I/O thread, which then runs
+     * the Async methods of the session.
+     * 
+     * @param server the IP number of the server, unix:path
+     *               for a Unix domain socket or embedded for 
+     *               the engine in this process.
+     * @return the future session, completed on the I/O thread; it fails
+     *         with the IOException if the server cannot be reached.
+     */
+    public static CompletableFuture<MMClientSession> connectAsync(
+            String server)
+    {
+        ExecutorService io = Executors.newSingleThreadExecutor(
+                task -> new Thread(task, "mm-client-io"));
+        CompletableFuture<MMClientSession> session = submit(io, () -> 
+        {
+            MMClientSession connected = new MMClientSession(server);
+            connected.io = io;
+            return connected;
+        });
+        //the thread ends if the connection fails
+        session.whenComplete((connected, ex) -> 
+        {
+            if (ex != null)
+                io.shutdown();
+        });
+        return session;
+    }
+    
+    /**
+     * Starts a new game on the I/O thread, as startNewSession does.
+     * 
+     * @param test the answer set of the game; empty for a random one.
+     * @return the future that tells whether the server accepted the game.
+     */
+    public CompletableFuture<Boolean> startNewSessionAsync(String test)
+    {
+        return submit(io, () -> 
+        {
+            startNewSession(test);
+            return isOk;
+        });
+    }
+    
+    /**
+     * Plays one turn on the I/O thread, as playTurn does.
+     * 
+     * @param userInput user's choice for the current turn.
+     * @return the future server's reply message.
+     */
+    public CompletableFuture<int[]> playTurnAsync(int[] userInput)
+    {
+        int[] guess = userInput.clone();
+        return submit(io, () -> playTurn(guess).clone());
+    }
+    
+    /**
+     * Quits the current game on the I/O thread, as quitCurrentGame does.
+     * 
+     * @return the future completed once the server ended the game.
+     */
+    public CompletableFuture<Void> quitCurrentGameAsync()
+    {
+        return submit(io, () -> 
+        {
+            quitCurrentGame();
+            return null;
+        });
+    }
+    
+    /**
+     * Ends the session on the I/O thread, as quitGame does; 
+     * the I/O thread ends once the message is sent.
+     * 
+     * @return the future completed once the message is sent.
+     */
+    public CompletableFuture<Void> quitGameAsync()
+    {
+        CompletableFuture<Void> quit = submit(io, () -> 
+        {
+            quitGame();
+            return null;
+        });
+        io.shutdown();
+        return quit;
+    }
+    
+    /**
+     * Runs the exchange with the server on the I/O thread.
+     * 
+     * @param <T> the type of the result.
+     * @param io the executor of the I/O thread.
+     * @param exchange the exchange to run.
+     * @return the future result, completed on the I/O thread.
+     */
+    private static <T> CompletableFuture<T> submit(ExecutorService io, 
+            Exchange<T> exchange)
+    {
+        if (io == null)
+            throw new IllegalStateException(
+                    "The session was not opened with connectAsync");
+        CompletableFuture<T> result = new CompletableFuture<>();
+        try
+        {
+            io.execute(() -> 
+            {
+                try
+                {
+                    result.complete(exchange.run());
+                }
+                catch (IOException | RuntimeException ex)
+                {
+                    result.completeExceptionally(ex);
+                }
+            });
+        }
+        catch (RuntimeException ex)
+        {
+            //the session is ended
+            result.completeExceptionally(ex);
+        }
+        return result;
+    }
+    
+    /**
+     * Requests a new game of a multiplexed session.
+     * 
+     * @param pegs the number of pegs in a code.
+     * @param colors the number of colors.
+     * @param rounds the maximum number of rounds.
+     * @param answer the answer set of the game; null for a random one.
+     * @return the id of the game.
+     * @throws IOException If there is a problem when communicating 
+     *                     with the server.
+     */
+    public int startGame(int pegs, int colors, int rounds, int[] answer) 
+            throws IOException
+    {
+        checkMultiplexed();
+        int gameId = nextGameId++;
+        requestFrame.reset(MMFrameCodec.NEW_GAME, gameId)
+               .put(pegs).put(colors).put(rounds);
+        if (answer != null)
+            requestFrame.put(answer);
+        pegsByGame.put(gameId, pegs);
+        sendRequest();
+        return gameId;
+    }
+    
+    /**
+     * Requests the clues of a guess in a game of a multiplexed session.
+     * The guesses requested until the next flush are sent in one batch.
+     * 
+     * @param gameId the id of the game.
+     * @param guess the colors of the guess.
+     * @throws IOException If there is a problem when communicating 
+     *                     with the server.
+     */
+    public void guess(int gameId, int[] guess) throws IOException
+    {
+        checkMultiplexed();
+        if (batch.getRoom() < 5 + guess.length)
+            sendBatch();
+        batch.putInt(gameId).put(guess.length).put(guess);
+    }
+    
+    /**
+     * Requests the suggested next guess of a game of a multiplexed session.
+     * 
+     * @param gameId the id of the game.
+     * @throws IOException If there is a problem when communicating 
+     *                     with the server.
+     */
+    public void requestHint(int gameId) throws IOException
+    {
+        checkMultiplexed();
+        requestFrame.reset(MMFrameCodec.HINT, gameId);
+        sendRequest();
+    }
+    
+    /**
+     * Requests the end of a game of a multiplexed session.
+     * 
+     * @param gameId the id of the game.
+     * @throws IOException If there is a problem when communicating 
+     *                     with the server.
+     */
+    public void quitGame(int gameId) throws IOException
+    {
+        checkMultiplexed();
+        requestFrame.reset(MMFrameCodec.QUIT_GAME, gameId);
+        sendRequest();
+    }
+    
+    /**
+     * Sends the requests of a multiplexed session to the server.
+     * 
+     * @throws IOException If there is a problem when communicating 
+     *                     with the server.
+     */
+    public void flush() throws IOException
+    {
+        checkMultiplexed();
+        sendBatch();
+        packet.flush();
+    }
+    
+    /**
+     * Receives the next reply of a multiplexed session; 
+     * every guess gets its own reply of type CLUES.
+     * 
+     * @param gameReply the object the reply is received into.
+     * @throws IOException If there is a problem when communicating 
+     *                     with the server.
+     */
+    public void receiveReply(MMGameReply gameReply) throws IOException
+    {
+        checkMultiplexed();
+        if (replyIndex == reply.getLength())
+        {
+            packet.receiveFrame(reply);
+            replyIndex = 0;
+            if (reply.getOpcode() != MMFrameCodec.BATCH_CLUES)
+            {
+                gameReply.set(reply.getOpcode(), reply.getGameId());
+                readPayload(gameReply);
+                replyIndex = reply.getLength();
+            }
+        }
+        if (replyIndex < reply.getLength())
+            readBatchEntry(gameReply);
+        if (gameReply.isGameOver())
+            pegsByGame.remove(gameReply.getGameId());
+    }
+    
+    /**
+     * Ends the multiplexed session and closes the connection.
+     * 
+     * @throws IOException If there is a problem when communicating 
+     *                     with the server.
+     */
+    public void close() throws IOException
+    {
+        checkMultiplexed();
+        requestFrame.reset(MMFrameCodec.BYE, 0);
+        sendRequest();
+        flush();
+        MMGameReply gameReply = new MMGameReply();
+        do
+            receiveReply(gameReply);
+        while (gameReply.getType() != MMGameReply.CLOSED);
+        packet.close();
+    }
+    
+    /**
+     * Receives a message of a game played one at a time into the array 
+     * reused by the session, which is only allocated again when the 
+     * size of the messages changes.
+     * 
+     * @param size the number of bytes of the message.
+     * @return the message; the array is reused by the next message.
+     * @throws IOException If there is a problem when communicating 
+     *                     with the server.
+     */
+    private int[] receive(int size) throws IOException
+    {
+        if (receivedMessage == null || receivedMessage.length != size)
+            receivedMessage = new int[size];
+        packet.receiveMessage(receivedMessage);
+        return receivedMessage;
+    }
+    
+    /**
+     * Sends a message of a game played one at a time 
+     * with one write.
+     * 
+     * @param message the message to send.
+     * @throws IOException 
+     */
+    private void send(int[] message) throws IOException
+    {
+        packet.sendMessage(message);
+        packet.flush();
+    }
+    
+    /**
+     * An exchange with the server run on the I/O thread.
+     * 
+     * @param <T> the type of the result.
+     */
+    private interface Exchange<T>
+    {
+        /**
+         * Runs the exchange.
+         * 
+         * @return the result.
+         * @throws IOException If there is a problem when communicating 
+         *                     with the server.
+         */
+        T run() throws IOException;
+    }
+    
+    /**
+     * Throws an exception if the session is not multiplexed.
+     */
+    private void checkMultiplexed()
+    {
+        if (!multiplexed)
+            throw new IllegalStateException("The session is not multiplexed");
+    }
+    
+    /**
+     * Sends the request after the guesses requested before it.
+     * 
+     * @throws IOException 
+     */
+    private void sendRequest() throws IOException
+    {
+        sendBatch();
+        packet.sendFrame(requestFrame);
+    }
+    
+    /**
+     * Sends the guesses requested since the last batch.
+     * 
+     * @throws IOException 
+     */
+    private void sendBatch() throws IOException
+    {
+        if (batch.getLength() == 0)
+            return;
+        packet.sendFrame(batch);
+        batch.reset(MMFrameCodec.BATCH, 0);
+    }
+    
+    /**
+     * Reads the payload of a reply that is not a batch.
+     * 
+     * @param gameReply the object the reply is received into.
+     */
+    private void readPayload(MMGameReply gameReply)
+    {
+        int index = 0;
+        switch (gameReply.getType())
+        {
+            case MMGameReply.CLUES:
+                gameReply.setClues(reply.get(0), reply.get(1), reply.get(2));
+                index += 3;
+                break;
+            case MMGameReply.ERROR:
+                gameReply.setError(reply.get(index++));
+                break;
+            default:
+                break;
+        }
+        for (; index < reply.getLength(); index++)
+            gameReply.addColor(reply.get(index));
+    }
+    
+    /**
+     * Reads the next entry of a batch of clues: 
+     * game id, in, out, status [answer set].
+     * 
+     * @param gameReply the object the reply is received into.
+     */
+    private void readBatchEntry(MMGameReply gameReply)
+    {
+        gameReply.set(MMGameReply.CLUES, reply.getInt(replyIndex));
+        int status = reply.get(replyIndex + 6);
+        gameReply.setClues(reply.get(replyIndex + 4), 
+                           reply.get(replyIndex + 5), status);
+        replyIndex += 7;
+        if (status == MMGameReply.LOST)
+        {
+            Integer gamePegs = pegsByGame.get(gameReply.getGameId());
+            for (int i = 0; gamePegs != null && i < gamePegs; i++)
+                gameReply.addColor(reply.get(replyIndex++));
+        }
+    }
+    
     /**
      * Receives server's message with hints. If the game is ended, 
      * it also receives the correct answer set.
@@ -151,7 +858,7 @@ public class MMClientSession
      * @throws IOException 
      */
     private int[] getServerMessage() throws IOException {
-        receivedMessage = packet.receiveMessage();
+        receive(pegs);
         
         for (int num : receivedMessage) {
             //the game is lost
@@ -168,7 +875,7 @@ public class MMClientSession
         
         //receive the answer set
         if(receivedMessage[0] == 15)
-            receivedMessage = packet.receiveMessage();
+            receive(pegs);
 
         return receivedMessage;
     }
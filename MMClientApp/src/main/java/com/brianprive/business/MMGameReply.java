@@ -0,0 +1,191 @@
+package com.brianprive.business;
+
+import ashulzhenko.protocol.MMFrameCodec;
+import java.util.Arrays;
+
+/**
+ * One reply of the server to a game played over a multiplexed session.
+ * The object is filled by MMClientSession.receiveReply and can be
+ * reused for every reply.
+ *
+ * @version 18/10/2026
+ * @since 1.8
+ */
+public class MMGameReply
+{
+    /** The game is started; the colors are the pegs, colors and rounds. */
+    public static final int STARTED = MMFrameCodec.STARTED;
+    /** The clues of a guess. */
+    public static final int CLUES = MMFrameCodec.CLUES;
+    /** The suggested next guess; the colors are the guess. */
+    public static final int SUGGESTION = MMFrameCodec.SUGGESTION;
+    /** The game is ended; the colors are the answer set. */
+    public static final int ENDED = MMFrameCodec.ENDED;
+    /** The session is ended. */
+    public static final int CLOSED = MMFrameCodec.CLOSED;
+    /** The request is refused. */
+    public static final int ERROR = MMFrameCodec.ERROR;
+
+    /** The game goes on. */
+    public static final int PLAYING = MMFrameCodec.PLAYING;
+    /** The answer set was found. */
+    public static final int WON = MMFrameCodec.WON;
+    /** Every round was played; the colors are the answer set. */
+    public static final int LOST = MMFrameCodec.LOST;
+    /** The guess was not about a running game or not valid. */
+    public static final int REFUSED = MMFrameCodec.REFUSED;
+
+    /** The request is not valid. */
+    public static final int BAD_REQUEST = MMFrameCodec.BAD_REQUEST;
+    /** There is no game with the id. */
+    public static final int NO_GAME = MMFrameCodec.NO_GAME;
+    /** There is already a game with the id. */
+    public static final int GAME_EXISTS = MMFrameCodec.GAME_EXISTS;
+    /** The game requested is not supported. */
+    public static final int BAD_VARIANT = MMFrameCodec.BAD_VARIANT;
+    /** The server is too busy to answer. */
+    public static final int BUSY = MMFrameCodec.BUSY;
+
+    private int type;
+    private int gameId;
+    private int inPlace;
+    private int outPlace;
+    private int status;
+    private int error;
+    private final int[] colors = new int[16];
+    private int colorCount;
+
+    /**
+     * Sets the reply.
+     * @param type the type of the reply.
+     * @param gameId the id of the game.
+     */
+    void set(int type, int gameId)
+    {
+        this.type = type;
+        this.gameId = gameId;
+        this.inPlace = 0;
+        this.outPlace = 0;
+        this.status = PLAYING;
+        this.error = 0;
+        this.colorCount = 0;
+    }
+
+    /**
+     * Sets the clues of a guess.
+     * @param inPlace the number of colors in place.
+     * @param outPlace the number of colors out of place.
+     * @param status the status of the game.
+     */
+    void setClues(int inPlace, int outPlace, int status)
+    {
+        this.inPlace = inPlace;
+        this.outPlace = outPlace;
+        this.status = status;
+    }
+
+    /**
+     * Sets the reason of a refusal.
+     * @param error the reason of the refusal.
+     */
+    void setError(int error)
+    {
+        this.error = error;
+    }
+
+    /**
+     * Appends a color to the reply.
+     * @param color the color.
+     */
+    void addColor(int color)
+    {
+        if (colorCount < colors.length)
+            colors[colorCount++] = color;
+    }
+
+    /**
+     * Returns the type of the reply: STARTED, CLUES, SUGGESTION,
+     * ENDED, CLOSED or ERROR.
+     * @return the type of the reply.
+     */
+    public int getType()
+    {
+        return type;
+    }
+
+    /**
+     * Returns the id of the game the reply is about.
+     * @return the id of the game.
+     */
+    public int getGameId()
+    {
+        return gameId;
+    }
+
+    /**
+     * Returns the number of colors in place of a guess.
+     * @return the number of colors in place.
+     */
+    public int getInPlace()
+    {
+        return inPlace;
+    }
+
+    /**
+     * Returns the number of colors out of place of a guess.
+     * @return the number of colors out of place.
+     */
+    public int getOutPlace()
+    {
+        return outPlace;
+    }
+
+    /**
+     * Returns the status of the game after a guess:
+     * PLAYING, WON, LOST or REFUSED.
+     * @return the status of the game.
+     */
+    public int getStatus()
+    {
+        return status;
+    }
+
+    /**
+     * Returns the reason of a refusal: BAD_REQUEST, NO_GAME,
+     * GAME_EXISTS, BAD_VARIANT or BUSY.
+     * @return the reason of the refusal; 0 if the reply is not an error.
+     */
+    public int getError()
+    {
+        return error;
+    }
+
+    /**
+     * Returns the colors of the reply: the answer set,
+     * the suggested guess or the game that is started.
+     * @return the colors of the reply; empty if there are none.
+     */
+    public int[] getColors()
+    {
+        return Arrays.copyOf(colors, colorCount);
+    }
+
+    /**
+     * Returns true if the game is over after this reply.
+     * @return true if the game is over; false otherwise.
+     */
+    public boolean isGameOver()
+    {
+        return type == ENDED ||
+              (type == CLUES && (status == WON || status == LOST));
+    }
+
+    @Override
+    public String toString()
+    {
+        return "MMGameReply{type=" + type + ", gameId=" + gameId
+                + ", inPlace=" + inPlace + ", outPlace=" + outPlace
+                + ", status=" + status + ", error=" + error
+                + ", colors=" + Arrays.toString(getColors()) + '}';
+    }
+}
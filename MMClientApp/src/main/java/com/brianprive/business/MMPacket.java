@@ -1,68 +1,149 @@
 package com.brianprive.business;
 
+import ashulzhenko.protocol.MMEmbeddedEngine;
+import ashulzhenko.protocol.MMFrame;
+import ashulzhenko.protocol.MMStreamPacket;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.OutputStream;
 import java.net.Socket;
 import java.net.SocketException;
+import java.nio.channels.SocketChannel;
 
 /**
  * A utility class to send and receive messages.
+ * It also sends and receives the frames of the multiplexed protocol
+ * described in MMFrameCodec; the frames sent are buffered 
+ * until flush is called.
+ * The messages and frames are exchanged with a server by the 
+ * MMStreamPacket shared with the server, through a socket or a blocking 
+ * socket channel such as a Unix domain socket; the messages of the first 
+ * protocol can also be exchanged with an embedded engine in the same 
+ * process. The messages are received into arrays owned by the caller,
+ * so exchanging a message does not allocate memory.
  * @author Alena Shulzhenko
- * @version 08/09/2016
+ * @version 18/10/2026
  * @since 1.8
  */
 public class MMPacket
 {
-    private Socket socket;
+    private MMStreamPacket stream;
+    private MMEmbeddedEngine engine;
     
     /**
      * Instantiates the object when receiving the socket.
      * @param socket the Socket object.
      */
     public MMPacket(Socket socket) {
-        this.socket = socket;
+        this.stream = new MMStreamPacket(socket);
     }
     
     /**
-     * Receives the message through the socket.
-     * @return the message that is received
+     * Instantiates the object when receiving a channel in blocking mode.
+     * @param channel the connected channel.
+     */
+    public MMPacket(SocketChannel channel) {
+        this.stream = new MMStreamPacket(channel);
+    }
+    
+    /**
+     * Instantiates the object exchanging the messages with the engine
+     * instead of a server.
+     * @param engine the embedded engine.
+     */
+    public MMPacket(MMEmbeddedEngine engine) {
+        this.engine = engine;
+    }
+    
+    /**
+     * Sets whether the messages are written together on flush
+     * or every message at once; the frames are always written on flush.
+     * @param buffered true to write the messages on flush.
+     */
+    public void setBuffered(boolean buffered) {
+        if(stream != null)
+            stream.setBuffered(buffered);
+    }
+    
+    /**
+     * Receives the message through the socket into the given array.
+     * @param message the array of as many values as the bytes 
+     *                of the message.
      * @throws IOException If there is a communication problem.
      */
-    public int[] receiveMessage() throws IOException {
-        byte[] byteBuffer = new byte[4];
-        InputStream in = this.socket.getInputStream();
-        
-        int totalBytesRcvd = 0;	// Total bytes received so far
-        int bytesRcvd;		// Bytes received in last read
-        while (totalBytesRcvd < byteBuffer.length)
-        {
-          if ((bytesRcvd = in.read(byteBuffer, totalBytesRcvd,
-                            byteBuffer.length - totalBytesRcvd)) == -1)
-            throw new SocketException("Connection closed prematurely");
-          totalBytesRcvd += bytesRcvd;
+    public void receiveMessage(int[] message) throws IOException {
+        if(engine == null) {
+            stream.receiveMessage(message);
+            return;
         }
-        
-        int[] array = new int[byteBuffer.length];
-        //convert byte[] to int[]
-        for(int i = 0; i < array.length; i++)
-            array[i] = byteBuffer[i];
-        
-        return array;
+        if(!engine.receive(message))
+            throw new SocketException("Connection closed prematurely");
     }
     
     /**
-     * Sends the message through the socket..
+     * Sends the message through the socket, at once or on the next flush
+     * if the output is buffered.
      * @param message the message to send.
      * @throws IOException If there is a communication problem.
      */
     public void sendMessage(int[] message) throws IOException {
-        byte[] byteBuffer = new byte[message.length];
-        //convert int[] to byte[]
-        for(int i = 0; i < message.length; i++)
-            byteBuffer[i] = (byte)message[i];
-        
-        OutputStream out = this.socket.getOutputStream();
-        out.write(byteBuffer, 0, byteBuffer.length);
+        if(engine == null) {
+            stream.sendMessage(message);
+            return;
+        }
+        if(engine.isClosed())
+            throw new SocketException("The session is ended");
+        engine.send(message);
+    }
+    
+    /**
+     * Appends a frame to the frames to send; the frames are written
+     * when the buffer is full or flush is called.
+     * @param frame the frame to send.
+     * @throws IOException If there is a communication problem.
+     */
+    public void sendFrame(MMFrame frame) throws IOException {
+        checkConnected();
+        stream.sendFrame(frame);
+    }
+    
+    /**
+     * Writes the frames and messages that were sent.
+     * @throws IOException If there is a communication problem.
+     */
+    public void flush() throws IOException {
+        if(stream != null)
+            stream.flush();
+    }
+    
+    /**
+     * Receives the next frame through the socket.
+     * @param frame the frame to decode into.
+     * @throws IOException If there is a communication problem
+     *                     or the frame is not valid.
+     */
+    public void receiveFrame(MMFrame frame) throws IOException {
+        checkConnected();
+        stream.receiveFrame(frame);
+    }
+    
+    /**
+     * Checks that the packet has a connection to a server; the embedded
+     * engine only speaks the first protocol.
+     * @throws IllegalStateException if the packet uses the engine.
+     */
+    private void checkConnected() {
+        if(engine != null)
+            throw new IllegalStateException(
+                    "The embedded engine does not play multiplexed games");
+    }
+    
+    /**
+     * Closes the socket, the channel or the engine.
+     * @throws IOException If there is a problem when closing.
+     */
+    public void close() throws IOException {
+        if(engine == null)
+            stream.close();
+        else
+            engine.close();
     }
-}
\ No newline at end of file
+}
@@ -1,5 +1,6 @@
 package com.brianprive.presentation;
 
+import com.brianprive.business.MMClientSession;
 import java.util.regex.Pattern;
 import javafx.application.Application;
 import javafx.fxml.FXMLLoader;
@@ -18,6 +19,11 @@ import static javafx.application.Application.launch;
 
 /**
  * The class that starts the application.
+ * The player enters the IP of the server, or plays offline against
+ * the engine embedded in the client; the --embedded argument skips 
+ * the IP form and plays offline.
+ * The --frame-stats argument measures the frames of the window 
+ * and the turns with MMFrameMonitor.
  * 
  * @author Brian Prive
  * @author Salman Haidar
@@ -34,6 +40,7 @@ public class MMApp extends Application {
     private Stage ipStage;
     private Stage gameStage; 
     private String ip; 
+    private MMFrameMonitor monitor;
     
     /**
      * Stops the game.
@@ -60,16 +67,32 @@ public class MMApp extends Application {
         {
             gameStage = stage;
             ipStage = new Stage();
+            
+            if (getParameters().getRaw().contains("--frame-stats"))
+            {
+                monitor = new MMFrameMonitor();
+                monitor.start();
+            }
+            
+            if (getParameters().getRaw().contains("--embedded"))
+            {
+                ip = MMClientSession.EMBEDDED;
+                launchGame();
+                return;
+            }
 
             ips = new TextField[]{new TextField(""), new TextField(""), 
                                   new TextField(""), new TextField("")};
             
             Button btn = new Button("Enter");
             btn.setOnAction(event -> getServerIp());
+            Button offline = new Button("Play offline");
+            offline.setOnAction(event -> playOffline());
 
             HBox hbTitle = setHBox(new Label("Enter Server IP"));
             HBox hbErr = setHBox(setErrorLabel());
             HBox hbBtn = setHBox(btn);
+            hbBtn.getChildren().add(offline);
 
             GridPane grid = setUpGrid(hbTitle, ips, hbErr, hbBtn);
 
@@ -128,6 +151,18 @@ public class MMApp extends Application {
         }
     }
 
+    /**
+     * Launches a new game against the engine embedded in the client,
+     * without a server.
+     */
+    private void playOffline()
+    {
+        ip = MMClientSession.EMBEDDED;
+        error.setVisible(false);
+        ipStage.hide();
+        launchGame();
+    }
+
     /**
      * Launches a new game.
      * Prepares graphic elements for the Mastermind game.
@@ -143,6 +178,7 @@ public class MMApp extends Application {
             MMController controller = loader.getController();
             controller.setIp(ip);
             controller.setStage(gameStage);
+            controller.setFrameMonitor(monitor);
             controller.launch();
             
             gameStage.setTitle("Mastermind");
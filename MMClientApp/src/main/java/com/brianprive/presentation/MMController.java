@@ -1,10 +1,11 @@
 package com.brianprive.presentation;
 
 import com.brianprive.business.MMClientSession;
-import java.io.IOException;
 import java.net.URL;
 import java.util.ResourceBundle;
+import java.util.concurrent.Executor;
 import java.util.regex.Pattern;
+import javafx.application.Platform;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
@@ -29,6 +30,10 @@ import javafx.stage.Stage;
  * It works with the GUI view and the  business class MMClientSession
  * to provide the game experience for the user.
  * 
+ * The exchanges with the server run on the I/O thread of the session
+ * and their results are shown on the JavaFX Application Thread, 
+ * which never waits on the network.
+ * 
  * @author Brian Prive
  * @author Salman Haidar
  * @version 26/10/2016
@@ -36,6 +41,9 @@ import javafx.stage.Stage;
  */
 public class MMController implements Initializable
 {
+    /** Runs the results of the session on the JavaFX Application Thread. */
+    private static final Executor FX = Platform::runLater;
+    
     @FXML
     private Circle boardColor00, boardColor01, boardColor02, boardColor03,
                    boardColor10, boardColor11, boardColor12, boardColor13,
@@ -83,6 +91,7 @@ public class MMController implements Initializable
     private boolean testMode;
     private Stage testStage;
     private Stage gameStage;
+    private MMFrameMonitor monitor;
 
     /**
      * Called to initialize a controller after its root element 
@@ -132,34 +141,35 @@ public class MMController implements Initializable
      */
     public void launch()
     {
-        try
+        test = "";
+        System.out.println("Server IP: " + ip);
+        //the window is shown while the client connects
+        MMClientSession.connectAsync(ip).whenCompleteAsync((session, ex) ->
         {
-            test = "";
-            System.out.println("Server IP: " + ip);
-            game = new MMClientSession(ip);
+            if (ex != null)
+            {
+                System.err.println("Error connecting: " + ex.getMessage());
+                System.exit(1);
+            }
+            game = session;
+            //a game survives a lost connection
+            game.setResumable(true);
             start();
-        }
-        catch (IOException ioe)
-        {
-            System.err.println("Error connecting: " + ioe.getMessage());
-            System.exit(1);
-        }  
+        }, FX);
     }
     
     /**
      * Exits the Mastermind game.
+     * The application ends once the server is told, on the I/O thread.
      */
     public void quit()
     {
-        try
-        {
-            game.quitGame();
+        if (monitor != null)
+            System.out.println(monitor.report());
+        if (game == null)
             System.exit(0);
-        }
-        catch(IOException ioe)
-        {
-            System.exit(1);
-        }
+        game.quitGameAsync().whenComplete((done, ex) -> 
+                System.exit(ex == null ? 0 : 1));
     }
     
     /**
@@ -180,6 +190,15 @@ public class MMController implements Initializable
         this.gameStage = gameStage;
     }
     
+    /**
+     * Sets the monitor of the frames and turns.
+     * @param monitor the monitor; null if the frames are not measured.
+     */
+    public void setFrameMonitor(MMFrameMonitor monitor)
+    {
+        this.monitor = monitor;
+    }
+    
     /**
      * Determines user-selected color and styles the circle appropriately.
      * @param event the event that triggered this method.
@@ -223,43 +242,55 @@ public class MMController implements Initializable
     
     /**
      * Gets user's guess and sends it to the server.
-     * It receives the message from the server and displays
-     * the message if the user has won or lost.
-     * Otherwise, the clues are displayed.
+     * The reply of the server is shown once it is received.
      * @param event the event that triggered this method.
      */
     @FXML
     private void sendGuess(MouseEvent event)
     {
+        if (game == null)
+            return;
         btn_sendGuess.setDisable(true);        
         int[] guess = getUserGuesses();       
+        long sent = System.nanoTime();
         
-        try
+        game.playTurnAsync(guess).whenCompleteAsync((serverHints, ex) ->
         {
-            int[] serverHints = game.playTurn(guess);        
-            
-            if (game.isOk() && game.isGameWon())
-                displayWin();             
-            else if (game.isOk() && game.isLostGame())
-                displayLose(serverHints);              
-            else
-            {       
-                for (int i = 0; i < 4; i++)
+            if (ex != null)
+            {
+                System.err.println("Connection failed. " + ex.getMessage());
+                return;
+            }
+            if (monitor != null)
+                monitor.recordTurn(System.nanoTime() - sent);
+            displayTurn(serverHints);
+        }, FX);
+    }
+    
+    /**
+     * Displays the message from the server if the user has won or lost.
+     * Otherwise, the clues are displayed.
+     * @param serverHints the reply of the server to the guess.
+     */
+    private void displayTurn(int[] serverHints)
+    {
+        if (game.isOk() && game.isGameWon())
+            displayWin();             
+        else if (game.isOk() && game.isLostGame())
+            displayLose(serverHints);              
+        else
+        {       
+            for (int i = 0; i < 4; i++)
+            {
+                displayHint(serverHints[i], i); 
+                
+                if(round < 9)
                 {
-                    displayHint(serverHints[i], i); 
-                    
-                    if(round < 9)
-                    {
-                        Circle currentCircle = board[round+1][i];
-                        currentCircle.setDisable(false);
-                    }
+                    Circle currentCircle = board[round+1][i];
+                    currentCircle.setDisable(false);
                 }
-                round++;               
             }
-        }
-        catch (IOException ioe)
-        {
-            System.err.println("Connection failed. " + ioe.getMessage());
+            round++;               
         }
     }
     
@@ -362,15 +393,14 @@ public class MMController implements Initializable
         if(testMode)
             showTestDialog();
         
-        try
-        {
-            game.startNewSession(test);
-        }
-        catch (IOException ioe)
+        game.startNewSessionAsync(test).whenCompleteAsync((ok, ex) ->
         {
-            System.err.println("Error connecting. " + ioe.getMessage());
-            System.exit(1);
-        }
+            if (ex != null)
+            {
+                System.err.println("Error connecting. " + ex.getMessage());
+                System.exit(1);
+            }
+        }, FX);
     }
     
     /**
@@ -513,17 +543,20 @@ public class MMController implements Initializable
     @FXML
     private void newGame(ActionEvent event)
     {
-        try
-        {
-            if (!game.isGameWon() && !game.isLostGame())
-                game.quitCurrentGame();   
-            test = "";
-            start(); 
-        }
-        catch (IOException ioe) {
-            System.err.println("Error: " + ioe.getMessage());
-            System.exit(1);
-        }
+        if (game == null)
+            return;
+        //the session runs the quit before the new game
+        if (!game.isGameWon() && !game.isLostGame())
+            game.quitCurrentGameAsync().whenCompleteAsync((done, ex) ->
+            {
+                if (ex != null)
+                {
+                    System.err.println("Error: " + ex.getMessage());
+                    System.exit(1);
+                }
+            }, FX);
+        test = "";
+        start(); 
     }
     
     /**
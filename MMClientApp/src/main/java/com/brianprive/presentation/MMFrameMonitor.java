@@ -0,0 +1,85 @@
+package com.brianprive.presentation;
+
+import javafx.animation.AnimationTimer;
+
+/**
+ * Measures the time between the frames of the JavaFX Application Thread
+ * and the round-trips of the turns sent to the server, to show that
+ * the window keeps drawing while a turn waits for the network.
+ * A frame longer than LONG_FRAME means the thread was blocked.
+ *
+ * The monitor is started with the --frame-stats argument and prints
+ * its report every 10 seconds and when the application stops.
+ *
+ * @version 18/10/2026
+ * @since 1.8
+ */
+public class MMFrameMonitor extends AnimationTimer
+{
+    /** A frame longer than this was blocked, in nanoseconds. */
+    public static final long LONG_FRAME = 50_000_000L;
+    private static final long REPORT = 10_000_000_000L;
+
+    private long lastFrame;
+    private long lastReport;
+    private long frames;
+    private long longFrames;
+    private long maxFrame;
+    private long turns;
+    private long maxTurn;
+    private long totalTurn;
+
+    /**
+     * Records the time since the previous frame.
+     *
+     * @param now the time of the frame in nanoseconds.
+     */
+    @Override
+    public void handle(long now)
+    {
+        if (lastFrame != 0)
+        {
+            long frame = now - lastFrame;
+            frames++;
+            if (frame > LONG_FRAME)
+                longFrames++;
+            maxFrame = Math.max(maxFrame, frame);
+        }
+        else
+            lastReport = now;
+        lastFrame = now;
+
+        if (now - lastReport >= REPORT)
+        {
+            System.out.println(report());
+            lastReport = now;
+        }
+    }
+
+    /**
+     * Records the round-trip of a turn, from the guess sent
+     * to the clues shown.
+     *
+     * @param nanos the round-trip in nanoseconds.
+     */
+    public void recordTurn(long nanos)
+    {
+        turns++;
+        totalTurn += nanos;
+        maxTurn = Math.max(maxTurn, nanos);
+    }
+
+    /**
+     * Returns the report of the frames and turns measured so far.
+     *
+     * @return the report in a readable form.
+     */
+    public String report()
+    {
+        return String.format("Frames: %d, longest %.1f ms, %d over %d ms; "
+                + "turns: %d, mean %.1f ms, longest %.1f ms", frames,
+                maxFrame / 1e6, longFrames, LONG_FRAME / 1_000_000, turns,
+                turns == 0 ? 0.0 : totalTurn / (double)turns / 1e6,
+                maxTurn / 1e6);
+    }
+}
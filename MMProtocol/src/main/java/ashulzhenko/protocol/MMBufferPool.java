@@ -0,0 +1,97 @@
+package ashulzhenko.protocol;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A pool of direct byte buffers of the same size.
+ *
+ * Direct buffers are written to and read from channels without 
+ * an extra copy, but they are expensive to allocate and are only freed 
+ * by the garbage collector, so the connections borrow them from the pool 
+ * and give them back instead. A buffer is only allocated when the pool 
+ * is empty, and a buffer given back to a full pool is left 
+ * to the garbage collector, so once the pool is warm, acquiring and 
+ * releasing never allocates memory.
+ *
+ * The pool is thread safe.
+ *
+ * @version 18/10/2026
+ * @since 1.8
+ */
+public class MMBufferPool {
+    private final int bufferSize;
+    private final ByteBuffer[] free;
+    private int count;
+    private long allocated;
+
+    /**
+     * Instantiates an empty pool.
+     * @param bufferSize the capacity of every buffer.
+     * @param capacity the maximum number of free buffers kept.
+     * @throws IllegalArgumentException if a size is not positive.
+     */
+    public MMBufferPool(int bufferSize, int capacity) {
+        if(bufferSize <= 0 || capacity <= 0)
+            throw new IllegalArgumentException("Invalid pool size: " 
+                    + bufferSize + " x " + capacity);
+        this.bufferSize = bufferSize;
+        this.free = new ByteBuffer[capacity];
+    }
+
+    /**
+     * Borrows a cleared buffer from the pool, allocating it 
+     * if the pool is empty.
+     * @return a direct buffer of bufferSize bytes in write mode.
+     */
+    public ByteBuffer acquire() {
+        synchronized(this) {
+            if(count > 0) {
+                ByteBuffer buffer = free[--count];
+                free[count] = null;
+                buffer.clear();
+                return buffer;
+            }
+            allocated++;
+        }
+        return ByteBuffer.allocateDirect(bufferSize);
+    }
+
+    /**
+     * Gives a buffer back to the pool; it must not be used afterwards.
+     * @param buffer a buffer acquired from this pool.
+     * @throws IllegalArgumentException if the buffer does not come 
+     *                                  from a pool of this size.
+     */
+    public void release(ByteBuffer buffer) {
+        if(!buffer.isDirect() || buffer.capacity() != bufferSize)
+            throw new IllegalArgumentException("The buffer is not pooled");
+        synchronized(this) {
+            if(count < free.length)
+                free[count++] = buffer;
+        }
+    }
+
+    /**
+     * Returns the capacity of every buffer.
+     * @return the capacity of every buffer.
+     */
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    /**
+     * Returns the number of buffers allocated by the pool.
+     * @return the number of buffers allocated.
+     */
+    public synchronized long getAllocated() {
+        return allocated;
+    }
+
+    /**
+     * Returns the number of free buffers in the pool.
+     * @return the number of free buffers.
+     */
+    public synchronized int getPooled() {
+        return count;
+    }
+}
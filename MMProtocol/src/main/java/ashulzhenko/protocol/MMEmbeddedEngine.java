@@ -0,0 +1,310 @@
+package ashulzhenko.protocol;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * An in-process opponent that speaks the first protocol without a socket,
+ * for the clients playing alone and the harnesses playing many games.
+ * It follows the message rules of the server's MMSession:
+ *
+ * 0 0 0 0 (or a valid answer set) starts a game and is answered
+ * with 10's; the answer set is random if the values are not valid,
+ * every guess counts as a round and is answered with 12's for the colors
+ * in place and 13's for the colors out of place, or with 15's once
+ * the last round is lost, followed by the answer set,
+ * 9 0 0 0 quits the current game and 14 0 0 0 ends the session; the answer
+ * set is sent if the game was not won,
+ * 16 p c r negotiates the games supported by MMVariant,
+ * 17 0 0 0 requests a hint, which is the first code consistent with
+ * the clues for games of up to 65536 codes and 17's, which is the refusal
+ * of the server, for larger games,
+ * 18 0 0 0 starts a random game and is answered with 10's followed by
+ * a resume token of 0's, since the games of the engine are never
+ * suspended, and 19 0 0 0 followed by a token is answered with 11's.
+ *
+ * The codes are checked, packed and scored by MMVariant and the clues
+ * are written by MMScorer, the rules of the server's games.
+ * Every message sent is processed at once and its replies are queued
+ * until they are received; a turn does not allocate memory.
+ * The engine is not thread safe.
+ *
+ * @version 18/10/2026
+ * @since 1.8
+ */
+public class MMEmbeddedEngine {
+    /** The largest game whose hints are searched. */
+    private static final int HINT_CODES = 1 << 16;
+
+    private final Random random;
+    private MMVariant variant;
+    private int pegs;
+    private int[] answerSet;
+    private int answer;
+    //the packed valid guesses and their feedbacks, -1 for the others
+    private final int[] guesses;
+    private final int[] feedbacks;
+    private int[] clues;
+    private int round;
+    private boolean won;
+    private boolean inGame;
+    private boolean closed;
+    //the messages of the token still to be received
+    private int tokenParts;
+    //replies queued as a length followed by the values
+    private int[] replies;
+    private int head;
+    private int tail;
+
+    /**
+     * Instantiates the engine with the classic game: 4 pegs, 8 colors
+     * and 10 rounds.
+     */
+    public MMEmbeddedEngine() {
+        this(new Random());
+    }
+
+    /**
+     * Instantiates the engine with the random generator of the answer
+     * sets, e.g. with a seed to replay the same games.
+     * @param random the random generator.
+     */
+    public MMEmbeddedEngine(Random random) {
+        this.random = random;
+        this.variant = MMVariant.CLASSIC;
+        this.pegs = variant.getPegs();
+        this.answerSet = new int[pegs];
+        this.guesses = new int[MMVariant.MAX_ROUNDS];
+        this.feedbacks = new int[MMVariant.MAX_ROUNDS];
+        this.clues = new int[pegs];
+        this.replies = new int[4 * (MMVariant.MAX_PEGS + 1)];
+    }
+
+    /**
+     * Processes a message of the client and queues the replies.
+     * @param message the message of as many values as the pegs of the game.
+     * @throws IllegalStateException if the session is ended.
+     */
+    public void send(int[] message) {
+        if(closed)
+            throw new IllegalStateException("The session is ended");
+        if(tokenParts > 0) {
+            //no game can be resumed
+            if(--tokenParts == 0)
+                queueFilled(message.length, 11);
+        }
+        else if(!inGame)
+            startGame(message);
+        else if(message[0] == 14) {
+            endGame();
+            closed = true;
+        }
+        else if(message[0] == 9 &&
+                (variant.getColors() < 9 || message[1] == 0))
+            endGame();
+        else if(message[0] == 17)
+            hint();
+        else
+            guess(message);
+    }
+
+    /**
+     * Receives the next reply of the engine.
+     * @param reply receives the values of the reply; it must be as long
+     *              as the message that was answered.
+     * @return true if there was a reply; false if none is queued.
+     */
+    public boolean receive(int[] reply) {
+        if(head == tail)
+            return false;
+        int length = replies[head];
+        System.arraycopy(replies, head + 1, reply, 0,
+                         Math.min(length, reply.length));
+        head += length + 1;
+        if(head == tail)
+            head = tail = 0;
+        return true;
+    }
+
+    /**
+     * Returns true if replies are waiting to be received.
+     * @return true if a reply is queued; false otherwise.
+     */
+    public boolean hasReply() {
+        return head != tail;
+    }
+
+    /**
+     * Returns the number of pegs of the game played.
+     * @return the number of pegs, which is the size of the messages.
+     */
+    public int getPegs() {
+        return pegs;
+    }
+
+    /**
+     * Returns true if the client ended the session.
+     * @return true if the session is ended; false otherwise.
+     */
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Ends the session.
+     */
+    public void close() {
+        closed = true;
+        head = tail = 0;
+    }
+
+    /**
+     * Starts a game, negotiates the game or ends the session.
+     * @param message the client's message.
+     */
+    private void startGame(int[] message) {
+        if(message[0] == 16)
+            negotiate(message);
+        else if(message[0] == 14)
+            closed = true;
+        else if(message[0] == 19)
+            tokenParts = MMMessageCodec.TOKEN_MESSAGES;
+        else {
+            queueFilled(pegs, 10);
+            if(variant.isValid(message))
+                System.arraycopy(message, 0, answerSet, 0, pegs);
+            else
+                for(int i = 0; i < pegs; i++)
+                    answerSet[i] = random.nextInt(variant.getColors()) + 1;
+            answer = variant.encode(answerSet);
+            round = 0;
+            won = false;
+            inGame = true;
+            if(message[0] == 18)
+                for(int i = 0; i < MMMessageCodec.TOKEN_MESSAGES; i++)
+                    queueFilled(pegs, 0);
+        }
+    }
+
+    /**
+     * Sets the requested game if it is supported and replies,
+     * in the current message size, with the game played from now on.
+     * @param message the client's message: 16 pegs colors rounds.
+     */
+    private void negotiate(int[] message) {
+        int length = message.length;
+        if(MMVariant.isSupported(message[1], message[2], message[3])) {
+            variant = MMVariant.of(message[1], message[2], message[3]);
+            if(variant.getPegs() != pegs) {
+                pegs = variant.getPegs();
+                answerSet = new int[pegs];
+                clues = new int[pegs];
+            }
+        }
+        int at = reserve(length);
+        replies[at] = 16;
+        replies[at + 1] = pegs;
+        replies[at + 2] = variant.getColors();
+        replies[at + 3] = variant.getRounds();
+    }
+
+    /**
+     * Scores the guess and ends the game if it is won or lost.
+     * @param guess the client's guess.
+     */
+    private void guess(int[] guess) {
+        int feedback = variant.score(answer, guess);
+        if(variant.isValid(guess)) {
+            guesses[round] = variant.encode(guess);
+            feedbacks[round] = feedback;
+        }
+        else
+            feedbacks[round] = -1;
+        round++;
+        won = variant.isWin(feedback);
+        if(!won && round >= variant.getRounds()) {
+            queueFilled(pegs, 15);
+            endGame();
+            return;
+        }
+        MMScorer.toClues(feedback, clues);
+        System.arraycopy(clues, 0, replies, reserve(pegs), pegs);
+        if(won)
+            endGame();
+    }
+
+    /**
+     * Replies with the first code consistent with the clues of the game,
+     * or with 17's if the game is too large to search.
+     */
+    private void hint() {
+        if(variant.getCodeCount() > HINT_CODES) {
+            queueFilled(pegs, 17);
+            return;
+        }
+        for(int code = variant.codeAt(0); code != -1;
+                code = variant.nextCode(code))
+            if(isConsistent(code)) {
+                int at = reserve(pegs);
+                for(int i = 0; i < pegs; i++)
+                    replies[at + i] = variant.peg(code, i);
+                return;
+            }
+        queueFilled(pegs, 17);
+    }
+
+    /**
+     * Returns true if the code would have given the clues of every
+     * valid guess of the game.
+     * @param code the packed code.
+     * @return true if the code is consistent with the clues.
+     */
+    private boolean isConsistent(int code) {
+        for(int r = 0; r < round; r++)
+            if(feedbacks[r] >= 0 &&
+               variant.score(code, guesses[r]) != feedbacks[r])
+                return false;
+        return true;
+    }
+
+    /**
+     * Ends the current game; the answer set is sent if it was not found.
+     */
+    private void endGame() {
+        if(!won)
+            System.arraycopy(answerSet, 0, replies, reserve(pegs), pegs);
+        inGame = false;
+    }
+
+    /**
+     * Queues a reply of the same value repeated.
+     * @param length the number of values.
+     * @param value the value.
+     */
+    private void queueFilled(int length, int value) {
+        int at = reserve(length);
+        Arrays.fill(replies, at, at + length, value);
+    }
+
+    /**
+     * Reserves a reply in the queue; the values are zero.
+     * @param length the number of values of the reply.
+     * @return the position of the first value.
+     */
+    private int reserve(int length) {
+        if(tail + length + 1 > replies.length) {
+            //move the replies not received yet to the front
+            System.arraycopy(replies, head, replies, 0, tail - head);
+            tail -= head;
+            head = 0;
+            if(tail + length + 1 > replies.length)
+                //the client sends without receiving the replies
+                replies = Arrays.copyOf(replies, 2 * replies.length);
+        }
+        replies[tail] = length;
+        int at = tail + 1;
+        Arrays.fill(replies, at, at + length, 0);
+        tail = at + length;
+        return at;
+    }
+}
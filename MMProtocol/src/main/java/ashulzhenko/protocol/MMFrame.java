@@ -0,0 +1,168 @@
+package ashulzhenko.protocol;
+
+import java.util.Arrays;
+
+/**
+ * A frame of the framed protocol: the opcode, the game id 
+ * and the payload of up to MMFrameCodec.MAX_PAYLOAD bytes.
+ * 
+ * A frame is a reusable holder: it is decoded into and encoded from 
+ * as many times as needed, so that no message allocates memory.
+ * 
+ * @version 18/10/2026
+ * @since 1.8
+ */
+public class MMFrame {
+    private int opcode;
+    private int gameId;
+    private final byte[] payload;
+    private int length;
+    
+    /**
+     * Instantiates an empty frame that holds the largest payload.
+     */
+    public MMFrame() {
+        this.payload = new byte[MMFrameCodec.MAX_PAYLOAD];
+    }
+    
+    /**
+     * Starts a new frame with an empty payload.
+     * @param opcode the opcode of the frame.
+     * @param gameId the game the frame is about.
+     * @return this frame.
+     */
+    public MMFrame reset(int opcode, int gameId) {
+        this.opcode = opcode;
+        this.gameId = gameId;
+        this.length = 0;
+        return this;
+    }
+    
+    /**
+     * Appends one byte to the payload.
+     * @param value the value of the byte.
+     * @return this frame.
+     * @throws IllegalStateException if the payload is full.
+     */
+    public MMFrame put(int value) {
+        if(length == payload.length)
+            throw new IllegalStateException("The frame payload is full");
+        payload[length++] = (byte)value;
+        return this;
+    }
+    
+    /**
+     * Appends an int to the payload in network byte order.
+     * @param value the value to append.
+     * @return this frame.
+     * @throws IllegalStateException if the payload is full.
+     */
+    public MMFrame putInt(int value) {
+        return put(value >>> 24).put(value >>> 16).put(value >>> 8)
+                .put(value);
+    }
+    
+    /**
+     * Appends the values to the payload, one byte each.
+     * @param values the values to append.
+     * @return this frame.
+     * @throws IllegalStateException if the payload is full.
+     */
+    public MMFrame put(int[] values) {
+        for(int value : values)
+            put(value);
+        return this;
+    }
+    
+    /**
+     * Returns the opcode of the frame.
+     * @return the opcode 0-255.
+     */
+    public int getOpcode() {
+        return opcode;
+    }
+    
+    /**
+     * Returns the game the frame is about.
+     * @return the game id.
+     */
+    public int getGameId() {
+        return gameId;
+    }
+    
+    /**
+     * Returns the number of bytes of the payload.
+     * @return the length of the payload.
+     */
+    public int getLength() {
+        return length;
+    }
+    
+    /**
+     * Returns one byte of the payload.
+     * @param index the index in the payload.
+     * @return the signed value of the byte.
+     */
+    public int get(int index) {
+        return payload[index];
+    }
+    
+    /**
+     * Returns an int of the payload in network byte order.
+     * @param index the index in the payload of the first byte.
+     * @return the value of the int.
+     */
+    public int getInt(int index) {
+        return (payload[index] << 24) | ((payload[index + 1] & 0xFF) << 16)
+                | ((payload[index + 2] & 0xFF) << 8) 
+                | (payload[index + 3] & 0xFF);
+    }
+    
+    /**
+     * Returns the number of bytes that can still be appended.
+     * @return the free room of the payload.
+     */
+    public int getRoom() {
+        return payload.length - length;
+    }
+    
+    /**
+     * Copies part of the payload into the array, one value per byte.
+     * @param from the index in the payload of the first value.
+     * @param values the array to fill.
+     */
+    public void get(int from, int[] values) {
+        for(int i = 0; i < values.length; i++)
+            values[i] = payload[from + i];
+    }
+    
+    /**
+     * Returns the array that holds the payload, for the codec.
+     * @return the payload array.
+     */
+    byte[] payload() {
+        return payload;
+    }
+    
+    /**
+     * Sets the header read by the codec; the payload is already copied.
+     * @param opcode the opcode of the frame.
+     * @param gameId the game the frame is about.
+     * @param length the length of the payload.
+     */
+    void set(int opcode, int gameId, int length) {
+        this.opcode = opcode;
+        this.gameId = gameId;
+        this.length = length;
+    }
+    
+    /**
+     * Returns the frame in a readable form.
+     * @return the opcode, game id and payload of the frame.
+     */
+    @Override
+    public String toString() {
+        return "frame " + opcode + " game " + gameId + " " 
+                + Arrays.toString(Arrays.copyOf(payload, length));
+    }
+}
@@ -0,0 +1,192 @@
+package ashulzhenko.protocol;
+
+import java.net.ProtocolException;
+import java.nio.ByteBuffer;
+
+/**
+ * Encoder and decoder of the framed protocol (version 2).
+ *
+ * Every frame starts with a header of 10 bytes, in network byte order:
+ *
+ * 0 - the magic byte 'M' (77), which never starts a message of
+ * the first protocol, so the server knows the protocol from the first byte,
+ * 1 - the version of the protocol (2),
+ * 2 - the opcode,
+ * 3 - flags (0, reserved),
+ * 4-7 - the game id chosen by the client and repeated in the replies,
+ * 8-9 - the length of the payload that follows (at most MAX_PAYLOAD).
+ *
+ * These are the opcodes sent by the client:
+ *
+ * NEW_GAME [p c r [answer set]] - starts the game with p pegs, c colors
+ * and r rounds (the classic game if the payload is empty); the optional
+ * answer set of p colors is used if it is valid,
+ * GUESS colors - scores a guess of p colors,
+ * HINT - asks for the suggested next guess (it is not a round),
+ * QUIT_GAME - ends the game,
+ * BYE - ends the session,
+ * BATCH {game id, n, n colors}... - scores several guesses in one frame,
+ * in order; every entry has the 4-byte id of its game, 
+ * the number of colors and the colors.
+ *
+ * The server replies to every frame with the opcode of the request 
+ * plus 0x80, or ERROR, and the game id of the request:
+ *
+ * STARTED p c r - the game is started,
+ * CLUES in out status [answer set] - the in-place and out-place clues
+ * and the status of the game (PLAYING, WON or LOST);
+ * the answer set follows if the game is lost,
+ * SUGGESTION colors - the suggested guess,
+ * ENDED answer set - the game is ended,
+ * CLOSED - the session is ended and the connection is closed,
+ * BATCH_CLUES {game id, in, out, status, [answer set]}... - the clues 
+ * of the entries of a BATCH in order, as in CLUES; an entry that 
+ * is not about a running game or has the wrong number of colors 
+ * gets the status REFUSED (and is not a round). 
+ * The entries may be split over several BATCH_CLUES frames,
+ * which are sent in the same write,
+ * ERROR code - the request is refused (BAD_REQUEST, NO_GAME,
+ * GAME_EXISTS, BAD_VARIANT or BUSY).
+ *
+ * A client refused before its first frame is read still receives
+ * 11 11 11 11 of the first protocol.
+ *
+ * A client may send its frames without waiting for the replies 
+ * (pipelining): the replies come in the order of the frames, 
+ * and the replies to the frames received together are written together.
+ * 
+ * A client may play many games at once over one connection by 
+ * starting them with different ids (multiplexing); the frames of 
+ * the games may be interleaved, and a BATCH may mix their guesses.
+ * 
+ * The codec only works on buffers and frames owned by the caller,
+ * so it never allocates memory.
+ *
+ * @version 18/10/2026
+ * @since 1.8
+ */
+public final class MMFrameCodec {
+    /** The first byte of every frame. */
+    public static final int MAGIC = 'M';
+    /** The version of the framed protocol. */
+    public static final int VERSION = 2;
+    /** The number of bytes of the header. */
+    public static final int HEADER = 10;
+    /** The maximum number of bytes of a payload. */
+    public static final int MAX_PAYLOAD = 4096;
+
+    /** Client: starts a game. */
+    public static final int NEW_GAME = 1;
+    /** Client: scores a guess. */
+    public static final int GUESS = 2;
+    /** Client: asks for the suggested next guess. */
+    public static final int HINT = 3;
+    /** Client: ends a game. */
+    public static final int QUIT_GAME = 4;
+    /** Client: ends the session. */
+    public static final int BYE = 5;
+    /** Client: scores several guesses. */
+    public static final int BATCH = 6;
+    /** Server: the game is started. */
+    public static final int STARTED = 0x81;
+    /** Server: the clues of a guess. */
+    public static final int CLUES = 0x82;
+    /** Server: the suggested next guess. */
+    public static final int SUGGESTION = 0x83;
+    /** Server: the game is ended. */
+    public static final int ENDED = 0x84;
+    /** Server: the session is ended. */
+    public static final int CLOSED = 0x85;
+    /** Server: the clues of several guesses. */
+    public static final int BATCH_CLUES = 0x86;
+    /** Server: the request is refused. */
+    public static final int ERROR = 0xFF;
+
+    /** The game goes on. */
+    public static final int PLAYING = 0;
+    /** The client found the answer set. */
+    public static final int WON = 1;
+    /** The client played every round without finding the answer set. */
+    public static final int LOST = 2;
+    /** The guess of a batch is not about a running game or not valid. */
+    public static final int REFUSED = 3;
+
+    /** The frame is not valid for its opcode. */
+    public static final int BAD_REQUEST = 1;
+    /** There is no game with the id. */
+    public static final int NO_GAME = 2;
+    /** There is already a game with the id. */
+    public static final int GAME_EXISTS = 3;
+    /** The game requested is not supported. */
+    public static final int BAD_VARIANT = 4;
+    /** The server is too busy to answer. */
+    public static final int BUSY = 5;
+
+    private MMFrameCodec() {
+    }
+
+    /**
+     * Returns true if the first byte received from the client
+     * starts a frame of this protocol.
+     * @param first the first byte received.
+     * @return true if the client speaks the framed protocol.
+     */
+    public static boolean isFramed(int first) {
+        return first == MAGIC;
+    }
+
+    /**
+     * Returns the number of bytes of the frame at the position
+     * of the buffer, once its header is complete.
+     * @param in the buffer in read mode; its position is not changed.
+     * @return the size of the frame; -1 if the header is not complete.
+     * @throws ProtocolException if the header is not valid.
+     */
+    public static int frameSize(ByteBuffer in) throws ProtocolException {
+        if(in.remaining() < HEADER)
+            return -1;
+        int start = in.position();
+        if(in.get(start) != MAGIC || in.get(start + 1) != VERSION)
+            throw new ProtocolException("Invalid frame header");
+        int length = in.getShort(start + 8) & 0xFFFF;
+        if(length > MAX_PAYLOAD)
+            throw new ProtocolException("Frame payload too large: " + length);
+        return HEADER + length;
+    }
+
+    /**
+     * Decodes the frame at the position of the buffer if it is complete.
+     * @param in the buffer in read mode; the frame is consumed if complete.
+     * @param frame the frame to decode into.
+     * @return true if a frame was decoded; false if more bytes are needed.
+     * @throws ProtocolException if the header is not valid.
+     */
+    public static boolean decode(ByteBuffer in, MMFrame frame)
+            throws ProtocolException {
+        int size = frameSize(in);
+        if(size == -1 || in.remaining() < size)
+            return false;
+        int start = in.position();
+        int opcode = in.get(start + 2) & 0xFF;
+        int gameId = in.getInt(start + 4);
+        in.position(start + HEADER);
+        in.get(frame.payload(), 0, size - HEADER);
+        frame.set(opcode, gameId, size - HEADER);
+        return true;
+    }
+
+    /**
+     * Encodes the frame at the position of the buffer.
+     * @param frame the frame to encode.
+     * @param out the buffer in write mode with room for the frame.
+     */
+    public static void encode(MMFrame frame, ByteBuffer out) {
+        out.put((byte)MAGIC)
+           .put((byte)VERSION)
+           .put((byte)frame.getOpcode())
+           .put((byte)0)
+           .putInt(frame.getGameId())
+           .putShort((short)frame.getLength())
+           .put(frame.payload(), 0, frame.getLength());
+    }
+}
@@ -0,0 +1,104 @@
+package ashulzhenko.protocol;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Encoder and decoder of the messages of the first protocol.
+ *
+ * A message has one byte per value and as many bytes as the pegs 
+ * of the game being played (4 by default), e.g. 
+ * 10 0 0 0 - the server is ready to play, 
+ * 1 2 3 4 - a guess of the client.
+ * The values of the messages are described in MMSession of the server.
+ *
+ * A resume token of 8 bytes is sent in TOKEN_MESSAGES messages,
+ * 4 bytes in the first values of each message, the highest byte first,
+ * and 0's in the other values.
+ *
+ * The codec only works on buffers and arrays owned by the caller,
+ * so it never allocates memory: the length of the message array
+ * is the number of bytes of the message.
+ *
+ * @version 18/10/2026
+ * @since 1.8
+ */
+public final class MMMessageCodec {
+    /** The number of bytes of a message of the classic game. */
+    public static final int MESSAGE_SIZE = 4;
+    /** The number of messages of a resume token. */
+    public static final int TOKEN_MESSAGES = 2;
+
+    private MMMessageCodec() {
+    }
+
+    /**
+     * Decodes the message at the position of the buffer if it is complete.
+     * @param in the buffer in read mode; the message is consumed 
+     *           if complete.
+     * @param message the array to decode into.
+     * @return true if a message was decoded; false if more bytes 
+     *         are needed.
+     */
+    public static boolean decode(ByteBuffer in, int[] message) {
+        if(in.remaining() < message.length)
+            return false;
+        for(int i = 0; i < message.length; i++)
+            message[i] = in.get();
+        return true;
+    }
+
+    /**
+     * Decodes the message from the first bytes of the array.
+     * @param bytes the received bytes, at least as many as the message.
+     * @param message the array to decode into.
+     */
+    public static void decode(byte[] bytes, int[] message) {
+        for(int i = 0; i < message.length; i++)
+            message[i] = bytes[i];
+    }
+
+    /**
+     * Encodes the message at the position of the buffer.
+     * @param message the message to encode.
+     * @param out the buffer in write mode with room for the message.
+     */
+    public static void encode(int[] message, ByteBuffer out) {
+        for(int value : message)
+            out.put((byte)value);
+    }
+
+    /**
+     * Encodes the message into the first bytes of the array.
+     * @param message the message to encode.
+     * @param bytes the array with room for the message.
+     */
+    public static void encode(int[] message, byte[] bytes) {
+        for(int i = 0; i < message.length; i++)
+            bytes[i] = (byte)message[i];
+    }
+
+    /**
+     * Writes one part of a resume token into a message.
+     * @param token the token.
+     * @param part the part of the token, 0 to TOKEN_MESSAGES - 1.
+     * @param message the message, of at least 4 values.
+     */
+    public static void encodeToken(long token, int part, int[] message) {
+        for(int i = 0; i < message.length; i++)
+            message[i] = i < 4 ? (int)(token >>> (56 - 8 * (4 * part + i)))
+                                 & 0xFF : 0;
+    }
+
+    /**
+     * Adds one part of a resume token read from a message.
+     * @param token the parts of the token read so far.
+     * @param part the part of the token, 0 to TOKEN_MESSAGES - 1.
+     * @param message the message, of at least 4 values.
+     * @return the token with the part.
+     */
+    public static long decodeToken(long token, int part, int[] message) {
+        for(int i = 0; i < 4; i++)
+            token |= (long)(message[i] & 0xFF) << (56 - 8 * (4 * part + i));
+        return token;
+    }
+}
@@ -0,0 +1,184 @@
+package ashulzhenko.protocol;
+
+/**
+ * Scoring engine of the MasterMind game that works without 
+ * any heap allocation, so it can be called from the sessions, 
+ * solvers, bots and benchmarks as often as needed.
+ * 
+ * A code of 4 pegs with the colors 1-8 is packed into an int using 
+ * 3 bits per peg (color - 1), the first peg in the lowest bits. 
+ * The packed codes are therefore the numbers 0-4095 and can be used 
+ * directly as array indexes.
+ * 
+ * A feedback is packed as (in-place clues &lt;&lt; 4) | out-place clues.
+ * 
+ * @version 18/10/2026
+ * @since 1.8
+ */
+public final class MMScorer {
+    /** The number of pegs in a code. */
+    public static final int PEGS = 4;
+    /** The number of colors. */
+    public static final int COLORS = 8;
+    /** The number of different codes. */
+    public static final int CODES = 4096;
+    
+    private static final int BITS = 3;
+    private static final int PEG_MASK = 7;
+    
+    private MMScorer() {
+    }
+    
+    /**
+     * Packs the code.
+     * @param code the code with the colors 1-8.
+     * @return the packed code.
+     * @throws IllegalArgumentException if the code is not valid.
+     */
+    public static int encode(int[] code) {
+        if(!isValid(code))
+            throw new IllegalArgumentException("Invalid code");
+        int packed = 0;
+        for(int i = 0; i < PEGS; i++)
+            packed |= (code[i] - 1) << (i * BITS);
+        return packed;
+    }
+    
+    /**
+     * Unpacks the code into the given array.
+     * @param packed the packed code.
+     * @param code the array of at least 4 elements to fill with the colors.
+     */
+    public static void decode(int packed, int[] code) {
+        for(int i = 0; i < PEGS; i++)
+            code[i] = peg(packed, i);
+    }
+    
+    /**
+     * Returns the color of the peg of the packed code.
+     * @param packed the packed code.
+     * @param index the index of the peg.
+     * @return the color 1-8 of the peg.
+     */
+    public static int peg(int packed, int index) {
+        return ((packed >>> (index * BITS)) & PEG_MASK) + 1;
+    }
+    
+    /**
+     * Returns true if the code has 4 pegs with the colors 1-8.
+     * @param code the code to check.
+     * @return true if the code is valid; false otherwise.
+     */
+    public static boolean isValid(int[] code) {
+        if(code.length != PEGS)
+            return false;
+        for(int color : code)
+            if(color < 1 || color > COLORS)
+                return false;
+        return true;
+    }
+    
+    /**
+     * Scores the guess against the secret.
+     * @param secret the packed secret code.
+     * @param guess the packed guess.
+     * @return the packed feedback.
+     */
+    public static int score(int secret, int guess) {
+        int inPlace = 0;
+        //4-bit count of every color in each code
+        int secretCounts = 0;
+        int guessCounts = 0;
+        for(int i = 0; i < PEGS; i++) {
+            int s = (secret >>> (i * BITS)) & PEG_MASK;
+            int g = (guess >>> (i * BITS)) & PEG_MASK;
+            if(s == g)
+                inPlace++;
+            secretCounts += 1 << (s << 2);
+            guessCounts += 1 << (g << 2);
+        }
+        return feedback(inPlace, commonColors(secretCounts, guessCounts));
+    }
+    
+    /**
+     * Scores the guess sent by the client against the secret.
+     * Unlike the packed guess, the message may contain colors 
+     * outside of 1-8; these pegs never match.
+     * @param secret the packed secret code.
+     * @param guess the client's guess.
+     * @return the packed feedback.
+     */
+    public static int score(int secret, int[] guess) {
+        int inPlace = 0;
+        int secretCounts = 0;
+        int guessCounts = 0;
+        for(int i = 0; i < PEGS; i++) {
+            int s = (secret >>> (i * BITS)) & PEG_MASK;
+            secretCounts += 1 << (s << 2);
+            int color = guess[i];
+            if(color >= 1 && color <= COLORS) {
+                int g = color - 1;
+                if(s == g)
+                    inPlace++;
+                guessCounts += 1 << (g << 2);
+            }
+        }
+        return feedback(inPlace, commonColors(secretCounts, guessCounts));
+    }
+    
+    /**
+     * Returns the number of in-place clues of the feedback.
+     * @param feedback the packed feedback.
+     * @return the number of in-place clues.
+     */
+    public static int inPlace(int feedback) {
+        return feedback >>> 4;
+    }
+    
+    /**
+     * Returns the number of out-place clues of the feedback.
+     * @param feedback the packed feedback.
+     * @return the number of out-place clues.
+     */
+    public static int outPlace(int feedback) {
+        return feedback & 0xF;
+    }
+    
+    /**
+     * Writes the feedback into the clues message: 
+     * 12 for every in-place clue, then 13 for every out-place clue, 
+     * then 0 for the rest, as sent to the clients of the first protocol.
+     * @param feedback the packed feedback.
+     * @param clues the array of 4 elements to fill.
+     */
+    public static void toClues(int feedback, int[] clues) {
+        int inPlace = inPlace(feedback);
+        int found = inPlace + outPlace(feedback);
+        for(int i = 0; i < clues.length; i++)
+            clues[i] = i < inPlace ? 12 : (i < found ? 13 : 0);
+    }
+    
+    /**
+     * Packs the feedback.
+     * @param inPlace the number of pegs with the right color and position.
+     * @param common the number of pegs with the right color.
+     * @return the packed feedback.
+     */
+    private static int feedback(int inPlace, int common) {
+        return (inPlace << 4) | (common - inPlace);
+    }
+    
+    /**
+     * Counts the pegs both codes have in common regardless of position.
+     * @param secretCounts the 4-bit color counts of the secret.
+     * @param guessCounts the 4-bit color counts of the guess.
+     * @return the number of common pegs.
+     */
+    private static int commonColors(int secretCounts, int guessCounts) {
+        int common = 0;
+        for(int shift = 0; shift < COLORS * 4; shift += 4)
+            common += Math.min((secretCounts >>> shift) & 0xF, 
+                               (guessCounts >>> shift) & 0xF);
+        return common;
+    }
+}
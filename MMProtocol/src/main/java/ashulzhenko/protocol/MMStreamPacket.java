@@ -0,0 +1,268 @@
+package ashulzhenko.protocol;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PushbackInputStream;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+
+/**
+ * Sends and receives the messages of the first protocol and the frames
+ * of the multiplexed protocol through a blocking connection: a socket,
+ * a blocking socket channel such as a Unix domain socket, or a pair
+ * of streams. The client and the server both exchange their messages
+ * through it.
+ *
+ * The messages and frames are encoded and decoded by MMMessageCodec
+ * and MMFrameCodec into buffers owned by the packet, and the messages
+ * are received into arrays owned by the caller, so once the buffers are
+ * allocated, exchanging a message or a frame does not allocate memory.
+ * The frames, and the messages if the packet is buffered, are written
+ * together on flush.
+ *
+ * The packet is not thread-safe.
+ *
+ * @version 18/10/2026
+ * @since 1.8
+ */
+public class MMStreamPacket {
+    /** The bytes of the largest message before the buffer grows. */
+    private static final int MESSAGE_BYTES = 8;
+
+    private final Socket socket;
+    private final SocketChannel channel;
+    private PushbackInputStream in;
+    private OutputStream out;
+    private boolean closed;
+    private boolean buffered;
+    private byte[] messageBytes = new byte[MESSAGE_BYTES];
+    private ByteBuffer sendBuffer;
+    private ByteBuffer receiveBuffer;
+
+    /**
+     * Instantiates the packet of a socket.
+     * @param socket the connected socket.
+     */
+    public MMStreamPacket(Socket socket) {
+        this.socket = socket;
+        this.channel = null;
+    }
+
+    /**
+     * Instantiates the packet of a channel in blocking mode.
+     * @param channel the connected channel.
+     */
+    public MMStreamPacket(SocketChannel channel) {
+        this.socket = null;
+        this.channel = channel;
+    }
+
+    /**
+     * Instantiates the packet of a pair of streams, such as pipes.
+     * @param in the stream the messages are received from.
+     * @param out the stream the messages are sent to.
+     */
+    public MMStreamPacket(InputStream in, OutputStream out) {
+        this.socket = null;
+        this.channel = null;
+        this.in = new PushbackInputStream(in);
+        this.out = out;
+    }
+
+    /**
+     * Sets whether the messages are written together on flush
+     * or every message at once; the frames are always written on flush.
+     * @param buffered true to write the messages on flush.
+     */
+    public void setBuffered(boolean buffered) {
+        this.buffered = buffered;
+    }
+
+    /**
+     * Receives a message into the given array.
+     * @param message the array of as many values as the bytes
+     *                of the message.
+     * @throws IOException If there is a communication problem.
+     */
+    public void receiveMessage(int[] message) throws IOException {
+        if(message.length > messageBytes.length)
+            messageBytes = new byte[message.length];
+        receive(messageBytes, 0, message.length);
+        frameCompleted();
+        MMMessageCodec.decode(messageBytes, message);
+    }
+
+    /**
+     * Receives the next frame of the multiplexed protocol.
+     * @param frame the frame to decode into.
+     * @return the frame that is received.
+     * @throws IOException If there is a communication problem
+     *                     or the frame is not valid.
+     */
+    public MMFrame receiveFrame(MMFrame frame) throws IOException {
+        if(receiveBuffer == null)
+            receiveBuffer = ByteBuffer.allocate(MMFrameCodec.HEADER
+                    + MMFrameCodec.MAX_PAYLOAD);
+        byte[] bytes = receiveBuffer.array();
+        receive(bytes, 0, MMFrameCodec.HEADER);
+        receiveBuffer.clear();
+        receiveBuffer.limit(MMFrameCodec.HEADER);
+        int size = MMFrameCodec.frameSize(receiveBuffer);
+        receive(bytes, MMFrameCodec.HEADER, size - MMFrameCodec.HEADER);
+        frameCompleted();
+        receiveBuffer.limit(size);
+        MMFrameCodec.decode(receiveBuffer, frame);
+        return frame;
+    }
+
+    /**
+     * Sends the message, at once or on the next flush if the packet
+     * is buffered.
+     * @param message the message to send.
+     * @throws IOException If there is a communication problem.
+     */
+    public void sendMessage(int[] message) throws IOException {
+        if(buffered) {
+            if(sendBuffer().remaining() < message.length)
+                flush();
+            MMMessageCodec.encode(message, sendBuffer);
+            return;
+        }
+        if(message.length > messageBytes.length)
+            messageBytes = new byte[message.length];
+        MMMessageCodec.encode(message, messageBytes);
+        output().write(messageBytes, 0, message.length);
+    }
+
+    /**
+     * Appends a frame to the frames to send; the frames are written
+     * when the buffer is full or flush is called, so that pipelined
+     * frames take one write.
+     * @param frame the frame to send.
+     * @throws IOException If there is a communication problem.
+     */
+    public void sendFrame(MMFrame frame) throws IOException {
+        if(sendBuffer().remaining() < MMFrameCodec.HEADER + frame.getLength())
+            flush();
+        MMFrameCodec.encode(frame, sendBuffer);
+    }
+
+    /**
+     * Writes the frames and messages sent since the last flush
+     * with one write.
+     * @throws IOException If there is a communication problem.
+     */
+    public void flush() throws IOException {
+        if(sendBuffer == null || sendBuffer.position() == 0)
+            return;
+        OutputStream output = output();
+        output.write(sendBuffer.array(), 0, sendBuffer.position());
+        output.flush();
+        sendBuffer.clear();
+    }
+
+    /**
+     * Closes the connection.
+     * @throws IOException If there is a problem when closing.
+     */
+    public void close() throws IOException {
+        closed = true;
+        if(socket != null)
+            socket.close();
+        else if(channel != null)
+            channel.close();
+        else {
+            in.close();
+            out.close();
+        }
+    }
+
+    /**
+     * Returns true if the connection is closed; false otherwise.
+     * @return true if the connection is closed; false otherwise.
+     */
+    public boolean isClosed() {
+        if(socket != null)
+            return socket.isClosed();
+        if(channel != null)
+            return !channel.isOpen();
+        return closed;
+    }
+
+    /**
+     * Returns the input stream of the connection, which can give back
+     * the bytes read ahead.
+     * @return the input stream of the connection.
+     * @throws IOException If the stream cannot be obtained.
+     */
+    protected PushbackInputStream input() throws IOException {
+        if(in == null)
+            in = new PushbackInputStream(socket != null
+                    ? socket.getInputStream()
+                    : Channels.newInputStream(channel));
+        return in;
+    }
+
+    /**
+     * Called when the first bytes of a message or frame are received
+     * and the rest is awaited; does nothing by default.
+     */
+    protected void frameStarted() {
+    }
+
+    /**
+     * Called when a message or frame is completely received;
+     * does nothing by default.
+     */
+    protected void frameCompleted() {
+    }
+
+    /**
+     * Receives exactly the given number of bytes.
+     * @param bytes the array to receive into.
+     * @param offset the index of the first byte to receive.
+     * @param length the number of bytes to receive.
+     * @throws IOException If there is a communication problem.
+     */
+    private void receive(byte[] bytes, int offset, int length)
+            throws IOException {
+        InputStream input = input();
+        int received = 0;
+        while(received < length) {
+            int count = input.read(bytes, offset + received,
+                                   length - received);
+            if(count == -1)
+                throw new SocketException("Connection closed prematurely");
+            received += count;
+            if(received < length)
+                frameStarted();
+        }
+    }
+
+    /**
+     * Returns the buffer of the output written on flush.
+     * @return the send buffer in write mode.
+     */
+    private ByteBuffer sendBuffer() {
+        if(sendBuffer == null)
+            sendBuffer = ByteBuffer.allocate(2 * (MMFrameCodec.HEADER
+                    + MMFrameCodec.MAX_PAYLOAD));
+        return sendBuffer;
+    }
+
+    /**
+     * Returns the output stream of the connection.
+     * @return the output stream of the connection.
+     * @throws IOException If the stream cannot be obtained.
+     */
+    private OutputStream output() throws IOException {
+        if(out == null)
+            out = socket != null ? socket.getOutputStream()
+                                 : Channels.newOutputStream(channel);
+        return out;
+    }
+}
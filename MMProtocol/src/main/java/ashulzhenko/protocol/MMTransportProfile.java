@@ -0,0 +1,168 @@
+package ashulzhenko.protocol;
+
+import java.io.IOException;
+import java.net.Socket;
+import java.net.SocketException;
+import java.net.SocketOption;
+import java.net.StandardSocketOptions;
+import java.nio.channels.NetworkChannel;
+
+/**
+ * How a connection uses its socket: whether Nagle's algorithm
+ * is disabled (TCP_NODELAY), the sizes of the socket send and receive
+ * buffers, and whether the messages are buffered and written together
+ * when the sender flushes at the end of a request or reply.
+ *
+ * Every message of the protocol is a few bytes and every turn
+ * waits for its reply, so with Nagle's algorithm enabled a second small
+ * write (e.g. the answer set after the clues) waits for the peer's
+ * delayed acknowledgement. These are the profiles:
+ *
+ * classic - Nagle's algorithm, the system buffers and every message
+ * written at once, as the first versions did,
+ * latency - no Nagle's algorithm, the system buffers and the messages
+ * of a request or reply written together (the default).
+ *
+ * A buffer size of 0 keeps the size chosen by the system.
+ *
+ * @version 18/10/2026
+ * @since 1.8
+ */
+public final class MMTransportProfile {
+    /** Nagle's algorithm and a write per message. */
+    public static final String CLASSIC = "classic";
+    /** No Nagle's algorithm and a write per request or reply. */
+    public static final String LATENCY = "latency";
+
+    private final boolean noDelay;
+    private final int sendBufferSize;
+    private final int receiveBufferSize;
+    private final boolean buffered;
+
+    /**
+     * Instantiates the profile.
+     * @param noDelay true to disable Nagle's algorithm.
+     * @param sendBufferSize the size of the socket send buffer;
+     *                       0 for the system default.
+     * @param receiveBufferSize the size of the socket receive buffer;
+     *                          0 for the system default.
+     * @param buffered true to write the messages together on flush;
+     *                 false to write every message at once.
+     * @throws IllegalArgumentException if a size is negative.
+     */
+    public MMTransportProfile(boolean noDelay, int sendBufferSize,
+                              int receiveBufferSize, boolean buffered) {
+        if(sendBufferSize < 0 || receiveBufferSize < 0)
+            throw new IllegalArgumentException("Invalid buffer size: "
+                    + sendBufferSize + ", " + receiveBufferSize);
+        this.noDelay = noDelay;
+        this.sendBufferSize = sendBufferSize;
+        this.receiveBufferSize = receiveBufferSize;
+        this.buffered = buffered;
+    }
+
+    /**
+     * Returns the profile with the given name.
+     * @param name classic or latency.
+     * @return the profile.
+     * @throws IllegalArgumentException if the name is unknown.
+     */
+    public static MMTransportProfile of(String name) {
+        switch(name) {
+            case CLASSIC:
+                return new MMTransportProfile(false, 0, 0, false);
+            case LATENCY:
+                return new MMTransportProfile(true, 0, 0, true);
+            default:
+                throw new IllegalArgumentException("Unknown transport: "
+                        + name);
+        }
+    }
+
+    /**
+     * Sets the options of the profile on the socket; it should be called
+     * before the socket is connected, so that the receive buffer
+     * is taken into account when the connection is set up.
+     * @param socket the socket.
+     * @throws SocketException if an option cannot be set.
+     */
+    public void apply(Socket socket) throws SocketException {
+        socket.setTcpNoDelay(noDelay);
+        if(sendBufferSize > 0)
+            socket.setSendBufferSize(sendBufferSize);
+        if(receiveBufferSize > 0)
+            socket.setReceiveBufferSize(receiveBufferSize);
+    }
+
+    /**
+     * Sets the options of the profile that the channel supports.
+     * @param channel the channel.
+     * @throws IOException if an option cannot be set.
+     */
+    public void apply(NetworkChannel channel) throws IOException {
+        setOption(channel, StandardSocketOptions.TCP_NODELAY, noDelay);
+        if(sendBufferSize > 0)
+            setOption(channel, StandardSocketOptions.SO_SNDBUF,
+                      sendBufferSize);
+        if(receiveBufferSize > 0)
+            setOption(channel, StandardSocketOptions.SO_RCVBUF,
+                      receiveBufferSize);
+    }
+
+    /**
+     * Sets the option if the channel supports it.
+     * @param <T> the type of the value of the option.
+     * @param channel the channel.
+     * @param option the option.
+     * @param value the value of the option.
+     * @throws IOException if the option cannot be set.
+     */
+    private static <T> void setOption(NetworkChannel channel,
+            SocketOption<T> option, T value) throws IOException {
+        if(channel.supportedOptions().contains(option))
+            channel.setOption(option, value);
+    }
+
+    /**
+     * Returns true if Nagle's algorithm is disabled.
+     * @return true if TCP_NODELAY is set.
+     */
+    public boolean isNoDelay() {
+        return noDelay;
+    }
+
+    /**
+     * Returns the size of the socket send buffer.
+     * @return the size in bytes; 0 for the system default.
+     */
+    public int getSendBufferSize() {
+        return sendBufferSize;
+    }
+
+    /**
+     * Returns the size of the socket receive buffer.
+     * @return the size in bytes; 0 for the system default.
+     */
+    public int getReceiveBufferSize() {
+        return receiveBufferSize;
+    }
+
+    /**
+     * Returns true if the messages are written together on flush.
+     * @return true if the output is buffered; false if every message
+     *         is written at once.
+     */
+    public boolean isBuffered() {
+        return buffered;
+    }
+
+    /**
+     * Returns the profile in a readable form.
+     * @return the options of the profile.
+     */
+    @Override
+    public String toString() {
+        return "nodelay=" + noDelay + " sndbuf=" + sendBufferSize
+                + " rcvbuf=" + receiveBufferSize + " buffered=" + buffered;
+    }
+}
@@ -0,0 +1,183 @@
+package ashulzhenko.protocol;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.ProtocolFamily;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+/**
+ * Opens the Unix domain socket channels used by the clients and
+ * the servers on the same host, which skip the TCP loopback stack.
+ *
+ * Unix domain socket channels exist since Java 16, so they are
+ * looked up at runtime and the code still builds and runs on Java 8,
+ * where isSupported returns false.
+ *
+ * A server or client address of the form unix:path names a Unix domain
+ * socket instead of a host.
+ *
+ * @version 18/10/2026
+ * @since 1.8
+ */
+public final class MMUnixSockets {
+    /** The prefix of the address of a Unix domain socket. */
+    public static final String PREFIX = "unix:";
+
+    private MMUnixSockets() {
+    }
+
+    /**
+     * Returns true if the JVM supports Unix domain socket channels.
+     * @return true if Unix domain sockets can be used; false otherwise.
+     */
+    public static boolean isSupported() {
+        try {
+            family();
+            address("mm.sock");
+            return true;
+        }
+        catch(IOException ex) {
+            return false;
+        }
+    }
+
+    /**
+     * Returns true if the address names a Unix domain socket.
+     * @param address a host name or unix:path.
+     * @return true if the address starts with unix:.
+     */
+    public static boolean isUnixAddress(String address) {
+        return address.startsWith(PREFIX);
+    }
+
+    /**
+     * Returns the path of a Unix domain socket address.
+     * @param address the address unix:path.
+     * @return the path.
+     */
+    public static String getPath(String address) {
+        return address.substring(PREFIX.length());
+    }
+
+    /**
+     * Opens a server channel listening on the path; a file left
+     * at the path by a previous server is removed first.
+     * @param path the path of the socket file.
+     * @param backlog the length of the queue of connections
+     *                not yet accepted.
+     * @return the bound server channel in blocking mode.
+     * @throws IOException if the JVM does not support Unix domain
+     *                     sockets or the channel cannot be bound.
+     */
+    public static ServerSocketChannel openServer(String path, int backlog)
+            throws IOException {
+        ProtocolFamily family = family();
+        SocketAddress address = address(path);
+        Files.deleteIfExists(Paths.get(path));
+        ServerSocketChannel channel = (ServerSocketChannel)invoke(
+                ServerSocketChannel.class, "open", family);
+        try {
+            channel.bind(address, backlog);
+        }
+        catch(IOException ex) {
+            channel.close();
+            throw ex;
+        }
+        return channel;
+    }
+
+    /**
+     * Connects a channel to the server listening on the path.
+     * @param path the path of the socket file.
+     * @return the connected channel in blocking mode.
+     * @throws IOException if the JVM does not support Unix domain
+     *                     sockets or the server cannot be reached.
+     */
+    public static SocketChannel connect(String path) throws IOException {
+        ProtocolFamily family = family();
+        SocketAddress address = address(path);
+        SocketChannel channel = (SocketChannel)invoke(
+                SocketChannel.class, "open", family);
+        try {
+            channel.connect(address);
+        }
+        catch(IOException ex) {
+            channel.close();
+            throw ex;
+        }
+        return channel;
+    }
+
+    /**
+     * Returns the protocol family of Unix domain sockets.
+     * @return the UNIX protocol family.
+     * @throws IOException if the JVM does not support it.
+     */
+    private static ProtocolFamily family() throws IOException {
+        try {
+            return StandardProtocolFamily.valueOf("UNIX");
+        }
+        catch(IllegalArgumentException ex) {
+            throw unsupported();
+        }
+    }
+
+    /**
+     * Returns the socket address of the path.
+     * @param path the path of the socket file.
+     * @return the Unix domain socket address.
+     * @throws IOException if the JVM does not support it.
+     */
+    private static SocketAddress address(String path) throws IOException {
+        try {
+            return (SocketAddress)invoke(
+                    Class.forName("java.net.UnixDomainSocketAddress"),
+                    "of", path);
+        }
+        catch(ClassNotFoundException ex) {
+            throw unsupported();
+        }
+    }
+
+    /**
+     * Calls the static factory method of the class.
+     * @param type the class.
+     * @param name the name of the method.
+     * @param argument the only argument of the method.
+     * @return the created object.
+     * @throws IOException if the method fails or does not exist.
+     */
+    private static Object invoke(Class<?> type, String name, Object argument)
+            throws IOException {
+        try {
+            Class<?> parameter = argument instanceof ProtocolFamily
+                    ? ProtocolFamily.class : argument.getClass();
+            Method method = type.getMethod(name, parameter);
+            return method.invoke(null, argument);
+        }
+        catch(InvocationTargetException ex) {
+            if(ex.getCause() instanceof IOException)
+                throw (IOException)ex.getCause();
+            throw new IOException(ex.getCause());
+        }
+        catch(ReflectiveOperationException ex) {
+            throw unsupported();
+        }
+    }
+
+    /**
+     * Returns the exception telling that Unix domain sockets
+     * cannot be used.
+     * @return the exception.
+     */
+    private static IOException unsupported() {
+        return new IOException("Unix domain sockets require Java 16 "
+                + "or later");
+    }
+}
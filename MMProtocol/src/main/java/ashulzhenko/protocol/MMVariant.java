@@ -0,0 +1,351 @@
+package ashulzhenko.protocol;
+
+/**
+ * Board geometry of a game: the number of pegs in a code, 
+ * the number of colors and the maximum number of rounds.
+ * Games have 4-8 pegs, 2-12 colors and 1-30 rounds; the classic game 
+ * has 4 pegs, 8 colors and 10 rounds.
+ * 
+ * A code is packed into an int with the same number of bits per peg 
+ * (3 bits up to 8 colors, 4 bits above), the first peg in the lowest bits,
+ * the color stored as color - 1. For the classic game this is exactly 
+ * the packing of MMScorer. When the number of colors is not a power of 2,
+ * the packed codes are not contiguous, so every code also has a dense index 
+ * 0 to getCodeCount() - 1 that can be used for arrays and bitsets.
+ * Scoring, packing and enumerating the codes work without 
+ * any heap allocation, even for the 430 million codes 
+ * of the largest game.
+ * 
+ * The games of the server and of MMEmbeddedEngine follow these rules.
+ * 
+ * @version 18/10/2026
+ * @since 1.8
+ */
+public final class MMVariant {
+    /** The minimum number of pegs. */
+    public static final int MIN_PEGS = 4;
+    /** The maximum number of pegs. */
+    public static final int MAX_PEGS = 8;
+    /** The minimum number of colors. */
+    public static final int MIN_COLORS = 2;
+    /** The maximum number of colors. */
+    public static final int MAX_COLORS = 12;
+    /** The maximum number of rounds. */
+    public static final int MAX_ROUNDS = 30;
+    /** The classic game: 4 pegs, 8 colors and 10 rounds. */
+    public static final MMVariant CLASSIC = new MMVariant(4, 8, 10);
+    
+    private final int pegs;
+    private final int colors;
+    private final int rounds;
+    private final int bits;
+    private final int pegMask;
+    private final int codeCount;
+
+    /**
+     * Instantiates the object receiving the geometry.
+     * @param pegs the number of pegs in a code.
+     * @param colors the number of colors.
+     * @param rounds the maximum number of rounds.
+     */
+    private MMVariant(int pegs, int colors, int rounds) {
+        this.pegs = pegs;
+        this.colors = colors;
+        this.rounds = rounds;
+        this.bits = colors <= 8 ? 3 : 4;
+        this.pegMask = (1 << bits) - 1;
+        int count = 1;
+        for(int i = 0; i < pegs; i++)
+            count *= colors;
+        this.codeCount = count;
+    }
+    
+    /**
+     * Returns the game with the given geometry.
+     * @param pegs the number of pegs in a code.
+     * @param colors the number of colors.
+     * @param rounds the maximum number of rounds.
+     * @return the game with the given geometry.
+     * @throws IllegalArgumentException if the geometry is not supported.
+     */
+    public static MMVariant of(int pegs, int colors, int rounds) {
+        if(!isSupported(pegs, colors, rounds))
+            throw new IllegalArgumentException("Unsupported game: " + pegs 
+                    + " pegs, " + colors + " colors, " + rounds + " rounds");
+        if(pegs == 4 && colors == 8 && rounds == 10)
+            return CLASSIC;
+        return new MMVariant(pegs, colors, rounds);
+    }
+    
+    /**
+     * Returns true if the geometry is supported; false otherwise.
+     * @param pegs the number of pegs in a code.
+     * @param colors the number of colors.
+     * @param rounds the maximum number of rounds.
+     * @return true if the geometry is supported; false otherwise.
+     */
+    public static boolean isSupported(int pegs, int colors, int rounds) {
+        return pegs >= MIN_PEGS && pegs <= MAX_PEGS && 
+               colors >= MIN_COLORS && colors <= MAX_COLORS &&
+               rounds >= 1 && rounds <= MAX_ROUNDS;
+    }
+
+    /**
+     * Returns the number of pegs in a code.
+     * @return the number of pegs in a code.
+     */
+    public int getPegs() {
+        return pegs;
+    }
+
+    /**
+     * Returns the number of colors.
+     * @return the number of colors.
+     */
+    public int getColors() {
+        return colors;
+    }
+
+    /**
+     * Returns the maximum number of rounds.
+     * @return the maximum number of rounds.
+     */
+    public int getRounds() {
+        return rounds;
+    }
+    
+    /**
+     * Returns the number of different codes.
+     * @return the number of different codes.
+     */
+    public int getCodeCount() {
+        return codeCount;
+    }
+    
+    /**
+     * Packs the code.
+     * @param code the code with the colors 1 to getColors().
+     * @return the packed code.
+     * @throws IllegalArgumentException if the code is not valid.
+     */
+    public int encode(int[] code) {
+        if(!isValid(code))
+            throw new IllegalArgumentException("Invalid code");
+        return pack(code);
+    }
+    
+    /**
+     * Packs the code already checked by isValid; unlike encode,
+     * the colors are not checked again.
+     * @param code the valid code.
+     * @return the packed code.
+     */
+    public int pack(int[] code) {
+        int packed = 0;
+        for(int i = 0; i < pegs; i++)
+            packed |= (code[i] - 1) << (i * bits);
+        return packed;
+    }
+    
+    /**
+     * Unpacks the code into the given array.
+     * @param packed the packed code.
+     * @param code the array of at least getPegs() elements to fill.
+     */
+    public void decode(int packed, int[] code) {
+        for(int i = 0; i < pegs; i++)
+            code[i] = peg(packed, i);
+    }
+    
+    /**
+     * Returns the color of the peg of the packed code.
+     * @param packed the packed code.
+     * @param index the index of the peg.
+     * @return the color of the peg starting from 1.
+     */
+    public int peg(int packed, int index) {
+        return ((packed >>> (index * bits)) & pegMask) + 1;
+    }
+    
+    /**
+     * Returns true if the code has getPegs() pegs with valid colors.
+     * @param code the code to check.
+     * @return true if the code is valid; false otherwise.
+     */
+    public boolean isValid(int[] code) {
+        if(code.length != pegs)
+            return false;
+        for(int color : code)
+            if(color < 1 || color > colors)
+                return false;
+        return true;
+    }
+    
+    /**
+     * Returns the packed code with the given dense index.
+     * @param index the index 0 to getCodeCount() - 1.
+     * @return the packed code.
+     */
+    public int codeAt(int index) {
+        int packed = 0;
+        for(int i = 0; i < pegs; i++) {
+            packed |= (index % colors) << (i * bits);
+            index /= colors;
+        }
+        return packed;
+    }
+    
+    /**
+     * Returns the dense index of the packed code.
+     * @param packed the packed code.
+     * @return the index 0 to getCodeCount() - 1.
+     */
+    public int indexOf(int packed) {
+        int index = 0;
+        for(int i = pegs - 1; i >= 0; i--)
+            index = index * colors + ((packed >>> (i * bits)) & pegMask);
+        return index;
+    }
+    
+    /**
+     * Returns the packed code that follows the given one in the order 
+     * of the dense indexes. Enumerating the codes this way avoids 
+     * the divisions of codeAt.
+     * @param packed the packed code.
+     * @return the next packed code; -1 after the last code.
+     */
+    public int nextCode(int packed) {
+        for(int i = 0; i < pegs; i++) {
+            int shift = i * bits;
+            int color = (packed >>> shift) & pegMask;
+            if(color + 1 < colors)
+                return packed + (1 << shift);
+            //carry to the next peg
+            packed &= ~(pegMask << shift);
+        }
+        return -1;
+    }
+    
+    /**
+     * Scores the guess against the secret.
+     * @param secret the packed secret code.
+     * @param guess the packed guess.
+     * @return the packed feedback, as described in MMScorer.
+     */
+    public int score(int secret, int guess) {
+        int inPlace = 0;
+        //4-bit count of every color in each code
+        long secretCounts = 0;
+        long guessCounts = 0;
+        for(int i = 0; i < pegs; i++) {
+            int shift = i * bits;
+            int s = (secret >>> shift) & pegMask;
+            int g = (guess >>> shift) & pegMask;
+            if(s == g)
+                inPlace++;
+            secretCounts += 1L << (s << 2);
+            guessCounts += 1L << (g << 2);
+        }
+        return feedback(inPlace, secretCounts, guessCounts);
+    }
+    
+    /**
+     * Scores the guess sent by the client against the secret.
+     * Pegs with colors outside of the game never match.
+     * @param secret the packed secret code.
+     * @param guess the client's guess.
+     * @return the packed feedback, as described in MMScorer.
+     */
+    public int score(int secret, int[] guess) {
+        int inPlace = 0;
+        long secretCounts = 0;
+        long guessCounts = 0;
+        for(int i = 0; i < pegs; i++) {
+            int s = (secret >>> (i * bits)) & pegMask;
+            secretCounts += 1L << (s << 2);
+            int color = guess[i];
+            if(color >= 1 && color <= colors) {
+                int g = color - 1;
+                if(s == g)
+                    inPlace++;
+                guessCounts += 1L << (g << 2);
+            }
+        }
+        return feedback(inPlace, secretCounts, guessCounts);
+    }
+    
+    /**
+     * Returns the number of different feedbacks, which is the size 
+     * of an array indexed by feedbackIndex.
+     * @return the number of different feedbacks.
+     */
+    public int getFeedbackCount() {
+        return (pegs + 1) * (pegs + 1);
+    }
+    
+    /**
+     * Returns the dense index of the packed feedback.
+     * @param feedback the packed feedback.
+     * @return the index 0 to getFeedbackCount() - 1.
+     */
+    public int feedbackIndex(int feedback) {
+        return MMScorer.inPlace(feedback) * (pegs + 1) 
+                + MMScorer.outPlace(feedback);
+    }
+    
+    /**
+     * Returns true if the feedback means the guess is the secret.
+     * @param feedback the packed feedback.
+     * @return true if all pegs are in place.
+     */
+    public boolean isWin(int feedback) {
+        return MMScorer.inPlace(feedback) == pegs;
+    }
+    
+    /**
+     * Packs the feedback from the color counts.
+     * @param inPlace the number of pegs with the right color and position.
+     * @param secretCounts the 4-bit color counts of the secret.
+     * @param guessCounts the 4-bit color counts of the guess.
+     * @return the packed feedback.
+     */
+    private int feedback(int inPlace, long secretCounts, long guessCounts) {
+        int common = 0;
+        for(int shift = 0; shift < colors * 4; shift += 4)
+            common += (int)Math.min((secretCounts >>> shift) & 0xF, 
+                                    (guessCounts >>> shift) & 0xF);
+        return (inPlace << 4) | (common - inPlace);
+    }
+    
+    /**
+     * Compares the geometry of the games.
+     * @param obj the object to compare.
+     * @return true if the object is a game with the same geometry.
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if(!(obj instanceof MMVariant))
+            return false;
+        MMVariant other = (MMVariant)obj;
+        return pegs == other.pegs && colors == other.colors && 
+               rounds == other.rounds;
+    }
+
+    /**
+     * Returns the hash code of the geometry.
+     * @return the hash code of the geometry.
+     */
+    @Override
+    public int hashCode() {
+        return (pegs * 31 + colors) * 31 + rounds;
+    }
+
+    /**
+     * Returns the geometry as pegs x colors / rounds.
+     * @return the geometry as text.
+     */
+    @Override
+    public String toString() {
+        return pegs + "x" + colors + "/" + rounds;
+    }
+}
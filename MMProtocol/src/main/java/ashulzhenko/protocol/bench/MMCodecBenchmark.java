@@ -0,0 +1,274 @@
+package ashulzhenko.protocol.bench;
+
+import ashulzhenko.protocol.MMBufferPool;
+import ashulzhenko.protocol.MMFrame;
+import ashulzhenko.protocol.MMFrameCodec;
+import ashulzhenko.protocol.MMMessageCodec;
+import ashulzhenko.protocol.MMStreamPacket;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+
+/**
+ * Round-trip benchmark of the codecs: every message is encoded into
+ * a buffer borrowed from the pool, decoded back into a message owned by
+ * the caller and checked, and the buffer is given back.
+ * The messages and frames are then sent and received through
+ * the MMStreamPacket of the client and the server, over streams that
+ * loop back in memory, into a message and a frame owned by the caller.
+ * It reports the time and the bytes allocated by the thread per message
+ * once the pool and the packet are warm, measured by the JVM's allocation
+ * counter, and fails if any message allocated memory.
+ *
+ * Usage: MMCodecBenchmark [messages]
+ * (10000000 messages by default)
+ *
+ * @version 18/10/2026
+ * @since 1.8
+ */
+public class MMCodecBenchmark {
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+
+    private final MMBufferPool pool;
+    private final int[] message;
+    private final int[] decoded;
+    private final MMFrame frame;
+    private final MMFrame decodedFrame;
+    private final MMStreamPacket packet;
+
+    /**
+     * Instantiates the object with a guess of the classic game.
+     */
+    private MMCodecBenchmark() {
+        this.pool = new MMBufferPool(2 * (MMFrameCodec.HEADER
+                + MMFrameCodec.MAX_PAYLOAD), 4);
+        this.message = new int[] {1, 2, 3, 4};
+        this.decoded = new int[MMMessageCodec.MESSAGE_SIZE];
+        this.frame = new MMFrame();
+        this.decodedFrame = new MMFrame();
+        Loopback loopback = new Loopback(2 * (MMFrameCodec.HEADER
+                + MMFrameCodec.MAX_PAYLOAD));
+        this.packet = new MMStreamPacket(loopback.in, loopback.out);
+    }
+
+    /**
+     * Runs the benchmark.
+     * @param args the number of messages.
+     * @throws IOException if a frame cannot be decoded.
+     */
+    public static void main(String[] args) throws IOException {
+        int messages = args.length > 0 ? Integer.parseInt(args[0])
+                                       : 10000000;
+        if(!THREADS.isThreadAllocatedMemorySupported())
+            System.out.println("The allocation counter is not supported");
+        MMCodecBenchmark bench = new MMCodecBenchmark();
+        String[] codecs = {"message", "frame", "packet", "packet frame"};
+        boolean allocates = false;
+        for(int i = 0; i < 2; i++) {
+            boolean report = i == 1;
+            for(int codec = 0; codec < codecs.length; codec++) {
+                long bytes = allocatedBytes();
+                long start = System.nanoTime();
+                long check = bench.run(codec, messages);
+                long nanos = System.nanoTime() - start;
+                bytes = allocatedBytes() - bytes;
+                consume(check);
+                if(report) {
+                    System.out.printf("%-12s: %6.1f ns per round-trip, "
+                            + "%.3f bytes allocated per message%n",
+                            codecs[codec], nanos / (double)messages,
+                            bytes / (double)messages);
+                    allocates |= bytes > 0;
+                }
+            }
+        }
+        System.out.printf("buffers allocated by the pool: %d%n",
+                          bench.pool.getAllocated());
+        if(allocates) {
+            System.out.println("FAILED: the codecs allocate memory");
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Runs one of the round-trips.
+     * @param codec 0 for the message codec, 1 for the frame codec, 
+     *              2 for the messages and 3 for the frames of the packet.
+     * @param count the number of messages.
+     * @return the sum of the decoded values.
+     * @throws IOException if a frame cannot be decoded.
+     */
+    private long run(int codec, int count) throws IOException {
+        switch(codec) {
+            case 0:
+                return messages(count);
+            case 1:
+                return frames(count);
+            case 2:
+                return packetMessages(count);
+            default:
+                return packetFrames(count);
+        }
+    }
+
+    /**
+     * Encodes and decodes messages of the first protocol.
+     * @param count the number of messages.
+     * @return the sum of the decoded values.
+     */
+    private long messages(int count) {
+        long sum = 0;
+        for(int n = 0; n < count; n++) {
+            message[n & 3] = (n & 7) + 1;
+            ByteBuffer buffer = pool.acquire();
+            MMMessageCodec.encode(message, buffer);
+            buffer.flip();
+            if(!MMMessageCodec.decode(buffer, decoded) ||
+               decoded[n & 3] != message[n & 3])
+                throw new IllegalStateException("Wrong round-trip");
+            pool.release(buffer);
+            sum += decoded[0];
+        }
+        return sum;
+    }
+
+    /**
+     * Encodes and decodes guesses of the framed protocol.
+     * @param count the number of frames.
+     * @return the sum of the decoded values.
+     * @throws IOException if a frame cannot be decoded.
+     */
+    private long frames(int count) throws IOException {
+        long sum = 0;
+        for(int n = 0; n < count; n++) {
+            message[n & 3] = (n & 7) + 1;
+            frame.reset(MMFrameCodec.GUESS, n).put(message);
+            ByteBuffer buffer = pool.acquire();
+            MMFrameCodec.encode(frame, buffer);
+            buffer.flip();
+            if(!MMFrameCodec.decode(buffer, decodedFrame) ||
+               decodedFrame.getGameId() != n)
+                throw new IllegalStateException("Wrong round-trip");
+            decodedFrame.get(0, decoded);
+            pool.release(buffer);
+            sum += decoded[n & 3];
+        }
+        return sum;
+    }
+
+    /**
+     * Sends and receives messages of the first protocol through 
+     * the packet.
+     * @param count the number of messages.
+     * @return the sum of the received values.
+     * @throws IOException if the loopback fails.
+     */
+    private long packetMessages(int count) throws IOException {
+        long sum = 0;
+        for(int n = 0; n < count; n++) {
+            message[n & 3] = (n & 7) + 1;
+            packet.sendMessage(message);
+            packet.receiveMessage(decoded);
+            if(decoded[n & 3] != message[n & 3])
+                throw new IllegalStateException("Wrong round-trip");
+            sum += decoded[0];
+        }
+        return sum;
+    }
+
+    /**
+     * Sends and receives guesses of the framed protocol through 
+     * the packet, one flush per frame.
+     * @param count the number of frames.
+     * @return the sum of the received values.
+     * @throws IOException if a frame cannot be decoded.
+     */
+    private long packetFrames(int count) throws IOException {
+        long sum = 0;
+        for(int n = 0; n < count; n++) {
+            message[n & 3] = (n & 7) + 1;
+            packet.sendFrame(frame.reset(MMFrameCodec.GUESS, n).put(message));
+            packet.flush();
+            if(packet.receiveFrame(decodedFrame).getGameId() != n)
+                throw new IllegalStateException("Wrong round-trip");
+            decodedFrame.get(0, decoded);
+            sum += decoded[n & 3];
+        }
+        return sum;
+    }
+
+    /**
+     * Returns the bytes allocated by the current thread so far.
+     * @return the bytes allocated; 0 if it cannot be measured.
+     */
+    private static long allocatedBytes() {
+        return THREADS.isThreadAllocatedMemorySupported()
+                ? THREADS.getThreadAllocatedBytes(
+                        Thread.currentThread().getId()) : 0;
+    }
+
+    /**
+     * Keeps the results alive so that the work is not optimized away.
+     * @param value the result to keep.
+     */
+    private static void consume(long value) {
+        if(value == 42)
+            System.out.print("");
+    }
+
+    /**
+     * A pair of streams in which the bytes written are read back, 
+     * through a ring that never allocates memory.
+     */
+    private static final class Loopback {
+        private final byte[] ring;
+        private long written;
+        private long read;
+        private final InputStream in = new InputStream() {
+            @Override
+            public int read() {
+                if(read == written)
+                    return -1;
+                return ring[(int)(read++ % ring.length)] & 0xFF;
+            }
+
+            @Override
+            public int read(byte[] bytes, int offset, int length) {
+                if(read == written)
+                    return -1;
+                int count = (int)Math.min(length, written - read);
+                for(int i = 0; i < count; i++)
+                    bytes[offset + i] = ring[(int)(read++ % ring.length)];
+                return count;
+            }
+        };
+        private final OutputStream out = new OutputStream() {
+            @Override
+            public void write(int value) throws IOException {
+                if(written - read == ring.length)
+                    throw new IOException("The loopback is full");
+                ring[(int)(written++ % ring.length)] = (byte)value;
+            }
+
+            @Override
+            public void write(byte[] bytes, int offset, int length) 
+                    throws IOException {
+                if(written - read + length > ring.length)
+                    throw new IOException("The loopback is full");
+                for(int i = 0; i < length; i++)
+                    ring[(int)(written++ % ring.length)] = bytes[offset + i];
+            }
+        };
+
+        /**
+         * Instantiates the empty loopback.
+         * @param capacity the bytes written and not read yet it can hold.
+         */
+        private Loopback(int capacity) {
+            this.ring = new byte[capacity];
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package ashulzhenko.protocol.bench;
+
+import ashulzhenko.protocol.MMEmbeddedEngine;
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+/**
+ * Throughput benchmark of the embedded engine, as a harness driving
+ * games without a network would use it: every game has a random answer
+ * set and is played with random guesses until it is won or lost.
+ * It reports the games per second, the time of a turn and the bytes
+ * allocated by the thread per turn, measured by the JVM's allocation
+ * counter.
+ *
+ * Usage: MMEmbeddedBenchmark [games]
+ * (1000000 games by default)
+ *
+ * @version 18/10/2026
+ * @since 1.8
+ */
+public class MMEmbeddedBenchmark {
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+
+    private final MMEmbeddedEngine engine;
+    private final Random random;
+    private final int[] start;
+    private final int[] guess;
+    private final int[] reply;
+    private long turns;
+
+    /**
+     * Instantiates the object with the engine of the classic game.
+     */
+    private MMEmbeddedBenchmark() {
+        this.engine = new MMEmbeddedEngine(new Random(42));
+        this.random = new Random(7);
+        this.start = new int[4];
+        this.guess = new int[4];
+        this.reply = new int[4];
+    }
+
+    /**
+     * Runs the benchmark.
+     * @param args the number of games.
+     */
+    public static void main(String[] args) {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+        MMEmbeddedBenchmark bench = new MMEmbeddedBenchmark();
+        //warm up
+        consume(bench.play(games / 10 + 1));
+        bench.turns = 0;
+        long bytes = allocatedBytes();
+        long begin = System.nanoTime();
+        long won = bench.play(games);
+        long nanos = System.nanoTime() - begin;
+        bytes = allocatedBytes() - bytes;
+        System.out.printf("%d games, %d won, %d turns%n",
+                          games, won, bench.turns);
+        System.out.printf("%.0f games/s, %.1f ns per turn, "
+                + "%.3f bytes allocated per turn%n", games * 1e9 / nanos,
+                nanos / (double)bench.turns, bytes / (double)bench.turns);
+    }
+
+    /**
+     * Plays the games.
+     * @param games the number of games.
+     * @return the number of games won.
+     */
+    private long play(int games) {
+        long won = 0;
+        for(int game = 0; game < games; game++) {
+            engine.send(start);
+            engine.receive(reply);
+            for(;;) {
+                for(int i = 0; i < guess.length; i++)
+                    guess[i] = random.nextInt(8) + 1;
+                engine.send(guess);
+                engine.receive(reply);
+                turns++;
+                if(reply[0] == 15) {
+                    //the answer set follows
+                    engine.receive(reply);
+                    break;
+                }
+                if(reply[3] == 12) {
+                    won++;
+                    break;
+                }
+            }
+        }
+        return won;
+    }
+
+    /**
+     * Returns the bytes allocated by the current thread so far.
+     * @return the bytes allocated; 0 if it cannot be measured.
+     */
+    private static long allocatedBytes() {
+        return THREADS.isThreadAllocatedMemorySupported()
+                ? THREADS.getThreadAllocatedBytes(
+                        Thread.currentThread().getId()) : 0;
+    }
+
+    /**
+     * Keeps the results alive so that the work is not optimized away.
+     * @param value the result to keep.
+     */
+    private static void consume(long value) {
+        if(value == 42)
+            System.out.print("");
+    }
+}
@@ -0,0 +1,140 @@
+package ashulzhenko.server;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.SynchronousQueue;
+
+/**
+ * Admission control of the blocking engine.
+ * At most maxSessions sessions run at the same time; the sessions accepted 
+ * above that limit wait in a bounded queue and are started in turn 
+ * as the running sessions finish. When the queue is full as well,
+ * the session is refused so that the client gets a fast "server busy" 
+ * reply instead of hanging.
+ * 
+ * It works with any executor, so the limit applies to platform threads,
+ * virtual threads and pools alike.
+ * 
+ * @version 18/10/2026
+ * @since 1.8
+ */
+public class MMAdmission {
+    private final Executor executor;
+    private final MMServerStats stats;
+    private final Semaphore slots;
+    private final BlockingQueue<Pending> queue;
+    
+    /**
+     * Instantiates the object receiving the limits.
+     * @param executor the executor that runs the sessions.
+     * @param stats the counters of the server.
+     * @param maxSessions the maximum number of sessions running at once.
+     * @param queueSize the maximum number of sessions waiting to run.
+     */
+    public MMAdmission(Executor executor, MMServerStats stats, 
+                       int maxSessions, int queueSize) {
+        this.executor = executor;
+        this.stats = stats;
+        this.slots = new Semaphore(maxSessions);
+        //a synchronous queue never accepts a session nobody is waiting for
+        this.queue = queueSize > 0 ? new ArrayBlockingQueue<>(queueSize) 
+                                   : new SynchronousQueue<>();
+    }
+    
+    /**
+     * Starts the session at once if there is a free slot;
+     * otherwise queues it if the queue is not full.
+     * @param session the session to admit.
+     * @return true if the session was started or queued; 
+     *         false if it has to be refused.
+     */
+    public boolean admit(MMSession session) {
+        Pending pending = new Pending(session);
+        if(slots.tryAcquire()) {
+            start(pending);
+            return true;
+        }
+        if(!queue.offer(pending)) {
+            stats.sessionRejected();
+            return false;
+        }
+        stats.sessionQueued(queue.size());
+        //a slot may have been released before the session was queued
+        drain();
+        return true;
+    }
+    
+    /**
+     * Returns the number of sessions waiting to run.
+     * @return the number of sessions waiting to run.
+     */
+    public int getQueueDepth() {
+        return queue.size();
+    }
+    
+    /**
+     * Runs the session on the executor; when the session finishes,
+     * its slot is passed to the next queued session.
+     * The caller must hold a slot.
+     * @param pending the session to run.
+     */
+    private void start(Pending pending) {
+        stats.sessionWaited(System.nanoTime() - pending.queuedAt);
+        Runnable task = stats.track(pending.session);
+        executor.execute(() -> {
+            try {
+                task.run();
+            }
+            finally {
+                release();
+            }
+        });
+    }
+    
+    /**
+     * Passes the slot of the finished session to the next queued session
+     * or frees it if nobody is waiting.
+     */
+    private void release() {
+        Pending next = queue.poll();
+        if(next != null)
+            start(next);
+        else {
+            slots.release();
+            drain();
+        }
+    }
+    
+    /**
+     * Starts the queued sessions while there are free slots.
+     */
+    private void drain() {
+        while(!queue.isEmpty() && slots.tryAcquire()) {
+            Pending next = queue.poll();
+            if(next == null) {
+                slots.release();
+                return;
+            }
+            start(next);
+        }
+    }
+    
+    /**
+     * A session waiting for a free slot.
+     */
+    private static class Pending {
+        private final MMSession session;
+        private final long queuedAt;
+        
+        /**
+         * Instantiates the object receiving the session.
+         * @param session the session waiting for a free slot.
+         */
+        private Pending(MMSession session) {
+            this.session = session;
+            this.queuedAt = System.nanoTime();
+        }
+    }
+}
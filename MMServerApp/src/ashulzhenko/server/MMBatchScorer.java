@@ -0,0 +1,170 @@
+package ashulzhenko.server;
+
+import ashulzhenko.protocol.MMScorer;
+import ashulzhenko.protocol.MMVariant;
+import java.util.Arrays;
+
+/**
+ * Scores one guess of the classic game against many packed secrets 
+ * per call, writing the feedbacks into an array of the caller 
+ * in the format of MMScorer.
+ * 
+ * Two kernels are available. The scalar kernel calls MMScorer 
+ * for every secret. The SWAR kernel treats the pegs and the color counts 
+ * of a code as lanes of an int: the in-place clues are one xor 
+ * and a bit count, the color counts of the guess are computed once 
+ * per call, the counts of the secrets are read from a 16 KiB table 
+ * and the common colors are the nibble-wise minimum summed 
+ * with one multiplication. The kernel is chosen when the class 
+ * is loaded: SWAR unless the system property mm.batch is "scalar".
+ * 
+ * @version 18/10/2026
+ * @since 1.8
+ */
+public final class MMBatchScorer {
+    /** The kernel working on lanes packed into an int. */
+    public static final String SWAR = "swar";
+    /** The kernel scoring one secret after the other. */
+    public static final String SCALAR = "scalar";
+    
+    /** The lowest bit of every peg. */
+    private static final int PEG_LOW_BITS = 0x249;
+    /** The highest bit of every color count. */
+    private static final int COUNT_HIGH_BITS = 0x88888888;
+    /** The color counts of every code, one nibble per color. */
+    private static final int[] COUNTS = new int[MMScorer.CODES];
+    private static final boolean USE_SWAR = 
+            !SCALAR.equals(System.getProperty("mm.batch"));
+    
+    static {
+        for(int code = 0; code < MMScorer.CODES; code++)
+            COUNTS[code] = counts(code);
+    }
+    
+    private MMBatchScorer() {
+    }
+    
+    /**
+     * Returns the kernel used by score and partition.
+     * @return swar or scalar.
+     */
+    public static String getKernel() {
+        return USE_SWAR ? SWAR : SCALAR;
+    }
+    
+    /**
+     * Scores the guess against the secrets with the selected kernel.
+     * @param guess the packed guess.
+     * @param secrets the packed secrets.
+     * @param size the number of secrets to score.
+     * @param feedbacks the array receiving the feedback of every secret.
+     */
+    public static void score(int guess, int[] secrets, int size, 
+                             int[] feedbacks) {
+        if(USE_SWAR)
+            scoreSwar(guess, secrets, size, feedbacks);
+        else
+            scoreScalar(guess, secrets, size, feedbacks);
+    }
+    
+    /**
+     * Scores the guess against the secrets calling MMScorer for each.
+     * @param guess the packed guess.
+     * @param secrets the packed secrets.
+     * @param size the number of secrets to score.
+     * @param feedbacks the array receiving the feedback of every secret.
+     */
+    public static void scoreScalar(int guess, int[] secrets, int size, 
+                                   int[] feedbacks) {
+        for(int i = 0; i < size; i++)
+            feedbacks[i] = MMScorer.score(secrets[i], guess);
+    }
+    
+    /**
+     * Scores the guess against the secrets with the SWAR kernel.
+     * @param guess the packed guess.
+     * @param secrets the packed secrets.
+     * @param size the number of secrets to score.
+     * @param feedbacks the array receiving the feedback of every secret.
+     */
+    public static void scoreSwar(int guess, int[] secrets, int size, 
+                                 int[] feedbacks) {
+        int guessCounts = COUNTS[guess];
+        for(int i = 0; i < size; i++) {
+            int secret = secrets[i];
+            int inPlace = inPlace(secret, guess);
+            int common = common(COUNTS[secret], guessCounts);
+            feedbacks[i] = (inPlace << 4) | (common - inPlace);
+        }
+    }
+    
+    /**
+     * Counts the secrets of every feedback of the guess 
+     * with the selected kernel.
+     * The partitions are indexed as MMVariant.CLASSIC.feedbackIndex.
+     * @param guess the packed guess.
+     * @param secrets the packed secrets.
+     * @param size the number of secrets to score.
+     * @param partitions the array receiving the number of secrets 
+     *                   of every feedback; cleared first.
+     */
+    public static void partition(int guess, int[] secrets, int size, 
+                                 int[] partitions) {
+        Arrays.fill(partitions, 0);
+        if(!USE_SWAR) {
+            for(int i = 0; i < size; i++)
+                partitions[MMVariant.CLASSIC.feedbackIndex(
+                        MMScorer.score(secrets[i], guess))]++;
+            return;
+        }
+        int guessCounts = COUNTS[guess];
+        for(int i = 0; i < size; i++) {
+            int secret = secrets[i];
+            int inPlace = inPlace(secret, guess);
+            int common = common(COUNTS[secret], guessCounts);
+            partitions[inPlace * (MMScorer.PEGS + 1) + common - inPlace]++;
+        }
+    }
+    
+    /**
+     * Counts the pegs of the same color in the same place.
+     * @param secret the packed secret.
+     * @param guess the packed guess.
+     * @return the number of in-place clues.
+     */
+    private static int inPlace(int secret, int guess) {
+        int diff = secret ^ guess;
+        //the lowest bit of a peg is set if any of its bits differ
+        int differs = (diff | (diff >>> 1) | (diff >>> 2)) & PEG_LOW_BITS;
+        return MMScorer.PEGS - Integer.bitCount(differs);
+    }
+    
+    /**
+     * Counts the colors the codes have in common from their color counts.
+     * A count is at most 4, so setting the high bit of every nibble 
+     * lets the nibbles be subtracted at once without borrows.
+     * @param secretCounts the color counts of the secret.
+     * @param guessCounts the color counts of the guess.
+     * @return the number of common colors.
+     */
+    private static int common(int secretCounts, int guessCounts) {
+        int notLess = (((secretCounts | COUNT_HIGH_BITS) - guessCounts) 
+                & COUNT_HIGH_BITS) >>> 3;
+        int mask = notLess * 0xF;
+        int min = (guessCounts & mask) | (secretCounts & ~mask);
+        //the sum of all nibbles ends up in the top nibble
+        return (min * 0x11111111) >>> 28;
+    }
+    
+    /**
+     * Computes the color counts of the code, one nibble per color.
+     * @param code the packed code.
+     * @return the color counts.
+     */
+    private static int counts(int code) {
+        int counts = 0;
+        for(int i = 0; i < MMScorer.PEGS; i++)
+            counts += 1 << ((MMScorer.peg(code, i) - 1) << 2);
+        return counts;
+    }
+}
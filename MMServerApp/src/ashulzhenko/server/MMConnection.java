@@ -0,0 +1,95 @@
+package ashulzhenko.server;
+
+import ashulzhenko.protocol.MMFrame;
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A connection through which the session sends its replies to the client.
+ * It hides whether the messages go through a blocking socket 
+ * or a non-blocking channel.
+ * @version 18/10/2026
+ * @since 1.8
+ */
+public interface MMConnection {
+    
+    /**
+     * Sends the message to the client.
+     * @param message the message to send.
+     * @throws IOException If there is a communication problem.
+     */
+    void sendMessage(int[] message) throws IOException;
+    
+    /**
+     * Sends the frame of the framed protocol to the client.
+     * The frame is encoded at once, so it may be reused afterwards.
+     * @param frame the frame to send.
+     * @throws IOException If there is a communication problem.
+     */
+    void sendFrame(MMFrame frame) throws IOException;
+    
+    /**
+     * Writes the replies sent since the last flush. The session flushes
+     * at the end of every request, so that the replies to one request 
+     * (e.g. the clues and the answer set) take one write 
+     * if the transport is buffered.
+     * @throws IOException If there is a communication problem.
+     */
+    void flush() throws IOException;
+    
+    /**
+     * Sends the reply once it is computed by another thread.
+     * No other message of the client is processed before it is sent,
+     * so the replies keep the order of the requests.
+     * @param <T> the type of the reply.
+     * @param reply the reply that is being computed.
+     * @param sender sends the computed reply through this connection;
+     *               it is called by the thread that serves the connection.
+     * @throws IOException If there is a communication problem.
+     */
+    <T> void sendLater(CompletableFuture<T> reply, Sender<T> sender) 
+            throws IOException;
+    
+    /**
+     * Sets the size of the messages received from now on.
+     * Every message has 4 bytes until the client negotiates 
+     * a game with more pegs.
+     * @param size the number of bytes of a message.
+     */
+    void setFrameSize(int size);
+    
+    /**
+     * Closes the connection with the client.
+     * @throws IOException If there is a problem when closing the connection.
+     */
+    void close() throws IOException;
+    
+    /**
+     * Closes the connection from a thread other than the one 
+     * that serves it, e.g. when the client reconnected and its game 
+     * is taken over by the new connection. The connection may be closed
+     * after this method returns, by the thread that serves it.
+     */
+    void closeLater();
+    
+    /**
+     * Returns true if the connection is closed; false otherwise.
+     * @return true if the connection is closed; false otherwise.
+     */
+    boolean isClosed();
+    
+    /**
+     * Sends a reply computed by another thread.
+     * @param <T> the type of the reply.
+     */
+    @FunctionalInterface
+    interface Sender<T> {
+        
+        /**
+         * Sends the computed reply.
+         * @param reply the computed reply.
+         * @throws IOException If there is a communication problem.
+         */
+        void send(T reply) throws IOException;
+    }
+}
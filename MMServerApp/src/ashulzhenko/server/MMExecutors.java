@@ -0,0 +1,96 @@
+package ashulzhenko.server;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Factory of the executors that run the sessions of the blocking engine.
+ * 
+ * Virtual threads are looked up at runtime, so the server still builds 
+ * and runs on Java 8 when they are not requested.
+ * The session read loop does not hold any monitor while it is blocked 
+ * on the socket (MMPacket has no synchronized code), 
+ * so a blocked session does not pin its carrier thread.
+ * 
+ * @version 18/10/2026
+ * @since 1.8
+ */
+public final class MMExecutors {
+    
+    private MMExecutors() {
+    }
+    
+    /**
+     * Creates the executor configured for the sessions.
+     * @param config the server configuration.
+     * @return the executor that runs the sessions.
+     * @throws IllegalStateException if virtual threads are requested 
+     *                               but not supported by the JVM.
+     */
+    public static Executor create(MMServerConfig config) {
+        switch(config.getExecutor()) {
+            case MMServerConfig.EXECUTOR_VIRTUAL:
+                return newVirtualThreadPerTaskExecutor();
+            case MMServerConfig.EXECUTOR_FIXED:
+                return Executors.newFixedThreadPool(config.getThreads());
+            default:
+                return MMExecutors::startThread;
+        }
+    }
+    
+    /**
+     * Returns true if the JVM supports virtual threads; false otherwise.
+     * @return true if the JVM supports virtual threads; false otherwise.
+     */
+    public static boolean isVirtualSupported() {
+        try {
+            Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return true;
+        }
+        catch(NoSuchMethodException ex) {
+            return false;
+        }
+    }
+    
+    /**
+     * Returns the number of carrier threads that run virtual threads.
+     * @return the number of carrier threads.
+     */
+    public static int getCarrierCount() {
+        String parallelism = 
+                System.getProperty("jdk.virtualThreadScheduler.parallelism");
+        if(parallelism != null)
+            return Integer.parseInt(parallelism);
+        return Runtime.getRuntime().availableProcessors();
+    }
+    
+    /**
+     * Starts a new platform thread for the session.
+     * @param session the session to run.
+     */
+    private static void startThread(Runnable session) {
+        Thread thread = new Thread(session);
+        thread.start();
+        System.out.println("Created and started Thread = " + thread.getName());
+    }
+    
+    /**
+     * Creates the executor that starts a new virtual thread for every task.
+     * @return the executor that starts a new virtual thread for every task.
+     * @throws IllegalStateException if the JVM does not support 
+     *                               virtual threads.
+     */
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            Method factory = Executors.class
+                    .getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService)factory.invoke(null);
+        }
+        catch(ReflectiveOperationException ex) {
+            throw new IllegalStateException("Virtual threads require "
+                    + "Java 21 or later: " + ex.getMessage());
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package ashulzhenko.server;
+
+import ashulzhenko.protocol.MMScorer;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.stream.IntStream;
+
+/**
+ * Precomputed feedback of every (secret, guess) pair of packed codes.
+ * There are 4096 x 4096 pairs and every packed feedback fits in a byte,
+ * so the table takes 16 MiB.
+ * 
+ * The table is either built in parallel in memory or memory-mapped 
+ * from a file, which lets a restarted server reuse the table 
+ * saved by the previous run without building it again.
+ * The file starts with a 16-byte header: the magic number, the version, 
+ * the number of pegs and the number of colors.
+ * 
+ * @version 18/10/2026
+ * @since 1.8
+ */
+public class MMFeedbackTable {
+    private static final int MAGIC = 0x4D4D4654;
+    private static final int VERSION = 1;
+    private static final int HEADER = 16;
+    private static final int SIZE = MMScorer.CODES * MMScorer.CODES;
+    
+    private final ByteBuffer table;
+    private final int offset;
+    private final boolean mapped;
+    
+    /**
+     * Instantiates the object receiving the table.
+     * @param table the buffer with the feedback of every pair.
+     * @param offset the position of the first feedback in the buffer.
+     * @param mapped true if the buffer is memory-mapped from a file.
+     */
+    private MMFeedbackTable(ByteBuffer table, int offset, boolean mapped) {
+        this.table = table;
+        this.offset = offset;
+        this.mapped = mapped;
+    }
+    
+    /**
+     * Builds the table in memory using all available processors.
+     * @return the table.
+     */
+    public static MMFeedbackTable build() {
+        byte[] feedback = new byte[SIZE];
+        IntStream.range(0, MMScorer.CODES).parallel().forEach(secret -> {
+            int row = secret * MMScorer.CODES;
+            for(int guess = 0; guess < MMScorer.CODES; guess++)
+                feedback[row + guess] = (byte)MMScorer.score(secret, guess);
+        });
+        return new MMFeedbackTable(ByteBuffer.wrap(feedback), 0, false);
+    }
+    
+    /**
+     * Memory-maps the table saved in the file.
+     * @param file the file with the table.
+     * @return the table.
+     * @throws IOException if the file cannot be read or is not a table 
+     *                     of this game.
+     */
+    public static MMFeedbackTable load(Path file) throws IOException {
+        try(FileChannel channel = FileChannel.open(file, 
+                StandardOpenOption.READ)) {
+            if(channel.size() != HEADER + SIZE)
+                throw new IOException("Invalid feedback table size: " 
+                        + channel.size());
+            MappedByteBuffer buffer = channel.map(
+                    FileChannel.MapMode.READ_ONLY, 0, HEADER + SIZE);
+            if(buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION ||
+               buffer.getInt(8) != MMScorer.PEGS || 
+               buffer.getInt(12) != MMScorer.COLORS)
+                throw new IOException("Invalid feedback table header");
+            return new MMFeedbackTable(buffer, HEADER, true);
+        }
+    }
+    
+    /**
+     * Memory-maps the table from the file; if the file does not exist 
+     * or is not a valid table, the table is built and saved first.
+     * @param file the file with the table.
+     * @return the table.
+     * @throws IOException if the file cannot be read or written.
+     */
+    public static MMFeedbackTable loadOrBuild(Path file) throws IOException {
+        if(Files.exists(file)) {
+            try {
+                return load(file);
+            }
+            catch(IOException ex) {
+                System.err.println("The feedback table is built again: " 
+                        + ex.getMessage());
+            }
+        }
+        build().save(file);
+        return load(file);
+    }
+    
+    /**
+     * Saves the table into the file.
+     * The table is written to a temporary file of the same directory,
+     * which then replaces the file in one step: a server that stops 
+     * while saving never leaves a partial table behind.
+     * @param file the file to write.
+     * @throws IOException if the file cannot be written.
+     */
+    public void save(Path file) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER);
+        header.putInt(MAGIC).putInt(VERSION)
+              .putInt(MMScorer.PEGS).putInt(MMScorer.COLORS).flip();
+        ByteBuffer body = table.duplicate();
+        body.position(offset).limit(offset + SIZE);
+        Path dir = file.toAbsolutePath().getParent();
+        Path temp = Files.createTempFile(dir, 
+                file.getFileName().toString(), ".tmp");
+        try {
+            try(FileChannel channel = FileChannel.open(temp, 
+                    StandardOpenOption.WRITE)) {
+                while(header.hasRemaining())
+                    channel.write(header);
+                while(body.hasRemaining())
+                    channel.write(body);
+                channel.force(false);
+            }
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE);
+        }
+        finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+    
+    /**
+     * Returns the feedback of the guess against the secret.
+     * @param secret the packed secret code.
+     * @param guess the packed guess.
+     * @return the packed feedback, the same as MMScorer.score.
+     */
+    public int score(int secret, int guess) {
+        return table.get(offset + (secret << 12 | guess));
+    }
+    
+    /**
+     * Returns the number of bytes taken by the table.
+     * @return the number of bytes taken by the table.
+     */
+    public long footprint() {
+        return SIZE;
+    }
+    
+    /**
+     * Returns true if the table is memory-mapped from a file;
+     * false if it is on the heap.
+     * @return true if the table is memory-mapped from a file.
+     */
+    public boolean isMapped() {
+        return mapped;
+    }
+}
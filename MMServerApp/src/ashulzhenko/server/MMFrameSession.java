@@ -0,0 +1,327 @@
+package ashulzhenko.server;
+
+import ashulzhenko.protocol.MMFrame;
+import ashulzhenko.protocol.MMFrameCodec;
+import ashulzhenko.protocol.MMScorer;
+import ashulzhenko.protocol.MMVariant;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Session of a client that speaks the framed protocol described 
+ * in MMFrameCodec. It plays the games with the same rules 
+ * as MMSession and replies to every frame, also to every guess 
+ * of a batch.
+ * 
+ * The client may play many games at once over its connection: 
+ * every game is known by the id the client chose when starting it 
+ * and keeps its own answer set, rounds and result, so the frames 
+ * of different games may be interleaved. The number of games 
+ * played at once is limited by setMaxGames; a new game beyond 
+ * the limit is refused as BUSY.
+ * 
+ * The session is driven by processFrame, from the thread of a blocking 
+ * session or from the event loop of a non-blocking connection,
+ * so the games do not need a thread each.
+ * 
+ * @version 18/10/2026
+ * @since 1.8
+ */
+public class MMFrameSession {
+    private static volatile int maxGames = 10000;
+    
+    private final MMConnection connection;
+    private final MMFrame reply;
+    private final Random random;
+    private final Map<Integer, MMGame> games;
+    private final int[][] colors;
+    
+    /**
+     * Instantiates the object when receiving the connection.
+     * @param connection the connection used to send replies to the client.
+     */
+    public MMFrameSession(MMConnection connection) {
+        this.connection = connection;
+        this.reply = new MMFrame();
+        this.random = new Random();
+        this.games = new HashMap<>();
+        this.colors = new int[MMVariant.MAX_PEGS + 1][];
+        System.out.println("Running framed session...");
+    }
+    
+    /**
+     * Sets the maximum number of games a session plays at once.
+     * @param max the maximum number of games.
+     */
+    public static void setMaxGames(int max) {
+        maxGames = max;
+    }
+    
+    /**
+     * Returns the number of games being played.
+     * @return the number of games being played.
+     */
+    public int getGameCount() {
+        return games.size();
+    }
+    
+    /**
+     * Ends the games left running when the session is over.
+     */
+    public void abandon() {
+        for(MMGame game : games.values())
+            game.end();
+        games.clear();
+    }
+    
+    /**
+     * Advances the session with one frame received from the client
+     * and replies to it.
+     * @param frame the client's frame.
+     * @return true if the session expects more frames; 
+     *         false if it is finished.
+     * @throws IOException If there is a problem when communicating 
+     *                     to the client.
+     */
+    public boolean processFrame(MMFrame frame) throws IOException {
+        switch(frame.getOpcode()) {
+            case MMFrameCodec.NEW_GAME:
+                startGame(frame);
+                return true;
+            case MMFrameCodec.GUESS:
+                guess(frame);
+                return true;
+            case MMFrameCodec.HINT:
+                hint(frame);
+                return true;
+            case MMFrameCodec.QUIT_GAME:
+                quitGame(frame);
+                return true;
+            case MMFrameCodec.BATCH:
+                batch(frame);
+                return true;
+            case MMFrameCodec.BYE:
+                abandon();
+                connection.sendFrame(reply.reset(MMFrameCodec.CLOSED, 
+                                                 frame.getGameId()));
+                System.out.println("Out of the session loop");
+                return false;
+            default:
+                sendError(frame, MMFrameCodec.BAD_REQUEST);
+                return true;
+        }
+    }
+    
+    /**
+     * Starts the game requested by the client.
+     * @param frame the client's frame: [pegs colors rounds [answer set]].
+     * @throws IOException If there is a problem when communicating 
+     *                     to the client.
+     */
+    private void startGame(MMFrame frame) throws IOException {
+        if(games.containsKey(frame.getGameId())) {
+            sendError(frame, MMFrameCodec.GAME_EXISTS);
+            return;
+        }
+        if(games.size() >= maxGames) {
+            sendError(frame, MMFrameCodec.BUSY);
+            return;
+        }
+        MMVariant variant = MMVariant.CLASSIC;
+        int length = frame.getLength();
+        if(length > 0) {
+            if(length < 3 || !MMVariant.isSupported(frame.get(0), 
+                    frame.get(1), frame.get(2))) {
+                sendError(frame, MMFrameCodec.BAD_VARIANT);
+                return;
+            }
+            variant = MMVariant.of(frame.get(0), frame.get(1), frame.get(2));
+        }
+        int[] answer = null;
+        if(length > 3) {
+            answer = new int[length - 3];
+            frame.get(3, answer);
+        }
+        int gameId = frame.getGameId();
+        games.put(gameId, new MMGame(variant, answer, random));
+        connection.sendFrame(reply.reset(MMFrameCodec.STARTED, gameId)
+                .put(variant.getPegs()).put(variant.getColors())
+                .put(variant.getRounds()));
+    }
+    
+    /**
+     * Scores the guess of the client and ends the game 
+     * if it is won or lost.
+     * @param frame the client's frame: colors.
+     * @throws IOException If there is a problem when communicating 
+     *                     to the client.
+     */
+    private void guess(MMFrame frame) throws IOException {
+        MMGame game = findGame(frame);
+        if(game == null)
+            return;
+        int[] guess = colors(game);
+        if(frame.getLength() != guess.length) {
+            sendError(frame, MMFrameCodec.BAD_REQUEST);
+            return;
+        }
+        frame.get(0, guess);
+        score(frame.getGameId(), game, guess,
+              reply.reset(MMFrameCodec.CLUES, frame.getGameId()));
+        connection.sendFrame(reply);
+    }
+    
+    /**
+     * Scores several guesses in order and replies with all clues.
+     * The replies that do not fit in one frame are split over several,
+     * which the connection writes together.
+     * @param frame the client's frame: {game id, n, n colors}...
+     * @throws IOException If there is a problem when communicating 
+     *                     to the client.
+     */
+    private void batch(MMFrame frame) throws IOException {
+        if(!isBatch(frame)) {
+            sendError(frame, MMFrameCodec.BAD_REQUEST);
+            return;
+        }
+        reply.reset(MMFrameCodec.BATCH_CLUES, frame.getGameId());
+        for(int index = 0; index < frame.getLength(); ) {
+            int id = frame.getInt(index);
+            int count = frame.get(index + 4) & 0xFF;
+            index += 5;
+            if(reply.getRoom() < 7 + MMVariant.MAX_PEGS) {
+                connection.sendFrame(reply);
+                reply.reset(MMFrameCodec.BATCH_CLUES, frame.getGameId());
+            }
+            reply.putInt(id);
+            MMGame game = games.get(id);
+            if(game != null && count == game.getVariant().getPegs()) {
+                int[] guess = colors(game);
+                frame.get(index, guess);
+                score(id, game, guess, reply);
+            }
+            else
+                reply.put(0).put(0).put(MMFrameCodec.REFUSED);
+            index += count;
+        }
+        connection.sendFrame(reply);
+    }
+    
+    /**
+     * Returns true if the payload is a sequence of complete entries.
+     * @param frame the client's frame: {game id, n, n colors}...
+     * @return true if the frame is a valid batch.
+     */
+    private static boolean isBatch(MMFrame frame) {
+        int index = 0;
+        while(index + 5 <= frame.getLength())
+            index += 5 + (frame.get(index + 4) & 0xFF);
+        return index == frame.getLength();
+    }
+    
+    /**
+     * Scores the guess and appends the clues and the status 
+     * of the game to the reply; the game is over if it is won or lost.
+     * @param gameId the id of the game.
+     * @param game the game.
+     * @param guess the colors of the guess.
+     * @param reply the reply to append to.
+     */
+    private void score(int gameId, MMGame game, int[] guess, MMFrame reply) {
+        int feedback = game.guess(guess);
+        reply.put(MMScorer.inPlace(feedback))
+             .put(MMScorer.outPlace(feedback));
+        if(game.isWon()) {
+            reply.put(MMFrameCodec.WON);
+            games.remove(gameId);
+        }
+        else if(game.isLost()) {
+            reply.put(MMFrameCodec.LOST).put(game.getAnswerSet());
+            games.remove(gameId);
+        }
+        else
+            reply.put(MMFrameCodec.PLAYING);
+    }
+    
+    /**
+     * Sends the suggested guess once the hint service computed it.
+     * @param frame the client's frame.
+     * @throws IOException If there is a problem when communicating 
+     *                     to the client.
+     */
+    private void hint(MMFrame frame) throws IOException {
+        MMGame game = findGame(frame);
+        if(game == null)
+            return;
+        int id = frame.getGameId();
+        connection.sendLater(game.hint(), guess -> {
+            if(guess == null)
+                connection.sendFrame(reply.reset(MMFrameCodec.ERROR, id)
+                                          .put(MMFrameCodec.BUSY));
+            else
+                connection.sendFrame(reply.reset(MMFrameCodec.SUGGESTION, id)
+                                          .put(guess));
+        });
+    }
+    
+    /**
+     * Ends the game and sends the answer set.
+     * @param frame the client's frame.
+     * @throws IOException If there is a problem when communicating 
+     *                     to the client.
+     */
+    private void quitGame(MMFrame frame) throws IOException {
+        MMGame game = games.remove(frame.getGameId());
+        if(game == null) {
+            sendError(frame, MMFrameCodec.NO_GAME);
+            return;
+        }
+        game.end();
+        connection.sendFrame(reply.reset(MMFrameCodec.ENDED, 
+                                         frame.getGameId())
+                                  .put(game.getAnswerSet()));
+        System.out.println("Out of the game loop");
+    }
+    
+    /**
+     * Returns the game the frame is about;
+     * if there is none, the client is told there is no such game.
+     * @param frame the client's frame.
+     * @return the game; null if there is no game with the id of the frame.
+     * @throws IOException If there is a problem when communicating 
+     *                     to the client.
+     */
+    private MMGame findGame(MMFrame frame) throws IOException {
+        MMGame game = games.get(frame.getGameId());
+        if(game == null)
+            sendError(frame, MMFrameCodec.NO_GAME);
+        return game;
+    }
+    
+    /**
+     * Returns the buffer the guesses of the game are read into;
+     * the games with the same number of pegs share it.
+     * @param game the game.
+     * @return the buffer of the guesses of the game.
+     */
+    private int[] colors(MMGame game) {
+        int pegs = game.getVariant().getPegs();
+        if(colors[pegs] == null)
+            colors[pegs] = new int[pegs];
+        return colors[pegs];
+    }
+    
+    /**
+     * Refuses the frame.
+     * @param frame the client's frame.
+     * @param code the reason of the refusal.
+     * @throws IOException If there is a problem when communicating 
+     *                     to the client.
+     */
+    private void sendError(MMFrame frame, int code) throws IOException {
+        connection.sendFrame(reply.reset(MMFrameCodec.ERROR, 
+                                         frame.getGameId()).put(code));
+    }
+}
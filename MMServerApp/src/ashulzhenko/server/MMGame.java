@@ -0,0 +1,373 @@
+package ashulzhenko.server;
+
+import ashulzhenko.protocol.MMVariant;
+import ashulzhenko.server.solver.MMCandidateSet;
+import ashulzhenko.server.solver.MMFeedbackMasks;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * One game of MasterMind: the answer set, the rounds played,
+ * the history of the guesses and whether the client won.
+ * The rules are the same whichever protocol the client speaks,
+ * so every session plays its games through this class.
+ *
+ * A game of up to 65536 codes also keeps the codes that are
+ * still consistent with the feedbacks, so that a hint does not have
+ * to scan the history again.
+ *
+ * If a journal is set, the start, the guesses and the outcome
+ * of every game are recorded in it.
+ *
+ * A game that is not being played can be saved into a slab and restored
+ * later as a new object. It takes 2 words and 1 more per valid guess:
+ * the first word packs the answer set in its low 32 bits, then the round,
+ * the number of guesses, the pegs, the colors and the rounds of the game
+ * in the next 8, 8, 4, 4 and 5 bits, and the flags won, recorded in the
+ * journal and ended in the 3 highest bits. The second word is the id
+ * of the game in the journal, and every guess is packed with its
+ * feedback in its low 8 bits. The consistent codes are not saved: they
+ * are computed again from the guesses when the game is restored.
+ *
+ * @version 18/10/2026
+ * @since 1.8
+ */
+public class MMGame {
+    /** The largest game that keeps its consistent codes. */
+    private static final int LIVE_CODES = 1 << 16;
+    /** The words of a saved game before its guesses. */
+    private static final int SAVED_HEADER = 2;
+    /** The largest number of words of a saved game. */
+    public static final int MAX_SAVED_WORDS = 
+            SAVED_HEADER + MMVariant.MAX_ROUNDS;
+    private static final long WON_FLAG = 1L << 61;
+    private static final long JOURNAL_FLAG = 1L << 62;
+    private static final long ENDED_FLAG = 1L << 63;
+
+    private static volatile MMFeedbackTable feedbackTable;
+    private static volatile MMHintService hintService;
+    private static volatile MMJournal journal;
+
+    private final MMVariant variant;
+    private final int[] answerSet;
+    private final int answerCode;
+    private final int[] guesses;
+    private final int[] feedbacks;
+    private int guessCount;
+    private final MMCandidateSet candidates;
+    private int round;
+    private int lastFeedback;
+    private boolean won;
+    private final MMJournal gameJournal;
+    private final long journalId;
+    private boolean ended;
+
+    /**
+     * Instantiates the game receiving the answer set chosen by the client.
+     * If the answer set is null or not valid for the game,
+     * a random answer set is created instead.
+     * @param variant the game.
+     * @param answer the answer set chosen by the client; null if none.
+     * @param random the random generator of the session.
+     */
+    public MMGame(MMVariant variant, int[] answer, Random random) {
+        this.variant = variant;
+        if(answer != null && answer.length == variant.getPegs() &&
+           variant.isValid(answer))
+            this.answerSet = Arrays.copyOf(answer, answer.length);
+        else {
+            this.answerSet = new int[variant.getPegs()];
+            for(int i = 0; i < answerSet.length; i++)
+                answerSet[i] = random.nextInt(variant.getColors()) + 1;
+        }
+        this.answerCode = variant.encode(answerSet);
+        this.guesses = new int[variant.getRounds()];
+        this.feedbacks = new int[variant.getRounds()];
+        this.candidates = variant.getCodeCount() <= LIVE_CODES
+                ? MMCandidateSet.full(variant) : null;
+        this.lastFeedback = -1;
+        this.gameJournal = journal;
+        this.journalId = gameJournal == null ? 0 
+                : gameJournal.start(variant, answerSet);
+    }
+
+    /**
+     * Instantiates a game restored from a slab, without any round played.
+     * @param variant the game.
+     * @param answerCode the packed answer set.
+     * @param gameJournal the journal of the game; null if none.
+     * @param journalId the id of the game in the journal.
+     */
+    private MMGame(MMVariant variant, int answerCode, 
+                   MMJournal gameJournal, long journalId) {
+        this.variant = variant;
+        this.answerCode = answerCode;
+        this.answerSet = new int[variant.getPegs()];
+        variant.decode(answerCode, answerSet);
+        this.guesses = new int[variant.getRounds()];
+        this.feedbacks = new int[variant.getRounds()];
+        this.candidates = variant.getCodeCount() <= LIVE_CODES
+                ? MMCandidateSet.full(variant) : null;
+        this.lastFeedback = -1;
+        this.gameJournal = gameJournal;
+        this.journalId = journalId;
+    }
+
+    /**
+     * Sets the precomputed feedback table used by all games
+     * to generate clues.
+     * @param table the feedback table; null to compute every feedback.
+     */
+    public static void setFeedbackTable(MMFeedbackTable table) {
+        feedbackTable = table;
+    }
+
+    /**
+     * Sets the service that computes the hints requested by all games.
+     * @param service the hint service; null if hints are not available.
+     */
+    public static void setHintService(MMHintService service) {
+        hintService = service;
+    }
+
+    /**
+     * Sets the journal that records the games started from now on.
+     * @param gameJournal the journal; null if the games are not recorded.
+     */
+    public static void setJournal(MMJournal gameJournal) {
+        journal = gameJournal;
+    }
+
+    /**
+     * Scores the guess of the client; every guess counts as a round,
+     * even if it is not valid.
+     * @param guess the colors of the guess.
+     * @return the packed feedback, as in MMScorer.
+     */
+    public int guess(int[] guess) {
+        int feedback;
+        if (variant.isValid(guess)) {
+            //the guess is checked and packed once
+            int packed = variant.pack(guess);
+            MMFeedbackTable table = feedbackTable;
+            if (table != null && variant == MMVariant.CLASSIC)
+                feedback = table.score(answerCode, packed);
+            else
+                feedback = variant.score(answerCode, packed);
+            //remember the guess for the hints
+            remember(packed, feedback);
+        }
+        else
+            feedback = variant.score(answerCode, guess);
+        lastFeedback = feedback;
+        round++;
+        won = variant.isWin(feedback);
+        if (gameJournal != null) {
+            gameJournal.guess(journalId, round, guess, feedback);
+            if (won || isLost())
+                end();
+        }
+        return feedback;
+    }
+
+    /**
+     * Adds the guess to the history and keeps the codes consistent with it.
+     * @param packed the packed guess.
+     * @param feedback the packed feedback of the guess.
+     */
+    private void remember(int packed, int feedback) {
+        guesses[guessCount] = packed;
+        feedbacks[guessCount] = feedback;
+        guessCount++;
+        if (candidates != null) {
+            MMFeedbackMasks masks = MMFeedbackMasks.shared(variant);
+            if (masks != null)
+                candidates.retain(masks, packed, feedback);
+            else
+                candidates.retain(packed, feedback);
+        }
+    }
+
+    /**
+     * Ends the game: it is recorded in the journal as won, lost, 
+     * or quit if it was still running. Ending it again does nothing.
+     */
+    public void end() {
+        if (ended)
+            return;
+        ended = true;
+        if (gameJournal != null)
+            gameJournal.end(journalId, won ? MMJournal.WON 
+                    : (isLost() ? MMJournal.LOST : MMJournal.QUIT), round);
+    }
+
+    /**
+     * Requests the suggested next guess from the hint service.
+     * The hint does not count as a round.
+     * @return the colors of the suggested guess; null if the hint 
+     *         is refused.
+     */
+    public CompletableFuture<int[]> hint() {
+        MMHintService service = hintService;
+        if (service == null)
+            return CompletableFuture.completedFuture(null);
+        return service.submit(variant, guesses, feedbacks, guessCount,
+                candidates == null ? null : candidates.snapshot());
+    }
+
+    /**
+     * Returns the game.
+     * @return the game.
+     */
+    public MMVariant getVariant() {
+        return variant;
+    }
+
+    /**
+     * Returns the answer set.
+     * @return the answer set; it must not be changed.
+     */
+    public int[] getAnswerSet() {
+        return answerSet;
+    }
+
+    /**
+     * Returns the number of rounds played.
+     * @return the number of rounds played.
+     */
+    public int getRound() {
+        return round;
+    }
+
+    /**
+     * Returns the feedback of the last round, which is sent again 
+     * when the game is resumed in case its reply was lost.
+     * @return the packed feedback; -1 if no round was played, or if 
+     *         the game was restored and a guess was not valid.
+     */
+    public int getLastFeedback() {
+        return lastFeedback;
+    }
+
+    /**
+     * Returns true if the client found the answer set.
+     * @return true if the client won; false otherwise.
+     */
+    public boolean isWon() {
+        return won;
+    }
+
+    /**
+     * Returns the bytes the game takes on the heap, estimated from 
+     * its fields and arrays with 16 bytes of header each.
+     * @return the estimated bytes of the game.
+     */
+    public int footprint() {
+        int bytes = 64 + 16 + 4 * answerSet.length 
+                + 2 * (16 + 4 * guesses.length);
+        if (candidates != null)
+            bytes += 32 + candidates.footprint();
+        return bytes;
+    }
+
+    /**
+     * Returns the number of words the game takes in a slab.
+     * @return the number of words of the saved game.
+     */
+    public int savedWords() {
+        return SAVED_HEADER + guessCount;
+    }
+
+    /**
+     * Saves the game into a block of the slab; the game must not be 
+     * played any more, and it is restored as a new object.
+     * @param slab the slab.
+     * @param address the address of the first word of the game, 
+     *                followed by savedWords() - 1 words.
+     */
+    public void save(MMGameSlab slab, int address) {
+        long header = (answerCode & 0xFFFFFFFFL) | (long)round << 32 
+                | (long)guessCount << 40 | (long)variant.getPegs() << 48
+                | (long)variant.getColors() << 52 
+                | (long)variant.getRounds() << 56;
+        if (won)
+            header |= WON_FLAG;
+        if (gameJournal != null)
+            header |= JOURNAL_FLAG;
+        if (ended)
+            header |= ENDED_FLAG;
+        slab.set(address, header);
+        slab.set(address + 1, journalId);
+        for (int i = 0; i < guessCount; i++)
+            slab.set(address + SAVED_HEADER + i, 
+                    (long)guesses[i] << 32 | feedbacks[i]);
+    }
+
+    /**
+     * Restores a game saved into the slab; the block is not freed.
+     * A game recorded in the journal is recorded in the journal 
+     * of the games started from now on.
+     * @param slab the slab.
+     * @param address the address of the first word of the game.
+     * @return the game as it was saved.
+     */
+    public static MMGame restore(MMGameSlab slab, int address) {
+        long header = slab.get(address);
+        MMVariant variant = MMVariant.of((int)(header >>> 48) & 0xF, 
+                (int)(header >>> 52) & 0xF, (int)(header >>> 56) & 0x1F);
+        MMGame game = new MMGame(variant, (int)header, 
+                (header & JOURNAL_FLAG) != 0 ? journal : null, 
+                slab.get(address + 1));
+        int count = (int)(header >>> 40) & 0xFF;
+        for (int i = 0; i < count; i++) {
+            long word = slab.get(address + SAVED_HEADER + i);
+            game.remember((int)(word >>> 32), (int)word & 0xFF);
+        }
+        game.round = (int)(header >>> 32) & 0xFF;
+        //only the valid guesses are saved
+        if (count > 0 && count == game.round)
+            game.lastFeedback = game.feedbacks[count - 1];
+        game.won = (header & WON_FLAG) != 0;
+        game.ended = (header & ENDED_FLAG) != 0;
+        return game;
+    }
+
+    /**
+     * Returns the number of words of a game saved into the slab.
+     * @param slab the slab.
+     * @param address the address of the first word of the game.
+     * @return the number of words of the saved game.
+     */
+    public static int savedWords(MMGameSlab slab, int address) {
+        return SAVED_HEADER + ((int)(slab.get(address) >>> 40) & 0xFF);
+    }
+
+    /**
+     * Ends a game saved into the slab without restoring it, as end() 
+     * would; the block is not freed.
+     * @param slab the slab.
+     * @param address the address of the first word of the game.
+     */
+    public static void endSaved(MMGameSlab slab, int address) {
+        long header = slab.get(address);
+        MMJournal current = journal;
+        if ((header & (JOURNAL_FLAG | ENDED_FLAG)) != JOURNAL_FLAG || 
+            current == null)
+            return;
+        int round = (int)(header >>> 32) & 0xFF;
+        boolean isWon = (header & WON_FLAG) != 0;
+        boolean isLost = !isWon && round >= ((int)(header >>> 56) & 0x1F);
+        current.end(slab.get(address + 1), isWon ? MMJournal.WON 
+                : (isLost ? MMJournal.LOST : MMJournal.QUIT), round);
+    }
+
+    /**
+     * Returns true if the client lost, i.e. played every round
+     * without finding the answer set.
+     * @return true if the client lost; false otherwise.
+     */
+    public boolean isLost() {
+        return !won && round >= variant.getRounds();
+    }
+}
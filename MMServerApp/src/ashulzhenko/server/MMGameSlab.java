@@ -0,0 +1,112 @@
+package ashulzhenko.server;
+
+import java.util.Arrays;
+
+/**
+ * Memory for the games that are not being played, made of blocks of longs
+ * in one primitive array. A block is addressed by the index of its first
+ * word, so the games it holds cost no objects and no references.
+ *
+ * The blocks have the size asked by their owner, which gives it back
+ * when the block is freed. A freed block is kept in the free list of its
+ * size, its first word linking to the next one, and it is used again
+ * before the array grows. The array doubles when it is full and does
+ * not shrink.
+ *
+ * The slab is not thread-safe: its owner must synchronize the accesses.
+ *
+ * @version 18/10/2026
+ * @since 1.8
+ */
+public class MMGameSlab {
+    /** The words of the first array. */
+    private static final int INITIAL_WORDS = 1 << 10;
+    /** The end of a free list. */
+    private static final int NONE = -1;
+
+    private long[] words;
+    private int top;
+    private int used;
+    private final int[] free;
+
+    /**
+     * Instantiates the slab receiving the largest block.
+     * @param maxWords the largest number of words of a block.
+     */
+    public MMGameSlab(int maxWords) {
+        this.words = new long[INITIAL_WORDS];
+        this.free = new int[maxWords + 1];
+        Arrays.fill(free, NONE);
+    }
+
+    /**
+     * Allocates a block; its words are not cleared.
+     * @param size the number of words of the block.
+     * @return the address of the block.
+     * @throws IllegalArgumentException if the size is not supported.
+     */
+    public int allocate(int size) {
+        if(size < 1 || size >= free.length)
+            throw new IllegalArgumentException("Invalid block: " + size);
+        used += size;
+        int address = free[size];
+        if(address != NONE) {
+            free[size] = (int)words[address];
+            return address;
+        }
+        if(top + size > words.length) {
+            if(words.length > Integer.MAX_VALUE / 2)
+                throw new IllegalStateException("The slab is full");
+            words = Arrays.copyOf(words, 2 * words.length);
+        }
+        address = top;
+        top += size;
+        return address;
+    }
+
+    /**
+     * Frees a block so that it can be allocated again.
+     * @param address the address of the block.
+     * @param size the number of words the block was allocated with.
+     */
+    public void free(int address, int size) {
+        words[address] = free[size];
+        free[size] = address;
+        used -= size;
+    }
+
+    /**
+     * Returns a word of a block.
+     * @param address the address of the word.
+     * @return the word.
+     */
+    public long get(int address) {
+        return words[address];
+    }
+
+    /**
+     * Sets a word of a block.
+     * @param address the address of the word.
+     * @param value the word.
+     */
+    public void set(int address, long value) {
+        words[address] = value;
+    }
+
+    /**
+     * Returns the number of words in the allocated blocks.
+     * @return the number of words in use.
+     */
+    public int getUsedWords() {
+        return used;
+    }
+
+    /**
+     * Returns the bytes of the arrays of the slab, with 16 bytes
+     * of header each.
+     * @return the bytes of the slab.
+     */
+    public long footprint() {
+        return 16 + 8L * words.length + 16 + 4L * free.length;
+    }
+}
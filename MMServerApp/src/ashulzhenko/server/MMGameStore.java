@@ -0,0 +1,346 @@
+package ashulzhenko.server;
+
+import java.security.SecureRandom;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Store of the games whose connection was lost, until their client
+ * reconnects and resumes them with the token issued when the game
+ * was started.
+ *
+ * A suspended game is kept for the time to live at most, and the number
+ * of games is bounded: once it is reached, the game suspended first
+ * is evicted. Since every game is kept for the same time, the games
+ * suspended first are also the first to expire, so one list in the order
+ * of suspension serves both bounds. The expired games are removed when
+ * a game is suspended or resumed and when the report is created;
+ * an evicted or expired game is ended as quit.
+ *
+ * The suspended games are not kept as objects: each is saved into
+ * a block of a MMGameSlab, after 3 words of the store with the token,
+ * the deadline and the addresses of the previous and next blocks
+ * in the list. The blocks are found by token in an open addressing table
+ * of primitive arrays, so a suspended game of the classic game takes
+ * about 60 bytes plus 8 per guess, and a MMGame is created again
+ * only when the game is resumed.
+ *
+ * The games that can be resumed are also registered by token while
+ * their session plays them. A client often reconnects before the server
+ * finds that its previous connection is lost, e.g. after a drop
+ * of the Wi-Fi; the new session then takes the game over from
+ * the session still playing it, which is closed.
+ *
+ * The store is shared by the sessions of every thread, which
+ * synchronize on it; a game belongs to the thread that resumed it.
+ *
+ * @version 18/10/2026
+ * @since 1.8
+ */
+public class MMGameStore {
+    /** The word of a block with the token of the game. */
+    private static final int TOKEN = 0;
+    /** The word of a block with the time the game expires. */
+    private static final int DEADLINE = 1;
+    /** The word of a block with the previous and next blocks. */
+    private static final int LINKS = 2;
+    /** The first word of the saved game in a block. */
+    private static final int GAME = 3;
+    /** The address of no block. */
+    private static final int NONE = -1;
+    /** The slots of the first table. */
+    private static final int INITIAL_SLOTS = 1 << 10;
+
+    private final int capacity;
+    private final long ttlNanos;
+    private final SecureRandom random;
+    private final MMGameSlab slab;
+    //the tokens, 0 for an empty slot, and the addresses of their blocks
+    private long[] tokens;
+    private int[] addresses;
+    //the sessions playing the games that can be resumed, by token
+    private final Map<Long, MMSession> playing;
+    private int size;
+    private int first;
+    private int last;
+    private long suspended;
+    private long resumed;
+    private long refused;
+    private long taken;
+    private long expired;
+    private long evicted;
+
+    /**
+     * Instantiates the store.
+     * @param capacity the maximum number of suspended games.
+     * @param ttlSeconds how long a game is kept, in seconds.
+     */
+    public MMGameStore(int capacity, int ttlSeconds) {
+        this.capacity = capacity;
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+        this.random = new SecureRandom();
+        this.slab = new MMGameSlab(GAME + MMGame.MAX_SAVED_WORDS);
+        this.tokens = new long[INITIAL_SLOTS];
+        this.addresses = new int[INITIAL_SLOTS];
+        this.playing = new HashMap<>();
+        this.first = NONE;
+        this.last = NONE;
+    }
+
+    /**
+     * Returns a new token for a game; it cannot be guessed.
+     * @return the token, never 0.
+     */
+    public long newToken() {
+        long token;
+        do
+            token = random.nextLong();
+        while(token == 0);
+        return token;
+    }
+
+    /**
+     * Keeps the game until it is resumed, expires or is evicted.
+     * @param token the token of the game.
+     * @param game the game, which is no longer used by its session.
+     */
+    public synchronized void suspend(long token, MMGame game) {
+        long now = System.nanoTime();
+        int slot = find(token);
+        if(tokens[slot] != 0) {
+            //the token is reused by a client that already reconnected
+            discard(addresses[slot]);
+            remove(slot);
+        }
+        int address = slab.allocate(GAME + game.savedWords());
+        slab.set(address + TOKEN, token);
+        slab.set(address + DEADLINE, now + ttlNanos);
+        link(address);
+        game.save(slab, address + GAME);
+        if(2 * (size + 1) > tokens.length)
+            grow();
+        slot = find(token);
+        tokens[slot] = token;
+        addresses[slot] = address;
+        size++;
+        suspended++;
+        removeExpired(now);
+    }
+
+    /**
+     * Takes the game back from the store.
+     * @param token the token of the game.
+     * @return the game; null if the token is not known or the game
+     *         expired or was evicted.
+     */
+    public synchronized MMGame resume(long token) {
+        removeExpired(System.nanoTime());
+        int slot = find(token);
+        if(tokens[slot] == 0) {
+            refused++;
+            return null;
+        }
+        int address = addresses[slot];
+        remove(slot);
+        MMGame game = MMGame.restore(slab, address + GAME);
+        free(address);
+        resumed++;
+        return game;
+    }
+
+    /**
+     * Registers the session playing the game of the token.
+     * If another session still plays it, the game was taken over 
+     * from that session.
+     * @param token the token of the game.
+     * @param session the session playing the game.
+     */
+    public synchronized void play(long token, MMSession session) {
+        MMSession previous = playing.put(token, session);
+        if(previous != null && previous != session)
+            taken++;
+    }
+
+    /**
+     * Unregisters the session once it no longer plays the game 
+     * of the token; nothing is done if another session took it over.
+     * @param token the token of the game.
+     * @param session the session that played the game.
+     */
+    public synchronized void stop(long token, MMSession session) {
+        playing.remove(token, session);
+    }
+
+    /**
+     * Returns the session playing the game of the token.
+     * @param token the token of the game.
+     * @return the session; null if the game is not played.
+     */
+    public synchronized MMSession playedBy(long token) {
+        return playing.get(token);
+    }
+
+    /**
+     * Returns the number of suspended games.
+     * @return the number of suspended games.
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Returns the bytes of the arrays of the store, with 16 bytes
+     * of header each.
+     * @return the bytes of the suspended games.
+     */
+    public synchronized long footprint() {
+        return slab.footprint() + 16 + 8L * tokens.length
+                + 16 + 4L * addresses.length;
+    }
+
+    /**
+     * Returns the report of the store.
+     * @return the counters of the store in a readable form.
+     */
+    public synchronized String report() {
+        removeExpired(System.nanoTime());
+        return "resume: size=" + size
+                + " playing=" + playing.size()
+                + " bytes=" + footprint()
+                + " used=" + 8L * slab.getUsedWords()
+                + " suspended=" + suspended
+                + " resumed=" + resumed
+                + " taken=" + taken
+                + " refused=" + refused
+                + " expired=" + expired
+                + " evicted=" + evicted;
+    }
+
+    /**
+     * Removes the expired games, then the games suspended first
+     * while the store holds more games than its capacity.
+     * @param now the current time in nanoseconds.
+     */
+    private void removeExpired(long now) {
+        while(first != NONE) {
+            boolean isExpired = now - slab.get(first + DEADLINE) >= 0;
+            if(!isExpired && size <= capacity)
+                return;
+            if(isExpired)
+                expired++;
+            else
+                evicted++;
+            int address = first;
+            remove(find(slab.get(address + TOKEN)));
+            discard(address);
+        }
+    }
+
+    /**
+     * Ends a game that is no longer in the table and frees its block.
+     * @param address the address of the block of the game.
+     */
+    private void discard(int address) {
+        MMGame.endSaved(slab, address + GAME);
+        free(address);
+    }
+
+    /**
+     * Removes the block from the list and frees it.
+     * @param address the address of the block.
+     */
+    private void free(int address) {
+        long links = slab.get(address + LINKS);
+        int previous = (int)(links >>> 32);
+        int next = (int)links;
+        if(previous == NONE)
+            first = next;
+        else
+            slab.set(previous + LINKS,
+                    (slab.get(previous + LINKS) & 0xFFFFFFFF00000000L)
+                    | (next & 0xFFFFFFFFL));
+        if(next == NONE)
+            last = previous;
+        else
+            slab.set(next + LINKS, (long)previous << 32
+                    | (slab.get(next + LINKS) & 0xFFFFFFFFL));
+        slab.free(address, GAME + MMGame.savedWords(slab, address + GAME));
+    }
+
+    /**
+     * Adds the block at the end of the list.
+     * @param address the address of the block.
+     */
+    private void link(int address) {
+        slab.set(address + LINKS, (long)last << 32 | (NONE & 0xFFFFFFFFL));
+        if(last == NONE)
+            first = address;
+        else
+            slab.set(last + LINKS, (slab.get(last + LINKS)
+                    & 0xFFFFFFFF00000000L) | address);
+        last = address;
+    }
+
+    /**
+     * Returns the slot of the token, or the empty slot where it would be.
+     * @param token the token.
+     * @return the slot.
+     */
+    private int find(long token) {
+        int mask = tokens.length - 1;
+        int slot = hash(token) & mask;
+        while(tokens[slot] != 0 && tokens[slot] != token)
+            slot = (slot + 1) & mask;
+        return slot;
+    }
+
+    /**
+     * Removes the token in the slot, moving back the tokens that follow it
+     * so that no search stops too early.
+     * @param slot the slot of the token.
+     */
+    private void remove(int slot) {
+        int mask = tokens.length - 1;
+        int hole = slot;
+        int next = (slot + 1) & mask;
+        while(tokens[next] != 0) {
+            int home = hash(tokens[next]) & mask;
+            //the token may move to the hole if its home is not after it
+            if(((next - home) & mask) >= ((next - hole) & mask)) {
+                tokens[hole] = tokens[next];
+                addresses[hole] = addresses[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        tokens[hole] = 0;
+        size--;
+    }
+
+    /**
+     * Doubles the table of the tokens.
+     */
+    private void grow() {
+        long[] oldTokens = tokens;
+        int[] oldAddresses = addresses;
+        tokens = new long[2 * oldTokens.length];
+        addresses = new int[tokens.length];
+        for(int i = 0; i < oldTokens.length; i++) {
+            if(oldTokens[i] == 0)
+                continue;
+            int slot = find(oldTokens[i]);
+            tokens[slot] = oldTokens[i];
+            addresses[slot] = oldAddresses[i];
+        }
+    }
+
+    /**
+     * Returns the hash of the token, which is already random.
+     * @param token the token.
+     * @return the hash of the token.
+     */
+    private static int hash(long token) {
+        return (int)(token ^ (token >>> 32));
+    }
+}
@@ -0,0 +1,109 @@
+package ashulzhenko.server;
+
+import ashulzhenko.protocol.MMVariant;
+import ashulzhenko.server.solver.MMCandidateSet;
+import ashulzhenko.server.solver.MMHintSolver;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Computes the hints requested by the sessions on its own bounded pool,
+ * so that a hint never holds up a reactor or the clues of other games.
+ * Every hint is answered within the time budget counted from the request;
+ * when the pool and its queue are full, the hint is refused at once,
+ * and when the budget runs out before the solver finds a consistent code,
+ * the hint is refused then.
+ * 
+ * @version 18/10/2026
+ * @since 1.8
+ */
+public class MMHintService {
+    private final ThreadPoolExecutor pool;
+    private final MMHintSolver solver;
+    private final long budgetNanos;
+    private final MMOpeningBook book;
+    
+    /**
+     * Instantiates the object receiving the configuration of the pool 
+     * and the solver.
+     * @param config the server configuration.
+     * @param book the opening book; null if the hints are not cached.
+     */
+    public MMHintService(MMServerConfig config, MMOpeningBook book) {
+        AtomicInteger count = new AtomicInteger();
+        this.pool = new ThreadPoolExecutor(config.getHintThreads(), 
+                config.getHintThreads(), 0, TimeUnit.MILLISECONDS, 
+                new ArrayBlockingQueue<>(config.getHintQueue()), r -> {
+                    Thread thread = new Thread(r, "mm-hint-" 
+                            + count.getAndIncrement());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.solver = new MMHintSolver(config.getHintStrategy());
+        this.budgetNanos = TimeUnit.MILLISECONDS.toNanos(
+                config.getHintBudget());
+        this.book = book;
+    }
+    
+    /**
+     * Submits the hint request of a game.
+     * A history in the opening book is answered at once; otherwise 
+     * the history is copied, so the session may go on changing it, 
+     * and the guess found is added to the book.
+     * @param variant the game.
+     * @param guesses the packed guesses so far.
+     * @param feedbacks the packed feedbacks of the guesses.
+     * @param count the number of guesses so far.
+     * @param candidates the snapshot of the consistent codes, 
+     *                   not changed by the session afterwards; 
+     *                   null if the session does not keep them.
+     * @return the colors of the suggested guess; null if the hint 
+     *         is refused.
+     */
+    public CompletableFuture<int[]> submit(MMVariant variant, int[] guesses, 
+                                           int[] feedbacks, int count, 
+                                           MMCandidateSet candidates) {
+        if(book != null) {
+            int cached = book.get(variant, guesses, feedbacks, count);
+            if(cached != -1)
+                return CompletableFuture.completedFuture(
+                        decode(variant, cached));
+        }
+        long deadline = System.nanoTime() + budgetNanos;
+        int[] guessCopy = Arrays.copyOf(guesses, count);
+        int[] feedbackCopy = Arrays.copyOf(feedbacks, count);
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                int guess = candidates == null 
+                        ? solver.solve(variant, guessCopy, feedbackCopy, 
+                                       count, deadline)
+                        : solver.solve(candidates, deadline);
+                if(guess == MMHintSolver.REFUSED)
+                    return null;
+                if(book != null)
+                    book.put(variant, guessCopy, feedbackCopy, count, guess);
+                return decode(variant, guess);
+            }, pool);
+        }
+        catch(RejectedExecutionException ex) {
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+    
+    /**
+     * Decodes the guess into a reply.
+     * @param variant the game.
+     * @param guess the packed guess.
+     * @return the reply with the colors of the guess.
+     */
+    private static int[] decode(MMVariant variant, int guess) {
+        int[] reply = new int[variant.getPegs()];
+        variant.decode(guess, reply);
+        return reply;
+    }
+}
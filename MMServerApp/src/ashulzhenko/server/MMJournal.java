@@ -0,0 +1,425 @@
+package ashulzhenko.server;
+
+import ashulzhenko.protocol.MMVariant;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Append-only journal of every game: its start and answer set,
+ * every guess with its clues, and its outcome.
+ *
+ * The sessions do not write the files: a record is claimed in a ring
+ * with one atomic increment, written into the ring and published,
+ * without a lock. A single writer thread copies the published records
+ * in order into the memory-mapped segment, so a session never waits
+ * for the disk unless the ring is full. The writer also stamps
+ * the time and computes the check of the records, which keeps
+ * the clock out of the sessions' turns. The writer stops once the journal
+ * is closed and the records of the sessions still appending are written.
+ *
+ * The journal is a directory of segments journal-NNNNNNNN.mmj of
+ * the configured size; a new segment is started when the current one
+ * is full, and a new journal continues after the segments already
+ * in the directory. Every record is RECORD bytes, big-endian:
+ *
+ * 0 type (START, GUESS or END), 1-3 three values that depend
+ * on the type, 4-7 the check of the record, 8-15 the id of the game,
+ * 16-23 the time it was written in milliseconds, 24-31 up to 8 colors,
+ * one per byte.
+ *
+ * START - pegs, colors, rounds; the colors are the answer set,
+ * GUESS - the round (from 1), the feedback (colors in place in the high
+ * 4 bits and out of place in the low 4 bits), the number of colors sent;
+ * the colors are the guess as it was received,
+ * END - the outcome (WON, LOST or QUIT), the rounds played, 0.
+ *
+ * The first record of a segment is the header: MAGIC, then VERSION and
+ * RECORD as 2 bytes each, the index of the segment, the time it was
+ * created and the size of the segment.
+ * The rest of a segment is zeros, so the records end at the first type 0.
+ *
+ * @version 18/10/2026
+ * @since 1.8
+ */
+public class MMJournal {
+    /** The size of a record in bytes. */
+    public static final int RECORD = 32;
+    /** The first 4 bytes of a segment: MMJ1. */
+    public static final int MAGIC = 0x4D4D4A31;
+    /** The version of the format. */
+    public static final int VERSION = 1;
+    /** A game is started. */
+    public static final int START = 1;
+    /** A guess is scored. */
+    public static final int GUESS = 2;
+    /** A game is over. */
+    public static final int END = 3;
+    /** The client found the answer set. */
+    public static final int WON = 1;
+    /** The client played every round. */
+    public static final int LOST = 2;
+    /** The client quit the game or the session ended. */
+    public static final int QUIT = 3;
+
+    /** How long the idle writer sleeps. */
+    private static final long IDLE_NANOS = 200000;
+    /** The writer reports its progress and reads the clock
+     *  every BATCH + 1 records. */
+    private static final long BATCH = 255;
+
+    private final Path dir;
+    private final long segmentSize;
+    private final int mask;
+    //head, id and colors of a record; 4 longs so that a record
+    //never spans two cache lines
+    private final long[] ring;
+    private final AtomicLongArray published;
+    private final AtomicLong claimed;
+    private final AtomicLong consumed;
+    private final AtomicLong gameIds;
+    private final AtomicLong waits;
+    //the sessions that may have claimed a record not published yet
+    private final AtomicInteger appending;
+    private volatile boolean running;
+    private volatile boolean failed;
+    private Thread writer;
+    //owned by the writer thread
+    private FileChannel file;
+    private MappedByteBuffer segment;
+    private long segmentIndex;
+    private volatile long segments;
+
+    /**
+     * Instantiates the journal writing into the directory.
+     * @param dir the directory of the segments; it is created if needed.
+     * @param segmentSize the size of a segment in bytes.
+     * @param ringSize the number of records the sessions may publish
+     *                 before the writer copies them, rounded up
+     *                 to a power of 2.
+     * @throws IOException if the directory cannot be used.
+     * @throws IllegalArgumentException if a segment cannot hold
+     *                                  the header and a record.
+     */
+    public MMJournal(Path dir, long segmentSize, int ringSize)
+            throws IOException {
+        if(segmentSize < 2 * RECORD)
+            throw new IllegalArgumentException("Invalid segment size: "
+                    + segmentSize);
+        int length = Integer.highestOneBit(Math.max(ringSize, 2) - 1) << 1;
+        this.dir = Files.createDirectories(dir);
+        this.segmentSize = segmentSize - segmentSize % RECORD;
+        this.mask = length - 1;
+        this.ring = new long[4 * length];
+        this.published = new AtomicLongArray(length);
+        this.claimed = new AtomicLong();
+        this.consumed = new AtomicLong();
+        //the ids of different runs do not overlap
+        this.gameIds = new AtomicLong(System.currentTimeMillis() << 20);
+        this.waits = new AtomicLong();
+        this.appending = new AtomicInteger();
+        this.segmentIndex = lastSegment(this.dir);
+    }
+
+    /**
+     * Starts the writer thread.
+     */
+    public void start() {
+        running = true;
+        writer = new Thread(this::write, "mm-journal");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Writes the records published so far and those being appended,
+     * and stops the writer.
+     */
+    public void close() {
+        running = false;
+        if(writer == null)
+            return;
+        LockSupport.unpark(writer);
+        try {
+            writer.join();
+        }
+        catch(InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Records the start of a game.
+     * @param variant the game.
+     * @param answerSet the answer set.
+     * @return the id of the game in the journal.
+     */
+    public long start(MMVariant variant, int[] answerSet) {
+        long id = gameIds.getAndIncrement();
+        append(head(START, variant.getPegs(), variant.getColors(),
+                    variant.getRounds()), id, colors(answerSet));
+        return id;
+    }
+
+    /**
+     * Records a guess and its feedback.
+     * @param id the id of the game.
+     * @param round the round of the guess, from 1.
+     * @param guess the colors of the guess.
+     * @param feedback the packed feedback, as in MMScorer.
+     */
+    public void guess(long id, int round, int[] guess, int feedback) {
+        append(head(GUESS, round, feedback, guess.length), id,
+               colors(guess));
+    }
+
+    /**
+     * Records the end of a game.
+     * @param id the id of the game.
+     * @param outcome WON, LOST or QUIT.
+     * @param rounds the number of rounds played.
+     */
+    public void end(long id, int outcome, int rounds) {
+        append(head(END, outcome, rounds, 0), id, 0);
+    }
+
+    /**
+     * Returns the number of records written to the segments.
+     * @return the number of records.
+     */
+    public long getRecords() {
+        return consumed.get();
+    }
+
+    /**
+     * Returns the report of the journal.
+     * @return the counters of the journal in a readable form.
+     */
+    public String report() {
+        return "journal: records=" + consumed.get()
+                + " pending=" + (claimed.get() - consumed.get())
+                + " segments=" + segments
+                + " waits=" + waits.get();
+    }
+
+    /**
+     * Returns the check of a record, which detects the records
+     * that were not completely written.
+     * @param head the first 8 bytes of the record; the check is ignored.
+     * @param id the id of the game.
+     * @param time the time in milliseconds.
+     * @param colors the colors, one per byte.
+     * @return the check.
+     */
+    public static int check(long head, long id, long time, long colors) {
+        long h = (head >>> 32) * 0x9E3779B97F4A7C15L;
+        h = (h ^ id) * 0x9E3779B97F4A7C15L;
+        h = (h ^ time) * 0x9E3779B97F4A7C15L;
+        h = (h ^ colors) * 0x9E3779B97F4A7C15L;
+        return (int)(h ^ (h >>> 32)) | 1;
+    }
+
+    /**
+     * Returns the first 8 bytes of a record without the check.
+     * @param type the type of the record.
+     * @param a the first value.
+     * @param b the second value.
+     * @param c the third value.
+     * @return the head of the record.
+     */
+    private static long head(int type, int a, int b, int c) {
+        return ((long)type << 56) | ((long)(a & 0xFF) << 48)
+                | ((long)(b & 0xFF) << 40) | ((long)(c & 0xFF) << 32);
+    }
+
+    /**
+     * Packs up to 8 colors, one per byte, the first in the highest byte;
+     * the values that do not fit in a byte are stored as 0, so that
+     * they are still not valid colors when the games are replayed.
+     * @param code the colors.
+     * @return the packed colors.
+     */
+    private static long colors(int[] code) {
+        long packed = 0;
+        int length = Math.min(code.length, 8);
+        for(int i = 0; i < length; i++) {
+            int color = code[i];
+            if(color > 0 && color <= 0xFF)
+                packed |= (long)color << (56 - 8 * i);
+        }
+        return packed;
+    }
+
+    /**
+     * Publishes a record for the writer; it only waits if the writer
+     * is a whole ring behind. Nothing is recorded once the journal
+     * is closed, but a record started before is written: the writer
+     * does not stop while a session is appending.
+     * @param head the head of the record.
+     * @param id the id of the game.
+     * @param colors the packed colors.
+     */
+    private void append(long head, long id, long colors) {
+        appending.incrementAndGet();
+        try {
+            if(!running)
+                //the journal is closed or failed
+                return;
+            long sequence = claimed.getAndIncrement();
+            if(sequence - consumed.get() > mask) {
+                waits.incrementAndGet();
+                //the slot is still unwritten even if the journal is closed
+                while(sequence - consumed.get() > mask) {
+                    if(failed)
+                        return;
+                    Thread.yield();
+                }
+            }
+            int slot = (int)(sequence & mask);
+            int at = slot << 2;
+            ring[at] = head;
+            ring[at + 1] = id;
+            ring[at + 2] = colors;
+            //the record is visible to the writer once the slot is published
+            published.lazySet(slot, sequence + 1);
+        }
+        finally {
+            appending.decrementAndGet();
+        }
+    }
+
+    /**
+     * Copies the published records into the segments until the journal
+     * is closed, no session is appending and every record is written.
+     * The time is read once per batch, and after the writer was idle.
+     */
+    private void write() {
+        long next = 0;
+        long time = 0;
+        try {
+            for(;;) {
+                int slot = (int)(next & mask);
+                if(published.get(slot) == next + 1) {
+                    int at = slot << 2;
+                    if(segment == null || segment.remaining() < RECORD)
+                        roll();
+                    if((next & BATCH) == 0)
+                        time = System.currentTimeMillis();
+                    long head = ring[at];
+                    long id = ring[at + 1];
+                    long colors = ring[at + 2];
+                    segment.putLong(head 
+                            | (check(head, id, time, colors) & 0xFFFFFFFFL));
+                    segment.putLong(id);
+                    segment.putLong(time);
+                    segment.putLong(colors);
+                    next++;
+                    //the sessions read the progress on every record,
+                    //so it is only updated once per batch
+                    if((next & BATCH) == 0)
+                        consumed.lazySet(next);
+                }
+                else if(consumed.get() != next) {
+                    consumed.lazySet(next);
+                    time = System.currentTimeMillis();
+                }
+                else if(!running && appending.get() == 0
+                        && next == claimed.get())
+                    break;
+                else {
+                    LockSupport.parkNanos(IDLE_NANOS);
+                    time = System.currentTimeMillis();
+                }
+            }
+            if(segment != null)
+                segment.force();
+        }
+        catch(IOException ex) {
+            running = false;
+            failed = true;
+            System.err.println("The journal is stopped: " + ex.getMessage());
+        }
+        finally {
+            closeFile();
+        }
+    }
+
+    /**
+     * Starts the next segment.
+     * @throws IOException if the segment cannot be created.
+     */
+    private void roll() throws IOException {
+        if(segment != null)
+            segment.force();
+        closeFile();
+        segmentIndex++;
+        Path path = dir.resolve(segmentName(segmentIndex));
+        file = FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        segment = file.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        segment.putInt(MAGIC);
+        segment.putShort((short)VERSION);
+        segment.putShort((short)RECORD);
+        segment.putLong(segmentIndex);
+        segment.putLong(System.currentTimeMillis());
+        segment.putLong(segmentSize);
+        segments++;
+    }
+
+    /**
+     * Closes the file of the current segment; its mapping stays valid.
+     */
+    private void closeFile() {
+        if(file == null)
+            return;
+        try {
+            file.close();
+        }
+        catch(IOException ex) {
+            System.err.println("Exception when closing the journal: "
+                    + ex.getMessage());
+        }
+        file = null;
+    }
+
+    /**
+     * Returns the name of a segment.
+     * @param index the index of the segment.
+     * @return the file name of the segment.
+     */
+    public static String segmentName(long index) {
+        return String.format("journal-%08d.mmj", index);
+    }
+
+    /**
+     * Returns the index of the last segment in the directory.
+     * @param dir the directory of the journal.
+     * @return the highest index; 0 if there is no segment.
+     * @throws IOException if the directory cannot be read.
+     */
+    private static long lastSegment(Path dir) throws IOException {
+        long last = 0;
+        try(DirectoryStream<Path> files =
+                Files.newDirectoryStream(dir, "journal-*.mmj")) {
+            for(Path file : files) {
+                String name = file.getFileName().toString();
+                try {
+                    last = Math.max(last, Long.parseLong(
+                            name.substring(8, name.length() - 4)));
+                }
+                catch(NumberFormatException ex) {
+                    //not a segment
+                }
+            }
+        }
+        return last;
+    }
+}
@@ -0,0 +1,420 @@
+package ashulzhenko.server;
+
+import ashulzhenko.protocol.MMBufferPool;
+import ashulzhenko.protocol.MMFrame;
+import ashulzhenko.protocol.MMFrameCodec;
+import ashulzhenko.protocol.MMMessageCodec;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A non-blocking client connection served by one MMReactor.
+ * It collects the received bytes into frames of the negotiated size, 
+ * passes every complete frame to the session and queues the replies 
+ * until the channel is ready for writing.
+ * 
+ * The first byte tells whether the client speaks the framed protocol;
+ * its frames are then decoded from a reusable buffer and passed 
+ * to a MMFrameSession. The replies to the frames received by one read 
+ * are encoded into a reusable buffer and written together, 
+ * which is only copied if the channel does not take them at once.
+ * 
+ * All methods are called only by the event loop that owns the connection.
+ * 
+ * @version 18/10/2026
+ * @since 1.8
+ */
+public class MMNioConnection implements MMConnection {
+    /** The direct buffers of the replies, shared by the connections. */
+    private static final MMBufferPool BUFFERS = new MMBufferPool(
+            2 * (MMFrameCodec.HEADER + MMFrameCodec.MAX_PAYLOAD), 1024);
+    
+    private final SocketChannel channel;
+    private final SelectionKey key;
+    private final MMReactor reactor;
+    private final ArrayDeque<ByteBuffer> writeQueue;
+    private ByteBuffer readBuffer;
+    private int[] frame;
+    private final MMServerStats stats;
+    private MMSession session;
+    private MMFrameSession framedSession;
+    private MMFrame received;
+    private ByteBuffer sendBuffer;
+    private boolean detected;
+    private boolean coalescing;
+    private boolean buffered;
+    private boolean closing;
+    private MMSessionTimeouts timeouts;
+    private boolean paused;
+    
+    /**
+     * Instantiates the object when receiving the registered channel.
+     * @param channel the channel connected to the client.
+     * @param key the key of the channel in the reactor's selector.
+     * @param reactor the event loop that owns the connection.
+     * @param stats the counters of the server.
+     */
+    public MMNioConnection(SocketChannel channel, SelectionKey key, 
+                           MMReactor reactor, MMServerStats stats) {
+        this.channel = channel;
+        this.key = key;
+        this.reactor = reactor;
+        this.readBuffer = ByteBuffer.allocate(4);
+        this.writeQueue = new ArrayDeque<>();
+        this.frame = new int[4];
+        this.stats = stats;
+        this.session = new MMSession(this);
+        stats.sessionStarted();
+    }
+    
+    /**
+     * Sets whether the replies to a message of the first protocol 
+     * are written together or every reply at once; the replies 
+     * to the frames received together are always written together.
+     * @param buffered true to write the replies to a message together.
+     */
+    public void setBuffered(boolean buffered) {
+        this.buffered = buffered;
+    }
+    
+    /**
+     * Sets the deadlines that are updated as the messages are exchanged.
+     * @param timeouts the deadlines of the connection.
+     */
+    public void setTimeouts(MMSessionTimeouts timeouts) {
+        this.timeouts = timeouts;
+    }
+    
+    /**
+     * Reads the available bytes and processes every complete frame.
+     * @throws IOException If there is a communication problem.
+     */
+    public void onReadable() throws IOException {
+        if(framedSession != null) {
+            readFrames();
+            return;
+        }
+        int bytesRcvd = 0;
+        while(!paused && (bytesRcvd = channel.read(readBuffer)) > 0) {
+            if(!detected) {
+                detected = true;
+                if(MMFrameCodec.isFramed(readBuffer.get(0))) {
+                    startFramed();
+                    readFrames();
+                    return;
+                }
+            }
+            if(!readBuffer.hasRemaining()) {
+                readBuffer.flip();
+                MMMessageCodec.decode(readBuffer, frame);
+                readBuffer.clear();
+                if(timeouts != null)
+                    timeouts.frameCompleted();
+                boolean more;
+                coalescing = buffered;
+                try {
+                    more = session.processMessage(frame);
+                }
+                finally {
+                    coalescing = false;
+                }
+                flush();
+                if(!more) {
+                    //the client finished the session
+                    closeWhenFlushed();
+                    return;
+                }
+            }
+        }
+        if(bytesRcvd == -1)
+            close();
+        else if(timeouts != null && readBuffer.position() > 0)
+            timeouts.frameStarted();
+    }
+    
+    /**
+     * Switches the connection to the framed protocol, keeping the bytes 
+     * already received.
+     */
+    private void startFramed() {
+        ByteBuffer frames = ByteBuffer.allocate(MMFrameCodec.HEADER 
+                + MMFrameCodec.MAX_PAYLOAD);
+        readBuffer.flip();
+        frames.put(readBuffer);
+        readBuffer = frames;
+        received = new MMFrame();
+        session = null;
+        framedSession = new MMFrameSession(this);
+    }
+    
+    /**
+     * Processes every complete frame in the read buffer, then reads 
+     * the available bytes and goes on until the channel has no more 
+     * or the connection waits for a reply computed by another thread.
+     * @throws IOException If there is a communication problem 
+     *                     or a frame is not valid.
+     */
+    private void readFrames() throws IOException {
+        int bytesRcvd = 0;
+        do {
+            readBuffer.flip();
+            //the replies to the frames received together are written once
+            coalescing = true;
+            try {
+                while(!paused && MMFrameCodec.decode(readBuffer, received)) {
+                    if(timeouts != null)
+                        timeouts.frameCompleted();
+                    if(!framedSession.processFrame(received)) {
+                        //the client finished the session
+                        readBuffer.compact();
+                        flush();
+                        closeWhenFlushed();
+                        return;
+                    }
+                }
+            }
+            finally {
+                coalescing = false;
+            }
+            readBuffer.compact();
+            flush();
+        }
+        while(!paused && (bytesRcvd = channel.read(readBuffer)) > 0);
+        if(bytesRcvd == -1)
+            close();
+        else if(timeouts != null && readBuffer.position() > 0)
+            timeouts.frameStarted();
+    }
+    
+    /**
+     * Writes the queued replies as long as the channel accepts them.
+     * @throws IOException If there is a communication problem.
+     */
+    public void onWritable() throws IOException {
+        drainQueue();
+        if(writeQueue.isEmpty() && closing)
+            close();
+    }
+
+    /**
+     * Encodes the message into the send buffer and writes it at once 
+     * if nothing is queued, unless the replies to the current message 
+     * are written together; whatever the channel does not take 
+     * is copied and queued.
+     * @param message the message to send.
+     * @throws IOException If there is a communication problem.
+     */
+    @Override
+    public void sendMessage(int[] message) throws IOException {
+        if(sendBuffer().remaining() < message.length)
+            flush();
+        MMMessageCodec.encode(message, sendBuffer);
+        if(!coalescing)
+            flush();
+    }
+
+    /**
+     * Encodes the frame into the send buffer and writes it 
+     * at once if nothing is queued; whatever the channel does not take 
+     * is copied and queued.
+     * @param frame the frame to send.
+     * @throws IOException If there is a communication problem.
+     */
+    @Override
+    public void sendFrame(MMFrame frame) throws IOException {
+        if(sendBuffer().remaining() < MMFrameCodec.HEADER + frame.getLength())
+            flush();
+        MMFrameCodec.encode(frame, sendBuffer);
+        if(!coalescing)
+            flush();
+    }
+    
+    /**
+     * Returns the send buffer, borrowed from the pool on the first reply.
+     * @return the send buffer in write mode.
+     */
+    private ByteBuffer sendBuffer() {
+        if(sendBuffer == null)
+            sendBuffer = BUFFERS.acquire();
+        return sendBuffer;
+    }
+    
+    /**
+     * Writes the replies encoded into the send buffer with one write 
+     * if nothing is queued; whatever the channel does not take 
+     * is copied into a pooled buffer and queued.
+     * @throws IOException If there is a communication problem.
+     */
+    @Override
+    public void flush() throws IOException {
+        if(sendBuffer == null || sendBuffer.position() == 0)
+            return;
+        sendBuffer.flip();
+        if(writeQueue.isEmpty())
+            channel.write(sendBuffer);
+        if(sendBuffer.hasRemaining()) {
+            ByteBuffer rest = BUFFERS.acquire();
+            rest.put(sendBuffer);
+            rest.flip();
+            writeQueue.add(rest);
+        }
+        sendBuffer.clear();
+        drainQueue();
+    }
+
+    /**
+     * Stops reading until the reply is computed; then sends it 
+     * from the event loop and resumes reading.
+     * @param <T> the type of the reply.
+     * @param reply the reply that is being computed.
+     * @param sender sends the computed reply through this connection.
+     */
+    @Override
+    public <T> void sendLater(CompletableFuture<T> reply, Sender<T> sender) {
+        paused = true;
+        key.interestOps(key.interestOps() & ~SelectionKey.OP_READ);
+        reply.whenComplete((computed, ex) -> reactor.execute(() -> {
+            if(isClosed())
+                return;
+            try {
+                if(ex != null)
+                    throw new IOException("The reply could not be computed: "
+                            + ex.getMessage());
+                sender.send(computed);
+                paused = false;
+                if(!closing) {
+                    key.interestOps(key.interestOps() | SelectionKey.OP_READ);
+                    if(framedSession != null)
+                        //frames received meanwhile are already buffered
+                        readFrames();
+                }
+            }
+            catch(IOException io) {
+                System.err.println("There is an error when communicating "
+                                 + "with the client: " + io.getMessage());
+                closeQuietly();
+            }
+            catch(RuntimeException failure) {
+                System.err.println("There is an error when serving "
+                                 + "the client: " + failure);
+                closeQuietly();
+            }
+        }));
+    }
+    
+    /**
+     * Sets the size of the frames received from now on.
+     * It is called by the session between two frames.
+     * @param size the number of bytes of a frame.
+     */
+    @Override
+    public void setFrameSize(int size) {
+        if(size != frame.length) {
+            readBuffer = ByteBuffer.allocate(size);
+            frame = new int[size];
+        }
+    }
+
+    /**
+     * Closes the channel.
+     * @throws IOException If there is a problem when closing the channel.
+     */
+    @Override
+    public void close() throws IOException {
+        if(channel.isOpen()) {
+            if(timeouts != null)
+                timeouts.cancel();
+            stats.sessionFinished();
+            key.cancel();
+            channel.close();
+            //the games left running are ended
+            if(session != null)
+                session.abandon();
+            if(framedSession != null)
+                framedSession.abandon();
+            //the buffers go back to the pool
+            while(!writeQueue.isEmpty())
+                BUFFERS.release(writeQueue.poll());
+            if(sendBuffer != null) {
+                BUFFERS.release(sendBuffer);
+                sendBuffer = null;
+            }
+        }
+    }
+
+    /**
+     * Closes the channel from the event loop that owns it.
+     */
+    @Override
+    public void closeLater() {
+        reactor.execute(this::closeQuietly);
+    }
+
+    /**
+     * Returns true if the channel is closed; false otherwise.
+     * @return true if the channel is closed; false otherwise.
+     */
+    @Override
+    public boolean isClosed() {
+        return !channel.isOpen();
+    }
+    
+    /**
+     * Writes the queued replies until the queue is empty or the socket 
+     * send buffer is full. In the latter case the reactor is asked to 
+     * report when the channel is writable again.
+     * @throws IOException If there is a communication problem.
+     */
+    private void drainQueue() throws IOException {
+        while(!writeQueue.isEmpty()) {
+            ByteBuffer buffer = writeQueue.peek();
+            channel.write(buffer);
+            if(buffer.hasRemaining())
+                break;
+            BUFFERS.release(writeQueue.poll());
+        }
+        if(key.isValid()) {
+            if(writeQueue.isEmpty())
+                key.interestOps(key.interestOps() & ~SelectionKey.OP_WRITE);
+            else
+                key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+        }
+        if(timeouts != null) {
+            if(writeQueue.isEmpty())
+                timeouts.writeCompleted();
+            else
+                timeouts.writePending();
+        }
+    }
+    
+    /**
+     * Closes the channel ignoring any error.
+     */
+    private void closeQuietly() {
+        try {
+            close();
+        }
+        catch(IOException ex) {
+            System.err.println("Exception when closing the socket: " 
+                    + ex.getMessage());
+        }
+    }
+    
+    /**
+     * Closes the channel once every queued reply is written.
+     * @throws IOException If there is a problem when closing the channel.
+     */
+    private void closeWhenFlushed() throws IOException {
+        if(writeQueue.isEmpty())
+            close();
+        else {
+            //no more reads, the channel is closed after the last write
+            closing = true;
+            key.interestOps(SelectionKey.OP_WRITE);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package ashulzhenko.server;
+
+import ashulzhenko.protocol.MMUnixSockets;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+
+/**
+ * Server class that serves the clients with a fixed number of event loops 
+ * instead of a thread per client.
+ * The accepted clients are distributed among the reactors in turn.
+ * If a Unix domain socket is configured, its clients are accepted
+ * on a thread of their own and served by the same reactors.
+ * 
+ * @version 18/10/2026
+ * @since 1.8
+ */
+public class MMNioServer {
+    private int port;
+    private MMReactor[] reactors;
+    private MMServerStats stats;
+    private MMServerConfig config;
+    private MMTimerWheel wheel;
+    
+    /**
+     * Instantiates the object receiving the server configuration,
+     * which includes the port number and the number of event loops.
+     * @param config the server configuration.
+     * @param stats the counters of the server.
+     */
+    public MMNioServer(MMServerConfig config, MMServerStats stats) {
+        this.port = config.getPort();
+        this.reactors = new MMReactor[config.getReactors()];
+        this.stats = stats;
+        this.config = config;
+        if(config.hasTimeouts()) {
+            this.wheel = new MMTimerWheel(100, 512);
+            stats.setTimerWheel(wheel);
+        }
+    }
+    
+    /**
+     * Starts the event loops and the loop accepting the clients.
+     * @throws IOException if there is an error creating server channel
+     *                     or the selectors.
+     */
+    public void run() throws IOException {
+        if(wheel != null)
+            wheel.start();
+        for(int i = 0; i < reactors.length; i++) {
+            reactors[i] = new MMReactor(stats, wheel, config);
+            Thread thread = new Thread(reactors[i], "mm-reactor-" + i);
+            thread.start();
+        }
+        System.out.println("Started " + reactors.length + " event loops");
+        
+        ServerSocketChannel servChannel = ServerSocketChannel.open();
+        servChannel.bind(new InetSocketAddress(port), config.getBacklog());
+        if(config.getUnixSocket() != null) {
+            ServerSocketChannel unixChannel = MMUnixSockets.openServer(
+                    config.getUnixSocket(), config.getBacklog());
+            Thread thread = new Thread(() -> accept(unixChannel), 
+                                       "mm-unix-accept");
+            thread.setDaemon(true);
+            thread.start();
+        }
+        accept(servChannel);
+    }
+    
+    /**
+     * Accepts the clients of the server channel and registers them
+     * with the reactors in turn.
+     * @param servChannel the server channel.
+     */
+    private void accept(ServerSocketChannel servChannel) {
+        int next = 0;
+        for(;;) {
+            try {
+                SocketChannel clntChannel = servChannel.accept();
+                System.out.println("Client connected at: " + 
+                        clntChannel.getRemoteAddress());
+                reactors[next].register(clntChannel);
+                next = (next + 1) % reactors.length;
+            }
+            catch(IOException ex) {
+                System.err.println("There is an error when communicating "
+                             + "with the client: " + ex.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,470 @@
+package ashulzhenko.server;
+
+import ashulzhenko.protocol.MMVariant;
+import ashulzhenko.server.solver.MMHintSolver;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache of the best next guesses of the first rounds, shared by all games.
+ * The first hints of every game of the same variant have the same history,
+ * so they are solved once and then answered from the book.
+ * 
+ * An entry is keyed by the game and the guesses and feedbacks so far, 
+ * up to the depth of the book. The number of entries is bounded: 
+ * the least recently used entry is the eviction victim, but a new entry 
+ * only replaces it if it was looked up more often (TinyLFU admission 
+ * with a 4-bit count-min sketch that is halved periodically), 
+ * so one-off histories do not push out the openings.
+ * 
+ * The book can be loaded from and saved to a file. The refresher thread 
+ * solves the entries found within the hint budget again 
+ * with a larger budget and saves the book afterwards.
+ * 
+ * @version 18/10/2026
+ * @since 1.8
+ */
+public class MMOpeningBook {
+    private static final int MAGIC = 0x4D4D4F42;
+    private static final int VERSION = 1;
+    /** The number of counters of the sketch per entry of the book. */
+    private static final int SKETCH_RATIO = 4;
+    /** The sketch is halved after this many lookups per entry. */
+    private static final int SAMPLE_RATIO = 10;
+    
+    private final int capacity;
+    private final int depth;
+    private final LinkedHashMap<Key, Entry> entries;
+    private final byte[] sketch;
+    private final int sketchMask;
+    private int sketchAdditions;
+    private final AtomicLong hits;
+    private final AtomicLong misses;
+    private final AtomicLong evictions;
+    private final AtomicLong rejections;
+    private final AtomicLong refinements;
+    
+    /**
+     * Instantiates the object receiving the bounds of the book.
+     * @param capacity the maximum number of entries.
+     * @param depth the maximum number of guesses of a history in the book.
+     */
+    public MMOpeningBook(int capacity, int depth) {
+        this.capacity = capacity;
+        this.depth = depth;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+        int counters = Integer.highestOneBit(
+                Math.max(64, capacity * SKETCH_RATIO - 1)) << 1;
+        this.sketch = new byte[counters];
+        this.sketchMask = counters - 1;
+        this.hits = new AtomicLong();
+        this.misses = new AtomicLong();
+        this.evictions = new AtomicLong();
+        this.rejections = new AtomicLong();
+        this.refinements = new AtomicLong();
+    }
+    
+    /**
+     * Returns the maximum number of guesses of a history in the book.
+     * @return the depth of the book.
+     */
+    public int getDepth() {
+        return depth;
+    }
+    
+    /**
+     * Looks up the best next guess after the history.
+     * @param variant the game.
+     * @param guesses the packed guesses so far.
+     * @param feedbacks the packed feedbacks of the guesses.
+     * @param count the number of guesses so far.
+     * @return the packed guess; -1 if it is not in the book.
+     */
+    public int get(MMVariant variant, int[] guesses, int[] feedbacks, 
+                   int count) {
+        if(count > depth)
+            return -1;
+        Key key = new Key(variant, guesses, feedbacks, count);
+        int guess = -1;
+        synchronized(this) {
+            increment(key.hash);
+            Entry entry = entries.get(key);
+            if(entry != null)
+                guess = entry.guess;
+        }
+        if(guess == -1)
+            misses.incrementAndGet();
+        else
+            hits.incrementAndGet();
+        return guess;
+    }
+    
+    /**
+     * Adds the best next guess after the history found by the hint solver.
+     * @param variant the game.
+     * @param guesses the packed guesses so far.
+     * @param feedbacks the packed feedbacks of the guesses.
+     * @param count the number of guesses so far.
+     * @param guess the packed best guess.
+     */
+    public void put(MMVariant variant, int[] guesses, int[] feedbacks, 
+                    int count, int guess) {
+        if(count <= depth)
+            put(new Key(variant, guesses, feedbacks, count), guess, false);
+    }
+    
+    /**
+     * Adds the entry unless the admission policy refuses it.
+     * A refined guess is never replaced by one that is not.
+     * @param key the game and history.
+     * @param guess the packed best guess.
+     * @param refined true if the guess was found with the refresh budget.
+     */
+    private synchronized void put(Key key, int guess, boolean refined) {
+        Entry entry = entries.get(key);
+        if(entry != null) {
+            if(refined || !entry.refined) {
+                entry.guess = guess;
+                entry.refined = refined;
+            }
+            return;
+        }
+        if(entries.size() >= capacity) {
+            Iterator<Map.Entry<Key, Entry>> eldest = 
+                    entries.entrySet().iterator();
+            Key victim = eldest.next().getKey();
+            if(frequency(key.hash) <= frequency(victim.hash)) {
+                rejections.incrementAndGet();
+                return;
+            }
+            eldest.remove();
+            evictions.incrementAndGet();
+        }
+        entries.put(key, new Entry(guess, refined));
+    }
+    
+    /**
+     * Counts a lookup of the key in the sketch, 
+     * halving all counters once enough lookups were counted.
+     * @param hash the hash of the key.
+     */
+    private void increment(int hash) {
+        for(int i = 0; i < 4; i++) {
+            int index = index(hash, i);
+            if(sketch[index] < 15)
+                sketch[index]++;
+        }
+        if(++sketchAdditions >= capacity * SAMPLE_RATIO) {
+            for(int i = 0; i < sketch.length; i++)
+                sketch[i] >>= 1;
+            sketchAdditions = 0;
+        }
+    }
+    
+    /**
+     * Estimates how often the key was looked up recently.
+     * @param hash the hash of the key.
+     * @return the smallest of the counters of the key.
+     */
+    private int frequency(int hash) {
+        int frequency = 15;
+        for(int i = 0; i < 4; i++)
+            frequency = Math.min(frequency, sketch[index(hash, i)]);
+        return frequency;
+    }
+    
+    /**
+     * Returns the counter of the key in one row of the sketch.
+     * @param hash the hash of the key.
+     * @param row the row 0-3.
+     * @return the index of the counter.
+     */
+    private int index(int hash, int row) {
+        int h = (hash + row) * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & sketchMask;
+    }
+    
+    /**
+     * Returns the number of entries in the book.
+     * @return the number of entries in the book.
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+    
+    /**
+     * Returns the number of lookups answered from the book.
+     * @return the number of hits.
+     */
+    public long getHits() {
+        return hits.get();
+    }
+    
+    /**
+     * Returns the number of lookups not found in the book.
+     * @return the number of misses.
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+    
+    /**
+     * Returns the percentage of the lookups answered from the book.
+     * @return the hit rate in percent; 0 before the first lookup.
+     */
+    public double getHitRate() {
+        long hit = hits.get();
+        long total = hit + misses.get();
+        return total == 0 ? 0 : hit * 100.0 / total;
+    }
+    
+    /**
+     * Returns the counters of the book.
+     * @return the counters of the book.
+     */
+    public String report() {
+        return "book: size=" + size() 
+                + " hits=" + hits.get() 
+                + " misses=" + misses.get()
+                + " rate=" + String.format("%.1f%%", getHitRate())
+                + " evicted=" + evictions.get()
+                + " refused=" + rejections.get()
+                + " refined=" + refinements.get();
+    }
+    
+    /**
+     * Solves the entries not yet refined again with the given budget.
+     * @param solver the solver.
+     * @param budgetMillis the time per entry in milliseconds.
+     * @return the number of entries refined.
+     */
+    public int refine(MMHintSolver solver, long budgetMillis) {
+        List<Key> pending = new ArrayList<>();
+        synchronized(this) {
+            for(Map.Entry<Key, Entry> entry : entries.entrySet())
+                if(!entry.getValue().refined)
+                    pending.add(entry.getKey());
+        }
+        for(Key key : pending) {
+            int count = key.history.length / 2;
+            int[] guesses = new int[count];
+            int[] feedbacks = new int[count];
+            for(int i = 0; i < count; i++) {
+                guesses[i] = key.history[2 * i];
+                feedbacks[i] = key.history[2 * i + 1];
+            }
+            long deadline = System.nanoTime() 
+                    + TimeUnit.MILLISECONDS.toNanos(budgetMillis);
+            int guess = solver.solve(key.variant, guesses, feedbacks, count, 
+                                     deadline);
+            //a refused refinement is tried again at the next refresh
+            if(guess == MMHintSolver.REFUSED)
+                continue;
+            put(key, guess, true);
+            refinements.incrementAndGet();
+        }
+        return pending.size();
+    }
+    
+    /**
+     * Starts the daemon thread that refines the new entries periodically 
+     * and saves the book if it has a file.
+     * @param solver the solver.
+     * @param budgetMillis the time per entry in milliseconds.
+     * @param seconds the time between two refreshes.
+     * @param file the file of the book; null if the book is not saved.
+     */
+    public void startRefresher(MMHintSolver solver, long budgetMillis, 
+                               int seconds, Path file) {
+        Thread refresher = new Thread(() -> {
+            try {
+                for(;;) {
+                    Thread.sleep(seconds * 1000L);
+                    if(refine(solver, budgetMillis) > 0 && file != null)
+                        save(file);
+                }
+            }
+            catch(InterruptedException ex) {
+                //the server is shutting down
+            }
+            catch(IOException ex) {
+                System.err.println("The opening book cannot be saved: " 
+                        + ex.getMessage());
+            }
+        }, "mm-book");
+        refresher.setDaemon(true);
+        refresher.start();
+    }
+    
+    /**
+     * Adds the entries of the book file as refined entries,
+     * as long as the book is not full.
+     * @param file the book file.
+     * @return the number of entries read.
+     * @throws IOException if the file cannot be read or is not a book.
+     */
+    public int load(Path file) throws IOException {
+        try(DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(file)))) {
+            if(in.readInt() != MAGIC || in.readInt() != VERSION)
+                throw new IOException("Invalid opening book header");
+            int size = in.readInt();
+            for(int i = 0; i < size; i++) {
+                int pegs = in.readInt();
+                int colors = in.readInt();
+                int rounds = in.readInt();
+                if(!MMVariant.isSupported(pegs, colors, rounds))
+                    throw new IOException("Invalid opening book game: " 
+                            + pegs + "x" + colors + "/" + rounds);
+                int[] history = new int[in.readInt()];
+                for(int j = 0; j < history.length; j++)
+                    history[j] = in.readInt();
+                int guess = in.readInt();
+                if(history.length / 2 <= depth && size() < capacity)
+                    put(new Key(MMVariant.of(pegs, colors, rounds), history), 
+                        guess, true);
+            }
+            return size;
+        }
+    }
+    
+    /**
+     * Saves the entries of the book to the file.
+     * The book is written to a temporary file that then replaces the file.
+     * @param file the book file.
+     * @throws IOException if the file cannot be written.
+     */
+    public void save(Path file) throws IOException {
+        List<Key> keys = new ArrayList<>();
+        int[] best;
+        synchronized(this) {
+            best = new int[entries.size()];
+            for(Map.Entry<Key, Entry> entry : entries.entrySet()) {
+                best[keys.size()] = entry.getValue().guess;
+                keys.add(entry.getKey());
+            }
+        }
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try(DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(keys.size());
+            for(int i = 0; i < keys.size(); i++) {
+                Key key = keys.get(i);
+                out.writeInt(key.variant.getPegs());
+                out.writeInt(key.variant.getColors());
+                out.writeInt(key.variant.getRounds());
+                out.writeInt(key.history.length);
+                for(int value : key.history)
+                    out.writeInt(value);
+                out.writeInt(best[i]);
+            }
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+    }
+    
+    /**
+     * The game and the guesses and feedbacks so far.
+     */
+    private static final class Key {
+        private final MMVariant variant;
+        private final int[] history;
+        private final int hash;
+        
+        /**
+         * Instantiates the object receiving the history.
+         * @param variant the game.
+         * @param guesses the packed guesses so far.
+         * @param feedbacks the packed feedbacks of the guesses.
+         * @param count the number of guesses so far.
+         */
+        private Key(MMVariant variant, int[] guesses, int[] feedbacks, 
+                    int count) {
+            this(variant, interleave(guesses, feedbacks, count));
+        }
+        
+        /**
+         * Instantiates the object receiving the interleaved history.
+         * @param variant the game.
+         * @param history the guesses and feedbacks, one after the other.
+         */
+        private Key(MMVariant variant, int[] history) {
+            this.variant = variant;
+            this.history = history;
+            this.hash = 31 * variant.hashCode() + Arrays.hashCode(history);
+        }
+        
+        /**
+         * Puts every feedback after its guess.
+         * @param guesses the packed guesses so far.
+         * @param feedbacks the packed feedbacks of the guesses.
+         * @param count the number of guesses so far.
+         * @return the interleaved history.
+         */
+        private static int[] interleave(int[] guesses, int[] feedbacks, 
+                                        int count) {
+            int[] history = new int[2 * count];
+            for(int i = 0; i < count; i++) {
+                history[2 * i] = guesses[i];
+                history[2 * i + 1] = feedbacks[i];
+            }
+            return history;
+        }
+        
+        /**
+         * Returns true if the object is the same game and history.
+         * @param obj the object to compare.
+         * @return true if the object is the same game and history.
+         */
+        @Override
+        public boolean equals(Object obj) {
+            if(!(obj instanceof Key))
+                return false;
+            Key other = (Key)obj;
+            return hash == other.hash && variant.equals(other.variant) && 
+                   Arrays.equals(history, other.history);
+        }
+        
+        /**
+         * Returns the hash code of the game and history.
+         * @return the hash code of the game and history.
+         */
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+    
+    /**
+     * The best guess of a history.
+     */
+    private static final class Entry {
+        private int guess;
+        private boolean refined;
+        
+        /**
+         * Instantiates the object receiving the guess.
+         * @param guess the packed best guess.
+         * @param refined true if the guess was found with the refresh budget.
+         */
+        private Entry(int guess, boolean refined) {
+            this.guess = guess;
+            this.refined = refined;
+        }
+    }
+}
@@ -1,66 +1,164 @@
 package ashulzhenko.server;
 
+import ashulzhenko.protocol.MMFrameCodec;
+import ashulzhenko.protocol.MMMessageCodec;
+import ashulzhenko.protocol.MMStreamPacket;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.OutputStream;
+import java.io.PushbackInputStream;
 import java.net.Socket;
 import java.net.SocketException;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 
 /**
- * A utility class to send and receive messages.
- * @version 08/09/2016
+ * A utility class to send and receive messages through a blocking socket,
+ * or a blocking socket channel such as a Unix domain socket.
+ * The messages are exchanged by the MMStreamPacket shared with the client,
+ * and received into an array owned by the packet, so exchanging a message 
+ * does not allocate memory.
+ * @version 18/10/2026
  * @since 1.8
  */
-public class MMPacket {
-    private Socket socket;
+public class MMPacket extends MMStreamPacket implements MMConnection {
+    private MMSessionTimeouts timeouts;
+    private int[] message = new int[MMMessageCodec.MESSAGE_SIZE];
     
     /**
      * Instantiates the object when receiving the socket.
      * @param socket the Socket object.
      */
     public MMPacket(Socket socket) {
-        this.socket = socket;
+        super(socket);
+    }
+    
+    /**
+     * Instantiates the object when receiving a channel in blocking mode.
+     * @param channel the connected channel.
+     */
+    public MMPacket(SocketChannel channel) {
+        super(channel);
+    }
+    
+    /**
+     * Sets the deadlines that are updated as the messages are received.
+     * @param timeouts the deadlines of the connection.
+     */
+    public void setTimeouts(MMSessionTimeouts timeouts) {
+        this.timeouts = timeouts;
+    }
+    
+    /**
+     * Waits for the reply on the session thread and sends it.
+     * @param <T> the type of the reply.
+     * @param reply the reply that is being computed.
+     * @param sender sends the computed reply through this connection.
+     * @throws IOException If there is a communication problem 
+     *                     or the reply could not be computed.
+     */
+    @Override
+    public <T> void sendLater(CompletableFuture<T> reply, Sender<T> sender) 
+            throws IOException {
+        try {
+            sender.send(reply.get());
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for the reply");
+        }
+        catch (ExecutionException ex) {
+            throw new IOException("The reply could not be computed: " 
+                    + ex.getCause().getMessage());
+        }
+    }
+    
+    /**
+     * Sets the size of the messages received from now on.
+     * @param size the number of bytes of a message.
+     */
+    @Override
+    public void setFrameSize(int size) {
+        if (size != message.length)
+            message = new int[size];
     }
     
     /**
      * Receives the message through the socket.
-     * @return the message that is received
+     * @return the message that is received; the array is reused 
+     *         by the next message.
      * @throws IOException If there is a communication problem.
      */
     public int[] receiveMessage() throws IOException {
-        byte[] byteBuffer = new byte[4];
-        InputStream in = this.socket.getInputStream();
-        
-        int totalBytesRcvd = 0;	// Total bytes received so far
-        int bytesRcvd;		// Bytes received in last read
-        while (totalBytesRcvd < byteBuffer.length)
-        {
-          if ((bytesRcvd = in.read(byteBuffer, totalBytesRcvd,
-                            byteBuffer.length - totalBytesRcvd)) == -1)
+        receiveMessage(message);
+        return message;
+    }
+    
+    /**
+     * Waits for the first byte of the client and tells whether 
+     * the client speaks the framed protocol. The byte is not consumed.
+     * @return true if the first byte starts a frame; false otherwise.
+     * @throws IOException If there is a communication problem.
+     */
+    public boolean isFramed() throws IOException {
+        PushbackInputStream input = input();
+        int first = input.read();
+        if (first == -1)
             throw new SocketException("Connection closed prematurely");
-          totalBytesRcvd += bytesRcvd;
-        }
-        
-        int[] array = new int[byteBuffer.length];
-        //convert byte[] to int[]
-        for(int i = 0; i < array.length; i++)
-            array[i] = byteBuffer[i];
-        
-        return array;
+        input.unread(first);
+        return MMFrameCodec.isFramed(first);
     }
     
     /**
-     * Sends the message through the socket.
-     * @param message the message to send.
+     * Returns true if bytes of the client are already received 
+     * and can be read without blocking.
+     * @return true if more input is available.
      * @throws IOException If there is a communication problem.
      */
-    public void sendMessage(int[] message) throws IOException {
-        byte[] byteBuffer = new byte[message.length];
-        //convert int[] to byte[]
-        for(int i = 0; i < message.length; i++)
-            byteBuffer[i] = (byte)message[i];
-        
-        OutputStream out = this.socket.getOutputStream();
-        out.write(byteBuffer, 0, byteBuffer.length);
+    public boolean hasInput() throws IOException {
+        return input().available() > 0;
+    }
+    
+    /**
+     * Pushes the deadline of the message being received.
+     */
+    @Override
+    protected void frameStarted() {
+        if (timeouts != null)
+            timeouts.frameStarted();
+    }
+    
+    /**
+     * Pushes the deadline of the next message.
+     */
+    @Override
+    protected void frameCompleted() {
+        if (timeouts != null)
+            timeouts.frameCompleted();
+    }
+    
+    /**
+     * Closes the socket.
+     * @throws IOException If there is a problem when closing the socket.
+     */
+    @Override
+    public void close() throws IOException {
+        if (timeouts != null)
+            timeouts.cancel();
+        super.close();
+    }
+    
+    /**
+     * Closes the socket at once, which ends the blocked read 
+     * of the thread that serves it.
+     */
+    @Override
+    public void closeLater() {
+        try {
+            close();
+        }
+        catch (IOException ex) {
+            System.err.println("Exception when closing the socket: " 
+                    + ex.getMessage());
+        }
     }
 }
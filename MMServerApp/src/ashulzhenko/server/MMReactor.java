@@ -0,0 +1,189 @@
+package ashulzhenko.server;
+
+import ashulzhenko.protocol.MMTransportProfile;
+import java.io.IOException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Event loop that serves many client connections on one thread.
+ * The accepted channels are handed over by MMNioServer 
+ * and registered with the reactor's own selector.
+ * Other threads never touch the connections directly; they hand over 
+ * tasks that the event loop runs between two selects.
+ * 
+ * @version 18/10/2026
+ * @since 1.8
+ */
+public class MMReactor implements Runnable {
+    private final Selector selector;
+    private final Queue<Runnable> tasks;
+    private final MMServerStats stats;
+    private final MMTimerWheel wheel;
+    private final MMServerConfig config;
+    private final MMTransportProfile transport;
+    
+    /**
+     * Instantiates the object and opens its selector.
+     * @param stats the counters of the server.
+     * @param wheel the timer wheel of the session deadlines; 
+     *              null if the deadlines are not checked.
+     * @param config the server configuration.
+     * @throws IOException if the selector cannot be opened.
+     */
+    public MMReactor(MMServerStats stats, MMTimerWheel wheel, 
+                     MMServerConfig config) throws IOException {
+        this.selector = Selector.open();
+        this.tasks = new ConcurrentLinkedQueue<>();
+        this.stats = stats;
+        this.wheel = wheel;
+        this.config = config;
+        this.transport = config.getTransportProfile();
+    }
+    
+    /**
+     * Hands over the accepted channel to this reactor.
+     * It can be called from any thread.
+     * @param channel the channel connected to the client.
+     */
+    public void register(SocketChannel channel) {
+        execute(() -> registerChannel(channel));
+    }
+    
+    /**
+     * Runs the task on the event loop.
+     * It can be called from any thread.
+     * @param task the task to run.
+     */
+    public void execute(Runnable task) {
+        tasks.add(task);
+        selector.wakeup();
+    }
+    
+    /**
+     * Starts the event loop.
+     */
+    @Override
+    public void run() {
+        for(;;) {
+            try {
+                selector.select();
+                runTasks();
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while(keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    handle(key);
+                }
+            }
+            catch(IOException ex) {
+                System.err.println("There is an error in the event loop: " 
+                        + ex.getMessage());
+            }
+        }
+    }
+    
+    /**
+     * Runs the tasks handed over since the last select; a task that fails
+     * does not stop the others nor the event loop.
+     */
+    private void runTasks() {
+        Runnable task;
+        while((task = tasks.poll()) != null) {
+            try {
+                task.run();
+            }
+            catch(RuntimeException ex) {
+                System.err.println("There is an error in a task "
+                                 + "of the event loop: " + ex);
+            }
+        }
+    }
+    
+    /**
+     * Registers the channel with the selector.
+     * @param channel the channel connected to the client.
+     */
+    private void registerChannel(SocketChannel channel) {
+        try {
+            transport.apply(channel);
+            channel.configureBlocking(false);
+            SelectionKey key = channel.register(selector, 
+                    SelectionKey.OP_READ);
+            MMNioConnection connection = 
+                    new MMNioConnection(channel, key, this, stats);
+            connection.setBuffered(transport.isBuffered());
+            if(wheel != null)
+                connection.setTimeouts(new MMSessionTimeouts(wheel, config, 
+                        stats, () -> execute(() -> closeQuietly(connection))));
+            key.attach(connection);
+        }
+        catch(IOException ex) {
+            System.err.println("There is an error when registering "
+                         + "the client: " + ex.getMessage());
+            closeQuietly(channel);
+        }
+        catch(RuntimeException ex) {
+            System.err.println("There is an error when registering "
+                         + "the client: " + ex);
+            closeQuietly(channel);
+        }
+    }
+    
+    /**
+     * Serves the ready operations of one connection; the connection
+     * is closed if it fails, and the other connections are still served.
+     * @param key the selected key of the connection.
+     */
+    private void handle(SelectionKey key) {
+        MMNioConnection connection = (MMNioConnection)key.attachment();
+        try {
+            if(key.isValid() && key.isWritable())
+                connection.onWritable();
+            if(key.isValid() && key.isReadable())
+                connection.onReadable();
+        }
+        catch(IOException ex) {
+            System.err.println("There is an error when communicating "
+                             + "with the client: " + ex.getMessage());
+            closeQuietly(connection);
+        }
+        catch(RuntimeException ex) {
+            System.err.println("There is an error when serving "
+                             + "the client: " + ex);
+            closeQuietly(connection);
+        }
+    }
+    
+    /**
+     * Closes the connection ignoring any error.
+     * @param connection the connection to close.
+     */
+    private static void closeQuietly(MMConnection connection) {
+        try {
+            connection.close();
+        }
+        catch(IOException ex) {
+            System.err.println("Exception when closing the socket: " 
+                    + ex.getMessage());
+        }
+    }
+    
+    /**
+     * Closes the channel ignoring any error.
+     * @param channel the channel to close.
+     */
+    private static void closeQuietly(SocketChannel channel) {
+        try {
+            channel.close();
+        }
+        catch(IOException ex) {
+            System.err.println("Exception when closing the socket: " 
+                    + ex.getMessage());
+        }
+    }
+}
@@ -1,46 +1,159 @@
 package ashulzhenko.server;
+import ashulzhenko.protocol.MMTransportProfile;
+import ashulzhenko.protocol.MMUnixSockets;
+import java.io.Closeable;
 import java.io.IOException;
 import java.net.*;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.Executor;
 
 /**
  * Server class that starts the server loop to cycle through clients.
+ * Every client session runs on the configured executor. 
+ * If the number of sessions is limited, the clients above the limit wait 
+ * in a bounded queue and are refused when the queue is full.
+ * If a Unix domain socket is configured, the clients on the same host
+ * can also connect to it; they are accepted on a thread of their own.
  * @author Alena Shulzhenko
- * @version 06/12/2016
+ * @version 18/10/2026
  * @since 1.8
  */
 public class MMServer {
     private int port;   
+    private int backlog;
+    private Executor executor;
+    private MMAdmission admission;
+    private MMServerStats stats;
+    private MMServerConfig config;
+    private MMTimerWheel wheel;
+    private MMTransportProfile transport;
     /**
      * Instantiates the object receiving the port number.
+     * Every session runs on a new platform thread.
      * @param port the port on which the server will listen.
      */
     public MMServer(int port) {
+        this(port, new MMServerConfig(), new MMServerStats());
+    }
+    /**
+     * Instantiates the object receiving the port number and 
+     * the configuration of the executor that runs the sessions.
+     * @param port the port on which the server will listen.
+     * @param config the server configuration.
+     * @param stats the counters of the server.
+     */
+    public MMServer(int port, MMServerConfig config, MMServerStats stats) {
         this.port = port;
+        this.backlog = config.getBacklog();
+        this.executor = MMExecutors.create(config);
+        this.stats = stats;
+        this.config = config;
+        this.transport = config.getTransportProfile();
+        if(config.hasTimeouts()) {
+            this.wheel = new MMTimerWheel(100, 512);
+            stats.setTimerWheel(wheel);
+        }
+        if(config.getMaxSessions() > 0) {
+            this.admission = new MMAdmission(executor, stats, 
+                    config.getMaxSessions(), config.getQueue());
+            stats.setAdmission(admission);
+        }
     }
     /**
      * Starts the server loop to cycle through clients.
      * @throws IOException if there is an error creating server socket.
      */
     public void run() throws IOException {
-        ServerSocket servSocket = new ServerSocket(port);
+        ServerSocket servSocket = new ServerSocket(port, backlog);
+        if(config.getUnixSocket() != null)
+            startUnixSocket(MMUnixSockets.openServer(config.getUnixSocket(),
+                                                     backlog));
+        if(wheel != null)
+            wheel.start();
         for(;;) {
+            Socket clntSocket = null;
             try {
-                Socket clntSocket = servSocket.accept();
+                clntSocket = servSocket.accept();
                 System.out.println("Client connected at: " + 
                         clntSocket.getInetAddress().getHostAddress());
-                //create new session with the detected client
-                MMSession session = new MMSession(clntSocket);
-                //start a new thread for this client
-                Thread thread = new Thread(session);
-                thread.start();
-                System.out.println("Created and started Thread = " 
-                        + thread.getName());
-                
+                transport.apply(clntSocket);
+                serve(new MMPacket(clntSocket), clntSocket);
             }
             catch(IOException ex) {
                 System.err.println("There is an error when communicating "
                              + "with the client: " + ex.getMessage());
             }
+            catch(RuntimeException ex) {
+                //the session was not started: only this client is dropped
+                System.err.println("There is an error when starting "
+                             + "the session of the client: " + ex);
+                if(clntSocket != null)
+                    closeQuietly(clntSocket);
+            }
         }             
     }   
+    /**
+     * Starts the loop accepting the clients of the Unix domain socket.
+     * @param servChannel the server channel bound to the socket path.
+     */
+    private void startUnixSocket(ServerSocketChannel servChannel) {
+        Thread thread = new Thread(() -> {
+            for(;;) {
+                SocketChannel clntChannel = null;
+                try {
+                    clntChannel = servChannel.accept();
+                    System.out.println("Client connected at: " + 
+                            clntChannel.getRemoteAddress());
+                    transport.apply(clntChannel);
+                    serve(new MMPacket(clntChannel), clntChannel);
+                }
+                catch(IOException ex) {
+                    System.err.println("There is an error when communicating "
+                                 + "with the client: " + ex.getMessage());
+                }
+                catch(RuntimeException ex) {
+                    System.err.println("There is an error when starting "
+                                 + "the session of the client: " + ex);
+                    if(clntChannel != null)
+                        closeQuietly(clntChannel);
+                }
+            }
+        }, "mm-unix-accept");
+        thread.setDaemon(true);
+        thread.start();
+    }
+    /**
+     * Runs the session of the accepted client or refuses it.
+     * @param packet the packet of the client.
+     * @param connection the socket or channel of the client.
+     * @throws IOException if the client cannot be refused.
+     */
+    private void serve(MMPacket packet, Closeable connection) 
+            throws IOException {
+        packet.setBuffered(transport.isBuffered());
+        if(wheel != null)
+            packet.setTimeouts(new MMSessionTimeouts(wheel, config, 
+                    stats, () -> closeQuietly(connection)));
+        //create new session with the detected client
+        MMSession session = new MMSession(packet);
+        if(admission == null)
+            //run the session on the executor
+            executor.execute(stats.track(session));
+        else if(!admission.admit(session))
+            MMSession.refuse(packet);
+    }
+    /**
+     * Closes the socket of the expired session, which ends its blocked read.
+     * @param socket the socket or channel to close.
+     */
+    private static void closeQuietly(Closeable socket) {
+        try {
+            socket.close();
+        }
+        catch(IOException ex) {
+            System.err.println("Exception when closing the socket: " 
+                    + ex.getMessage());
+        }
+    }
 }
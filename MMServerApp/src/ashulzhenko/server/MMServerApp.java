@@ -1,30 +1,130 @@
 package ashulzhenko.server;
 
+import ashulzhenko.server.solver.MMHintSolver;
+import java.io.IOException;
 import java.net.InetAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 
 /**
  * Application class that starts the server.
  * @author Alena Shulzhenko
- * @version 25/10/2016
+ * @version 18/10/2026
  * @since 1.8
  */
 public class MMServerApp {
+    /** The number of records the sessions publish ahead of the writer. */
+    private static final int JOURNAL_RING = 1 << 16;
 
     /**
      * Main class to start the server.
+     * The options are described in MMServerConfig.
      * @param args the command line arguments
      */
     public static void main(String[] args) {
         try {
-            //port 50,000 for MasterMind
-            MMServer server = new MMServer(50000);
+            MMServerConfig config = MMServerConfig.fromArgs(args);
             InetAddress serverIp = InetAddress.getLocalHost();
             System.out.println("Server IP: "+serverIp.getHostAddress());
-            server.run();
+            System.out.println("Server mode: " + config.getMode());
+            if(config.getUnixSocket() != null)
+                System.out.println("Unix socket: " + config.getUnixSocket());
+            loadFeedbackTable(config);
+            MMOpeningBook book = loadOpeningBook(config);
+            MMGame.setHintService(new MMHintService(config, book));
+            MMFrameSession.setMaxGames(config.getMaxGames());
+            MMServerStats stats = new MMServerStats();
+            stats.setOpeningBook(book);
+            stats.setJournal(openJournal(config));
+            if(config.getResumeGames() > 0) {
+                MMGameStore store = new MMGameStore(config.getResumeGames(),
+                                                    config.getResumeTtl());
+                MMSession.setGameStore(store);
+                stats.setGameStore(store);
+            }
+            if(config.getReport() > 0)
+                stats.startReporter(config.getReport());
+            if(config.getMode().equals(MMServerConfig.MODE_NIO))
+                new MMNioServer(config, stats).run();
+            else {
+                System.out.println("Session executor: " 
+                        + config.getExecutor());
+                new MMServer(config.getPort(), config, stats).run();
+            }
         } 
         catch (Exception ex) {
             System.err.println("Error: " + ex.getMessage());
         }
     }
     
+    /**
+     * Builds or loads the feedback table if it is configured.
+     * @param config the server configuration.
+     * @throws IOException if the table file cannot be read or written.
+     */
+    private static void loadFeedbackTable(MMServerConfig config) 
+            throws IOException {
+        String source = config.getFeedbackTable();
+        if(source.equals(MMServerConfig.FEEDBACK_NONE))
+            return;
+        long start = System.nanoTime();
+        MMFeedbackTable table = source.equals(MMServerConfig.FEEDBACK_MEMORY) 
+                ? MMFeedbackTable.build() 
+                : MMFeedbackTable.loadOrBuild(Paths.get(source));
+        System.out.println("Feedback table " 
+                + (table.isMapped() ? "mapped from " + source : "built")
+                + " in " + (System.nanoTime() - start) / 1000000 + " ms, " 
+                + table.footprint() / 1024 + " KiB");
+        MMGame.setFeedbackTable(table);
+    }
+    
+    /**
+     * Starts the journal if it is configured; the records published 
+     * are written when the server stops.
+     * @param config the server configuration.
+     * @return the journal; null if the games are not recorded.
+     * @throws IOException if the journal directory cannot be used.
+     */
+    private static MMJournal openJournal(MMServerConfig config) 
+            throws IOException {
+        if(config.getJournal() == null)
+            return null;
+        MMJournal journal = new MMJournal(Paths.get(config.getJournal()), 
+                config.getJournalSegment(), JOURNAL_RING);
+        journal.start();
+        Runtime.getRuntime().addShutdownHook(
+                new Thread(journal::close, "mm-journal-close"));
+        MMGame.setJournal(journal);
+        System.out.println("Journal: " + config.getJournal());
+        return journal;
+    }
+    
+    /**
+     * Creates the opening book if it is configured, loads it from its file
+     * and starts its refresher.
+     * @param config the server configuration.
+     * @return the opening book; null if the hints are not cached.
+     * @throws IOException if the book file cannot be read.
+     */
+    private static MMOpeningBook loadOpeningBook(MMServerConfig config) 
+            throws IOException {
+        String source = config.getBook();
+        if(source.equals(MMServerConfig.BOOK_NONE))
+            return null;
+        MMOpeningBook book = new MMOpeningBook(config.getBookSize(), 
+                                               config.getBookDepth());
+        Path file = null;
+        if(!source.equals(MMServerConfig.BOOK_MEMORY)) {
+            file = Paths.get(source);
+            if(Files.exists(file))
+                System.out.println("Opening book: " + book.load(file) 
+                        + " entries loaded from " + source);
+        }
+        if(config.getBookRefresh() > 0)
+            book.startRefresher(new MMHintSolver(config.getHintStrategy()), 
+                    config.getHintBudget() * 10L, config.getBookRefresh(), 
+                    file);
+        return book;
+    }
 }
@@ -0,0 +1,596 @@
+package ashulzhenko.server;
+
+import ashulzhenko.protocol.MMTransportProfile;
+import ashulzhenko.server.solver.MMHintSolver;
+
+/**
+ * Configuration of the server that is read from the command line.
+ * 
+ * Every option has the form --name=value. These are the options:
+ * 
+ * --mode=blocking|nio - the server engine (blocking by default),
+ * --port=n - the port on which the server listens (50000 by default),
+ * --unix-socket=path - also listens on the Unix domain socket at the path
+ * for the clients on the same host (Java 16 or later; none by default),
+ * --reactors=n - the number of event loops for the nio engine 
+ * (the number of available processors by default),
+ * --executor=thread|virtual|fixed - how the blocking engine runs the sessions:
+ * a new platform thread per client (default), a virtual thread per client 
+ * (Java 21 or later) or a fixed pool of platform threads,
+ * --threads=n - the size of the fixed pool (200 by default),
+ * --report=n - prints the thread report every n seconds (0, i.e. never, 
+ * by default),
+ * --max-sessions=n - the maximum number of sessions the blocking engine 
+ * runs at once (0, i.e. unlimited, by default),
+ * --queue=n - the number of accepted sessions that may wait for a free slot
+ * before the clients are refused as busy (100 by default),
+ * --backlog=n - the length of the queue of connections not yet accepted
+ * (50 by default),
+ * --idle-timeout=n - closes the session after n seconds without a complete 
+ * message from the client (900 by default),
+ * --read-timeout=n - closes the session if a started message is not 
+ * completed within n seconds (30 by default),
+ * --write-timeout=n - closes the nio session if the client does not take 
+ * the queued replies within n seconds (30 by default).
+ * A timeout of 0 is never checked,
+ * --feedback-table=none|memory|file - generates the clues from 
+ * a precomputed table: none computes every feedback (default), 
+ * memory builds the table at startup, any other value is the path 
+ * of the file the table is memory-mapped from 
+ * (the file is created if it does not exist),
+ * --hint-strategy=minimax|entropy - how the hints are ranked 
+ * (minimax by default),
+ * --hint-budget=n - the time in milliseconds in which a hint is answered 
+ * (200 by default),
+ * --hint-threads=n - the size of the pool computing the hints 
+ * (half of the available processors by default),
+ * --hint-queue=n - the number of hints that may wait for the pool
+ * before they are refused (64 by default),
+ * --book=none|memory|file - caches the hints of the first rounds: 
+ * none solves every hint, memory keeps the book in memory (default), 
+ * any other value is the path of the file the book is loaded from 
+ * and saved to,
+ * --book-size=n - the maximum number of entries of the book 
+ * (10000 by default),
+ * --book-depth=n - the maximum number of guesses of a history in the book 
+ * (3 by default),
+ * --book-refresh=n - solves the new entries of the book again every 
+ * n seconds with ten times the hint budget and saves the book 
+ * (60 by default, 0 never),
+ * --max-games=n - the maximum number of games a client of the framed 
+ * protocol plays at once over its connection (10000 by default),
+ * --transport=classic|latency - how the connections use their sockets, 
+ * as described in MMTransportProfile (latency by default),
+ * --tcp-nodelay=true|false - disables Nagle's algorithm or not 
+ * (as in the transport profile by default),
+ * --send-buffer=n - the size of the socket send buffers in bytes
+ * (0, i.e. the system default, by default),
+ * --receive-buffer=n - the size of the socket receive buffers in bytes
+ * (0, i.e. the system default, by default),
+ * --journal=dir - records every game in the journal in the directory
+ * (none by default),
+ * --journal-segment=n - the size of the segments of the journal in bytes
+ * (67108864, i.e. 64 MiB, by default),
+ * --resume-games=n - the maximum number of games kept for their clients
+ * to resume after their connection is lost (10000 by default; 
+ * 0 means the games cannot be resumed),
+ * --resume-ttl=n - how long a game is kept for its client to resume it,
+ * in seconds (300 by default).
+ * 
+ * @version 18/10/2026
+ * @since 1.8
+ */
+public class MMServerConfig {
+    /** A thread per client with blocking socket streams. */
+    public static final String MODE_BLOCKING = "blocking";
+    /** A fixed number of selector event loops with non-blocking channels. */
+    public static final String MODE_NIO = "nio";
+    /** A new platform thread per session. */
+    public static final String EXECUTOR_THREAD = "thread";
+    /** A new virtual thread per session. */
+    public static final String EXECUTOR_VIRTUAL = "virtual";
+    /** A fixed pool of platform threads. */
+    public static final String EXECUTOR_FIXED = "fixed";
+    /** Every feedback is computed. */
+    public static final String FEEDBACK_NONE = "none";
+    /** The feedback table is built in memory at startup. */
+    public static final String FEEDBACK_MEMORY = "memory";
+    /** The hints are not cached. */
+    public static final String BOOK_NONE = "none";
+    /** The opening book is kept in memory only. */
+    public static final String BOOK_MEMORY = "memory";
+    
+    private String mode;
+    private int port;
+    private String unixSocket;
+    private int reactors;
+    private String executor;
+    private int threads;
+    private int report;
+    private int maxSessions;
+    private int queue;
+    private int backlog;
+    private int idleTimeout;
+    private int readTimeout;
+    private int writeTimeout;
+    private String feedbackTable;
+    private String hintStrategy;
+    private int hintBudget;
+    private int hintThreads;
+    private int hintQueue;
+    private String book;
+    private int bookSize;
+    private int bookDepth;
+    private int bookRefresh;
+    private int maxGames;
+    private String transport;
+    private Boolean tcpNoDelay;
+    private int sendBuffer;
+    private int receiveBuffer;
+    private String journal;
+    private int journalSegment;
+    private int resumeGames;
+    private int resumeTtl;
+
+    /**
+     * Instantiates the object with the default configuration.
+     */
+    public MMServerConfig() {
+        //port 50,000 for MasterMind
+        this.mode = MODE_BLOCKING;
+        this.port = 50000;
+        this.unixSocket = null;
+        this.reactors = Runtime.getRuntime().availableProcessors();
+        this.executor = EXECUTOR_THREAD;
+        this.threads = 200;
+        this.report = 0;
+        this.maxSessions = 0;
+        this.queue = 100;
+        this.backlog = 50;
+        this.idleTimeout = 900;
+        this.readTimeout = 30;
+        this.writeTimeout = 30;
+        this.feedbackTable = FEEDBACK_NONE;
+        this.hintStrategy = MMHintSolver.MINIMAX;
+        this.hintBudget = 200;
+        this.hintThreads = Math.max(1, 
+                Runtime.getRuntime().availableProcessors() / 2);
+        this.hintQueue = 64;
+        this.book = BOOK_MEMORY;
+        this.bookSize = 10000;
+        this.bookDepth = 3;
+        this.bookRefresh = 60;
+        this.maxGames = 10000;
+        this.transport = MMTransportProfile.LATENCY;
+        this.tcpNoDelay = null;
+        this.sendBuffer = 0;
+        this.receiveBuffer = 0;
+        this.journal = null;
+        this.journalSegment = 64 << 20;
+        this.resumeGames = 10000;
+        this.resumeTtl = 300;
+    }
+    
+    /**
+     * Creates the configuration from the command line arguments.
+     * @param args the command line arguments.
+     * @return the configuration.
+     * @throws IllegalArgumentException if an argument is not valid.
+     */
+    public static MMServerConfig fromArgs(String[] args) {
+        MMServerConfig config = new MMServerConfig();
+        for(String arg : args) {
+            int index = arg.indexOf('=');
+            if(!arg.startsWith("--") || index == -1)
+                throw new IllegalArgumentException("Invalid option: " + arg);
+            config.setOption(arg.substring(2, index), arg.substring(index + 1));
+        }
+        return config;
+    }
+    
+    /**
+     * Sets the option with the given name.
+     * @param name the name of the option.
+     * @param value the value of the option.
+     * @throws IllegalArgumentException if the option is not valid.
+     */
+    private void setOption(String name, String value) {
+        switch(name) {
+            case "mode":
+                if(!value.equals(MODE_BLOCKING) && !value.equals(MODE_NIO))
+                    throw new IllegalArgumentException("Unknown mode: " + value);
+                mode = value;
+                break;
+            case "port":
+                port = parsePositive(name, value);
+                break;
+            case "unix-socket":
+                unixSocket = value.isEmpty() ? null : value;
+                break;
+            case "reactors":
+                reactors = parsePositive(name, value);
+                break;
+            case "executor":
+                if(!value.equals(EXECUTOR_THREAD) && 
+                   !value.equals(EXECUTOR_VIRTUAL) && 
+                   !value.equals(EXECUTOR_FIXED))
+                    throw new IllegalArgumentException("Unknown executor: " 
+                            + value);
+                executor = value;
+                break;
+            case "threads":
+                threads = parsePositive(name, value);
+                break;
+            case "report":
+                report = parseNonNegative(name, value);
+                break;
+            case "max-sessions":
+                maxSessions = parseNonNegative(name, value);
+                break;
+            case "queue":
+                queue = parseNonNegative(name, value);
+                break;
+            case "backlog":
+                backlog = parsePositive(name, value);
+                break;
+            case "idle-timeout":
+                idleTimeout = parseNonNegative(name, value);
+                break;
+            case "read-timeout":
+                readTimeout = parseNonNegative(name, value);
+                break;
+            case "write-timeout":
+                writeTimeout = parseNonNegative(name, value);
+                break;
+            case "feedback-table":
+                if(value.isEmpty())
+                    throw new IllegalArgumentException(
+                            "Option feedback-table must not be empty");
+                feedbackTable = value;
+                break;
+            case "hint-strategy":
+                if(!value.equals(MMHintSolver.MINIMAX) && 
+                   !value.equals(MMHintSolver.ENTROPY))
+                    throw new IllegalArgumentException("Unknown strategy: " 
+                            + value);
+                hintStrategy = value;
+                break;
+            case "hint-budget":
+                hintBudget = parsePositive(name, value);
+                break;
+            case "hint-threads":
+                hintThreads = parsePositive(name, value);
+                break;
+            case "hint-queue":
+                hintQueue = parsePositive(name, value);
+                break;
+            case "book":
+                if(value.isEmpty())
+                    throw new IllegalArgumentException(
+                            "Option book must not be empty");
+                book = value;
+                break;
+            case "book-size":
+                bookSize = parsePositive(name, value);
+                break;
+            case "book-depth":
+                bookDepth = parseNonNegative(name, value);
+                break;
+            case "book-refresh":
+                bookRefresh = parseNonNegative(name, value);
+                break;
+            case "max-games":
+                maxGames = parsePositive(name, value);
+                break;
+            case "transport":
+                MMTransportProfile.of(value);
+                transport = value;
+                break;
+            case "tcp-nodelay":
+                if(!value.equals("true") && !value.equals("false"))
+                    throw new IllegalArgumentException(
+                            "Option tcp-nodelay must be true or false: " 
+                            + value);
+                tcpNoDelay = Boolean.valueOf(value);
+                break;
+            case "send-buffer":
+                sendBuffer = parseNonNegative(name, value);
+                break;
+            case "receive-buffer":
+                receiveBuffer = parseNonNegative(name, value);
+                break;
+            case "journal":
+                journal = value.isEmpty() ? null : value;
+                break;
+            case "journal-segment":
+                journalSegment = parsePositive(name, value);
+                if(journalSegment < 2 * MMJournal.RECORD)
+                    throw new IllegalArgumentException("Option " + name 
+                            + " must be at least " + 2 * MMJournal.RECORD 
+                            + ": " + value);
+                break;
+            case "resume-games":
+                resumeGames = parseNonNegative(name, value);
+                break;
+            case "resume-ttl":
+                resumeTtl = parsePositive(name, value);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown option: " + name);
+        }
+    }
+    
+    /**
+     * Parses the positive integer value of the option.
+     * @param name the name of the option.
+     * @param value the value to parse.
+     * @return the parsed value.
+     * @throws IllegalArgumentException if the value is not a positive integer.
+     */
+    private static int parsePositive(String name, String value) {
+        try {
+            int number = Integer.parseInt(value);
+            if(number > 0)
+                return number;
+        }
+        catch(NumberFormatException ex) {
+            //reported below
+        }
+        throw new IllegalArgumentException("Option " + name 
+                + " must be a positive integer: " + value);
+    }
+
+    /**
+     * Parses the non-negative integer value of the option.
+     * @param name the name of the option.
+     * @param value the value to parse.
+     * @return the parsed value.
+     * @throws IllegalArgumentException if the value is not 
+     *                                  a non-negative integer.
+     */
+    private static int parseNonNegative(String name, String value) {
+        return value.equals("0") ? 0 : parsePositive(name, value);
+    }
+
+    /**
+     * Returns the server engine.
+     * @return the server engine.
+     */
+    public String getMode() {
+        return mode;
+    }
+
+    /**
+     * Returns the port on which the server listens.
+     * @return the port on which the server listens.
+     */
+    public int getPort() {
+        return port;
+    }
+
+    /**
+     * Returns the path of the Unix domain socket the server listens on.
+     * @return the path; null if the server only listens on the port.
+     */
+    public String getUnixSocket() {
+        return unixSocket;
+    }
+
+    /**
+     * Returns the number of event loops for the nio engine.
+     * @return the number of event loops for the nio engine.
+     */
+    public int getReactors() {
+        return reactors;
+    }
+
+    /**
+     * Returns how the blocking engine runs the sessions.
+     * @return how the blocking engine runs the sessions.
+     */
+    public String getExecutor() {
+        return executor;
+    }
+
+    /**
+     * Returns the size of the fixed pool.
+     * @return the size of the fixed pool.
+     */
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * Returns the interval of the thread report in seconds; 0 if disabled.
+     * @return the interval of the thread report in seconds.
+     */
+    public int getReport() {
+        return report;
+    }
+
+    /**
+     * Returns the maximum number of sessions running at once; 0 if unlimited.
+     * @return the maximum number of sessions running at once.
+     */
+    public int getMaxSessions() {
+        return maxSessions;
+    }
+
+    /**
+     * Returns the number of sessions that may wait for a free slot.
+     * @return the number of sessions that may wait for a free slot.
+     */
+    public int getQueue() {
+        return queue;
+    }
+
+    /**
+     * Returns the length of the queue of connections not yet accepted.
+     * @return the length of the queue of connections not yet accepted.
+     */
+    public int getBacklog() {
+        return backlog;
+    }
+
+    /**
+     * Returns the idle timeout in seconds; 0 if it is not checked.
+     * @return the idle timeout in seconds.
+     */
+    public int getIdleTimeout() {
+        return idleTimeout;
+    }
+
+    /**
+     * Returns the read timeout in seconds; 0 if it is not checked.
+     * @return the read timeout in seconds.
+     */
+    public int getReadTimeout() {
+        return readTimeout;
+    }
+
+    /**
+     * Returns the write timeout in seconds; 0 if it is not checked.
+     * @return the write timeout in seconds.
+     */
+    public int getWriteTimeout() {
+        return writeTimeout;
+    }
+    
+    /**
+     * Returns true if any session timeout is checked; false otherwise.
+     * @return true if any session timeout is checked; false otherwise.
+     */
+    public boolean hasTimeouts() {
+        return idleTimeout > 0 || readTimeout > 0 || writeTimeout > 0;
+    }
+
+    /**
+     * Returns where the feedback table comes from: none, memory 
+     * or the path of the file.
+     * @return where the feedback table comes from.
+     */
+    public String getFeedbackTable() {
+        return feedbackTable;
+    }
+
+    /**
+     * Returns how the hints are ranked: minimax or entropy.
+     * @return how the hints are ranked.
+     */
+    public String getHintStrategy() {
+        return hintStrategy;
+    }
+
+    /**
+     * Returns the time in milliseconds in which a hint is answered.
+     * @return the time in milliseconds in which a hint is answered.
+     */
+    public int getHintBudget() {
+        return hintBudget;
+    }
+
+    /**
+     * Returns the size of the pool computing the hints.
+     * @return the size of the pool computing the hints.
+     */
+    public int getHintThreads() {
+        return hintThreads;
+    }
+
+    /**
+     * Returns the number of hints that may wait for the pool.
+     * @return the number of hints that may wait for the pool.
+     */
+    public int getHintQueue() {
+        return hintQueue;
+    }
+
+    /**
+     * Returns where the opening book is kept.
+     * @return none, memory or the path of the book file.
+     */
+    public String getBook() {
+        return book;
+    }
+
+    /**
+     * Returns the maximum number of entries of the opening book.
+     * @return the maximum number of entries of the opening book.
+     */
+    public int getBookSize() {
+        return bookSize;
+    }
+
+    /**
+     * Returns the maximum number of guesses of a history in the book.
+     * @return the depth of the opening book.
+     */
+    public int getBookDepth() {
+        return bookDepth;
+    }
+
+    /**
+     * Returns the time between two refreshes of the opening book.
+     * @return the time in seconds; 0 if the book is never refreshed.
+     */
+    public int getBookRefresh() {
+        return bookRefresh;
+    }
+
+    /**
+     * Returns the maximum number of games played at once over 
+     * one connection.
+     * @return the maximum number of games played at once over 
+     *         one connection.
+     */
+    public int getMaxGames() {
+        return maxGames;
+    }
+
+    /**
+     * Returns how the connections use their sockets: the transport 
+     * profile with the options given on the command line.
+     * @return the transport profile.
+     */
+    public MMTransportProfile getTransportProfile() {
+        MMTransportProfile profile = MMTransportProfile.of(transport);
+        boolean noDelay = tcpNoDelay != null ? tcpNoDelay 
+                                             : profile.isNoDelay();
+        return new MMTransportProfile(noDelay, sendBuffer, receiveBuffer, 
+                                      profile.isBuffered());
+    }
+
+    /**
+     * Returns the directory of the journal.
+     * @return the directory of the journal; null if the games 
+     *         are not recorded.
+     */
+    public String getJournal() {
+        return journal;
+    }
+
+    /**
+     * Returns the size of the segments of the journal.
+     * @return the size of a segment in bytes.
+     */
+    public int getJournalSegment() {
+        return journalSegment;
+    }
+
+    /**
+     * Returns the maximum number of games kept for their clients to resume.
+     * @return the maximum number of suspended games; 0 if the games 
+     *         cannot be resumed.
+     */
+    public int getResumeGames() {
+        return resumeGames;
+    }
+
+    /**
+     * Returns how long a game is kept for its client to resume it.
+     * @return the time to live of a suspended game in seconds.
+     */
+    public int getResumeTtl() {
+        return resumeTtl;
+    }
+}
@@ -0,0 +1,246 @@
+package ashulzhenko.server;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters of the server that can be printed periodically 
+ * to size the server for the expected load.
+ * 
+ * @version 18/10/2026
+ * @since 1.8
+ */
+public class MMServerStats {
+    private final AtomicInteger activeSessions;
+    private final AtomicInteger peakSessions;
+    private final AtomicLong totalSessions;
+    private final AtomicLong rejectedSessions;
+    private final AtomicLong queuedSessions;
+    private final AtomicInteger peakQueueDepth;
+    private final AtomicLong waitedSessions;
+    private final AtomicLong totalWaitNanos;
+    private final AtomicLong maxWaitNanos;
+    private final AtomicLong reapedIdle;
+    private final AtomicLong reapedRead;
+    private final AtomicLong reapedWrite;
+    private volatile MMAdmission admission;
+    private volatile MMTimerWheel wheel;
+    private volatile MMOpeningBook book;
+    private volatile MMJournal journal;
+    private volatile MMGameStore gameStore;
+    
+    /**
+     * Instantiates the object with all counters set to zero.
+     */
+    public MMServerStats() {
+        this.activeSessions = new AtomicInteger();
+        this.peakSessions = new AtomicInteger();
+        this.totalSessions = new AtomicLong();
+        this.rejectedSessions = new AtomicLong();
+        this.queuedSessions = new AtomicLong();
+        this.peakQueueDepth = new AtomicInteger();
+        this.waitedSessions = new AtomicLong();
+        this.totalWaitNanos = new AtomicLong();
+        this.maxWaitNanos = new AtomicLong();
+        this.reapedIdle = new AtomicLong();
+        this.reapedRead = new AtomicLong();
+        this.reapedWrite = new AtomicLong();
+    }
+    
+    /**
+     * Sets the admission control whose queue depth is reported.
+     * @param admission the admission control of the server.
+     */
+    public void setAdmission(MMAdmission admission) {
+        this.admission = admission;
+    }
+    
+    /**
+     * Sets the timer wheel whose size is reported.
+     * @param wheel the timer wheel of the server.
+     */
+    public void setTimerWheel(MMTimerWheel wheel) {
+        this.wheel = wheel;
+    }
+    
+    /**
+     * Sets the opening book whose counters are reported.
+     * @param book the opening book; null if the hints are not cached.
+     */
+    public void setOpeningBook(MMOpeningBook book) {
+        this.book = book;
+    }
+    
+    /**
+     * Sets the journal whose counters are reported.
+     * @param journal the journal; null if the games are not recorded.
+     */
+    public void setJournal(MMJournal journal) {
+        this.journal = journal;
+    }
+    
+    /**
+     * Sets the store of the suspended games whose counters are reported.
+     * @param gameStore the store; null if the games cannot be resumed.
+     */
+    public void setGameStore(MMGameStore gameStore) {
+        this.gameStore = gameStore;
+    }
+    
+    /**
+     * Records that a session was closed after its idle timeout.
+     */
+    public void sessionReapedIdle() {
+        reapedIdle.incrementAndGet();
+    }
+    
+    /**
+     * Records that a session was closed after its read timeout.
+     */
+    public void sessionReapedRead() {
+        reapedRead.incrementAndGet();
+    }
+    
+    /**
+     * Records that a session was closed after its write timeout.
+     */
+    public void sessionReapedWrite() {
+        reapedWrite.incrementAndGet();
+    }
+    
+    /**
+     * Records that a session was refused because the server is busy.
+     */
+    public void sessionRejected() {
+        rejectedSessions.incrementAndGet();
+    }
+    
+    /**
+     * Records that a session was queued to wait for a free slot.
+     * @param depth the depth of the queue including this session.
+     */
+    public void sessionQueued(int depth) {
+        queuedSessions.incrementAndGet();
+        peakQueueDepth.accumulateAndGet(depth, Math::max);
+    }
+    
+    /**
+     * Records how long an admitted session waited before it was started.
+     * @param nanos the waiting time in nanoseconds.
+     */
+    public void sessionWaited(long nanos) {
+        waitedSessions.incrementAndGet();
+        totalWaitNanos.addAndGet(nanos);
+        maxWaitNanos.accumulateAndGet(nanos, Math::max);
+    }
+    
+    /**
+     * Records that a session started.
+     */
+    public void sessionStarted() {
+        int active = activeSessions.incrementAndGet();
+        totalSessions.incrementAndGet();
+        peakSessions.accumulateAndGet(active, Math::max);
+    }
+    
+    /**
+     * Records that a session finished.
+     */
+    public void sessionFinished() {
+        activeSessions.decrementAndGet();
+    }
+    
+    /**
+     * Wraps the session so that its start and end are recorded.
+     * @param session the session to run.
+     * @return the session that records its start and end.
+     */
+    public Runnable track(Runnable session) {
+        return () -> {
+            sessionStarted();
+            try {
+                session.run();
+            }
+            finally {
+                sessionFinished();
+            }
+        };
+    }
+    
+    /**
+     * Returns the number of sessions that are running now.
+     * @return the number of sessions that are running now.
+     */
+    public int getActiveSessions() {
+        return activeSessions.get();
+    }
+    
+    /**
+     * Returns the number of sessions waiting for a free slot.
+     * @return the number of sessions waiting for a free slot.
+     */
+    public int getQueueDepth() {
+        MMAdmission current = admission;
+        return current == null ? 0 : current.getQueueDepth();
+    }
+    
+    /**
+     * Returns the average time an admitted session waited to be started.
+     * @return the average waiting time in milliseconds.
+     */
+    public long getAverageWaitMillis() {
+        long waited = waitedSessions.get();
+        return waited == 0 ? 0 : totalWaitNanos.get() / waited / 1000000;
+    }
+    
+    /**
+     * Creates the report of the sessions and the threads.
+     * @return the report of the sessions and the threads.
+     */
+    public String report() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        return "sessions: active=" + activeSessions.get() 
+                + " peak=" + peakSessions.get() 
+                + " total=" + totalSessions.get()
+                + " rejected=" + rejectedSessions.get()
+                + "; queue: depth=" + getQueueDepth()
+                + " peak=" + peakQueueDepth.get()
+                + " queued=" + queuedSessions.get()
+                + "; wait ms: avg=" + getAverageWaitMillis()
+                + " max=" + maxWaitNanos.get() / 1000000
+                + "; reaped: idle=" + reapedIdle.get()
+                + " read=" + reapedRead.get()
+                + " write=" + reapedWrite.get()
+                + " deadlines=" + (wheel == null ? 0 : wheel.size())
+                + (book == null ? "" : "; " + book.report())
+                + (journal == null ? "" : "; " + journal.report())
+                + (gameStore == null ? "" : "; " + gameStore.report())
+                + "; platform threads: live=" + threads.getThreadCount() 
+                + " peak=" + threads.getPeakThreadCount()
+                + "; virtual thread carriers: " 
+                + (MMExecutors.isVirtualSupported() ? 
+                   MMExecutors.getCarrierCount() : "unsupported");
+    }
+    
+    /**
+     * Starts the daemon thread that prints the report periodically.
+     * @param seconds the interval between the reports in seconds.
+     */
+    public void startReporter(int seconds) {
+        Thread reporter = new Thread(() -> {
+            try {
+                for(;;) {
+                    Thread.sleep(seconds * 1000L);
+                    System.out.println(report());
+                }
+            }
+            catch(InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }, "mm-stats");
+        reporter.setDaemon(true);
+        reporter.start();
+    }
+}
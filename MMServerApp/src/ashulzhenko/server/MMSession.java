@@ -1,5 +1,9 @@
 package ashulzhenko.server;
 
+import ashulzhenko.protocol.MMFrame;
+import ashulzhenko.protocol.MMMessageCodec;
+import ashulzhenko.protocol.MMScorer;
+import ashulzhenko.protocol.MMVariant;
 import java.net.Socket;
 import java.io.*;
 import java.util.Arrays;
@@ -12,6 +16,9 @@ import java.util.Random;
  *
  * The Runnable interface is used to indicate tha this class is intended 
  * to be executed by a thread.
+ * The session can also be driven without a dedicated thread: 
+ * the non-blocking server passes each received 4-byte frame 
+ * to processMessage, which advances the session state machine.
  * 
  * These are the packet messaging rules:
  * 
@@ -21,23 +28,77 @@ import java.util.Random;
  * 1-8 - client color guesses,
  * 9 0 0 0 - client requests to stop the current game,
  * 10 10 10 10 - server sends OK to start a new game,
+ * 11 11 11 11 - server is busy and refuses the session 
+ * (sent right after the connection, which is then closed),
  * 12 - server indicates an in-place clue (0 if none found),
  * 13 - server indicates an out-place clue (0 if none found),
  * 14 0 0 0 - client requests to stop session (i.e. do not start a new game),
- * 15 15 15 15 - server indicates that the user lost the game.
+ * 15 15 15 15 - server indicates that the user lost the game,
+ * 17 0 0 0 - client requests a hint during a game; the server replies
+ * with the suggested guess, or 17 17 17 17 if it refuses the hint 
+ * (17 is never a color, unlike 11 in games with 11 or 12 colors),
+ * and the hint does not count as a round,
+ * 16 p c r - client requests a game with p pegs, c colors and r rounds 
+ * before a new game is started; the server replies 16 p c r 
+ * with the game it accepted (the previous one if the request is 
+ * not supported) and every following message has p bytes,
+ * 18 0 0 0 - client requests a new game that can be resumed; 
+ * the server replies with 10's followed by the resume token of the game
+ * in two messages, as described in MMMessageCodec (a token of 0's if the
+ * server does not keep the games),
+ * 19 0 0 0 - client resumes the game of the token in the two messages 
+ * that follow, after its connection was lost; the server replies 
+ * 19 n p c with the n rounds played, the p pegs and the c colors 
+ * of the game, and every following message has p bytes, 
+ * or 11 11 11 11 if the game is not kept anymore; if a round was played,
+ * the reply is followed by the clues of the last round, whose reply 
+ * may have been lost with the connection (11's if they are not known).
+ * 
+ * The classic game has 4 pegs, 8 colors and 10 rounds. 
+ * In games with more than 4 pegs, the codes above are followed by more
+ * values (e.g. 10 10 10 10 10 10 for 6 pegs) and the clues have one value
+ * per peg. In games with 9 or more colors, the message to stop 
+ * the current game has to be 9 followed by 0's, 
+ * since other messages starting with 9 are guesses.
+ * 
+ * If the connection of a game that can be resumed is lost, the game
+ * is suspended in the game store until the client resumes it.
+ * If the client resumes it before its previous connection is found lost,
+ * the game is taken over from the session still playing it, 
+ * whose connection is closed. The messages of a session are processed
+ * while holding its lock, so the game is never taken over in the middle
+ * of a message.
+ * 
+ * A client whose first byte is 'M' speaks the framed protocol 
+ * described in MMFrameCodec instead and is served by MMFrameSession.
  * 
  * @author Alena Shulzhenko
- * @version 06/12/2016
+ * @version 18/10/2026
  * @since 1.8
  */
 public class MMSession implements Runnable {
-    private Socket socket;
-    private int[] answerSet;
+    /** The session waits for the client to start a new game. */
+    private static final int AWAIT_GAME = 0;
+    /** The session waits for the client's guesses. */
+    private static final int IN_GAME = 1;
+    /** The session is finished. */
+    private static final int CLOSED = 2;
+    /** The session receives the token of the game to resume. */
+    private static final int AWAIT_TOKEN = 3;
+    
+    private static volatile MMGameStore gameStore;
+    
+    private MMConnection connection;
+    private MMVariant variant;
+    private MMGame game;
+    private int[] clues;
     private Random random;
     private boolean playNewGame;
-    private boolean clientWin;
     private MMPacket util;
-    private int round;
+    private int state;
+    //the token of the game; 0 if it cannot be resumed
+    private long token;
+    private int tokenParts;
 
     /**
      * Instantiates the object when receiving the socket.
@@ -45,15 +106,42 @@ public class MMSession implements Runnable {
      *                when client connects to the server.
      */
     public MMSession(Socket socket) {
-        this.socket = socket;
-        this.util = new MMPacket(socket);
-        this.answerSet = new int[4];
+        this(new MMPacket(socket));
+    }
+    
+    /**
+     * Instantiates the object when receiving the blocking packet utility
+     * of the client socket.
+     * @param util the utility to send and receive messages.
+     */
+    public MMSession(MMPacket util) {
+        this((MMConnection)util);
+        this.util = util;
+    }
+    
+    /**
+     * Instantiates the object when receiving the connection.
+     * The session created this way has to be driven by processMessage.
+     * @param connection the connection used to send replies to the client.
+     */
+    public MMSession(MMConnection connection) {
+        this.connection = connection;
+        this.variant = MMVariant.CLASSIC;
+        this.clues = new int[4];
         this.random = new Random();
         this.playNewGame = true;
-        this.clientWin = false;
+        this.state = AWAIT_GAME;
         System.out.println("Running...");
     }
 
+    /**
+     * Sets the store of the games suspended when their connection is lost.
+     * @param store the store; null if the games cannot be resumed.
+     */
+    public static void setGameStore(MMGameStore store) {
+        gameStore = store;
+    }
+
     /**
      * Starts session with the client.
      * It is called when the thread with this client is started.
@@ -63,199 +151,370 @@ public class MMSession implements Runnable {
     @Override
     public void run() {  
         try {
-            boolean quitCurrent = false;
-            //loops through multiple games.
-            while(playNewGame && !socket.isClosed())
-            {
-                startNewGame(); 
-                //loop for one game
-                while(playNewGame && round < 11 && !socket.isClosed() && 
-                      !quitCurrent && !clientWin) {
-                    //get client message
-                    int[] message = util.receiveMessage();
-                    //reply to the message
-                    quitCurrent = configureSendReply(message);
-                }
-                if (!clientWin)
-                    util.sendMessage(answerSet);
-                quitCurrent = false;
-                clientWin = false;
-                System.out.println("Out of the game loop");
+            if(util.isFramed()) {
+                runFramed();
+                return;
+            }
+            //loops through the client messages until the session is over
+            while(state != CLOSED && !connection.isClosed()) {
+                //get client message
+                int[] message = util.receiveMessage();
+                //advance the session
+                processMessage(message);
+                //the replies to the message take one write
+                connection.flush();
             }
-            System.out.println("Out of the session loop");
         }
         catch(IOException io) {
             System.err.println("There is an error when communicating "
                              + "with the client: " + io.getMessage());
         }
+        finally {
+            close();
+        }
+    }
+    
+    /**
+     * Serves the client that speaks the framed protocol 
+     * until it ends the session.
+     * @throws IOException If there is a problem when communicating 
+     *                     to the client.
+     */
+    private void runFramed() throws IOException {
+        MMFrameSession framed = new MMFrameSession(connection);
+        MMFrame frame = new MMFrame();
+        try {
+            while(!connection.isClosed() && 
+                  framed.processFrame(util.receiveFrame(frame))) {
+                //the replies to the frames received together are written once
+                if(!util.hasInput())
+                    util.flush();
+            }
+            util.flush();
+        }
+        finally {
+            framed.abandon();
+        }
+        state = CLOSED;
+    }
+    
+    /**
+     * Advances the session with one message received from the client.
+     * It replies to the client if necessary.
+     * @param message the client's message.
+     * @return true if the session expects more messages; 
+     *         false if it is finished.
+     * @throws IOException If there is a problem when communicating 
+     *                     to the client.
+     */
+    public synchronized boolean processMessage(int[] message) 
+            throws IOException {
+        if(state == AWAIT_GAME)
+            startNewGame(message);
+        else if(state == AWAIT_TOKEN)
+            receiveToken(message);
+        else if(state == IN_GAME) {
+            //reply to the message
+            boolean quitCurrent = configureSendReply(message);
+            if(!playNewGame || game.isLost() || quitCurrent || game.isWon())
+                endGame();
+        }
+        return state != CLOSED;
+    }
+    
+    /**
+     * Tells the client that the server is busy and closes the connection.
+     * @param connection the connection of the refused client.
+     */
+    public static void refuse(MMConnection connection) {
+        try {
+            int[] busy = new int[4];
+            Arrays.fill(busy, 11);
+            connection.sendMessage(busy);
+            connection.flush();
+        }
+        catch (IOException e) {
+            System.err.println("There is an error when communicating "
+                             + "with the client: " + e.getMessage());
+        }
         finally {
             try {
-                socket.close();
+                connection.close();
             }
             catch (IOException e) {
-		System.err.println("Exception when closing the socket: " 
+                System.err.println("Exception when closing the socket: " 
                         + e.getMessage());
             }
         }
     }
+    
+    /**
+     * Closes the connection with the client.
+     */
+    public void close() {
+        state = CLOSED;
+        abandon();
+        try {
+            connection.close();
+        }
+        catch (IOException e) {
+            System.err.println("Exception when closing the socket: " 
+                    + e.getMessage());
+        }
+    }
+    
+    /**
+     * Ends the game left running when the connection is closed,
+     * or suspends it if it can be resumed.
+     */
+    public synchronized void abandon() {
+        if (game != null) {
+            MMGameStore store = gameStore;
+            if (token != 0 && store != null) {
+                //suspended before it is unregistered, so it is always found
+                store.suspend(token, game);
+                store.stop(token, this);
+            }
+            else
+                game.end();
+            game = null;
+            token = 0;
+        }
+    }
+    
+    /**
+     * Gives the game of the token to the session of the client 
+     * that reconnected, and closes the connection of this session,
+     * which the client no longer uses.
+     * @param token the token of the game.
+     * @return the game; null if this session no longer plays it.
+     */
+    private synchronized MMGame handOver(long token) {
+        if (game == null || this.token != token)
+            return null;
+        MMGame handed = game;
+        game = null;
+        this.token = 0;
+        state = CLOSED;
+        connection.closeLater();
+        System.out.println("Game handed over in round " + handed.getRound());
+        return handed;
+    }
+    
+    /**
+     * Ends the current game. The answer set is sent 
+     * if the client did not win.
+     * @throws IOException If there is a problem when communicating 
+     *                     to the client.
+     */
+    private void endGame() throws IOException {
+        if (!game.isWon())
+            connection.sendMessage(game.getAnswerSet());
+        game.end();
+        MMGameStore store = gameStore;
+        if (token != 0 && store != null)
+            store.stop(token, this);
+        game = null;
+        token = 0;
+        System.out.println("Out of the game loop");
+        if(playNewGame)
+            state = AWAIT_GAME;
+        else {
+            state = CLOSED;
+            System.out.println("Out of the session loop");
+        }
+    }
 
     /**
      * Initiates a new game and creates a new answer set.
+     * @param message the client's message.
      * @throws IOException If there is a problem when communicating 
      *                     to the client.
      */
-    private void startNewGame() throws IOException {
-        round = 1;
-        int[] message = util.receiveMessage();
-        if(message[0] != 14) {
+    private void startNewGame(int[] message) throws IOException {
+        if(message[0] == 16)
+            negotiateVariant(message);
+        else if(message[0] == 19) {
+            token = 0;
+            tokenParts = 0;
+            state = AWAIT_TOKEN;
+        }
+        else if(message[0] != 14) {
             //reply
-            int[] answer = new int[4];
+            int[] answer = new int[variant.getPegs()];
             Arrays.fill(answer, 10);
-            util.sendMessage(answer);
-            createAnswerSet(message);
+            connection.sendMessage(answer);
+            //the client's values are the answer set if they are valid
+            game = new MMGame(variant, message, random);
+            state = IN_GAME;
+            if(message[0] == 18)
+                sendToken();
         }
         else {
             //stop all games
             playNewGame = false;
+            state = CLOSED;
+            System.out.println("Out of the session loop");
         }
     }
     
     /**
-     * Sends the appropriate reply according to the client's message.
-     * 
-     * @param message client's message with the guesses.
-     * @return quitCurrent - true if clients wants to quit the current game.
+     * Issues the token of the new game and sends it to the client.
      * @throws IOException If there is a problem when communicating 
      *                     to the client.
      */
-    private boolean configureSendReply(int[] message) throws IOException {
-        //if user wants to quit all games
-        if (message[0] == 14) {
-            playNewGame = false;
-            return true;
+    private void sendToken() throws IOException {
+        MMGameStore store = gameStore;
+        token = store == null ? 0 : store.newToken();
+        int[] part = new int[variant.getPegs()];
+        for(int i = 0; i < MMMessageCodec.TOKEN_MESSAGES; i++) {
+            MMMessageCodec.encodeToken(token, i, part);
+            connection.sendMessage(part);
         }
-        //if user wants to quit the current game
-        else if(message[0] == 9) {
-            return true;
-        }
-        else {
-            int[] clues = generateClues(message);
-            util.sendMessage(clues);
-            round++;
-            return false;
-        }   
+        if(store != null)
+            store.play(token, this);
     }
     
     /**
-     * Generates clues according to client's guesses.
-     * @param clientMessage client's message with the guesses.
-     * @return generated clues according to client's guesses.
+     * Receives a part of the token of the game to resume, and resumes
+     * the game once the token is complete.
+     * @param message the client's message with a part of the token.
+     * @throws IOException If there is a problem when communicating 
+     *                     to the client.
      */
-    private int[] generateClues(int[] clientMessage) {
-        int[] clues = new int[4];       
-        int[] answer = Arrays.copyOf(answerSet, answerSet.length);
-        int[] message = Arrays.copyOf(clientMessage, clientMessage.length);
-        
-        //the position in clues array
-        int clue = findInPlaceClues(message, clues, answer); 
-        
-        if (clue == 4)
-            clientWin = true;
-        else {
-            if(round == 10)
-                //game is lost
-                Arrays.fill(clues, 15);
+    private void receiveToken(int[] message) throws IOException {
+        token = MMMessageCodec.decodeToken(token, tokenParts++, message);
+        if(tokenParts < MMMessageCodec.TOKEN_MESSAGES)
+            return;
+        MMGameStore store = gameStore;
+        game = store == null || token == 0 ? null : takeOver(store);
+        //reply in the current message size
+        int[] reply = new int[message.length];
+        if(game == null) {
+            token = 0;
+            Arrays.fill(reply, 11);
+            connection.sendMessage(reply);
+            state = AWAIT_GAME;
+            return;
+        }
+        variant = game.getVariant();
+        clues = new int[variant.getPegs()];
+        reply[0] = 19;
+        reply[1] = game.getRound();
+        reply[2] = variant.getPegs();
+        reply[3] = variant.getColors();
+        connection.sendMessage(reply);
+        connection.setFrameSize(variant.getPegs());
+        if(game.getRound() > 0) {
+            int feedback = game.getLastFeedback();
+            if(feedback < 0)
+                Arrays.fill(clues, 11);
             else
-                findOutPlaceClues(message, clues, clue, answer);               
+                MMScorer.toClues(feedback, clues);
+            connection.sendMessage(clues);
         }
-        
-        return clues;
+        state = IN_GAME;
+        store.play(token, this);
+        System.out.println("Game resumed in round " + game.getRound());
     }
     
     /**
-     * Finds in-place clues according to the client's guesses.
-     * @param message client's message with the guesses.
-     * @param clues the array to fill if any in-place clues found.
-     * @param answer the copy of the answer set array.
-     * @return the current position (index) in clues array.
+     * Takes the game of the token over from the session still playing it,
+     * or resumes it from the store if it was suspended.
+     * @param store the store of the games.
+     * @return the game; null if it is not kept anymore.
      */
-    private int findInPlaceClues(int[] message, int[] clues, int[] answer) {
-        int clue = 0;        
-        for(int i = 0; i < message.length; i++) {
-            if(message[i] == answer[i]) {
-                clues[clue] = 12;
-                clue++;
-                message[i] = 0;
-                answer[i] = 0;
-            }
-        }       
-        return clue;
+    private MMGame takeOver(MMGameStore store) {
+        MMSession owner = store.playedBy(token);
+        MMGame taken = owner == null || owner == this 
+                ? null : owner.handOver(token);
+        return taken != null ? taken : store.resume(token);
     }
     
     /**
-     * Finds out-place clues according to the client's guesses.
-     * @param message client's message with the guesses.
-     * @param clues the array to fill if any out-place clues found.
-     * @param clue the current position (index) in clues array.
-     * @param answer the copy of the answer set array.
+     * Sets the game requested by the client if it is supported 
+     * and replies with the game that is played from now on.
+     * @param message the client's message: 16 pegs colors rounds.
+     * @throws IOException If there is a problem when communicating 
+     *                     to the client.
      */
-    private void findOutPlaceClues(int[] message, int[] clues, 
-                                   int clue, int[] answer) {
-        for (int i = 0; i < message.length; i++) {
-            if(message[i] != 0) {
-                int index = searchArray(answer, message[i]);
-                if(index != -1) {
-                    clues[clue] = 13;
-                    clue++;
-                    answer[index] = 0;
-                }
-            }
+    private void negotiateVariant(int[] message) throws IOException {
+        if(MMVariant.isSupported(message[1], message[2], message[3])) {
+            variant = MMVariant.of(message[1], message[2], message[3]);
+            clues = new int[variant.getPegs()];
         }
+        //reply in the current message size
+        int[] reply = new int[message.length];
+        reply[0] = 16;
+        reply[1] = variant.getPegs();
+        reply[2] = variant.getColors();
+        reply[3] = variant.getRounds();
+        connection.sendMessage(reply);
+        connection.setFrameSize(variant.getPegs());
     }
-
+    
     /**
-     * Creates the answer set for the game. 
-     * If the client sends some values instead of 0's, 
-     * they are chosen instead for the answer set. 
-     * If client values are invalid, random answer set is created instead.
-     * @param message the client's message.
+     * Sends the appropriate reply according to the client's message.
+     * 
+     * @param message client's message with the guesses.
+     * @return quitCurrent - true if clients wants to quit the current game.
+     * @throws IOException If there is a problem when communicating 
+     *                     to the client.
      */
-    private void createAnswerSet(int[] message) {
-        boolean valid = true;
-        if(message[0] != 0) {
-            //check that the supplied answer set is valid
-            for(int i : message)
-                if (i < 1 || i > 8)
-                    valid = false;           
-            if(valid)
-                answerSet = Arrays.copyOf(message, message.length);
-            else
-                createRandom();
+    private boolean configureSendReply(int[] message) throws IOException {
+        //if user wants to quit all games
+        if (message[0] == 14) {
+            playNewGame = false;
+            return true;
         }
-        else
-            createRandom();
+        //if user wants to quit the current game
+        else if(message[0] == 9 && 
+                (variant.getColors() < 9 || message[1] == 0)) {
+            return true;
+        }
+        //if user wants a hint
+        else if(message[0] == 17) {
+            sendHint();
+            return false;
+        }
+        else {
+            int[] clues = generateClues(message);
+            connection.sendMessage(clues);
+            return false;
+        }   
     }
     
     /**
-     * Creates a random answer set.
+     * Sends the suggested guess computed by the hint service 
+     * from the guesses of the current game.
+     * @throws IOException If there is a problem when communicating 
+     *                     to the client.
      */
-    private void createRandom() {
-        for(int i = 0; i < answerSet.length; i++)
-                answerSet[i] = random.nextInt(8)+1;
+    private void sendHint() throws IOException {
+        int pegs = variant.getPegs();
+        connection.sendLater(game.hint(), guess -> {
+            if(guess == null) {
+                guess = new int[pegs];
+                Arrays.fill(guess, 17);
+            }
+            connection.sendMessage(guess);
+        });
     }
     
     /**
-     * Searches array to find whether the given key is in the array.
-     * @param array the array to search.
-     * @param key the key to find in the array.
-     * @return the index of the key in the array; -1 if the key is not found.
+     * Generates clues according to client's guesses.
+     * The clues are written into the array reused by the session.
+     * @param clientMessage client's message with the guesses.
+     * @return generated clues according to client's guesses.
      */
-    private int searchArray(int[] array, int key) {
-        for(int i = 0; i < array.length; i++) {
-            if(array[i] == key )
-                return i;
-        }
-        return -1;
+    private int[] generateClues(int[] clientMessage) {
+        int feedback = game.guess(clientMessage);
+        if(game.isLost())
+            Arrays.fill(clues, 15);
+        else
+            MMScorer.toClues(feedback, clues);
+        
+        return clues;
     }
     
-}
+}
\ No newline at end of file
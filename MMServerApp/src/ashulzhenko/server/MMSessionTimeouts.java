@@ -0,0 +1,92 @@
+package ashulzhenko.server;
+
+/**
+ * Deadlines of one client connection tracked by the shared timer wheel:
+ * 
+ * idle - the time allowed between two complete messages,
+ * read - the time allowed to receive the rest of a started message,
+ * write - the time allowed for a slow client to take the queued replies.
+ * 
+ * When any deadline passes, the connection is closed. 
+ * A deadline configured as 0 is never checked.
+ * 
+ * @version 18/10/2026
+ * @since 1.8
+ */
+public class MMSessionTimeouts {
+    private final MMTimerWheel.Timeout idle;
+    private final MMTimerWheel.Timeout read;
+    private final MMTimerWheel.Timeout write;
+    private final long idleMillis;
+    private final long readMillis;
+    private final long writeMillis;
+
+    /**
+     * Instantiates the object and arms the idle deadline.
+     * @param wheel the timer wheel that tracks the deadlines.
+     * @param config the server configuration with the deadlines.
+     * @param stats the counters of the server.
+     * @param onExpired closes the connection when a deadline passes.
+     */
+    public MMSessionTimeouts(MMTimerWheel wheel, MMServerConfig config, 
+                             MMServerStats stats, Runnable onExpired) {
+        this.idleMillis = config.getIdleTimeout() * 1000L;
+        this.readMillis = config.getReadTimeout() * 1000L;
+        this.writeMillis = config.getWriteTimeout() * 1000L;
+        this.idle = wheel.newTimeout(() -> {
+            stats.sessionReapedIdle();
+            onExpired.run();
+        });
+        this.read = wheel.newTimeout(() -> {
+            stats.sessionReapedRead();
+            onExpired.run();
+        });
+        this.write = wheel.newTimeout(() -> {
+            stats.sessionReapedWrite();
+            onExpired.run();
+        });
+        if(idleMillis > 0)
+            idle.arm(idleMillis);
+    }
+    
+    /**
+     * Records that the first bytes of a message were received.
+     */
+    public void frameStarted() {
+        if(readMillis > 0 && !read.isArmed())
+            read.arm(readMillis);
+    }
+    
+    /**
+     * Records that a complete message was received.
+     */
+    public void frameCompleted() {
+        read.disarm();
+        if(idleMillis > 0)
+            idle.arm(idleMillis);
+    }
+    
+    /**
+     * Records that some replies could not be written at once.
+     */
+    public void writePending() {
+        if(writeMillis > 0 && !write.isArmed())
+            write.arm(writeMillis);
+    }
+    
+    /**
+     * Records that every queued reply was written.
+     */
+    public void writeCompleted() {
+        write.disarm();
+    }
+    
+    /**
+     * Disarms every deadline when the connection is closed.
+     */
+    public void cancel() {
+        idle.disarm();
+        read.disarm();
+        write.disarm();
+    }
+}
@@ -0,0 +1,241 @@
+package ashulzhenko.server;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+/**
+ * Hashed timing wheel that tracks the deadlines of all sessions 
+ * on a single thread.
+ * 
+ * The wheel is an array of buckets; each tick the timer thread visits 
+ * one bucket and expires the timeouts whose deadline has passed.
+ * A timeout is a reusable entry owned by its session: moving its deadline 
+ * is a single atomic write and does not touch the wheel. When the timer 
+ * thread reaches an entry whose deadline was moved later, it puts the 
+ * entry in the bucket of the new deadline instead of expiring it. 
+ * This is why a deadline may only be moved later or disarmed, 
+ * and why hundreds of thousands of sessions that are active all the time 
+ * cost nothing but the occasional re-bucketing.
+ * 
+ * @version 18/10/2026
+ * @since 1.8
+ */
+public class MMTimerWheel implements Runnable {
+    private final long tickNanos;
+    private final int mask;
+    private final Timeout[] buckets;
+    private final Queue<Timeout> added;
+    private final long startTime;
+    private long tick;
+    private final AtomicInteger size;
+    
+    /**
+     * Instantiates the object receiving the resolution of the wheel.
+     * @param tickMillis the duration of one tick in milliseconds.
+     * @param wheelSize the number of buckets, rounded up to a power of 2.
+     */
+    public MMTimerWheel(long tickMillis, int wheelSize) {
+        int length = Integer.highestOneBit(Math.max(wheelSize, 2) - 1) << 1;
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+        this.mask = length - 1;
+        this.buckets = new Timeout[length];
+        this.added = new ConcurrentLinkedQueue<>();
+        this.startTime = System.nanoTime();
+        this.size = new AtomicInteger();
+    }
+    
+    /**
+     * Starts the timer thread.
+     */
+    public void start() {
+        Thread thread = new Thread(this, "mm-timer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+    
+    /**
+     * Creates a new disarmed timeout.
+     * @param task the task to run on the timer thread when the timeout 
+     *             expires; it must not block.
+     * @return the new timeout.
+     */
+    public Timeout newTimeout(Runnable task) {
+        return new Timeout(this, task);
+    }
+    
+    /**
+     * Returns the number of timeouts held by the wheel.
+     * @return the number of timeouts held by the wheel.
+     */
+    public int size() {
+        return size.get();
+    }
+    
+    /**
+     * Runs the timer loop.
+     */
+    @Override
+    public void run() {
+        for(;;) {
+            long deadline = startTime + (tick + 1) * tickNanos;
+            long sleep = deadline - System.nanoTime();
+            if(sleep > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(sleep);
+                }
+                catch(InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+            transferAdded();
+            expireBucket((int)(tick & mask));
+            tick++;
+        }
+    }
+    
+    /**
+     * Puts the newly armed timeouts in their buckets.
+     */
+    private void transferAdded() {
+        Timeout timeout;
+        while((timeout = added.poll()) != null)
+            insert(timeout);
+    }
+    
+    /**
+     * Puts the timeout in the bucket of its deadline 
+     * or drops it if it was disarmed.
+     * @param timeout the timeout to put in the wheel.
+     */
+    private void insert(Timeout timeout) {
+        long deadline = timeout.deadline;
+        if(deadline == 0) {
+            drop(timeout);
+            return;
+        }
+        long ticks = Math.max((deadline - startTime) / tickNanos, tick);
+        int index = (int)(ticks & mask);
+        timeout.next = buckets[index];
+        buckets[index] = timeout;
+    }
+    
+    /**
+     * Visits the bucket of the current tick.
+     * @param index the index of the bucket.
+     */
+    private void expireBucket(int index) {
+        Timeout timeout = buckets[index];
+        buckets[index] = null;
+        long roundEnd = startTime + (tick + 1) * tickNanos;
+        while(timeout != null) {
+            Timeout next = timeout.next;
+            timeout.next = null;
+            long deadline = timeout.deadline;
+            if(deadline == 0)
+                drop(timeout);
+            else if(deadline - roundEnd < 0) {
+                //claim the expiry unless the deadline was moved meanwhile
+                if(Timeout.DEADLINE.compareAndSet(timeout, deadline, 0)) {
+                    drop(timeout);
+                    expire(timeout);
+                }
+                else
+                    insert(timeout);
+            }
+            else
+                //a later round or a deadline that was moved later
+                insert(timeout);
+            timeout = next;
+        }
+    }
+    
+    /**
+     * Removes the timeout from the wheel. If it was armed again meanwhile,
+     * it is put back.
+     * @param timeout the timeout to remove.
+     */
+    private void drop(Timeout timeout) {
+        Timeout.IN_WHEEL.set(timeout, 0);
+        if(timeout.deadline != 0 && 
+           Timeout.IN_WHEEL.compareAndSet(timeout, 0, 1))
+            insert(timeout);
+        else
+            size.decrementAndGet();
+    }
+    
+    /**
+     * Runs the task of the expired timeout.
+     * @param timeout the expired timeout.
+     */
+    private static void expire(Timeout timeout) {
+        try {
+            timeout.task.run();
+        }
+        catch(RuntimeException ex) {
+            System.err.println("Error when expiring a timeout: " 
+                    + ex.getMessage());
+        }
+    }
+    
+    /**
+     * Reusable deadline entry of the wheel.
+     */
+    public static class Timeout {
+        private static final AtomicLongFieldUpdater<Timeout> DEADLINE = 
+                AtomicLongFieldUpdater.newUpdater(Timeout.class, "deadline");
+        private static final AtomicIntegerFieldUpdater<Timeout> IN_WHEEL = 
+                AtomicIntegerFieldUpdater.newUpdater(Timeout.class, "inWheel");
+        
+        private final MMTimerWheel wheel;
+        private final Runnable task;
+        private volatile long deadline;
+        private volatile int inWheel;
+        private Timeout next;
+        
+        /**
+         * Instantiates the object receiving its wheel and task.
+         * @param wheel the wheel that tracks the timeout.
+         * @param task the task to run when the timeout expires.
+         */
+        private Timeout(MMTimerWheel wheel, Runnable task) {
+            this.wheel = wheel;
+            this.task = task;
+        }
+        
+        /**
+         * Sets the deadline to the given delay from now.
+         * The new deadline must not be earlier than the current one.
+         * @param delayMillis the delay in milliseconds.
+         */
+        public void arm(long delayMillis) {
+            long at = System.nanoTime() 
+                    + TimeUnit.MILLISECONDS.toNanos(delayMillis);
+            //0 means disarmed
+            deadline = at == 0 ? 1 : at;
+            if(IN_WHEEL.compareAndSet(this, 0, 1)) {
+                wheel.size.incrementAndGet();
+                wheel.added.add(this);
+            }
+        }
+        
+        /**
+         * Disarms the timeout. The wheel drops it lazily.
+         */
+        public void disarm() {
+            deadline = 0;
+        }
+        
+        /**
+         * Returns true if the timeout is armed; false otherwise.
+         * @return true if the timeout is armed; false otherwise.
+         */
+        public boolean isArmed() {
+            return deadline != 0;
+        }
+    }
+}
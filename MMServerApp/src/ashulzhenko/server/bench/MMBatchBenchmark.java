@@ -0,0 +1,123 @@
+package ashulzhenko.server.bench;
+
+import ashulzhenko.protocol.MMScorer;
+import ashulzhenko.server.MMBatchScorer;
+import java.util.Random;
+
+/**
+ * Benchmark comparing the batch kernels of MMBatchScorer 
+ * with a plain loop over MMScorer.
+ * Every iteration scores a number of random guesses against 
+ * all 4096 classic codes and reports the time per feedback 
+ * after a warm-up of 5 iterations.
+ * 
+ * Usage: MMBatchBenchmark [iterations]
+ * 
+ * @version 18/10/2026
+ * @since 1.8
+ */
+public class MMBatchBenchmark {
+    private static final int GUESSES = 1024;
+    
+    /**
+     * Runs the benchmark.
+     * @param args the number of measured iterations (10 by default).
+     */
+    public static void main(String[] args) {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+        int[] secrets = new int[MMScorer.CODES];
+        for(int i = 0; i < secrets.length; i++)
+            secrets[i] = i;
+        int[] guesses = new Random(42).ints(GUESSES, 0, MMScorer.CODES)
+                                      .toArray();
+        int[] feedbacks = new int[secrets.length];
+        verify(guesses, secrets, feedbacks);
+        System.out.println("selected kernel: " + MMBatchScorer.getKernel());
+        
+        double total = (double)GUESSES * secrets.length;
+        for(int i = 0; i < iterations + 5; i++) {
+            long loop = timeLoop(guesses, secrets, feedbacks);
+            long scalar = timeBatch(false, guesses, secrets, feedbacks);
+            long swar = timeBatch(true, guesses, secrets, feedbacks);
+            if(i >= 5)
+                System.out.printf("ns/feedback: loop %.2f, batch scalar %.2f,"
+                        + " batch swar %.2f%n", loop / total, 
+                        scalar / total, swar / total);
+        }
+    }
+    
+    /**
+     * Checks that both kernels give the feedbacks of MMScorer.
+     * @param guesses the packed guesses.
+     * @param secrets the packed secrets.
+     * @param feedbacks the reused feedback array.
+     * @throws IllegalStateException if a kernel gives another feedback.
+     */
+    private static void verify(int[] guesses, int[] secrets, 
+                               int[] feedbacks) {
+        for(int guess : guesses) {
+            MMBatchScorer.scoreSwar(guess, secrets, secrets.length, 
+                                    feedbacks);
+            for(int i = 0; i < secrets.length; i++)
+                if(feedbacks[i] != MMScorer.score(secrets[i], guess))
+                    throw new IllegalStateException("SWAR kernel differs for "
+                            + secrets[i] + " " + guess);
+        }
+    }
+    
+    /**
+     * Times a plain loop over MMScorer.
+     * @param guesses the packed guesses.
+     * @param secrets the packed secrets.
+     * @param feedbacks the reused feedback array.
+     * @return the elapsed time in nanoseconds.
+     */
+    private static long timeLoop(int[] guesses, int[] secrets, 
+                                 int[] feedbacks) {
+        long start = System.nanoTime();
+        int sum = 0;
+        for(int guess : guesses) {
+            for(int i = 0; i < secrets.length; i++)
+                feedbacks[i] = MMScorer.score(secrets[i], guess);
+            sum += feedbacks[guess];
+        }
+        long elapsed = System.nanoTime() - start;
+        consume(sum);
+        return elapsed;
+    }
+    
+    /**
+     * Times one of the batch kernels.
+     * @param swar true for the SWAR kernel, false for the scalar one.
+     * @param guesses the packed guesses.
+     * @param secrets the packed secrets.
+     * @param feedbacks the reused feedback array.
+     * @return the elapsed time in nanoseconds.
+     */
+    private static long timeBatch(boolean swar, int[] guesses, 
+                                  int[] secrets, int[] feedbacks) {
+        long start = System.nanoTime();
+        int sum = 0;
+        for(int guess : guesses) {
+            if(swar)
+                MMBatchScorer.scoreSwar(guess, secrets, secrets.length, 
+                                        feedbacks);
+            else
+                MMBatchScorer.scoreScalar(guess, secrets, secrets.length, 
+                                          feedbacks);
+            sum += feedbacks[guess];
+        }
+        long elapsed = System.nanoTime() - start;
+        consume(sum);
+        return elapsed;
+    }
+    
+    /**
+     * Keeps the result alive so that the measured loop is not removed.
+     * @param value the result of the loop.
+     */
+    private static void consume(int value) {
+        if(value == 42)
+            System.out.print("");
+    }
+}
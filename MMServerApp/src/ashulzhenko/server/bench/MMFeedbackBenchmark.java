@@ -0,0 +1,118 @@
+package ashulzhenko.server.bench;
+
+import ashulzhenko.protocol.MMScorer;
+import ashulzhenko.server.MMFeedbackTable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * Benchmark comparing the feedback table with the scoring kernel.
+ * It reports the build and load times, the memory footprint of the table
+ * and the time per feedback of a computed, a heap table 
+ * and a memory-mapped table lookup over random pairs.
+ * 
+ * Usage: MMFeedbackBenchmark [iterations]
+ * 
+ * @version 18/10/2026
+ * @since 1.8
+ */
+public class MMFeedbackBenchmark {
+    private static final int PAIRS = 1 << 20;
+    
+    /**
+     * Runs the benchmark.
+     * @param args the number of measured iterations (10 by default).
+     * @throws IOException if the table file cannot be written or read.
+     */
+    public static void main(String[] args) throws IOException {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+        Runtime runtime = Runtime.getRuntime();
+        
+        System.gc();
+        long heapBefore = runtime.totalMemory() - runtime.freeMemory();
+        long start = System.nanoTime();
+        MMFeedbackTable heap = MMFeedbackTable.build();
+        long buildNanos = System.nanoTime() - start;
+        System.gc();
+        long heapAfter = runtime.totalMemory() - runtime.freeMemory();
+        
+        Path file = Files.createTempFile("mm-feedback", ".bin");
+        heap.save(file);
+        start = System.nanoTime();
+        MMFeedbackTable mapped = MMFeedbackTable.load(file);
+        long loadNanos = System.nanoTime() - start;
+        
+        System.out.println("table size:      " + heap.footprint() + " bytes");
+        System.out.println("heap growth:     " + (heapAfter - heapBefore) 
+                + " bytes");
+        System.out.println("parallel build:  " + buildNanos / 1000000 
+                + " ms on " + runtime.availableProcessors() + " processors");
+        System.out.println("mapped load:     " + loadNanos / 1000 + " us");
+        
+        Random random = new Random(42);
+        int[] secrets = new int[PAIRS];
+        int[] guesses = new int[PAIRS];
+        for(int i = 0; i < PAIRS; i++) {
+            secrets[i] = random.nextInt(MMScorer.CODES);
+            guesses[i] = random.nextInt(MMScorer.CODES);
+        }
+        
+        for(int i = 0; i < iterations + 5; i++) {
+            boolean report = i >= 5;
+            long computed = timeCompute(secrets, guesses);
+            long heapLookup = timeLookup(heap, secrets, guesses);
+            long mappedLookup = timeLookup(mapped, secrets, guesses);
+            if(report)
+                System.out.printf("ns/feedback: compute %.2f, heap table %.2f,"
+                        + " mapped table %.2f%n", 
+                        computed / (double)PAIRS, heapLookup / (double)PAIRS, 
+                        mappedLookup / (double)PAIRS);
+        }
+        Files.delete(file);
+    }
+    
+    /**
+     * Times the computed feedback of all pairs.
+     * @param secrets the packed secrets.
+     * @param guesses the packed guesses.
+     * @return the elapsed time in nanoseconds.
+     */
+    private static long timeCompute(int[] secrets, int[] guesses) {
+        long start = System.nanoTime();
+        int sum = 0;
+        for(int i = 0; i < PAIRS; i++)
+            sum += MMScorer.score(secrets[i], guesses[i]);
+        long elapsed = System.nanoTime() - start;
+        consume(sum);
+        return elapsed;
+    }
+    
+    /**
+     * Times the table lookups of all pairs.
+     * @param table the feedback table.
+     * @param secrets the packed secrets.
+     * @param guesses the packed guesses.
+     * @return the elapsed time in nanoseconds.
+     */
+    private static long timeLookup(MMFeedbackTable table, 
+                                   int[] secrets, int[] guesses) {
+        long start = System.nanoTime();
+        int sum = 0;
+        for(int i = 0; i < PAIRS; i++)
+            sum += table.score(secrets[i], guesses[i]);
+        long elapsed = System.nanoTime() - start;
+        consume(sum);
+        return elapsed;
+    }
+    
+    /**
+     * Keeps the result alive so that the measured loop is not removed.
+     * @param value the result of the loop.
+     */
+    private static void consume(int value) {
+        if(value == 42)
+            System.out.print("");
+    }
+}
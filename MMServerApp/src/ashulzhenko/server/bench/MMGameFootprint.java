@@ -0,0 +1,225 @@
+package ashulzhenko.server.bench;
+
+import ashulzhenko.protocol.MMVariant;
+import ashulzhenko.server.MMGame;
+import ashulzhenko.server.MMGameStore;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Measures the heap taken by suspended games: the classic games,
+ * with 0 to 5 random guesses played, are kept first as objects
+ * in a concurrent map and a queue, as the game store kept them before,
+ * and then saved into the slab of MMGameStore.
+ *
+ * The footprint of each is the difference between the class histograms
+ * of the live heap before and after the games are kept, as reported
+ * by the virtual machine, printed per class like JOL's footprint with
+ * the total bytes per game. The games of the store are then resumed
+ * and checked against the games they were saved from, and the time
+ * of a resume is reported.
+ *
+ * Usage: MMGameFootprint [games]
+ * (1000000 games by default; -Xmx2g is enough for them)
+ *
+ * @version 18/10/2026
+ * @since 1.8
+ */
+public class MMGameFootprint {
+    /** The games whose state is checked after they are resumed. */
+    private static final int CHECKED = 10000;
+    /** The smallest share of the bytes of a class to be printed. */
+    private static final double SHOWN = 0.001;
+
+    /**
+     * Runs the benchmark.
+     * @param args the number of games.
+     * @throws JMException if the class histogram is not available.
+     */
+    public static void main(String[] args) throws JMException {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+        long[] tokens = new long[games];
+        Random random = new Random(1);
+        for(int i = 0; i < games; i++)
+            tokens[i] = random.nextLong() | 1;
+        int[] rounds = new int[Math.min(games, CHECKED)];
+        int[][] answers = new int[rounds.length][4];
+        int[] guess = new int[4];
+
+        //before: the games are objects
+        Map<String, long[]> base = histogram();
+        ConcurrentHashMap<Long, Entry> map = new ConcurrentHashMap<>();
+        ConcurrentLinkedQueue<Entry> queue = new ConcurrentLinkedQueue<>();
+        random = new Random(2);
+        for(int i = 0; i < games; i++) {
+            Entry entry = new Entry(tokens[i], play(random, guess),
+                                    System.nanoTime());
+            map.put(tokens[i], entry);
+            queue.add(entry);
+        }
+        print("objects", games, diff(base, histogram()));
+        consume(map.size() + queue.size());
+        map = null;
+        queue = null;
+
+        //after: the games are in the slab
+        base = histogram();
+        MMGameStore store = new MMGameStore(games, 3600);
+        random = new Random(2);
+        for(int i = 0; i < games; i++) {
+            MMGame game = play(random, guess);
+            if(i < rounds.length) {
+                rounds[i] = game.getRound();
+                System.arraycopy(game.getAnswerSet(), 0, answers[i], 0, 4);
+            }
+            store.suspend(tokens[i], game);
+        }
+        print("slab", games, diff(base, histogram()));
+        System.out.println(store.report());
+
+        long begin = System.nanoTime();
+        int wrong = 0;
+        for(int i = 0; i < games; i++) {
+            MMGame game = store.resume(tokens[i]);
+            if(game == null || (i < rounds.length &&
+               (game.getRound() != rounds[i] ||
+                !Arrays.equals(game.getAnswerSet(), answers[i]))))
+                wrong++;
+        }
+        long nanos = System.nanoTime() - begin;
+        System.out.printf("%d games resumed, %.0f ns per resume, "
+                + "%d not as suspended%n", games - wrong,
+                nanos / (double)games, wrong);
+        if(wrong > 0)
+            System.exit(1);
+    }
+
+    /**
+     * Plays a classic game for 0 to 5 rounds with random guesses.
+     * @param random the random generator.
+     * @param guess the array of the guesses.
+     * @return the game.
+     */
+    private static MMGame play(Random random, int[] guess) {
+        MMGame game = new MMGame(MMVariant.CLASSIC, null, random);
+        int rounds = random.nextInt(6);
+        for(int i = 0; i < rounds && !game.isWon(); i++) {
+            for(int j = 0; j < guess.length; j++)
+                guess[j] = random.nextInt(8) + 1;
+            game.guess(guess);
+        }
+        return game;
+    }
+
+    /**
+     * Returns the class histogram of the live heap, after a full
+     * collection.
+     * @return the number of instances and the bytes of each class.
+     * @throws JMException if the histogram is not available.
+     */
+    private static Map<String, long[]> histogram() throws JMException {
+        String text = (String)ManagementFactory.getPlatformMBeanServer()
+                .invoke(new ObjectName(
+                        "com.sun.management:type=DiagnosticCommand"),
+                        "gcClassHistogram", new Object[] {null},
+                        new String[] {String[].class.getName()});
+        Map<String, long[]> classes = new HashMap<>();
+        for(String line : text.split("\n")) {
+            String[] fields = line.trim().split("\\s+");
+            if(fields.length < 4 || !fields[0].endsWith(":"))
+                continue;
+            classes.put(fields[3], new long[] {Long.parseLong(fields[1]),
+                                               Long.parseLong(fields[2])});
+        }
+        return classes;
+    }
+
+    /**
+     * Returns the classes that grew from one histogram to the other.
+     * @param before the first histogram.
+     * @param after the second histogram.
+     * @return the instances and bytes added per class.
+     */
+    private static Map<String, long[]> diff(Map<String, long[]> before,
+                                            Map<String, long[]> after) {
+        Map<String, long[]> grown = new HashMap<>();
+        for(Map.Entry<String, long[]> entry : after.entrySet()) {
+            long[] old = before.getOrDefault(entry.getKey(), new long[2]);
+            long count = entry.getValue()[0] - old[0];
+            long bytes = entry.getValue()[1] - old[1];
+            if(bytes > 0)
+                grown.put(entry.getKey(), new long[] {count, bytes});
+        }
+        return grown;
+    }
+
+    /**
+     * Prints the bytes added per class, the largest first,
+     * and the bytes per game.
+     * @param title the way the games are kept.
+     * @param games the number of games.
+     * @param grown the instances and bytes added per class.
+     */
+    private static void print(String title, int games,
+                              Map<String, long[]> grown) {
+        long total = 0;
+        for(long[] value : grown.values())
+            total += value[1];
+        List<Map.Entry<String, long[]>> classes =
+                new ArrayList<>(grown.entrySet());
+        classes.sort((a, b) -> Long.compare(b.getValue()[1],
+                                            a.getValue()[1]));
+        System.out.printf("%d games as %s:%n", games, title);
+        System.out.printf("%12s %10s %12s   %s%n",
+                "COUNT", "AVG", "SUM", "DESCRIPTION");
+        for(Map.Entry<String, long[]> entry : classes) {
+            long[] value = entry.getValue();
+            if(value[1] < total * SHOWN)
+                continue;
+            System.out.printf("%12d %10d %12d   %s%n", value[0],
+                    value[0] == 0 ? 0 : value[1] / value[0], value[1],
+                    entry.getKey());
+        }
+        System.out.printf("%12s %10s %12d   (total), %.1f bytes per game%n",
+                "", "", total, total / (double)games);
+    }
+
+    /**
+     * Keeps the results alive so that the work is not optimized away.
+     * @param value the result to keep.
+     */
+    private static void consume(long value) {
+        if(value == 42)
+            System.out.print("");
+    }
+
+    /**
+     * A suspended game kept as an object, as in the store before the slab.
+     */
+    private static final class Entry {
+        private final long token;
+        private final MMGame game;
+        private final long deadline;
+
+        /**
+         * Instantiates the entry.
+         * @param token the token of the game.
+         * @param game the game.
+         * @param deadline the time the game expires, in nanoseconds.
+         */
+        private Entry(long token, MMGame game, long deadline) {
+            this.token = token;
+            this.game = game;
+            this.deadline = deadline;
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package ashulzhenko.server.bench;
+
+import ashulzhenko.protocol.MMVariant;
+import ashulzhenko.server.MMGame;
+import ashulzhenko.server.MMJournal;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures what the journal adds to the turns of the sessions:
+ * the threads play classic games with random guesses through MMGame,
+ * first without a journal and then with one writing into a temporary
+ * directory. The time of a turn is reported for both: the wall time,
+ * which includes the writer when it shares the cores with the sessions,
+ * and the CPU time of the sessions' threads, which is what the journal
+ * adds to a reply. The records written per second and the times
+ * a session waited for the writer are reported with them.
+ *
+ * Usage: MMJournalBenchmark [games [threads [segment]]]
+ * (200000 games per thread, 4 threads, 64 MiB segments by default)
+ *
+ * @version 18/10/2026
+ * @since 1.8
+ */
+public class MMJournalBenchmark {
+    private static final ThreadMXBean THREADS =
+            ManagementFactory.getThreadMXBean();
+
+    private final Random random;
+    private final int[] guess;
+    private long turns;
+    private long cpuNanos;
+
+    /**
+     * Instantiates the player of one thread.
+     * @param seed the seed of the answer sets and the guesses.
+     */
+    private MMJournalBenchmark(long seed) {
+        this.random = new Random(seed);
+        this.guess = new int[4];
+    }
+
+    /**
+     * Runs the benchmark.
+     * @param args the number of games per thread, the number of threads
+     *             and the size of the segments.
+     * @throws IOException if the journal cannot be written.
+     * @throws InterruptedException if interrupted while waiting
+     *                              for the threads.
+     */
+    public static void main(String[] args)
+            throws IOException, InterruptedException {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 200000;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        long segment = args.length > 2 ? Long.parseLong(args[2]) : 64 << 20;
+        Path dir = Files.createTempDirectory("mm-journal");
+        //warm up
+        run(games / 10 + 1, threads, null);
+        MMJournal journal = new MMJournal(dir, segment, 1 << 16);
+        journal.start();
+        run(games / 10 + 1, threads, journal);
+        journal.close();
+        for(int i = 0; i < 2; i++) {
+            boolean journaled = i == 1;
+            journal = journaled ? new MMJournal(dir, segment, 1 << 16)
+                                : null;
+            if(journaled)
+                journal.start();
+            long[] result = run(games, threads, journal);
+            long begin = System.nanoTime();
+            if(journaled)
+                journal.close();
+            long drain = System.nanoTime() - begin;
+            System.out.printf("%-10s: %d turns, %.1f ns per turn, "
+                    + "%.1f ns of session CPU per turn%n",
+                    journaled ? "journal" : "no journal", result[1],
+                    result[0] * threads / (double)result[1],
+                    result[2] / (double)result[1]);
+            if(journaled)
+                System.out.printf("%d records, %.0f records/s, "
+                        + "%.1f ms to drain; %s%n", journal.getRecords(),
+                        journal.getRecords() * 1e9 / (result[0] + drain),
+                        drain / 1e6, journal.report());
+        }
+        System.out.println("Segments in " + dir);
+    }
+
+    /**
+     * Plays the games on the threads at once.
+     * @param games the number of games per thread.
+     * @param threads the number of threads.
+     * @param journal the journal of the games; null for none.
+     * @return the time it took in nanoseconds, the number of turns
+     *         and the CPU time of the threads in nanoseconds.
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    private static long[] run(int games, int threads, MMJournal journal)
+            throws InterruptedException {
+        MMGame.setJournal(journal);
+        AtomicLong turns = new AtomicLong();
+        AtomicLong cpu = new AtomicLong();
+        Thread[] players = new Thread[threads];
+        for(int i = 0; i < threads; i++) {
+            MMJournalBenchmark bench = new MMJournalBenchmark(i);
+            players[i] = new Thread(() -> {
+                bench.play(games);
+                turns.addAndGet(bench.turns);
+                cpu.addAndGet(bench.cpuNanos);
+            }, "mm-player-" + i);
+        }
+        long begin = System.nanoTime();
+        for(Thread player : players)
+            player.start();
+        for(Thread player : players)
+            player.join();
+        long nanos = System.nanoTime() - begin;
+        MMGame.setJournal(null);
+        return new long[] {nanos, turns.get(), cpu.get()};
+    }
+
+    /**
+     * Plays the games until they are won or lost.
+     * @param games the number of games.
+     */
+    private void play(int games) {
+        long sum = 0;
+        long cpu = THREADS.getCurrentThreadCpuTime();
+        for(int i = 0; i < games; i++) {
+            MMGame game = new MMGame(MMVariant.CLASSIC, null, random);
+            while(!game.isWon() && !game.isLost()) {
+                for(int j = 0; j < guess.length; j++)
+                    guess[j] = random.nextInt(8) + 1;
+                sum += game.guess(guess);
+                turns++;
+            }
+            game.end();
+        }
+        cpuNanos = THREADS.getCurrentThreadCpuTime() - cpu;
+        consume(sum);
+    }
+
+    /**
+     * Keeps the results alive so that the work is not optimized away.
+     * @param value the result to keep.
+     */
+    private static void consume(long value) {
+        if(value == 42)
+            System.out.print("");
+    }
+}
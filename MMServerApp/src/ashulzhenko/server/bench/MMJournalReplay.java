@@ -0,0 +1,610 @@
+package ashulzhenko.server.bench;
+
+import ashulzhenko.protocol.MMVariant;
+import ashulzhenko.server.MMJournal;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Replays the games of a server journal through the scoring of MMGame
+ * to audit the journal and to check a change of the scoring against
+ * the games really played: every guess is scored again against
+ * the answer set of its game and the outcome of every game is derived
+ * again from its guesses, as in MMSession.
+ *
+ * The segments are memory-mapped and replayed on all cores, one task
+ * per segment; the state of the games is kept in primitive arrays
+ * and a record is replayed without any allocation. The records of the
+ * games started in an earlier segment are put aside and replayed
+ * afterwards, in the order of the segments, with the games still running
+ * at the end of each segment.
+ *
+ * The tool reports the games by outcome, the mismatches, the records
+ * replayed per second and the bytes allocated per record. It exits
+ * with 1 if a mismatch is found:
+ * feedback - the clues recorded differ from the clues scored again,
+ * outcome - the outcome or the rounds of the end differ,
+ * order - a guess is not in the next round of its game,
+ * corrupt - a record is not complete or not valid,
+ * unmatched - a record belongs to no game started in the journal.
+ *
+ * Usage: MMJournalReplay dir [threads]
+ * (the available processors by default)
+ *
+ * @version 18/10/2026
+ * @since 1.8
+ */
+public class MMJournalReplay {
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+    /** The size of a new table of games. */
+    private static final int INITIAL_GAMES = 1 << 12;
+    /** The number of geometries: 5 pegs, 11 colors and 30 rounds. */
+    private static final int GEOMETRIES = 5 * 11 * MMVariant.MAX_ROUNDS;
+    /** The bit of the state of a game that is set once it is won. */
+    private static final int WON = 1 << 8;
+
+    //the segment whose records are replayed
+    private String segment;
+    //the games running: ids (0 if empty), packed answer sets,
+    //geometries and states (the rounds played and WON)
+    private long[] ids;
+    private int[] answers;
+    private int[] geometries;
+    private int[] states;
+    private int size;
+    private final MMVariant[] variants;
+    //the codes of each length, reused to score the guesses
+    private final int[][] codes;
+    //the records of the games started in an earlier segment
+    private long[] orphans;
+    private int orphanCount;
+    private long records;
+    private long won;
+    private long lost;
+    private long quit;
+    private long feedbackMismatches;
+    private long outcomeMismatches;
+    private long orderMismatches;
+    private long corrupt;
+    private long unmatched;
+    private long firstMismatch;
+    private String firstMismatchSegment;
+    private long allocated;
+    private int segmentCount;
+
+    /**
+     * Instantiates the replay of one segment, or of the orphan records.
+     * @param segment the name of the segment.
+     */
+    private MMJournalReplay(String segment) {
+        this.segment = segment;
+        this.ids = new long[INITIAL_GAMES];
+        this.answers = new int[INITIAL_GAMES];
+        this.geometries = new int[INITIAL_GAMES];
+        this.states = new int[INITIAL_GAMES];
+        this.variants = new MMVariant[GEOMETRIES];
+        this.codes = new int[MMVariant.MAX_PEGS + 1][];
+        for(int i = 0; i < codes.length; i++)
+            codes[i] = new int[i];
+        this.orphans = new long[4 * 64];
+    }
+
+    /**
+     * Runs the replay.
+     * @param args the directory of the journal and the number of threads.
+     * @throws IOException if a segment cannot be read.
+     * @throws InterruptedException if the replay is interrupted.
+     * @throws ExecutionException if a segment fails.
+     */
+    public static void main(String[] args)
+            throws IOException, InterruptedException, ExecutionException {
+        if(args.length < 1) {
+            System.out.println("Usage: MMJournalReplay dir [threads]");
+            System.exit(2);
+        }
+        int threads = args.length > 1 ? Integer.parseInt(args[1])
+                : Runtime.getRuntime().availableProcessors();
+        long begin = System.nanoTime();
+        MMJournalReplay merged = replay(Paths.get(args[0]), threads);
+        long nanos = System.nanoTime() - begin;
+        print(merged, threads, nanos);
+        if(merged.getMismatches() > 0)
+            System.exit(1);
+    }
+
+    /**
+     * Replays the segments of a journal.
+     * @param dir the directory of the journal.
+     * @param threads the number of threads.
+     * @return the replay of every segment, merged.
+     * @throws IOException if a segment cannot be read.
+     * @throws InterruptedException if the replay is interrupted.
+     * @throws ExecutionException if a segment fails.
+     */
+    static MMJournalReplay replay(Path dir, int threads)
+            throws IOException, InterruptedException, ExecutionException {
+        List<Path> segments = segments(dir);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<MMJournalReplay>> futures = new ArrayList<>();
+            for(Path segment : segments)
+                futures.add(pool.submit(() -> replaySegment(segment)));
+            //the orphans are replayed in the order of the segments
+            MMJournalReplay merged = new MMJournalReplay(dir.toString());
+            for(Future<MMJournalReplay> future : futures) {
+                MMJournalReplay replay = future.get();
+                merged.replayOrphans(replay);
+                merged.adopt(replay);
+                merged.add(replay);
+            }
+            merged.segmentCount = segments.size();
+            return merged;
+        }
+        finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Replays one segment.
+     * @param file the segment.
+     * @return the replay of the segment.
+     * @throws IOException if the segment cannot be read.
+     */
+    private static MMJournalReplay replaySegment(Path file)
+            throws IOException {
+        long bytes = allocatedBytes();
+        MMJournalReplay replay =
+                new MMJournalReplay(file.getFileName().toString());
+        MappedByteBuffer segment;
+        try(FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.READ)) {
+            segment = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+                                  channel.size());
+        }
+        if(segment.capacity() < MMJournal.RECORD
+                || segment.getInt(0) != MMJournal.MAGIC
+                || segment.getShort(4) != MMJournal.VERSION
+                || segment.getShort(6) != MMJournal.RECORD)
+            throw new IOException("Not a journal segment: " + file);
+        int limit = segment.capacity() - MMJournal.RECORD;
+        for(int at = MMJournal.RECORD; at <= limit; at += MMJournal.RECORD) {
+            long head = segment.getLong(at);
+            if(head == 0)
+                //the rest of the segment was never written
+                break;
+            replay.replay(head, segment.getLong(at + 8),
+                    segment.getLong(at + 16), segment.getLong(at + 24),
+                    true);
+        }
+        replay.allocated = allocatedBytes() - bytes;
+        return replay;
+    }
+
+    /**
+     * Replays one record.
+     * @param head the first 8 bytes of the record.
+     * @param id the id of the game.
+     * @param time the time of the record.
+     * @param colors the packed colors.
+     * @param keepOrphans true to put aside the records of the games
+     *                    that are not known; false to count them
+     *                    as unmatched.
+     */
+    private void replay(long head, long id, long time, long colors,
+                        boolean keepOrphans) {
+        records++;
+        if((int)head != MMJournal.check(head, id, time, colors)) {
+            corrupt++;
+            return;
+        }
+        int type = (int)(head >>> 56);
+        int a = (int)(head >>> 48) & 0xFF;
+        int b = (int)(head >>> 40) & 0xFF;
+        int c = (int)(head >>> 32) & 0xFF;
+        if(type == MMJournal.START) {
+            start(id, a, b, c, colors);
+            return;
+        }
+        if(type != MMJournal.GUESS && type != MMJournal.END) {
+            corrupt++;
+            return;
+        }
+        int slot = find(id);
+        if(ids[slot] == 0) {
+            if(keepOrphans) {
+                records--;
+                keepOrphan(head, id, time, colors);
+            }
+            else
+                unmatched++;
+            return;
+        }
+        if(type == MMJournal.GUESS)
+            guess(slot, a, b, colors);
+        else
+            end(slot, a, b);
+    }
+
+    /**
+     * Starts a game.
+     * @param id the id of the game.
+     * @param pegs the number of pegs.
+     * @param colorCount the number of colors.
+     * @param rounds the number of rounds.
+     * @param colors the packed answer set.
+     */
+    private void start(long id, int pegs, int colorCount, int rounds,
+                       long colors) {
+        if(!MMVariant.isSupported(pegs, colorCount, rounds)) {
+            corrupt++;
+            return;
+        }
+        int geometry = pegs | colorCount << 4 | rounds << 8;
+        MMVariant variant = variant(geometry);
+        int[] answer = unpack(colors, pegs);
+        if(!variant.isValid(answer)) {
+            corrupt++;
+            return;
+        }
+        int slot = find(id);
+        if(ids[slot] != 0) {
+            //the id is started twice
+            corrupt++;
+            return;
+        }
+        ids[slot] = id;
+        answers[slot] = variant.encode(answer);
+        geometries[slot] = geometry;
+        states[slot] = 0;
+        if(++size > ids.length / 2)
+            grow();
+    }
+
+    /**
+     * Scores a guess again and compares the clues with the record.
+     * @param slot the slot of the game.
+     * @param round the round of the guess.
+     * @param feedback the feedback recorded.
+     * @param colors the packed guess.
+     */
+    private void guess(int slot, int round, int feedback, long colors) {
+        MMVariant variant = variant(geometries[slot]);
+        int state = states[slot];
+        if(round != (state & 0xFF) + 1) {
+            orderMismatch(slot);
+            round = (state & 0xFF) + 1;
+        }
+        int scored = variant.score(answers[slot],
+                                   unpack(colors, variant.getPegs()));
+        if(scored != feedback) {
+            feedbackMismatches++;
+            mismatch(slot);
+        }
+        states[slot] = round | (variant.isWin(scored) ? WON : 0);
+    }
+
+    /**
+     * Derives the outcome of a game and compares it with the record.
+     * @param slot the slot of the game.
+     * @param outcome the outcome recorded.
+     * @param rounds the rounds recorded.
+     */
+    private void end(int slot, int outcome, int rounds) {
+        int state = states[slot];
+        int played = state & 0xFF;
+        int derived;
+        if((state & WON) != 0) {
+            derived = MMJournal.WON;
+            won++;
+        }
+        else if(played >= variant(geometries[slot]).getRounds()) {
+            derived = MMJournal.LOST;
+            lost++;
+        }
+        else {
+            derived = MMJournal.QUIT;
+            quit++;
+        }
+        if(derived != outcome || played != rounds) {
+            outcomeMismatches++;
+            mismatch(slot);
+        }
+        remove(slot);
+    }
+
+    /**
+     * Replays the records another replay put aside, with the games
+     * started in the segments before it.
+     * @param other the replay of the next segment.
+     */
+    private void replayOrphans(MMJournalReplay other) {
+        segment = other.segment;
+        long[] kept = other.orphans;
+        for(int i = 0; i < other.orphanCount; i += 4)
+            replay(kept[i], kept[i + 1], kept[i + 2], kept[i + 3], false);
+    }
+
+    /**
+     * Takes over the games still running at the end of another replay.
+     * @param other the replay of a segment.
+     */
+    private void adopt(MMJournalReplay other) {
+        for(int i = 0; i < other.ids.length; i++) {
+            long id = other.ids[i];
+            if(id == 0)
+                continue;
+            int slot = find(id);
+            if(ids[slot] != 0) {
+                corrupt++;
+                continue;
+            }
+            ids[slot] = id;
+            answers[slot] = other.answers[i];
+            geometries[slot] = other.geometries[i];
+            states[slot] = other.states[i];
+            if(++size > ids.length / 2)
+                grow();
+        }
+    }
+
+    /**
+     * Adds the counters of another replay.
+     * @param other the replay of a segment.
+     */
+    private void add(MMJournalReplay other) {
+        records += other.records;
+        won += other.won;
+        lost += other.lost;
+        quit += other.quit;
+        feedbackMismatches += other.feedbackMismatches;
+        outcomeMismatches += other.outcomeMismatches;
+        orderMismatches += other.orderMismatches;
+        corrupt += other.corrupt;
+        unmatched += other.unmatched;
+        allocated += other.allocated;
+        if(firstMismatch == 0 && other.firstMismatch != 0) {
+            firstMismatch = other.firstMismatch;
+            firstMismatchSegment = other.firstMismatchSegment;
+        }
+    }
+
+    /**
+     * Returns the number of mismatches of every kind.
+     * @return the number of mismatches.
+     */
+    long getMismatches() {
+        return feedbackMismatches + outcomeMismatches + orderMismatches
+                + corrupt + unmatched;
+    }
+
+    /**
+     * Returns the number of records that are not complete or not valid.
+     * @return the number of corrupt records.
+     */
+    long getCorrupt() {
+        return corrupt;
+    }
+
+    /**
+     * Returns the number of games of each outcome.
+     * @return the games won, lost and quit, and the games not ended.
+     */
+    long[] getGames() {
+        return new long[] {won, lost, quit, size};
+    }
+
+    /**
+     * Prints the report of the replay.
+     * @param replay the merged replay.
+     * @param threads the number of threads.
+     * @param nanos the time of the replay in nanoseconds.
+     */
+    private static void print(MMJournalReplay replay, int threads,
+                              long nanos) {
+        long games = replay.won + replay.lost + replay.quit;
+        System.out.printf("%d segments, %d records, %d games: %d won, "
+                + "%d lost, %d quit, %d unfinished%n", replay.segmentCount,
+                replay.records, games, replay.won, replay.lost, replay.quit,
+                replay.size);
+        System.out.printf("mismatches: feedback=%d outcome=%d order=%d "
+                + "corrupt=%d unmatched=%d%n", replay.feedbackMismatches,
+                replay.outcomeMismatches, replay.orderMismatches,
+                replay.corrupt, replay.unmatched);
+        if(replay.firstMismatch != 0)
+            System.out.println("first mismatch: game " + replay.firstMismatch
+                    + " in " + replay.firstMismatchSegment);
+        System.out.printf("%.0f records/s on %d threads, %.1f ms, "
+                + "%.3f bytes allocated per record%n",
+                replay.records * 1e9 / nanos, threads, nanos / 1e6,
+                replay.records == 0 ? 0.0
+                        : replay.allocated / (double)replay.records);
+    }
+
+    /**
+     * Counts a guess that is not in the next round of its game.
+     * @param slot the slot of the game.
+     */
+    private void orderMismatch(int slot) {
+        orderMismatches++;
+        mismatch(slot);
+    }
+
+    /**
+     * Remembers the first game with a mismatch.
+     * @param slot the slot of the game.
+     */
+    private void mismatch(int slot) {
+        if(firstMismatch == 0) {
+            firstMismatch = ids[slot];
+            firstMismatchSegment = segment;
+        }
+    }
+
+    /**
+     * Puts aside a record of a game that is not known.
+     * @param head the first 8 bytes of the record.
+     * @param id the id of the game.
+     * @param time the time of the record.
+     * @param colors the packed colors.
+     */
+    private void keepOrphan(long head, long id, long time, long colors) {
+        if(orphanCount + 4 > orphans.length) {
+            long[] larger = new long[2 * orphans.length];
+            System.arraycopy(orphans, 0, larger, 0, orphanCount);
+            orphans = larger;
+        }
+        orphans[orphanCount++] = head;
+        orphans[orphanCount++] = id;
+        orphans[orphanCount++] = time;
+        orphans[orphanCount++] = colors;
+    }
+
+    /**
+     * Returns the game of a geometry; the games are created once.
+     * @param geometry the pegs, the colors and the rounds, 4 bits,
+     *                 4 bits and 8 bits.
+     * @return the game.
+     */
+    private MMVariant variant(int geometry) {
+        int pegs = geometry & 0xF;
+        int colorCount = (geometry >>> 4) & 0xF;
+        int rounds = geometry >>> 8;
+        int index = ((pegs - MMVariant.MIN_PEGS) * 11
+                + colorCount - MMVariant.MIN_COLORS) * MMVariant.MAX_ROUNDS
+                + rounds - 1;
+        MMVariant variant = variants[index];
+        if(variant == null)
+            variant = variants[index] = MMVariant.of(pegs, colorCount,
+                                                     rounds);
+        return variant;
+    }
+
+    /**
+     * Unpacks the colors of a record into the reused code.
+     * @param colors the packed colors.
+     * @param length the number of colors.
+     * @return the code, which is overwritten by the next call.
+     */
+    private int[] unpack(long colors, int length) {
+        int[] code = codes[length];
+        for(int i = 0; i < length; i++)
+            code[i] = (int)(colors >>> (56 - 8 * i)) & 0xFF;
+        return code;
+    }
+
+    /**
+     * Returns the slot of the game, or the empty slot where it would be.
+     * @param id the id of the game.
+     * @return the slot.
+     */
+    private int find(long id) {
+        int mask = ids.length - 1;
+        int slot = hash(id) & mask;
+        while(ids[slot] != 0 && ids[slot] != id)
+            slot = (slot + 1) & mask;
+        return slot;
+    }
+
+    /**
+     * Removes the game in the slot, moving back the games that follow it
+     * so that no search stops too early.
+     * @param slot the slot of the game.
+     */
+    private void remove(int slot) {
+        int mask = ids.length - 1;
+        int hole = slot;
+        int next = (slot + 1) & mask;
+        while(ids[next] != 0) {
+            int home = hash(ids[next]) & mask;
+            //the game may move to the hole if its home is not after it
+            if(((next - home) & mask) >= ((next - hole) & mask)) {
+                ids[hole] = ids[next];
+                answers[hole] = answers[next];
+                geometries[hole] = geometries[next];
+                states[hole] = states[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        ids[hole] = 0;
+        size--;
+    }
+
+    /**
+     * Doubles the table of the games.
+     */
+    private void grow() {
+        long[] oldIds = ids;
+        int[] oldAnswers = answers;
+        int[] oldGeometries = geometries;
+        int[] oldStates = states;
+        int length = 2 * oldIds.length;
+        ids = new long[length];
+        answers = new int[length];
+        geometries = new int[length];
+        states = new int[length];
+        for(int i = 0; i < oldIds.length; i++) {
+            if(oldIds[i] == 0)
+                continue;
+            int slot = find(oldIds[i]);
+            ids[slot] = oldIds[i];
+            answers[slot] = oldAnswers[i];
+            geometries[slot] = oldGeometries[i];
+            states[slot] = oldStates[i];
+        }
+    }
+
+    /**
+     * Spreads the consecutive ids of the games over the table.
+     * @param id the id of the game.
+     * @return the hash of the id.
+     */
+    private static int hash(long id) {
+        long h = id * 0x9E3779B97F4A7C15L;
+        return (int)(h ^ (h >>> 32));
+    }
+
+    /**
+     * Returns the segments of the journal in order.
+     * @param dir the directory of the journal.
+     * @return the paths of the segments.
+     * @throws IOException if the directory cannot be read.
+     */
+    private static List<Path> segments(Path dir) throws IOException {
+        List<Path> segments = new ArrayList<>();
+        try(DirectoryStream<Path> files =
+                Files.newDirectoryStream(dir, "journal-*.mmj")) {
+            for(Path file : files)
+                segments.add(file);
+        }
+        //the names have the same number of digits
+        Collections.sort(segments);
+        return segments;
+    }
+
+    /**
+     * Returns the bytes allocated by the current thread so far.
+     * @return the bytes allocated; 0 if it cannot be measured.
+     */
+    private static long allocatedBytes() {
+        return THREADS.isThreadAllocatedMemorySupported()
+                ? THREADS.getThreadAllocatedBytes(
+                        Thread.currentThread().getId()) : 0;
+    }
+}
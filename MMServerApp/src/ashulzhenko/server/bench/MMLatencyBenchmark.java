@@ -0,0 +1,200 @@
+package ashulzhenko.server.bench;
+
+import ashulzhenko.protocol.MMTransportProfile;
+import ashulzhenko.server.MMNioServer;
+import ashulzhenko.server.MMPacket;
+import ashulzhenko.server.MMServer;
+import ashulzhenko.server.MMServerConfig;
+import ashulzhenko.server.MMServerStats;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Arrays;
+
+/**
+ * Loopback latency benchmark of the transport profiles.
+ * For every profile a server is started in this process with the profile
+ * and a client with the same profile plays games of the first protocol
+ * that are lost after 10 rounds, one turn at a time. It reports
+ * the median and 99th percentile of a turn, and the mean of the last turn,
+ * whose reply is the clues followed by the answer set.
+ *
+ * Usage: MMLatencyBenchmark [games [mode]]
+ * (2000 games on the blocking engine by default)
+ *
+ * @version 18/10/2026
+ * @since 1.8
+ */
+public class MMLatencyBenchmark {
+    private static final int ROUNDS = 10;
+
+    private final MMPacket packet;
+    private final Socket socket;
+    private final int[] start;
+    private final int[] guess;
+
+    /**
+     * Instantiates the client connected to the server.
+     * @param port the port of the server.
+     * @param profile the transport profile of the client.
+     * @throws IOException if the server cannot be reached.
+     */
+    private MMLatencyBenchmark(int port, MMTransportProfile profile)
+            throws IOException {
+        this.socket = new Socket();
+        profile.apply(socket);
+        this.socket.connect(new InetSocketAddress("localhost", port), 1000);
+        this.packet = new MMPacket(socket);
+        this.packet.setBuffered(profile.isBuffered());
+        this.start = new int[] {1, 2, 3, 4};
+        this.guess = new int[] {5, 5, 5, 5};
+    }
+
+    /**
+     * Runs the benchmark.
+     * @param args the number of games and the server engine.
+     * @throws IOException if there is a problem communicating
+     *                     to the server.
+     * @throws InterruptedException if interrupted while waiting
+     *                              for the server.
+     */
+    public static void main(String[] args)
+            throws IOException, InterruptedException {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        String mode = args.length > 1 ? args[1]
+                                      : MMServerConfig.MODE_BLOCKING;
+        PrintStream console = System.out;
+        //the servers print every game
+        System.setOut(new PrintStream(new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+        }));
+        String[] profiles = {MMTransportProfile.CLASSIC,
+                             MMTransportProfile.LATENCY};
+        for(String name : profiles) {
+            int port = freePort();
+            startServer(MMServerConfig.fromArgs(new String[] {
+                    "--mode=" + mode, "--port=" + port,
+                    "--transport=" + name}));
+            MMLatencyBenchmark bench = connect(port,
+                    MMTransportProfile.of(name));
+            bench.play(games / 10 + 1, new long[ROUNDS * games]);
+            long[] turns = new long[ROUNDS * games];
+            long last = bench.play(games, turns);
+            bench.quit();
+            Arrays.sort(turns);
+            console.printf("%-8s: turn p50 %8.1f us, p99 %8.1f us, "
+                    + "last turn mean %8.1f us%n", name,
+                    turns[turns.length / 2] / 1e3,
+                    turns[(int)(turns.length * 0.99)] / 1e3,
+                    last / (double)games / 1e3);
+        }
+        //the servers never stop by themselves
+        System.exit(0);
+    }
+
+    /**
+     * Plays the games and measures every turn.
+     * @param games the number of games.
+     * @param turns receives the time of every turn in nanoseconds.
+     * @return the total time of the last turns in nanoseconds.
+     * @throws IOException if there is a problem communicating
+     *                     to the server.
+     */
+    private long play(int games, long[] turns) throws IOException {
+        long last = 0;
+        int turn = 0;
+        for(int game = 0; game < games; game++) {
+            packet.sendMessage(start);
+            packet.flush();
+            packet.receiveMessage();
+            for(int round = 0; round < ROUNDS; round++) {
+                long begin = System.nanoTime();
+                packet.sendMessage(guess);
+                packet.flush();
+                int[] clues = packet.receiveMessage();
+                if(clues[0] == 15)
+                    //the game is lost, the answer set follows
+                    packet.receiveMessage();
+                long nanos = System.nanoTime() - begin;
+                if(turn < turns.length)
+                    turns[turn++] = nanos;
+                if(round == ROUNDS - 1)
+                    last += nanos;
+            }
+        }
+        return last;
+    }
+
+    /**
+     * Ends the session and closes the connection.
+     * @throws IOException if there is a problem communicating
+     *                     to the server.
+     */
+    private void quit() throws IOException {
+        int[] quit = new int[4];
+        Arrays.fill(quit, 14);
+        packet.sendMessage(quit);
+        packet.flush();
+        socket.close();
+    }
+
+    /**
+     * Starts the server on a daemon thread.
+     * @param config the configuration of the server.
+     */
+    private static void startServer(MMServerConfig config) {
+        Thread thread = new Thread(() -> {
+            try {
+                if(config.getMode().equals(MMServerConfig.MODE_NIO))
+                    new MMNioServer(config, new MMServerStats()).run();
+                else
+                    new MMServer(config.getPort(), config,
+                                 new MMServerStats()).run();
+            }
+            catch(IOException ex) {
+                System.err.println("Error: " + ex.getMessage());
+            }
+        }, "mm-server");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Connects to the server once it listens.
+     * @param port the port of the server.
+     * @param profile the transport profile of the client.
+     * @return the connected client.
+     * @throws IOException if the server does not start.
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    private static MMLatencyBenchmark connect(int port,
+            MMTransportProfile profile)
+            throws IOException, InterruptedException {
+        for(int attempt = 0; ; attempt++) {
+            try {
+                return new MMLatencyBenchmark(port, profile);
+            }
+            catch(IOException ex) {
+                if(attempt == 50)
+                    throw ex;
+                Thread.sleep(100);
+            }
+        }
+    }
+
+    /**
+     * Returns a port that is free on this host.
+     * @return the port.
+     * @throws IOException if no port can be found.
+     */
+    private static int freePort() throws IOException {
+        try(ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package ashulzhenko.server.bench;
+
+import ashulzhenko.protocol.MMVariant;
+import ashulzhenko.server.solver.MMHintSolver;
+import ashulzhenko.server.solver.MMParallelRanker;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Benchmark of the fork/join solver engine with 1 to N workers.
+ * It plays two random guesses against a random secret of the game, 
+ * then times the filtering of the consistent codes and the ranking 
+ * of up to 2048 of them against all consistent codes.
+ * 
+ * Usage: MMParallelBenchmark [pegs colors [max workers]]
+ * (6 pegs, 9 colors and the available processors by default)
+ * 
+ * @version 18/10/2026
+ * @since 1.8
+ */
+public class MMParallelBenchmark {
+    
+    /**
+     * Runs the benchmark.
+     * @param args the game and the maximum number of workers.
+     */
+    public static void main(String[] args) {
+        int pegs = args.length > 1 ? Integer.parseInt(args[0]) : 6;
+        int colors = args.length > 1 ? Integer.parseInt(args[1]) : 9;
+        int maxWorkers = args.length > 2 ? Integer.parseInt(args[2]) 
+                : Runtime.getRuntime().availableProcessors();
+        MMVariant variant = MMVariant.of(pegs, colors, 10);
+        
+        Random random = new Random(7);
+        int secret = variant.codeAt(random.nextInt(variant.getCodeCount()));
+        int[] guesses = new int[2];
+        int[] feedbacks = new int[2];
+        for(int i = 0; i < guesses.length; i++) {
+            guesses[i] = variant.codeAt(random.nextInt(variant.getCodeCount()));
+            feedbacks[i] = variant.score(secret, guesses[i]);
+        }
+        System.out.println("game " + variant + ": " + variant.getCodeCount() 
+                + " codes");
+        
+        double baseline = 0;
+        for(int workers = 1; workers <= maxWorkers; workers *= 2) {
+            ForkJoinPool pool = new ForkJoinPool(workers);
+            MMParallelRanker ranker = 
+                    new MMParallelRanker(pool, MMHintSolver.MINIMAX);
+            //warm up
+            run(ranker, variant, guesses, feedbacks);
+            long start = System.nanoTime();
+            String result = run(ranker, variant, guesses, feedbacks);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            if(workers == 1)
+                baseline = seconds;
+            System.out.printf("%2d workers: %.3f s, speed-up %.2f, %s%n", 
+                    workers, seconds, baseline / seconds, result);
+            pool.shutdown();
+            if(workers < maxWorkers && workers * 2 > maxWorkers)
+                workers = maxWorkers / 2;
+        }
+    }
+    
+    /**
+     * Filters and ranks once.
+     * @param ranker the engine.
+     * @param variant the game.
+     * @param guesses the packed guesses.
+     * @param feedbacks the packed feedbacks.
+     * @return the description of the result.
+     */
+    private static String run(MMParallelRanker ranker, MMVariant variant, 
+                              int[] guesses, int[] feedbacks) {
+        int[] secrets = ranker.filter(variant, guesses, feedbacks, 
+                                      guesses.length);
+        int[] candidates = Arrays.copyOf(secrets, 
+                Math.min(secrets.length, MMHintSolver.SAMPLE));
+        MMParallelRanker.Ranking best = 
+                ranker.rank(variant, candidates, secrets);
+        return secrets.length + " consistent, best largest partition " 
+                + (int)-best.getScore();
+    }
+}
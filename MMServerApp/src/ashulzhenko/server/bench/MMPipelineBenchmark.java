@@ -0,0 +1,178 @@
+package ashulzhenko.server.bench;
+
+import ashulzhenko.protocol.MMFrame;
+import ashulzhenko.protocol.MMFrameCodec;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Benchmark of the framed protocol against a running server.
+ * Every game has a known answer set and a fixed plan of guesses
+ * (random guesses, then the answer set), which is played in three ways:
+ * one round-trip per guess, all guesses pipelined as separate frames,
+ * and all guesses in one BATCH frame. It reports the guesses per second
+ * and the round-trips per game of each way.
+ *
+ * Usage: MMPipelineBenchmark [host [port [games [guesses]]]]
+ * (localhost, 50000, 2000 games and 6 guesses per game by default)
+ *
+ * @version 18/10/2026
+ * @since 1.8
+ */
+public class MMPipelineBenchmark {
+    private final SocketChannel channel;
+    private final ByteBuffer out;
+    private final ByteBuffer in;
+    private final MMFrame frame;
+    private final int[][] plan;
+
+    /**
+     * Instantiates the object connected to the server.
+     * @param host the host of the server.
+     * @param port the port of the server.
+     * @param guesses the number of guesses of every game.
+     * @throws IOException if the server cannot be reached.
+     */
+    private MMPipelineBenchmark(String host, int port, int guesses)
+            throws IOException {
+        this.channel = SocketChannel.open(new InetSocketAddress(host, port));
+        this.channel.socket().setTcpNoDelay(true);
+        this.out = ByteBuffer.allocate(64 * 1024);
+        this.in = ByteBuffer.allocate(64 * 1024);
+        this.frame = new MMFrame();
+        this.plan = new int[guesses][4];
+    }
+
+    /**
+     * Runs the benchmark.
+     * @param args the server, the number of games and guesses per game.
+     * @throws IOException if there is a problem communicating to the server.
+     */
+    public static void main(String[] args) throws IOException {
+        String host = args.length > 0 ? args[0] : "localhost";
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : 50000;
+        int games = args.length > 2 ? Integer.parseInt(args[2]) : 2000;
+        int guesses = args.length > 3 ? Integer.parseInt(args[3]) : 6;
+        MMPipelineBenchmark bench =
+                new MMPipelineBenchmark(host, port, guesses);
+        String[] ways = {"round-trip", "pipelined", "batch"};
+        for(int i = 0; i < 2; i++) {
+            boolean report = i == 1;
+            for(int way = 0; way < ways.length; way++) {
+                long start = System.nanoTime();
+                long roundTrips = bench.play(way, games, new Random(7));
+                double seconds = (System.nanoTime() - start) / 1e9;
+                if(report)
+                    System.out.printf("%-10s: %9.0f guesses/s, "
+                            + "%.1f round-trips per game%n", ways[way],
+                            games * (double)guesses / seconds,
+                            roundTrips / (double)games);
+            }
+        }
+        bench.frame.reset(MMFrameCodec.BYE, 0);
+        bench.send();
+        bench.receive();
+        bench.channel.close();
+    }
+
+    /**
+     * Plays the games in one way.
+     * @param way 0 for a round-trip per guess, 1 for pipelined guesses,
+     *            2 for a batch of guesses.
+     * @param games the number of games.
+     * @param random the generator of the answer sets and guesses.
+     * @return the number of round-trips.
+     * @throws IOException if there is a problem communicating to the server.
+     */
+    private long play(int way, int games, Random random) throws IOException {
+        long roundTrips = 0;
+        for(int game = 0; game < games; game++) {
+            for(int[] guess : plan)
+                for(int i = 0; i < guess.length; i++)
+                    guess[i] = random.nextInt(8) + 1;
+            //the last guess wins, the others must not
+            for(int j = 0; j < plan.length - 1; j++)
+                if(Arrays.equals(plan[j], plan[plan.length - 1]))
+                    plan[j][0] = plan[j][0] % 8 + 1;
+            frame.reset(MMFrameCodec.NEW_GAME, game).put(4).put(8)
+                 .put(plan.length).put(plan[plan.length - 1]);
+            send();
+            receive();
+            roundTrips++;
+            if(way == 0)
+                for(int[] guess : plan) {
+                    frame.reset(MMFrameCodec.GUESS, game).put(guess);
+                    send();
+                    receive();
+                    roundTrips++;
+                }
+            else if(way == 1) {
+                for(int[] guess : plan) {
+                    frame.reset(MMFrameCodec.GUESS, game).put(guess);
+                    encode();
+                }
+                flush();
+                for(int i = 0; i < plan.length; i++)
+                    receive();
+                roundTrips++;
+            }
+            else {
+                frame.reset(MMFrameCodec.BATCH, game);
+                for(int[] guess : plan)
+                    frame.putInt(game).put(guess.length).put(guess);
+                send();
+                receive();
+                roundTrips++;
+            }
+            if(frame.get(frame.getLength() - 1) != MMFrameCodec.WON)
+                throw new IOException("The game was not won: " + frame);
+        }
+        return roundTrips;
+    }
+
+    /**
+     * Encodes the frame into the output buffer.
+     */
+    private void encode() {
+        MMFrameCodec.encode(frame, out);
+    }
+
+    /**
+     * Encodes the frame and writes it.
+     * @throws IOException if there is a problem communicating to the server.
+     */
+    private void send() throws IOException {
+        encode();
+        flush();
+    }
+
+    /**
+     * Writes the encoded frames.
+     * @throws IOException if there is a problem communicating to the server.
+     */
+    private void flush() throws IOException {
+        out.flip();
+        while(out.hasRemaining())
+            channel.write(out);
+        out.clear();
+    }
+
+    /**
+     * Receives the next frame of the server into the frame.
+     * @throws IOException if there is a problem communicating to the server.
+     */
+    private void receive() throws IOException {
+        in.flip();
+        while(!MMFrameCodec.decode(in, frame)) {
+            in.compact();
+            if(channel.read(in) == -1)
+                throw new IOException("Connection closed prematurely");
+            in.flip();
+        }
+        in.compact();
+    }
+}
@@ -0,0 +1,214 @@
+package ashulzhenko.server.bench;
+
+import ashulzhenko.protocol.MMVariant;
+import ashulzhenko.server.solver.MMCandidateSet;
+import ashulzhenko.server.solver.MMFeedbackMasks;
+import ashulzhenko.server.solver.MMHintSolver;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Plays a strategy against every secret of a game, or against random
+ * secrets for the games with more than 4096 codes, on all cores. 
+ * The games are scored as in MMSession: a game is lost if the secret 
+ * is not found in the rounds of the game.
+ * 
+ * The strategies are random (a random code still consistent 
+ * with the feedbacks), minimax and entropy (the hint solver).
+ * The tool reports the mean and maximum number of guesses of the games won,
+ * the distribution of the number of guesses and the games per second.
+ * 
+ * Usage: MMStrategyEvaluator [strategy [pegs colors rounds 
+ * [samples [threads]]]]
+ * (minimax, the classic game, 1000 samples and the available processors 
+ * by default)
+ * 
+ * @version 18/10/2026
+ * @since 1.8
+ */
+public class MMStrategyEvaluator {
+    /** Plays a random code consistent with the feedbacks. */
+    public static final String RANDOM = "random";
+    /** Games up to this size are played against every secret. */
+    private static final int EXHAUSTIVE = 1 << 12;
+    /** Games up to this size keep their consistent codes in a bitset. */
+    private static final int LIVE_CODES = 1 << 20;
+    /** The time the solver has for a guess. */
+    private static final long BUDGET_MILLIS = 1000;
+    
+    /**
+     * Runs the evaluation.
+     * @param args the strategy, the game, the number of sampled secrets 
+     *             and the number of threads.
+     * @throws InterruptedException if the evaluation is interrupted.
+     * @throws ExecutionException if a game fails.
+     */
+    public static void main(String[] args) 
+            throws InterruptedException, ExecutionException {
+        String strategy = args.length > 0 ? args[0] : MMHintSolver.MINIMAX;
+        MMVariant variant = args.length > 3 ? MMVariant.of(
+                Integer.parseInt(args[1]), Integer.parseInt(args[2]), 
+                Integer.parseInt(args[3])) : MMVariant.CLASSIC;
+        int samples = args.length > 4 ? Integer.parseInt(args[4]) : 1000;
+        int threads = args.length > 5 ? Integer.parseInt(args[5]) 
+                : Runtime.getRuntime().availableProcessors();
+        MMHintSolver solver = strategy.equals(RANDOM) 
+                ? null : new MMHintSolver(strategy);
+        
+        int[] secrets = secrets(variant, samples);
+        //every game of a deterministic strategy starts the same way
+        int opening = solver == null ? -1 : solver.solve(variant, 
+                new int[0], new int[0], 0, deadline(10 * BUDGET_MILLIS));
+        System.out.println("game " + variant + ", strategy " + strategy 
+                + ", " + secrets.length + (secrets.length == 
+                variant.getCodeCount() ? " secrets (all)" : " sampled secrets")
+                + ", " + threads + " threads");
+        
+        int[] results = new int[secrets.length];
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        long start = System.nanoTime();
+        pool.submit(() -> IntStream.range(0, secrets.length).parallel()
+                .forEach(i -> results[i] = play(variant, secrets[i], 
+                                                solver, opening)))
+            .get();
+        double seconds = (System.nanoTime() - start) / 1e9;
+        pool.shutdown();
+        report(variant, results, seconds);
+    }
+    
+    /**
+     * Returns the secrets to play against.
+     * @param variant the game.
+     * @param samples the number of random secrets of a large game.
+     * @return the packed secrets.
+     */
+    private static int[] secrets(MMVariant variant, int samples) {
+        if(variant.getCodeCount() <= EXHAUSTIVE)
+            return IntStream.range(0, variant.getCodeCount())
+                            .map(variant::codeAt).toArray();
+        return new Random(42).ints(samples, 0, variant.getCodeCount())
+                             .map(variant::codeAt).toArray();
+    }
+    
+    /**
+     * Plays one game.
+     * @param variant the game.
+     * @param secret the packed secret.
+     * @param solver the hint solver; null for the random strategy.
+     * @param opening the first guess; -1 for the random strategy.
+     * @return the number of guesses; the rounds of the game + 1 if lost.
+     */
+    private static int play(MMVariant variant, int secret, 
+                            MMHintSolver solver, int opening) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int guess = opening != -1 ? opening 
+                : variant.codeAt(random.nextInt(variant.getCodeCount()));
+        boolean live = variant.getCodeCount() <= LIVE_CODES;
+        MMCandidateSet candidates = live ? MMCandidateSet.full(variant) : null;
+        MMFeedbackMasks masks = MMFeedbackMasks.shared(variant);
+        int[] guesses = new int[variant.getRounds()];
+        int[] feedbacks = new int[variant.getRounds()];
+        for(int round = 1; round <= variant.getRounds(); round++) {
+            int feedback = variant.score(secret, guess);
+            if(variant.isWin(feedback))
+                return round;
+            guesses[round - 1] = guess;
+            feedbacks[round - 1] = feedback;
+            if(masks != null)
+                candidates.retain(masks, guess, feedback);
+            else if(live)
+                candidates.retain(guess, feedback);
+            
+            long deadline = deadline(BUDGET_MILLIS);
+            if(solver != null)
+                guess = live ? solver.solve(candidates, deadline) 
+                        : solver.solve(variant, guesses, feedbacks, round, 
+                                       deadline);
+            if(solver == null || guess == MMHintSolver.REFUSED)
+                guess = live ? pick(candidates, random) 
+                        : pick(variant, guesses, feedbacks, round, random);
+        }
+        return variant.getRounds() + 1;
+    }
+    
+    /**
+     * Picks a random code of the set.
+     * @param candidates the consistent codes.
+     * @param random the random generator of the thread.
+     * @return the packed code.
+     */
+    private static int pick(MMCandidateSet candidates, Random random) {
+        int skip = random.nextInt(candidates.size());
+        int index = candidates.nextIndex(0);
+        for(int i = 0; i < skip; i++)
+            index = candidates.nextIndex(index + 1);
+        return candidates.getVariant().codeAt(index);
+    }
+    
+    /**
+     * Picks the first consistent code from a random code on.
+     * @param variant the game.
+     * @param guesses the packed guesses so far.
+     * @param feedbacks the packed feedbacks of the guesses.
+     * @param count the number of guesses so far.
+     * @param random the random generator of the thread.
+     * @return the packed code.
+     */
+    private static int pick(MMVariant variant, int[] guesses, 
+                            int[] feedbacks, int count, Random random) {
+        int code = variant.codeAt(random.nextInt(variant.getCodeCount()));
+        while(!MMHintSolver.isConsistent(variant, code, guesses, feedbacks, 
+                                         count)) {
+            code = variant.nextCode(code);
+            if(code == -1)
+                code = variant.codeAt(0);
+        }
+        return code;
+    }
+    
+    /**
+     * Returns the deadline after the given time.
+     * @param millis the time in milliseconds.
+     * @return the System.nanoTime() of the deadline.
+     */
+    private static long deadline(long millis) {
+        return System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+    
+    /**
+     * Prints the statistics of the games.
+     * @param variant the game.
+     * @param results the number of guesses of every game.
+     * @param seconds the wall-clock time of all games.
+     */
+    private static void report(MMVariant variant, int[] results, 
+                               double seconds) {
+        int lost = variant.getRounds() + 1;
+        int[] distribution = new int[lost + 1];
+        long total = 0;
+        int won = 0;
+        int max = 0;
+        for(int guesses : results) {
+            distribution[guesses]++;
+            if(guesses < lost) {
+                total += guesses;
+                won++;
+                max = Math.max(max, guesses);
+            }
+        }
+        System.out.printf("won %d of %d, mean %.4f guesses, max %d%n", 
+                won, results.length, won == 0 ? 0 : total / (double)won, max);
+        for(int guesses = 1; guesses <= lost; guesses++)
+            if(distribution[guesses] > 0)
+                System.out.printf("%6s: %6d (%5.1f%%)%n", 
+                        guesses == lost ? "lost" : guesses, 
+                        distribution[guesses], 
+                        distribution[guesses] * 100.0 / results.length);
+        System.out.printf("%.3f s, %.1f games/s%n", seconds, 
+                results.length / seconds);
+    }
+}
@@ -0,0 +1,273 @@
+package ashulzhenko.server.bench;
+
+import ashulzhenko.protocol.MMTransportProfile;
+import ashulzhenko.protocol.MMUnixSockets;
+import ashulzhenko.server.MMNioServer;
+import ashulzhenko.server.MMPacket;
+import ashulzhenko.server.MMServer;
+import ashulzhenko.server.MMServerConfig;
+import ashulzhenko.server.MMServerStats;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.channels.SocketChannel;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Throughput benchmark of the loopback TCP connection against
+ * the Unix domain socket of a server started in this process with both.
+ * Every client plays games of the first protocol that are lost after
+ * 10 rounds, one turn at a time, with the latency profile, and the
+ * turns per second of all the clients are reported for each transport.
+ *
+ * Usage: MMUnixSocketBenchmark [games [clients [mode]]]
+ * (2000 games per client, 4 clients, blocking engine by default)
+ *
+ * @version 18/10/2026
+ * @since 1.8
+ */
+public class MMUnixSocketBenchmark {
+    private static final int ROUNDS = 10;
+
+    private final MMPacket packet;
+    private final Closeable connection;
+    private final int[] start;
+    private final int[] guess;
+
+    /**
+     * Instantiates the client connected to the server.
+     * @param port the port of the server.
+     * @param path the path of the Unix domain socket of the server;
+     *             null to connect to the port.
+     * @param profile the transport profile of the client.
+     * @throws IOException if the server cannot be reached.
+     */
+    private MMUnixSocketBenchmark(int port, String path,
+            MMTransportProfile profile) throws IOException {
+        if(path == null) {
+            Socket socket = new Socket();
+            profile.apply(socket);
+            socket.connect(new InetSocketAddress("localhost", port), 1000);
+            this.packet = new MMPacket(socket);
+            this.connection = socket;
+        }
+        else {
+            SocketChannel channel = MMUnixSockets.connect(path);
+            profile.apply(channel);
+            this.packet = new MMPacket(channel);
+            this.connection = channel;
+        }
+        this.packet.setBuffered(profile.isBuffered());
+        this.start = new int[] {1, 2, 3, 4};
+        this.guess = new int[] {5, 5, 5, 5};
+    }
+
+    /**
+     * Runs the benchmark.
+     * @param args the number of games per client, the number of clients
+     *             and the server engine.
+     * @throws IOException if there is a problem communicating
+     *                     to the server.
+     * @throws InterruptedException if interrupted while waiting
+     *                              for the server or the clients.
+     */
+    public static void main(String[] args)
+            throws IOException, InterruptedException {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int clients = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        String mode = args.length > 2 ? args[2]
+                                      : MMServerConfig.MODE_BLOCKING;
+        if(!MMUnixSockets.isSupported()) {
+            System.out.println("Unix domain sockets require Java 16 "
+                    + "or later");
+            System.exit(1);
+        }
+        PrintStream console = System.out;
+        //the server prints every game
+        System.setOut(new PrintStream(new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+        }));
+        int port = freePort();
+        File file = File.createTempFile("mm-bench", ".sock");
+        file.deleteOnExit();
+        String path = file.getPath();
+        startServer(MMServerConfig.fromArgs(new String[] {
+                "--mode=" + mode, "--port=" + port,
+                "--unix-socket=" + path}));
+        MMTransportProfile profile =
+                MMTransportProfile.of(MMTransportProfile.LATENCY);
+        String[] transports = {"tcp", "unix"};
+        for(int i = 0; i < 2; i++) {
+            boolean report = i == 1;
+            for(String transport : transports) {
+                String address = transport.equals("unix") ? path : null;
+                long nanos = run(port, address, profile,
+                        report ? games : games / 10 + 1, clients);
+                if(report) {
+                    double turns = (double)games * clients * (ROUNDS + 1);
+                    console.printf("%-4s: %10.0f turns/s, %6.1f us "
+                            + "per turn%n", transport, turns * 1e9 / nanos,
+                            nanos * clients / turns / 1e3);
+                }
+            }
+        }
+        //the server never stops by itself
+        System.exit(0);
+    }
+
+    /**
+     * Plays the games with the clients at once.
+     * @param port the port of the server.
+     * @param path the path of the Unix domain socket; null for the port.
+     * @param profile the transport profile of the clients.
+     * @param games the number of games per client.
+     * @param clients the number of clients.
+     * @return the time it took in nanoseconds.
+     * @throws IOException if a client fails.
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    private static long run(int port, String path,
+            MMTransportProfile profile, int games, int clients)
+            throws IOException, InterruptedException {
+        MMUnixSocketBenchmark[] benches = new MMUnixSocketBenchmark[clients];
+        for(int i = 0; i < clients; i++)
+            benches[i] = connect(port, path, profile);
+        AtomicLong failures = new AtomicLong();
+        Thread[] threads = new Thread[clients];
+        for(int i = 0; i < clients; i++) {
+            MMUnixSocketBenchmark bench = benches[i];
+            threads[i] = new Thread(() -> {
+                try {
+                    consume(bench.play(games));
+                }
+                catch(IOException ex) {
+                    System.err.println("Error: " + ex.getMessage());
+                    failures.incrementAndGet();
+                }
+            }, "mm-client-" + i);
+        }
+        long begin = System.nanoTime();
+        for(Thread thread : threads)
+            thread.start();
+        for(Thread thread : threads)
+            thread.join();
+        long nanos = System.nanoTime() - begin;
+        for(MMUnixSocketBenchmark bench : benches)
+            bench.quit();
+        if(failures.get() > 0)
+            throw new IOException(failures.get() + " clients failed");
+        return nanos;
+    }
+
+    /**
+     * Plays the games.
+     * @param games the number of games.
+     * @return the sum of the clues received.
+     * @throws IOException if there is a problem communicating
+     *                     to the server.
+     */
+    private long play(int games) throws IOException {
+        long sum = 0;
+        for(int game = 0; game < games; game++) {
+            packet.sendMessage(start);
+            packet.flush();
+            packet.receiveMessage();
+            for(int round = 0; round < ROUNDS; round++) {
+                packet.sendMessage(guess);
+                packet.flush();
+                int[] clues = packet.receiveMessage();
+                sum += clues[0];
+                if(clues[0] == 15)
+                    //the game is lost, the answer set follows
+                    packet.receiveMessage();
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * Ends the session and closes the connection.
+     * @throws IOException if there is a problem communicating
+     *                     to the server.
+     */
+    private void quit() throws IOException {
+        int[] quit = new int[4];
+        Arrays.fill(quit, 14);
+        packet.sendMessage(quit);
+        packet.flush();
+        connection.close();
+    }
+
+    /**
+     * Starts the server on a daemon thread.
+     * @param config the configuration of the server.
+     */
+    private static void startServer(MMServerConfig config) {
+        Thread thread = new Thread(() -> {
+            try {
+                if(config.getMode().equals(MMServerConfig.MODE_NIO))
+                    new MMNioServer(config, new MMServerStats()).run();
+                else
+                    new MMServer(config.getPort(), config,
+                                 new MMServerStats()).run();
+            }
+            catch(IOException ex) {
+                System.err.println("Error: " + ex.getMessage());
+            }
+        }, "mm-server");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Connects to the server once it listens.
+     * @param port the port of the server.
+     * @param path the path of the Unix domain socket; null for the port.
+     * @param profile the transport profile of the client.
+     * @return the connected client.
+     * @throws IOException if the server does not start.
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    private static MMUnixSocketBenchmark connect(int port, String path,
+            MMTransportProfile profile)
+            throws IOException, InterruptedException {
+        for(int attempt = 0; ; attempt++) {
+            try {
+                return new MMUnixSocketBenchmark(port, path, profile);
+            }
+            catch(IOException ex) {
+                if(attempt == 50)
+                    throw ex;
+                Thread.sleep(100);
+            }
+        }
+    }
+
+    /**
+     * Returns a port that is free on this host.
+     * @return the port.
+     * @throws IOException if no port can be found.
+     */
+    private static int freePort() throws IOException {
+        try(ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    /**
+     * Keeps the results alive so that the work is not optimized away.
+     * @param value the result to keep.
+     */
+    private static void consume(long value) {
+        if(value == 42)
+            System.out.print("");
+    }
+}
@@ -0,0 +1,209 @@
+package ashulzhenko.server.solver;
+
+import ashulzhenko.protocol.MMVariant;
+import java.util.Arrays;
+
+/**
+ * Compact set of the codes that could still be the secret of a game,
+ * one bit per dense code index (512 bytes for the classic game).
+ * 
+ * The set shrinks after every guess either by the intersection 
+ * with a precomputed mask of MMFeedbackMasks or by scoring the codes 
+ * that are still in the set. Its size is a popcount and a snapshot 
+ * is a copy of the bits, so many games can keep their live set 
+ * and save it every round.
+ * 
+ * @version 18/10/2026
+ * @since 1.8
+ */
+public class MMCandidateSet {
+    private final MMVariant variant;
+    private final long[] bits;
+    
+    /**
+     * Instantiates the object receiving the bits.
+     * @param variant the game.
+     * @param bits the bits of the set, one per dense code index.
+     */
+    private MMCandidateSet(MMVariant variant, long[] bits) {
+        this.variant = variant;
+        this.bits = bits;
+    }
+    
+    /**
+     * Creates the set of all codes of the game.
+     * @param variant the game.
+     * @return the set of all codes.
+     */
+    public static MMCandidateSet full(MMVariant variant) {
+        MMCandidateSet set = empty(variant);
+        set.reset();
+        return set;
+    }
+    
+    /**
+     * Creates the empty set of the game.
+     * @param variant the game.
+     * @return the empty set.
+     */
+    public static MMCandidateSet empty(MMVariant variant) {
+        return new MMCandidateSet(variant, 
+                new long[words(variant.getCodeCount())]);
+    }
+    
+    /**
+     * Returns the number of words needed for the codes.
+     * @param codes the number of codes.
+     * @return the number of longs.
+     */
+    static int words(int codes) {
+        return (codes + 63) >>> 6;
+    }
+    
+    /**
+     * Returns the game of the set.
+     * @return the game of the set.
+     */
+    public MMVariant getVariant() {
+        return variant;
+    }
+    
+    /**
+     * Puts all codes of the game back into the set.
+     */
+    public void reset() {
+        int codes = variant.getCodeCount();
+        Arrays.fill(bits, -1L);
+        if((codes & 63) != 0)
+            bits[bits.length - 1] = (1L << (codes & 63)) - 1;
+    }
+    
+    /**
+     * Keeps only the codes that give the feedback to the guess,
+     * using the precomputed mask.
+     * @param masks the masks of the game.
+     * @param guess the packed guess.
+     * @param feedback the packed feedback.
+     */
+    public void retain(MMFeedbackMasks masks, int guess, int feedback) {
+        long[] mask = masks.mask(guess, feedback);
+        if(mask == null) {
+            Arrays.fill(bits, 0);
+            return;
+        }
+        for(int i = 0; i < bits.length; i++)
+            bits[i] &= mask[i];
+    }
+    
+    /**
+     * Keeps only the codes that give the feedback to the guess,
+     * scoring every code that is still in the set.
+     * @param guess the packed guess.
+     * @param feedback the packed feedback.
+     */
+    public void retain(int guess, int feedback) {
+        for(int w = 0; w < bits.length; w++) {
+            long word = bits[w];
+            while(word != 0) {
+                long lowest = word & -word;
+                int index = (w << 6) + Long.numberOfTrailingZeros(word);
+                if(variant.score(variant.codeAt(index), guess) != feedback)
+                    bits[w] &= ~lowest;
+                word ^= lowest;
+            }
+        }
+    }
+    
+    /**
+     * Keeps only the codes that are also in the other set.
+     * @param other the set of the same game.
+     */
+    public void retainAll(MMCandidateSet other) {
+        for(int i = 0; i < bits.length; i++)
+            bits[i] &= other.bits[i];
+    }
+    
+    /**
+     * Adds the code to the set.
+     * @param index the dense index of the code.
+     */
+    public void add(int index) {
+        bits[index >>> 6] |= 1L << index;
+    }
+    
+    /**
+     * Returns true if the code is in the set.
+     * @param index the dense index of the code.
+     * @return true if the code is in the set; false otherwise.
+     */
+    public boolean contains(int index) {
+        return (bits[index >>> 6] & (1L << index)) != 0;
+    }
+    
+    /**
+     * Returns the number of codes in the set.
+     * @return the number of codes in the set.
+     */
+    public int size() {
+        int size = 0;
+        for(long word : bits)
+            size += Long.bitCount(word);
+        return size;
+    }
+    
+    /**
+     * Returns the first code index in the set from the given index on.
+     * @param from the index to start from.
+     * @return the code index; -1 if there is none.
+     */
+    public int nextIndex(int from) {
+        int w = from >>> 6;
+        if(w >= bits.length)
+            return -1;
+        long word = bits[w] & (-1L << from);
+        for(;;) {
+            if(word != 0)
+                return (w << 6) + Long.numberOfTrailingZeros(word);
+            if(++w == bits.length)
+                return -1;
+            word = bits[w];
+        }
+    }
+    
+    /**
+     * Copies the packed codes of the set into the array.
+     * @param codes the array to fill.
+     * @return the number of codes copied, at most codes.length.
+     */
+    public int toCodes(int[] codes) {
+        int count = 0;
+        for(int i = nextIndex(0); i != -1 && count < codes.length; 
+            i = nextIndex(i + 1))
+            codes[count++] = variant.codeAt(i);
+        return count;
+    }
+    
+    /**
+     * Returns a copy of the set that does not change with it.
+     * @return the copy of the set.
+     */
+    public MMCandidateSet snapshot() {
+        return new MMCandidateSet(variant, bits.clone());
+    }
+    
+    /**
+     * Sets the set to the saved snapshot.
+     * @param snapshot the snapshot of the same game.
+     */
+    public void restore(MMCandidateSet snapshot) {
+        System.arraycopy(snapshot.bits, 0, bits, 0, bits.length);
+    }
+    
+    /**
+     * Returns the number of bytes taken by the bits.
+     * @return the number of bytes taken by the bits.
+     */
+    public int footprint() {
+        return bits.length * 8;
+    }
+}
@@ -0,0 +1,84 @@
+package ashulzhenko.server.solver;
+
+import ashulzhenko.protocol.MMVariant;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Precomputed masks of the codes that give a feedback to a guess,
+ * shared by all games of the same small game.
+ * 
+ * The masks of a guess are computed all at once the first time 
+ * the guess is used, with one pass over the codes; only the feedbacks 
+ * that occur get a mask. For the classic game a mask takes 512 bytes 
+ * and a guess at most 14 masks.
+ * 
+ * @version 18/10/2026
+ * @since 1.8
+ */
+public class MMFeedbackMasks {
+    /** The largest game whose masks are shared. */
+    public static final int MAX_CODES = 1 << 12;
+    
+    private static final ConcurrentHashMap<MMVariant, MMFeedbackMasks> 
+            SHARED = new ConcurrentHashMap<>();
+    
+    private final MMVariant variant;
+    private final AtomicReferenceArray<long[][]> masks;
+    
+    /**
+     * Instantiates the object receiving the game.
+     * @param variant the game.
+     */
+    public MMFeedbackMasks(MMVariant variant) {
+        this.variant = variant;
+        this.masks = new AtomicReferenceArray<>(variant.getCodeCount());
+    }
+    
+    /**
+     * Returns the masks shared by all games of the given game.
+     * @param variant the game.
+     * @return the shared masks; null if the game is larger than MAX_CODES.
+     */
+    public static MMFeedbackMasks shared(MMVariant variant) {
+        if(variant.getCodeCount() > MAX_CODES)
+            return null;
+        return SHARED.computeIfAbsent(variant, MMFeedbackMasks::new);
+    }
+    
+    /**
+     * Returns the mask of the codes that give the feedback to the guess.
+     * @param guess the packed guess.
+     * @param feedback the packed feedback.
+     * @return the mask; null if no code gives the feedback.
+     */
+    public long[] mask(int guess, int feedback) {
+        int index = variant.indexOf(guess);
+        long[][] byFeedback = masks.get(index);
+        if(byFeedback == null) {
+            //computed at most a few times if threads race, then shared
+            byFeedback = compute(guess);
+            masks.compareAndSet(index, null, byFeedback);
+        }
+        return byFeedback[variant.feedbackIndex(feedback)];
+    }
+    
+    /**
+     * Computes the masks of all feedbacks of the guess.
+     * @param guess the packed guess.
+     * @return the masks indexed by the feedback index.
+     */
+    private long[][] compute(int guess) {
+        int codes = variant.getCodeCount();
+        long[][] byFeedback = new long[variant.getFeedbackCount()][];
+        int code = variant.codeAt(0);
+        for(int i = 0; i < codes; i++) {
+            int feedback = variant.feedbackIndex(variant.score(code, guess));
+            if(byFeedback[feedback] == null)
+                byFeedback[feedback] = new long[MMCandidateSet.words(codes)];
+            byFeedback[feedback][i >>> 6] |= 1L << i;
+            code = variant.nextCode(code);
+        }
+        return byFeedback;
+    }
+}
@@ -0,0 +1,286 @@
+package ashulzhenko.server.solver;
+
+import ashulzhenko.protocol.MMVariant;
+import ashulzhenko.server.MMBatchScorer;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Anytime solver that suggests the next guess of a game 
+ * from the guesses and feedbacks so far.
+ * 
+ * The solver first collects the codes that are consistent with the history,
+ * then ranks the guesses by the partition of the consistent codes 
+ * they produce: minimax minimizes the largest partition (Knuth), 
+ * entropy maximizes the expected information. If the deadline passes,
+ * the best guess found so far is returned; if the deadline passes before
+ * any consistent code is found, the hint is refused.
+ * 
+ * For large games at most SAMPLE consistent codes are kept 
+ * (reservoir sampling) and the ranking is done against this sample.
+ * The scan starts at a random code, so a scan cut short by the deadline 
+ * does not always favor the same codes. Only primitive arrays are used.
+ * When the session keeps a MMCandidateSet, the consistent codes are 
+ * read from it instead of scanning the whole game.
+ * 
+ * @version 18/10/2026
+ * @since 1.8
+ */
+public class MMHintSolver {
+    /** Minimizes the largest partition. */
+    public static final String MINIMAX = "minimax";
+    /** Maximizes the entropy of the partitions. */
+    public static final String ENTROPY = "entropy";
+    /** The maximum number of consistent codes kept for the ranking. */
+    public static final int SAMPLE = 2048;
+    /** The result of a hint refused because the deadline passed. */
+    public static final int REFUSED = -1;
+    /** Games up to this size also rank the codes that cannot win. */
+    private static final int FULL_RANKING = 1 << 16;
+    
+    private final boolean entropy;
+    
+    /**
+     * Instantiates the object receiving the strategy.
+     * @param strategy minimax or entropy.
+     * @throws IllegalArgumentException if the strategy is unknown.
+     */
+    public MMHintSolver(String strategy) {
+        if(!strategy.equals(MINIMAX) && !strategy.equals(ENTROPY))
+            throw new IllegalArgumentException("Unknown strategy: " 
+                    + strategy);
+        this.entropy = strategy.equals(ENTROPY);
+    }
+    
+    /**
+     * Suggests the next guess.
+     * @param variant the game.
+     * @param guesses the packed guesses so far.
+     * @param feedbacks the packed feedbacks of the guesses.
+     * @param count the number of guesses so far.
+     * @param deadline the System.nanoTime() by which to answer.
+     * @return the packed guess; REFUSED if no consistent code was found 
+     *         by the deadline.
+     */
+    public int solve(MMVariant variant, int[] guesses, int[] feedbacks, 
+                     int count, long deadline) {
+        int[] sample = new int[SAMPLE];
+        int consistent = collect(variant, guesses, feedbacks, count, 
+                                 sample, deadline);
+        int kept = Math.min(consistent, SAMPLE);
+        if(kept == 0)
+            //nothing consistent found in time
+            return REFUSED;
+        if(kept == 1)
+            return sample[0];
+        return rank(variant, sample, kept, consistent <= SAMPLE, deadline);
+    }
+    
+    /**
+     * Suggests the next guess from the codes still possible,
+     * kept by the session as its guesses are scored.
+     * @param candidates the snapshot of the consistent codes.
+     * @param deadline the System.nanoTime() by which to answer.
+     * @return the packed guess.
+     */
+    public int solve(MMCandidateSet candidates, long deadline) {
+        MMVariant variant = candidates.getVariant();
+        int[] sample = new int[SAMPLE];
+        int consistent = collect(candidates, sample);
+        int kept = Math.min(consistent, SAMPLE);
+        if(kept == 0)
+            return variant.codeAt(0);
+        if(kept == 1)
+            return sample[0];
+        return rank(variant, sample, kept, consistent <= SAMPLE, deadline);
+    }
+    
+    /**
+     * Collects the codes of the set into the sample.
+     * @param candidates the consistent codes.
+     * @param sample the array to fill with the consistent codes.
+     * @return the number of consistent codes.
+     */
+    private static int collect(MMCandidateSet candidates, int[] sample) {
+        int size = candidates.size();
+        if(size <= sample.length)
+            return candidates.toCodes(sample);
+        MMVariant variant = candidates.getVariant();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int found = 0;
+        for(int i = candidates.nextIndex(0); i != -1; 
+            i = candidates.nextIndex(i + 1)) {
+            if(found < sample.length)
+                sample[found] = variant.codeAt(i);
+            else {
+                int slot = random.nextInt(found + 1);
+                if(slot < sample.length)
+                    sample[slot] = variant.codeAt(i);
+            }
+            found++;
+        }
+        return found;
+    }
+    
+    /**
+     * Collects the codes consistent with the history into the sample.
+     * @param variant the game.
+     * @param guesses the packed guesses so far.
+     * @param feedbacks the packed feedbacks of the guesses.
+     * @param count the number of guesses so far.
+     * @param sample the array to fill with the consistent codes.
+     * @param deadline the System.nanoTime() by which to stop.
+     * @return the number of consistent codes found.
+     */
+    private static int collect(MMVariant variant, int[] guesses, 
+                               int[] feedbacks, int count, int[] sample, 
+                               long deadline) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int total = variant.getCodeCount();
+        int code = variant.codeAt(random.nextInt(total));
+        int found = 0;
+        for(int scanned = 0; scanned < total; scanned++) {
+            if(isConsistent(variant, code, guesses, feedbacks, count)) {
+                if(found < sample.length)
+                    sample[found] = code;
+                else {
+                    int slot = random.nextInt(found + 1);
+                    if(slot < sample.length)
+                        sample[slot] = code;
+                }
+                found++;
+            }
+            code = variant.nextCode(code);
+            if(code == -1)
+                code = variant.codeAt(0);
+            if((scanned & 0xFFF) == 0 && System.nanoTime() - deadline > 0)
+                break;
+        }
+        return found;
+    }
+    
+    /**
+     * Returns true if the code could be the secret given the history.
+     * @param variant the game.
+     * @param code the packed code.
+     * @param guesses the packed guesses so far.
+     * @param feedbacks the packed feedbacks of the guesses.
+     * @param count the number of guesses so far.
+     * @return true if the code is consistent with every feedback.
+     */
+    public static boolean isConsistent(MMVariant variant, int code, 
+                                       int[] guesses, int[] feedbacks, 
+                                       int count) {
+        for(int i = 0; i < count; i++)
+            if(variant.score(code, guesses[i]) != feedbacks[i])
+                return false;
+        return true;
+    }
+    
+    /**
+     * Ranks the guesses against the consistent codes and returns the best.
+     * The consistent codes are ranked first; then, if the consistent set 
+     * is exact and the game small, every other code until the deadline.
+     * @param variant the game.
+     * @param secrets the consistent codes.
+     * @param size the number of consistent codes.
+     * @param exact true if the consistent codes are all, not a sample.
+     * @param deadline the System.nanoTime() by which to answer.
+     * @return the best packed guess found.
+     */
+    private int rank(MMVariant variant, int[] secrets, int size, 
+                     boolean exact, long deadline) {
+        int[] partitions = new int[variant.getFeedbackCount()];
+        int best = secrets[0];
+        double bestScore = Double.NEGATIVE_INFINITY;
+        for(int i = 0; i < size; i++) {
+            double score = evaluate(variant, secrets[i], secrets, size, 
+                                    partitions);
+            if(score > bestScore) {
+                bestScore = score;
+                best = secrets[i];
+            }
+            if(System.nanoTime() - deadline > 0)
+                return best;
+        }
+        if(!exact || variant.getCodeCount() > FULL_RANKING)
+            return best;
+        //a code that cannot win must be strictly better
+        for(int code = variant.codeAt(0); code != -1; 
+            code = variant.nextCode(code)) {
+            double score = evaluate(variant, code, secrets, size, partitions);
+            if(score > bestScore) {
+                bestScore = score;
+                best = code;
+            }
+            if(System.nanoTime() - deadline > 0)
+                break;
+        }
+        return best;
+    }
+    
+    /**
+     * Evaluates the guess by the partition of the consistent codes.
+     * @param variant the game.
+     * @param guess the packed guess.
+     * @param secrets the consistent codes.
+     * @param size the number of consistent codes.
+     * @param partitions the reused array of partition sizes.
+     * @return the score of the guess; the higher the better.
+     */
+    private double evaluate(MMVariant variant, int guess, int[] secrets, 
+                            int size, int[] partitions) {
+        return evaluate(variant, guess, secrets, size, partitions, entropy);
+    }
+    
+    /**
+     * Evaluates the guess by the partition of the consistent codes.
+     * @param variant the game.
+     * @param guess the packed guess.
+     * @param secrets the consistent codes.
+     * @param size the number of consistent codes.
+     * @param partitions the array of partition sizes owned by the caller.
+     * @param entropy true to score by entropy; false by minimax.
+     * @return the score of the guess; the higher the better.
+     */
+    static double evaluate(MMVariant variant, int guess, int[] secrets, 
+                           int size, int[] partitions, boolean entropy) {
+        if(variant == MMVariant.CLASSIC)
+            MMBatchScorer.partition(guess, secrets, size, partitions);
+        else {
+            Arrays.fill(partitions, 0);
+            for(int i = 0; i < size; i++)
+                partitions[variant.feedbackIndex(
+                        variant.score(secrets[i], guess))]++;
+        }
+        return entropy ? entropy(partitions, size) : -max(partitions);
+    }
+    
+    /**
+     * Returns the largest partition.
+     * @param partitions the partition sizes.
+     * @return the largest partition.
+     */
+    static int max(int[] partitions) {
+        int max = 0;
+        for(int size : partitions)
+            max = Math.max(max, size);
+        return max;
+    }
+    
+    /**
+     * Returns the entropy of the partitions in bits.
+     * @param partitions the partition sizes.
+     * @param total the sum of the partition sizes.
+     * @return the entropy of the partitions.
+     */
+    static double entropy(int[] partitions, int total) {
+        double entropy = 0;
+        for(int size : partitions)
+            if(size > 0) {
+                double p = size / (double)total;
+                entropy -= p * Math.log(p);
+            }
+        return entropy / Math.log(2);
+    }
+}
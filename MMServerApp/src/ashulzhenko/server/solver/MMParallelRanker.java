@@ -0,0 +1,258 @@
+package ashulzhenko.server.solver;
+
+import ashulzhenko.protocol.MMVariant;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Fork/join engine for the solver work that is embarrassingly parallel:
+ * filtering the codes consistent with a history and ranking every guess 
+ * against the consistent codes.
+ * 
+ * The work is split into ranges of codes or guesses. Every leaf task 
+ * owns its partition array and its partial result, which are merged 
+ * only when the tasks are joined, so the workers share no mutable state.
+ * 
+ * @version 18/10/2026
+ * @since 1.8
+ */
+public class MMParallelRanker {
+    /** The number of codes a filtering leaf scans. */
+    private static final int FILTER_LEAF = 1 << 16;
+    /** The number of scores a ranking leaf computes. */
+    private static final int RANK_LEAF = 1 << 18;
+    
+    private final ForkJoinPool pool;
+    private final boolean entropy;
+    
+    /**
+     * Instantiates the object receiving the pool and the strategy.
+     * @param pool the pool running the tasks.
+     * @param strategy minimax or entropy, as in MMHintSolver.
+     * @throws IllegalArgumentException if the strategy is unknown.
+     */
+    public MMParallelRanker(ForkJoinPool pool, String strategy) {
+        if(!strategy.equals(MMHintSolver.MINIMAX) && 
+           !strategy.equals(MMHintSolver.ENTROPY))
+            throw new IllegalArgumentException("Unknown strategy: " 
+                    + strategy);
+        this.pool = pool;
+        this.entropy = strategy.equals(MMHintSolver.ENTROPY);
+    }
+    
+    /**
+     * Returns the codes consistent with the history.
+     * Without any history this is the whole game, so the caller has to 
+     * make sure the result fits in memory.
+     * @param variant the game.
+     * @param guesses the packed guesses so far.
+     * @param feedbacks the packed feedbacks of the guesses.
+     * @param count the number of guesses so far.
+     * @return the packed consistent codes in the order of their indexes.
+     */
+    public int[] filter(MMVariant variant, int[] guesses, int[] feedbacks, 
+                        int count) {
+        return pool.invoke(new FilterTask(variant, guesses, feedbacks, count, 
+                0, variant.getCodeCount()));
+    }
+    
+    /**
+     * Ranks every guess of the pool against the consistent codes.
+     * On equal scores, the guess that comes first in the pool wins, 
+     * so the result does not depend on the number of workers.
+     * @param variant the game.
+     * @param candidates the packed guesses to rank.
+     * @param secrets the packed consistent codes.
+     * @return the best guess and its score.
+     */
+    public Ranking rank(MMVariant variant, int[] candidates, int[] secrets) {
+        int leaf = Math.max(1, RANK_LEAF / Math.max(1, secrets.length));
+        return pool.invoke(new RankTask(variant, candidates, secrets, 
+                0, candidates.length, leaf));
+    }
+    
+    /**
+     * The best guess of a ranking.
+     */
+    public static final class Ranking {
+        private final int guess;
+        private final int index;
+        private final double score;
+        
+        /**
+         * Instantiates the object receiving the guess and its score.
+         * @param guess the packed guess.
+         * @param index the position of the guess in the ranked pool.
+         * @param score the score of the guess; the higher the better.
+         */
+        private Ranking(int guess, int index, double score) {
+            this.guess = guess;
+            this.index = index;
+            this.score = score;
+        }
+        
+        /**
+         * Returns the better of the two rankings.
+         * @param other the other ranking; may be null.
+         * @return the better ranking.
+         */
+        private Ranking best(Ranking other) {
+            if(other == null)
+                return this;
+            if(other.score > score || 
+               (other.score == score && other.index < index))
+                return other;
+            return this;
+        }
+
+        /**
+         * Returns the packed guess.
+         * @return the packed guess.
+         */
+        public int getGuess() {
+            return guess;
+        }
+
+        /**
+         * Returns the score of the guess: the entropy in bits, or minus 
+         * the largest partition for minimax.
+         * @return the score of the guess.
+         */
+        public double getScore() {
+            return score;
+        }
+    }
+    
+    /**
+     * Filters a range of code indexes.
+     */
+    private static class FilterTask extends RecursiveTask<int[]> {
+        private static final long serialVersionUID = 1L;
+
+        private final MMVariant variant;
+        private final int[] guesses;
+        private final int[] feedbacks;
+        private final int count;
+        private final int from;
+        private final int to;
+        
+        /**
+         * Instantiates the object receiving the range.
+         * @param variant the game.
+         * @param guesses the packed guesses so far.
+         * @param feedbacks the packed feedbacks of the guesses.
+         * @param count the number of guesses so far.
+         * @param from the first code index of the range.
+         * @param to the code index after the range.
+         */
+        private FilterTask(MMVariant variant, int[] guesses, int[] feedbacks,
+                           int count, int from, int to) {
+            this.variant = variant;
+            this.guesses = guesses;
+            this.feedbacks = feedbacks;
+            this.count = count;
+            this.from = from;
+            this.to = to;
+        }
+        
+        /**
+         * Filters the range, splitting it while it is large.
+         * @return the consistent codes of the range.
+         */
+        @Override
+        protected int[] compute() {
+            if(to - from > FILTER_LEAF) {
+                int middle = (from + to) >>> 1;
+                FilterTask left = new FilterTask(variant, guesses, feedbacks, 
+                        count, from, middle);
+                left.fork();
+                int[] right = new FilterTask(variant, guesses, feedbacks, 
+                        count, middle, to).compute();
+                int[] first = left.join();
+                int[] all = Arrays.copyOf(first, first.length + right.length);
+                System.arraycopy(right, 0, all, first.length, right.length);
+                return all;
+            }
+            int[] found = new int[Math.min(to - from, 1024)];
+            int size = 0;
+            int code = variant.codeAt(from);
+            for(int i = from; i < to; i++) {
+                if(MMHintSolver.isConsistent(variant, code, guesses, 
+                                             feedbacks, count)) {
+                    if(size == found.length)
+                        found = Arrays.copyOf(found, 
+                                Math.min(to - from, size * 2));
+                    found[size++] = code;
+                }
+                code = variant.nextCode(code);
+            }
+            return Arrays.copyOf(found, size);
+        }
+    }
+    
+    /**
+     * Ranks a range of guesses.
+     */
+    private class RankTask extends RecursiveTask<Ranking> {
+        private static final long serialVersionUID = 1L;
+
+        private final MMVariant variant;
+        private final int[] candidates;
+        private final int[] secrets;
+        private final int from;
+        private final int to;
+        private final int leaf;
+        
+        /**
+         * Instantiates the object receiving the range.
+         * @param variant the game.
+         * @param candidates the packed guesses to rank.
+         * @param secrets the packed consistent codes.
+         * @param from the index of the first guess of the range.
+         * @param to the index after the range.
+         * @param leaf the number of guesses a leaf ranks.
+         */
+        private RankTask(MMVariant variant, int[] candidates, int[] secrets,
+                         int from, int to, int leaf) {
+            this.variant = variant;
+            this.candidates = candidates;
+            this.secrets = secrets;
+            this.from = from;
+            this.to = to;
+            this.leaf = leaf;
+        }
+        
+        /**
+         * Ranks the range, splitting it while it is large.
+         * @return the best guess of the range; null if the range is empty.
+         */
+        @Override
+        protected Ranking compute() {
+            if(to - from > leaf) {
+                int middle = (from + to) >>> 1;
+                RankTask left = new RankTask(variant, candidates, secrets, 
+                        from, middle, leaf);
+                left.fork();
+                Ranking right = new RankTask(variant, candidates, secrets, 
+                        middle, to, leaf).compute();
+                Ranking first = left.join();
+                return first == null ? right : first.best(right);
+            }
+            //every leaf has its own partition array
+            int[] partitions = new int[variant.getFeedbackCount()];
+            int bestIndex = -1;
+            double bestScore = Double.NEGATIVE_INFINITY;
+            for(int i = from; i < to; i++) {
+                double score = MMHintSolver.evaluate(variant, candidates[i], 
+                        secrets, secrets.length, partitions, entropy);
+                if(score > bestScore) {
+                    bestScore = score;
+                    bestIndex = i;
+                }
+            }
+            return bestIndex == -1 ? null 
+                    : new Ranking(candidates[bestIndex], bestIndex, bestScore);
+        }
+    }
+}
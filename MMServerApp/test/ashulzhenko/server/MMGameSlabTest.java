@@ -0,0 +1,95 @@
+package ashulzhenko.server;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ * Tests of MMGameSlab: the free lists and the growth of the array.
+ *
+ * @version 18/10/2026
+ * @since 1.8
+ */
+public class MMGameSlabTest {
+    /**
+     * A freed block is allocated again before the array grows.
+     */
+    @Test
+    public void freedBlockIsReused() {
+        MMGameSlab slab = new MMGameSlab(8);
+        int first = slab.allocate(3);
+        int second = slab.allocate(3);
+        long footprint = slab.footprint();
+        slab.free(first, 3);
+        assertEquals(3, slab.getUsedWords());
+        assertEquals(first, slab.allocate(3));
+        assertEquals(6, slab.getUsedWords());
+        assertEquals(footprint, slab.footprint());
+        assertNotEquals(first, second);
+    }
+
+    /**
+     * The last block freed is the first allocated again.
+     */
+    @Test
+    public void freeListIsLastInFirstOut() {
+        MMGameSlab slab = new MMGameSlab(8);
+        int first = slab.allocate(2);
+        int second = slab.allocate(2);
+        slab.free(first, 2);
+        slab.free(second, 2);
+        assertEquals(second, slab.allocate(2));
+        assertEquals(first, slab.allocate(2));
+    }
+
+    /**
+     * A freed block is only reused for a block of the same size.
+     */
+    @Test
+    public void freeListIsPerSize() {
+        MMGameSlab slab = new MMGameSlab(8);
+        int block = slab.allocate(3);
+        slab.free(block, 3);
+        int larger = slab.allocate(4);
+        assertNotEquals(block, larger);
+        assertEquals(block, slab.allocate(3));
+        assertEquals(7, slab.getUsedWords());
+    }
+
+    /**
+     * The words of the blocks are kept when the array grows.
+     */
+    @Test
+    public void growthKeepsTheBlocks() {
+        MMGameSlab slab = new MMGameSlab(8);
+        long footprint = slab.footprint();
+        int[] blocks = new int[1000];
+        for(int i = 0; i < blocks.length; i++) {
+            blocks[i] = slab.allocate(8);
+            for(int j = 0; j < 8; j++)
+                slab.set(blocks[i] + j, (long)i << 32 | j);
+        }
+        assertTrue(slab.footprint() > footprint);
+        assertEquals(8000, slab.getUsedWords());
+        for(int i = 0; i < blocks.length; i++)
+            for(int j = 0; j < 8; j++)
+                assertEquals((long)i << 32 | j, slab.get(blocks[i] + j));
+    }
+
+    /**
+     * An empty block is refused.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void emptyBlockIsRefused() {
+        new MMGameSlab(8).allocate(0);
+    }
+
+    /**
+     * A block larger than the largest block of the slab is refused.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void largerBlockIsRefused() {
+        new MMGameSlab(8).allocate(9);
+    }
+}
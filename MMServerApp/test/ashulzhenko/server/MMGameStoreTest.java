@@ -0,0 +1,231 @@
+package ashulzhenko.server;
+
+import ashulzhenko.protocol.MMVariant;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import java.util.Random;
+import org.junit.Test;
+
+/**
+ * Tests of MMGameStore: suspending and resuming games, the table
+ * of the tokens, expiry, eviction and the sessions playing the games.
+ *
+ * @version 18/10/2026
+ * @since 1.8
+ */
+public class MMGameStoreTest {
+    /** The slots of the first table of the store. */
+    private static final int SLOTS = 1 << 10;
+
+    private final Random random = new Random(1);
+
+    /**
+     * A resumed game continues from the round it was suspended at.
+     */
+    @Test
+    public void resumeContinuesTheGame() {
+        MMGameStore store = new MMGameStore(10, 3600);
+        MMGame game = game(1, 2, 3, 4);
+        game.guess(new int[] {5, 6, 7, 8});
+        game.guess(new int[] {1, 2, 4, 3});
+        long token = store.newToken();
+        store.suspend(token, game);
+        assertEquals(1, store.size());
+
+        MMGame resumed = store.resume(token);
+        assertNotNull(resumed);
+        assertEquals(0, store.size());
+        assertEquals(2, resumed.getRound());
+        assertFalse(resumed.isWon());
+        assertArrayEquals(new int[] {1, 2, 3, 4}, resumed.getAnswerSet());
+        resumed.guess(new int[] {1, 2, 3, 4});
+        assertTrue(resumed.isWon());
+        assertEquals(3, resumed.getRound());
+    }
+
+    /**
+     * A game is resumed once, and an unknown token resumes nothing.
+     */
+    @Test
+    public void gameIsResumedOnce() {
+        MMGameStore store = new MMGameStore(10, 3600);
+        long token = store.newToken();
+        store.suspend(token, game(1, 1, 1, 1));
+        assertNotNull(store.resume(token));
+        assertNull(store.resume(token));
+        assertNull(store.resume(token + 1));
+        assertTrue(store.report().contains("refused=2"));
+    }
+
+    /**
+     * Suspending a token again replaces its game.
+     */
+    @Test
+    public void tokenSuspendedAgainReplacesTheGame() {
+        MMGameStore store = new MMGameStore(10, 3600);
+        store.suspend(7, game(1, 1, 1, 1));
+        store.suspend(7, game(2, 2, 2, 2));
+        assertEquals(1, store.size());
+        assertArrayEquals(new int[] {2, 2, 2, 2},
+                          store.resume(7).getAnswerSet());
+        assertEquals(0, store.size());
+    }
+
+    /**
+     * Tokens of the same slot, wrapping around the end of the table,
+     * are still found after any of them is removed.
+     */
+    @Test
+    public void collidingTokensSurviveRemovals() {
+        MMGameStore store = new MMGameStore(100, 3600);
+        long[] tokens = new long[6];
+        for(int i = 0; i < tokens.length; i++) {
+            //the hash of a token below 2^32 is the token
+            tokens[i] = (long)(i + 1) * SLOTS + SLOTS - 1;
+            store.suspend(tokens[i], game(i + 1, 1, 1, 1));
+        }
+        int[] order = {2, 0, 4, 5, 1, 3};
+        for(int i = 0; i < order.length; i++) {
+            MMGame game = store.resume(tokens[order[i]]);
+            assertNotNull("token " + order[i], game);
+            assertEquals(order[i] + 1, game.getAnswerSet()[0]);
+            assertEquals(order.length - i - 1, store.size());
+        }
+    }
+
+    /**
+     * Colliding tokens removed by eviction do not hide the others.
+     */
+    @Test
+    public void collidingTokensSurviveEviction() {
+        MMGameStore store = new MMGameStore(3, 3600);
+        long[] tokens = new long[5];
+        for(int i = 0; i < tokens.length; i++) {
+            tokens[i] = (long)(i + 1) * SLOTS + 5;
+            store.suspend(tokens[i], game(i + 1, 1, 1, 1));
+        }
+        assertNull(store.resume(tokens[0]));
+        assertNull(store.resume(tokens[1]));
+        for(int i = 2; i < tokens.length; i++)
+            assertEquals(i + 1, store.resume(tokens[i]).getAnswerSet()[0]);
+    }
+
+    /**
+     * The table grows and keeps every token.
+     */
+    @Test
+    public void tableGrowsWithTheGames() {
+        MMGameStore store = new MMGameStore(5000, 3600);
+        long[] tokens = new long[3000];
+        for(int i = 0; i < tokens.length; i++) {
+            tokens[i] = store.newToken();
+            store.suspend(tokens[i], game(i % 8 + 1, 1, 1, 1));
+        }
+        assertEquals(tokens.length, store.size());
+        for(int i = 0; i < tokens.length; i++)
+            assertEquals(i % 8 + 1, store.resume(tokens[i]).getAnswerSet()[0]);
+        assertEquals(0, store.size());
+    }
+
+    /**
+     * A game is not resumed once its time to live has passed.
+     */
+    @Test
+    public void expiredGameIsNotResumed() {
+        MMGameStore store = new MMGameStore(10, 0);
+        long token = store.newToken();
+        store.suspend(token, game(1, 2, 3, 4));
+        assertEquals(0, store.size());
+        assertNull(store.resume(token));
+        String report = store.report();
+        assertTrue(report, report.contains("expired=1"));
+        assertTrue(report, report.contains("evicted=0"));
+    }
+
+    /**
+     * Once the store is full, the games suspended first are evicted.
+     */
+    @Test
+    public void firstSuspendedIsEvicted() {
+        MMGameStore store = new MMGameStore(3, 3600);
+        for(int token = 1; token <= 5; token++)
+            store.suspend(token, game(token, 1, 1, 1));
+        assertEquals(3, store.size());
+        assertNull(store.resume(1));
+        assertNull(store.resume(2));
+        for(int token = 3; token <= 5; token++)
+            assertEquals(token, store.resume(token).getAnswerSet()[0]);
+        String report = store.report();
+        assertTrue(report, report.contains("evicted=2"));
+        assertTrue(report, report.contains("expired=0"));
+    }
+
+    /**
+     * A game suspended again is evicted in the order of its last suspension.
+     */
+    @Test
+    public void evictionFollowsTheLastSuspension() {
+        MMGameStore store = new MMGameStore(2, 3600);
+        store.suspend(1, game(1, 1, 1, 1));
+        store.suspend(2, game(2, 1, 1, 1));
+        store.suspend(1, store.resume(1));
+        store.suspend(3, game(3, 1, 1, 1));
+        assertNull(store.resume(2));
+        assertEquals(1, store.resume(1).getAnswerSet()[0]);
+        assertEquals(3, store.resume(3).getAnswerSet()[0]);
+    }
+
+    /**
+     * The memory of the resumed games is used again.
+     */
+    @Test
+    public void resumedGamesFreeTheirBlocks() {
+        MMGameStore store = new MMGameStore(10, 3600);
+        for(int token = 1; token <= 10; token++)
+            store.suspend(token, game(1, 1, 1, 1));
+        long footprint = store.footprint();
+        for(int round = 0; round < 100; round++)
+            for(int token = 1; token <= 10; token++)
+                store.suspend(token, store.resume(token));
+        assertEquals(footprint, store.footprint());
+        assertTrue(store.report().contains("used=" + 8 * 10 * 5 + " "));
+    }
+
+    /**
+     * The session playing a game is found until it stops playing it,
+     * and a session that took the game over is not unregistered 
+     * by the previous one.
+     */
+    @Test
+    public void playingSessionIsFoundUntilItStops() {
+        MMGameStore store = new MMGameStore(10, 3600);
+        MMSession first = new MMSession((MMConnection)null);
+        MMSession second = new MMSession((MMConnection)null);
+        store.play(7, first);
+        assertSame(first, store.playedBy(7));
+        store.play(7, second);
+        store.stop(7, first);
+        assertSame(second, store.playedBy(7));
+        store.stop(7, second);
+        assertNull(store.playedBy(7));
+        String report = store.report();
+        assertTrue(report, report.contains("playing=0"));
+        assertTrue(report, report.contains("taken=1"));
+    }
+
+    /**
+     * Returns a classic game.
+     * @param answer the answer set.
+     * @return the game.
+     */
+    private MMGame game(int... answer) {
+        MMGame game = new MMGame(MMVariant.CLASSIC, answer, random);
+        assertArrayEquals(answer, game.getAnswerSet());
+        return game;
+    }
+}
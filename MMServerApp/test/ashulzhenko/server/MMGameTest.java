@@ -0,0 +1,152 @@
+package ashulzhenko.server;
+
+import ashulzhenko.protocol.MMVariant;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import java.util.Random;
+import org.junit.Test;
+
+/**
+ * Tests of saving a MMGame into a slab and restoring it.
+ *
+ * @version 18/10/2026
+ * @since 1.8
+ */
+public class MMGameTest {
+    /** The largest game: 8 pegs, 12 colors and 30 rounds. */
+    private static final MMVariant LARGEST = MMVariant.of(8, 12, 30);
+
+    private final Random random = new Random(1);
+
+    /**
+     * A code of 8 pegs whose last color is above 8 is packed
+     * with the sign bit set, and is saved and restored as it was.
+     */
+    @Test
+    public void restoresCodesWithTheHighBitSet() {
+        int[] answer = {12, 11, 10, 9, 12, 11, 10, 12};
+        assertTrue(LARGEST.encode(answer) < 0);
+        MMGame game = new MMGame(LARGEST, answer, random);
+        int[][] guesses = {
+            {12, 12, 12, 12, 12, 12, 12, 12},
+            {1, 2, 3, 4, 5, 6, 7, 9},
+            {13, 1, 1, 1, 1, 1, 1, 1},
+            {9, 10, 11, 12, 9, 10, 11, 12}
+        };
+        for(int[] guess : guesses)
+            game.guess(guess);
+
+        MMGame restored = saveAndRestore(game);
+        assertEquals(LARGEST, restored.getVariant());
+        assertArrayEquals(answer, restored.getAnswerSet());
+        assertEquals(4, restored.getRound());
+        assertFalse(restored.isWon());
+        //the guesses are restored with the answer set
+        assertSavedEquals(game, restored);
+        int[] next = {12, 11, 10, 9, 12, 11, 10, 11};
+        assertEquals(game.guess(next), restored.guess(next));
+        restored.guess(answer);
+        assertTrue(restored.isWon());
+    }
+
+    /**
+     * Every answer set of a game with the high bit set is restored.
+     */
+    @Test
+    public void restoresRandomCodesOfTheLargestGame() {
+        int[] guess = new int[8];
+        for(int i = 0; i < 1000; i++) {
+            MMGame game = new MMGame(LARGEST, null, random);
+            int rounds = random.nextInt(LARGEST.getRounds());
+            for(int round = 0; round < rounds; round++) {
+                for(int j = 0; j < guess.length; j++)
+                    guess[j] = random.nextInt(12) + 1;
+                game.guess(guess);
+            }
+            MMGame restored = saveAndRestore(game);
+            assertArrayEquals(game.getAnswerSet(), restored.getAnswerSet());
+            assertEquals(game.getRound(), restored.getRound());
+            assertEquals(game.isWon(), restored.isWon());
+            assertSavedEquals(game, restored);
+        }
+    }
+
+    /**
+     * A won game of the classic game is restored as won.
+     */
+    @Test
+    public void restoresAWonGame() {
+        MMGame game = new MMGame(MMVariant.CLASSIC, new int[] {8, 7, 6, 5},
+                                 random);
+        game.guess(new int[] {1, 2, 3, 4});
+        game.guess(new int[] {8, 7, 6, 5});
+        MMGame restored = saveAndRestore(game);
+        assertTrue(restored.isWon());
+        assertEquals(2, restored.getRound());
+        assertEquals(game.savedWords(), restored.savedWords());
+    }
+
+    /**
+     * A lost game is restored as lost.
+     */
+    @Test
+    public void restoresALostGame() {
+        MMGame game = new MMGame(MMVariant.of(5, 9, 2),
+                                 new int[] {9, 9, 9, 9, 9}, random);
+        game.guess(new int[] {1, 2, 3, 4, 5});
+        game.guess(new int[] {9, 9, 9, 9, 8});
+        MMGame restored = saveAndRestore(game);
+        assertTrue(restored.isLost());
+        assertFalse(restored.isWon());
+    }
+
+    /**
+     * The feedback of the last round is kept, and restored 
+     * if every guess was valid.
+     */
+    @Test
+    public void restoresTheLastFeedback() {
+        MMGame game = new MMGame(MMVariant.CLASSIC, new int[] {1, 2, 3, 4},
+                                 random);
+        assertEquals(-1, game.getLastFeedback());
+        int feedback = game.guess(new int[] {1, 2, 4, 3});
+        assertEquals(feedback, game.getLastFeedback());
+        assertEquals(feedback, saveAndRestore(game).getLastFeedback());
+
+        int invalid = game.guess(new int[] {1, 2, 9, 9});
+        assertEquals(invalid, game.getLastFeedback());
+        assertEquals(-1, saveAndRestore(game).getLastFeedback());
+    }
+
+    /**
+     * Saves the game into a slab and restores it.
+     * @param game the game.
+     * @return the restored game.
+     */
+    private static MMGame saveAndRestore(MMGame game) {
+        MMGameSlab slab = new MMGameSlab(MMGame.MAX_SAVED_WORDS);
+        int address = slab.allocate(game.savedWords());
+        game.save(slab, address);
+        assertEquals(game.savedWords(), MMGame.savedWords(slab, address));
+        return MMGame.restore(slab, address);
+    }
+
+    /**
+     * Checks that both games are saved into the same words.
+     * @param expected the game.
+     * @param actual the restored game.
+     */
+    private static void assertSavedEquals(MMGame expected, MMGame actual) {
+        assertEquals(expected.savedWords(), actual.savedWords());
+        MMGameSlab slab = new MMGameSlab(MMGame.MAX_SAVED_WORDS);
+        int first = slab.allocate(expected.savedWords());
+        int second = slab.allocate(actual.savedWords());
+        expected.save(slab, first);
+        actual.save(slab, second);
+        for(int i = 0; i < expected.savedWords(); i++)
+            assertEquals("word " + i, slab.get(first + i),
+                         slab.get(second + i));
+    }
+}
@@ -0,0 +1,247 @@
+package ashulzhenko.server;
+
+import ashulzhenko.protocol.MMVariant;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests of MMJournal: the format of the segments, the rolling
+ * of the segments and closing the journal while the sessions append.
+ *
+ * @version 18/10/2026
+ * @since 1.8
+ */
+public class MMJournalTest {
+    private static final int[] CODE = {1, 2, 3, 4};
+
+    private Path dir;
+
+    /**
+     * Creates the directory of the journal.
+     * @throws IOException if the directory cannot be created.
+     */
+    @Before
+    public void createDirectory() throws IOException {
+        dir = Files.createTempDirectory("mmjournal");
+    }
+
+    /**
+     * Deletes the directory of the journal.
+     * @throws IOException if the directory cannot be deleted.
+     */
+    @After
+    public void deleteDirectory() throws IOException {
+        for(Path segment : segments())
+            Files.delete(segment);
+        Files.delete(dir);
+    }
+
+    /**
+     * The records are written as published, with their check and time.
+     * @throws IOException if the journal cannot be read.
+     */
+    @Test
+    public void writesTheRecords() throws IOException {
+        MMJournal journal = new MMJournal(dir, 4096, 16);
+        journal.start();
+        long before = System.currentTimeMillis();
+        long id = journal.start(MMVariant.CLASSIC, CODE);
+        journal.guess(id, 1, new int[] {4, 3, 2, 1}, 0x04);
+        journal.end(id, MMJournal.QUIT, 1);
+        journal.close();
+        long after = System.currentTimeMillis();
+        assertEquals(3, journal.getRecords());
+
+        List<Path> segments = segments();
+        assertEquals(1, segments.size());
+        ByteBuffer segment = read(segments.get(0));
+        assertEquals(4096, segment.capacity());
+        assertEquals(MMJournal.MAGIC, segment.getInt(0));
+        assertEquals(MMJournal.VERSION, segment.getShort(4));
+        assertEquals(MMJournal.RECORD, segment.getShort(6));
+        assertEquals(1, segment.getLong(8));
+        assertEquals(4096, segment.getLong(24));
+
+        long[] heads = {
+            0x0104080A00000000L, 0x0201040400000000L, 0x0303010000000000L
+        };
+        long[] colors = {0x0102030400000000L, 0x0403020100000000L, 0};
+        for(int i = 0; i < heads.length; i++) {
+            int at = (i + 1) * MMJournal.RECORD;
+            long head = segment.getLong(at);
+            long time = segment.getLong(at + 16);
+            assertEquals(heads[i], head & 0xFFFFFFFF00000000L);
+            assertEquals(id, segment.getLong(at + 8));
+            assertTrue(time >= before && time <= after);
+            assertEquals(colors[i], segment.getLong(at + 24));
+            assertEquals(MMJournal.check(head, id, time, colors[i]),
+                         (int)head);
+        }
+        assertEquals(0, segment.getLong(4 * MMJournal.RECORD));
+    }
+
+    /**
+     * A full segment is followed by a new one, and a new journal
+     * continues after the segments of the directory.
+     * @throws IOException if the journal cannot be read.
+     */
+    @Test
+    public void rollsTheSegments() throws IOException {
+        MMJournal journal = new MMJournal(dir, 4 * MMJournal.RECORD, 16);
+        journal.start();
+        for(int i = 0; i < 10; i++)
+            journal.end(journal.start(MMVariant.CLASSIC, CODE),
+                        MMJournal.QUIT, 0);
+        journal.close();
+        assertEquals(20, journal.getRecords());
+        assertEquals(7, segments().size());
+
+        journal = new MMJournal(dir, 4 * MMJournal.RECORD, 16);
+        journal.start();
+        journal.start(MMVariant.CLASSIC, CODE);
+        journal.close();
+        List<Path> segments = segments();
+        assertEquals(8, segments.size());
+        Path last = segments.get(segments.size() - 1);
+        assertEquals(MMJournal.segmentName(8), last.getFileName().toString());
+        assertEquals(8, read(last).getLong(8));
+    }
+
+    /**
+     * A record written after the writer was idle has the current time.
+     * @throws IOException if the journal cannot be read.
+     * @throws InterruptedException if the test is interrupted.
+     */
+    @Test
+    public void stampsTheTimeAfterIdling()
+            throws IOException, InterruptedException {
+        MMJournal journal = new MMJournal(dir, 4096, 16);
+        journal.start();
+        journal.start(MMVariant.CLASSIC, CODE);
+        Thread.sleep(300);
+        long before = System.currentTimeMillis();
+        journal.start(MMVariant.CLASSIC, CODE);
+        journal.close();
+        long time = read(segments().get(0)).getLong(2 * MMJournal.RECORD
+                                                    + 16);
+        assertTrue(before - time + " ms behind", time >= before);
+    }
+
+    /**
+     * Nothing is recorded once the journal is closed.
+     * @throws IOException if the journal cannot be read.
+     */
+    @Test
+    public void recordsNothingWhenClosed() throws IOException {
+        MMJournal journal = new MMJournal(dir, 4096, 16);
+        journal.start();
+        journal.start(MMVariant.CLASSIC, CODE);
+        journal.close();
+        journal.start(MMVariant.CLASSIC, CODE);
+        assertEquals(1, journal.getRecords());
+        assertEquals(0, read(segments().get(0)).getLong(2 * MMJournal.RECORD));
+    }
+
+    /**
+     * Closing the journal while the sessions fill a small ring writes
+     * every record they started, and no record is overwritten:
+     * the records of every game are its first records, in order.
+     * @throws IOException if the journal cannot be read.
+     * @throws InterruptedException if the test is interrupted.
+     */
+    @Test(timeout = 60000)
+    public void closeKeepsTheRecordsBeingAppended()
+            throws IOException, InterruptedException {
+        for(int run = 0; run < 50; run++) {
+            MMJournal journal = new MMJournal(dir, 1 << 16, 4);
+            journal.start();
+            Thread[] sessions = new Thread[4];
+            for(int i = 0; i < sessions.length; i++) {
+                sessions[i] = new Thread(() -> {
+                    for(int game = 0; game < 50; game++) {
+                        long id = journal.start(MMVariant.CLASSIC, CODE);
+                        for(int round = 1; round <= 5; round++)
+                            journal.guess(id, round, CODE, 0x40);
+                    }
+                });
+                sessions[i].start();
+            }
+            Thread.sleep(run % 3);
+            journal.close();
+            for(Thread session : sessions)
+                session.join();
+            assertEquals(journal.getRecords(), checkRounds());
+            deleteDirectory();
+            createDirectory();
+        }
+    }
+
+    /**
+     * Checks the records of every game of the journal: the start,
+     * then the guesses of the rounds from 1.
+     * @return the number of records.
+     * @throws IOException if the journal cannot be read.
+     */
+    private long checkRounds() throws IOException {
+        Map<Long, Integer> rounds = new HashMap<>();
+        long records = 0;
+        for(Path file : segments()) {
+            ByteBuffer segment = read(file);
+            for(int at = MMJournal.RECORD; at < segment.capacity();
+                    at += MMJournal.RECORD) {
+                long head = segment.getLong(at);
+                if(head == 0)
+                    break;
+                long id = segment.getLong(at + 8);
+                assertEquals(MMJournal.check(head, id,
+                        segment.getLong(at + 16), segment.getLong(at + 24)),
+                        (int)head);
+                int type = (int)(head >>> 56);
+                int expected = rounds.getOrDefault(id, -1) + 1;
+                assertEquals("game " + id, expected, type == MMJournal.START
+                        ? 0 : (int)(head >>> 48) & 0xFF);
+                rounds.put(id, expected);
+                records++;
+            }
+        }
+        return records;
+    }
+
+    /**
+     * Returns the segments of the journal in order.
+     * @return the paths of the segments.
+     * @throws IOException if the directory cannot be read.
+     */
+    private List<Path> segments() throws IOException {
+        List<Path> segments = new ArrayList<>();
+        try(DirectoryStream<Path> files =
+                Files.newDirectoryStream(dir, "journal-*.mmj")) {
+            for(Path file : files)
+                segments.add(file);
+        }
+        segments.sort(null);
+        return segments;
+    }
+
+    /**
+     * Reads a segment.
+     * @param segment the path of the segment.
+     * @return the bytes of the segment.
+     * @throws IOException if the segment cannot be read.
+     */
+    private static ByteBuffer read(Path segment) throws IOException {
+        return ByteBuffer.wrap(Files.readAllBytes(segment));
+    }
+}
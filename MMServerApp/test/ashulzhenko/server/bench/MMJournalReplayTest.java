@@ -0,0 +1,185 @@
+package ashulzhenko.server.bench;
+
+import ashulzhenko.protocol.MMVariant;
+import ashulzhenko.server.MMGame;
+import ashulzhenko.server.MMJournal;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests of MMJournalReplay on the journals of games played by MMGame.
+ *
+ * @version 18/10/2026
+ * @since 1.8
+ */
+public class MMJournalReplayTest {
+    private final Random random = new Random(1);
+    private Path dir;
+
+    /**
+     * Creates the directory of the journal.
+     * @throws IOException if the directory cannot be created.
+     */
+    @Before
+    public void createDirectory() throws IOException {
+        dir = Files.createTempDirectory("mmreplay");
+    }
+
+    /**
+     * Stops recording the games and deletes the journal.
+     * @throws IOException if the journal cannot be deleted.
+     */
+    @After
+    public void deleteDirectory() throws IOException {
+        MMGame.setJournal(null);
+        try(DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+            for(Path file : files)
+                Files.delete(file);
+        }
+        Files.delete(dir);
+    }
+
+    /**
+     * The games won, lost, quit and still running are replayed
+     * without a mismatch.
+     * @throws Exception if the journal cannot be replayed.
+     */
+    @Test
+    public void replaysEveryOutcome() throws Exception {
+        MMJournal journal = record(4096);
+        MMVariant variant = MMVariant.of(4, 8, 2);
+        MMGame won = new MMGame(variant, new int[] {1, 2, 3, 4}, random);
+        won.guess(new int[] {1, 2, 3, 4});
+        MMGame lost = new MMGame(variant, new int[] {1, 2, 3, 4}, random);
+        lost.guess(new int[] {4, 3, 2, 1});
+        lost.guess(new int[] {9, 0, 0, 0});
+        MMGame quit = new MMGame(variant, new int[] {1, 2, 3, 4}, random);
+        quit.guess(new int[] {1, 1, 1, 1});
+        quit.end();
+        new MMGame(variant, null, random);
+        journal.close();
+
+        MMJournalReplay replay = MMJournalReplay.replay(dir, 2);
+        assertEquals(0, replay.getMismatches());
+        assertArrayEquals(new long[] {1, 1, 1, 1}, replay.getGames());
+    }
+
+    /**
+     * The games that span several segments are replayed in order.
+     * @throws Exception if the journal cannot be replayed.
+     */
+    @Test
+    public void replaysGamesAcrossSegments() throws Exception {
+        MMJournal journal = record(8 * MMJournal.RECORD);
+        MMVariant variant = MMVariant.of(8, 12, 30);
+        int[] guess = new int[8];
+        MMGame[] games = new MMGame[20];
+        for(int i = 0; i < games.length; i++)
+            games[i] = new MMGame(variant, null, random);
+        for(int round = 0; round < 30; round++)
+            for(MMGame game : games) {
+                if(game.isWon())
+                    continue;
+                for(int j = 0; j < guess.length; j++)
+                    guess[j] = random.nextInt(12) + 1;
+                game.guess(guess);
+            }
+        journal.close();
+
+        MMJournalReplay replay = MMJournalReplay.replay(dir, 4);
+        assertEquals(0, replay.getMismatches());
+        assertArrayEquals(new long[] {0, games.length, 0, 0},
+                          replay.getGames());
+    }
+
+    /**
+     * A record whose clues were changed is a mismatch, and a record
+     * whose check no longer matches is corrupt.
+     * @throws Exception if the journal cannot be replayed.
+     */
+    @Test
+    public void findsTheChangedRecords() throws Exception {
+        MMJournal journal = record(4096);
+        MMGame game = new MMGame(MMVariant.CLASSIC, new int[] {1, 2, 3, 4},
+                                 random);
+        game.guess(new int[] {1, 2, 4, 3});
+        game.guess(new int[] {1, 2, 3, 4});
+        journal.close();
+        Path segment = dir.resolve(MMJournal.segmentName(1));
+        int guess = 2 * MMJournal.RECORD;
+
+        //the clues of the first guess, with a valid check
+        ByteBuffer record = read(segment, guess);
+        long head = record.getLong(0) & 0xFFFF00FF00000000L | 0x40L << 40;
+        head |= MMJournal.check(head, record.getLong(8), record.getLong(16),
+                                record.getLong(24)) & 0xFFFFFFFFL;
+        write(segment, guess, head);
+        MMJournalReplay replay = MMJournalReplay.replay(dir, 1);
+        assertTrue(replay.getMismatches() > 0);
+        assertEquals(0, replay.getCorrupt());
+
+        //the same change without the check
+        write(segment, guess, head ^ 0x0000010000000000L);
+        replay = MMJournalReplay.replay(dir, 1);
+        assertEquals(1, replay.getCorrupt());
+    }
+
+    /**
+     * Starts a journal recording the games started from now on.
+     * @param segmentSize the size of a segment in bytes.
+     * @return the journal.
+     * @throws IOException if the journal cannot be created.
+     */
+    private MMJournal record(long segmentSize) throws IOException {
+        MMJournal journal = new MMJournal(dir, segmentSize, 64);
+        journal.start();
+        MMGame.setJournal(journal);
+        return journal;
+    }
+
+    /**
+     * Reads a record of a segment.
+     * @param segment the path of the segment.
+     * @param at the position of the record.
+     * @return the bytes of the record.
+     * @throws IOException if the segment cannot be read.
+     */
+    private static ByteBuffer read(Path segment, int at) throws IOException {
+        ByteBuffer record = ByteBuffer.allocate(MMJournal.RECORD);
+        try(FileChannel file = FileChannel.open(segment,
+                StandardOpenOption.READ)) {
+            file.read(record, at);
+        }
+        record.flip();
+        return record;
+    }
+
+    /**
+     * Writes the head of a record of a segment.
+     * @param segment the path of the segment.
+     * @param at the position of the record.
+     * @param head the head of the record.
+     * @throws IOException if the segment cannot be written.
+     */
+    private static void write(Path segment, int at, long head)
+            throws IOException {
+        ByteBuffer bytes = ByteBuffer.allocate(8);
+        bytes.putLong(head).flip();
+        try(FileChannel file = FileChannel.open(segment,
+                StandardOpenOption.WRITE)) {
+            file.write(bytes, at);
+        }
+    }
+}